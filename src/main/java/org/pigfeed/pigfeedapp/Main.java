@@ -11,6 +11,10 @@ import org.pigfeed.pigfeedapp.database.DatabaseHelper;
 public class Main extends Application {
     @Override
     public void start(Stage stage) throws Exception {
+        // Queue schema migration and cache loading before the controllers queue their
+        // first reads, which wait for it; the UI still shows without waiting
+        DatabaseHelper.initializeDatabase();
+
         // Load main tabbed interface first for fast UI display
         FXMLLoader loader = new FXMLLoader(getClass().getResource("main-tabbed-view.fxml"));
         Parent root = loader.load();
@@ -32,15 +36,12 @@ public class Main extends Application {
         stage.setScene(scene);
         stage.sizeToScene();     // make room for any padding
         stage.show();
-        
-        // Initialize database in background thread immediately after UI is shown
-        new Thread(() -> {
-            try {
-                DatabaseHelper.initializeDatabase();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }).start();
+    }
+
+    @Override
+    public void stop() {
+        // Close pooled database connections (and report how many were reused)
+        DatabaseHelper.shutdown();
     }
 
     public static void main(String[] args) {
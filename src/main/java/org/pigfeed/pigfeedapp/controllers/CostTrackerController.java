@@ -9,6 +9,12 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
+import org.pigfeed.pigfeedapp.database.CostEntryQueries;
+import org.pigfeed.pigfeedapp.database.DatabaseExecutor;
+import org.pigfeed.pigfeedapp.database.DatabaseHelper;
+import org.pigfeed.pigfeedapp.database.IngredientCatalog;
+import org.pigfeed.pigfeedapp.database.IngredientPriceCache;
+import org.pigfeed.pigfeedapp.database.UserPreferences;
 import org.pigfeed.pigfeedapp.model.CostEntry;
 import javafx.scene.control.Alert;
 
@@ -28,8 +34,6 @@ import java.awt.Desktop;
 
 public class CostTrackerController {
 
-    private static final String DB_URL = "jdbc:sqlite:pigfeed.db";
-
     // Entry form controls
     @FXML private DatePicker datePicker;
     @FXML private TextField descriptionField;
@@ -59,6 +63,7 @@ public class CostTrackerController {
     @FXML private Label totalCostLabel;
     @FXML private Label entryCountLabel;
     @FXML private Button editButton;
+    @FXML private Button deleteButton;
     
     // Loading spinner and tabs
     @FXML private javafx.scene.layout.VBox costLoadingPane;
@@ -101,8 +106,17 @@ public class CostTrackerController {
         
         File file = fileChooser.showSaveDialog(costTable.getScene().getWindow());
         if (file != null) {
-            try {
-                exportCostDataToExcel(file);
+            // Snapshot the table on the FX thread; the report queries and the file
+            // writing happen on a database reader thread
+            List<CostEntry> entries = new ArrayList<>(costData);
+            DatabaseHelper.getExecutor().read(conn -> {
+                exportCostDataToExcel(conn, file, entries);
+                return file;
+            }).whenCompleteAsync((exported, error) -> {
+                if (error != null) {
+                    showAlert("Error exporting to Excel: " + rootMessage(error));
+                    return;
+                }
                 showAlert("Excel file exported successfully to: " + file.getAbsolutePath());
                 
                 // Ask if user wants to open the file
@@ -112,19 +126,20 @@ public class CostTrackerController {
                 openAlert.setContentText("Would you like to open the file now?");
                 
                 if (openAlert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
-                    if (Desktop.isDesktopSupported()) {
-                        Desktop.getDesktop().open(file);
+                    try {
+                        if (Desktop.isDesktopSupported()) {
+                            Desktop.getDesktop().open(file);
+                        }
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        showAlert("Could not open the exported file: " + e.getMessage());
                     }
                 }
-                
-            } catch (Exception e) {
-                e.printStackTrace();
-                showAlert("Error exporting to Excel: " + e.getMessage());
-            }
+            }, DatabaseExecutor.FX_THREAD);
         }
     }
     
-    private void exportCostDataToExcel(File file) throws Exception {
+    private void exportCostDataToExcel(Connection conn, File file, List<CostEntry> entries) throws Exception {
         try (Workbook workbook = new XSSFWorkbook()) {
             // Create styles
             CellStyle headerStyle = workbook.createCellStyle();
@@ -154,15 +169,15 @@ public class CostTrackerController {
             
             // Sheet 1: All Cost Entries
             Sheet entriesSheet = workbook.createSheet("Cost Entries");
-            createCostEntriesSheet(entriesSheet, headerStyle, titleStyle, dateStyle, currencyStyle);
+            createCostEntriesSheet(entriesSheet, entries, headerStyle, titleStyle, dateStyle, currencyStyle);
             
             // Sheet 2: Category Summary
             Sheet categorySheet = workbook.createSheet("Category Summary");
-            createCategorySummarySheet(categorySheet, headerStyle, titleStyle, currencyStyle);
+            createCategorySummarySheet(conn, categorySheet, headerStyle, titleStyle, currencyStyle);
             
             // Sheet 3: Monthly Details
             Sheet monthlySheet = workbook.createSheet("Monthly Details");
-            createMonthlyDetailsSheet(monthlySheet, headerStyle, titleStyle, currencyStyle);
+            createMonthlyDetailsSheet(conn, monthlySheet, headerStyle, titleStyle, currencyStyle);
             
             // Write to file
             try (FileOutputStream fileOut = new FileOutputStream(file)) {
@@ -171,7 +186,7 @@ public class CostTrackerController {
         }
     }
     
-    private void createCostEntriesSheet(Sheet sheet, CellStyle headerStyle, CellStyle titleStyle, 
+    private void createCostEntriesSheet(Sheet sheet, List<CostEntry> entries, CellStyle headerStyle, CellStyle titleStyle, 
                                       CellStyle dateStyle, CellStyle currencyStyle) {
         int rowNum = 0;
         
@@ -199,7 +214,7 @@ public class CostTrackerController {
         
         // Data rows
         double totalCost = 0.0;
-        for (CostEntry entry : costData) {
+        for (CostEntry entry : entries) {
             Row row = sheet.createRow(rowNum++);
             
             // Date
@@ -247,7 +262,7 @@ public class CostTrackerController {
         
         // Calculate YTD total (current year)
         int currentYear = LocalDate.now().getYear();
-        double ytdTotal = costData.stream()
+        double ytdTotal = entries.stream()
             .filter(entry -> entry.getDate() != null && entry.getDate().getYear() == currentYear)
             .mapToDouble(CostEntry::getCost)
             .sum();
@@ -275,7 +290,7 @@ public class CostTrackerController {
         }
     }
     
-    private void createCategorySummarySheet(Sheet sheet, CellStyle headerStyle, CellStyle titleStyle, CellStyle currencyStyle) {
+    private void createCategorySummarySheet(Connection conn, Sheet sheet, CellStyle headerStyle, CellStyle titleStyle, CellStyle currencyStyle) throws SQLException {
         int rowNum = 0;
         
         // Title
@@ -295,8 +310,8 @@ public class CostTrackerController {
         headerRow.getCell(1).setCellStyle(headerStyle);
         
         // Get category data (all time and YTD)
-        List<CategoryReportEntry> categories = getCategoryData();
-        List<CategoryReportEntry> ytdCategories = getCategoryDataYTD();
+        List<CategoryReportEntry> categories = getCategoryData(conn);
+        List<CategoryReportEntry> ytdCategories = getCategoryDataYTD(conn);
         double grandTotal = 0.0;
         double ytdGrandTotal = 0.0;
         
@@ -352,7 +367,7 @@ public class CostTrackerController {
         sheet.autoSizeColumn(2);
     }
     
-    private void createMonthlyDetailsSheet(Sheet sheet, CellStyle headerStyle, CellStyle titleStyle, CellStyle currencyStyle) {
+    private void createMonthlyDetailsSheet(Connection conn, Sheet sheet, CellStyle headerStyle, CellStyle titleStyle, CellStyle currencyStyle) throws SQLException {
         int rowNum = 0;
         
         // Title
@@ -374,7 +389,7 @@ public class CostTrackerController {
         }
         
         // Get monthly details data
-        List<DetailReportEntry> details = getMonthlyDetailsData();
+        List<DetailReportEntry> details = getMonthlyDetailsData(conn);
         
         for (DetailReportEntry detail : details) {
             Row row = sheet.createRow(rowNum++);
@@ -394,86 +409,68 @@ public class CostTrackerController {
         }
     }
     
-    private List<CategoryReportEntry> getCategoryData() {
+    private List<CategoryReportEntry> getCategoryData(Connection conn) throws SQLException {
+        return getCategoryTotals(conn, CostEntryQueries.FIRST_MONTH, CostEntryQueries.AFTER_LAST_MONTH);
+    }
+    
+    private List<CategoryReportEntry> getCategoryDataYTD(Connection conn) throws SQLException {
+        int currentYear = LocalDate.now().getYear();
+        return getCategoryTotals(conn, currentYear + "-01", (currentYear + 1) + "-01");
+    }
+    
+    private static List<CategoryReportEntry> getCategoryTotals(Connection conn, String fromMonth, String toMonth) throws SQLException {
         List<CategoryReportEntry> categories = new ArrayList<>();
-        String sql = "SELECT category, SUM(cost) as total FROM cost_entries GROUP BY category ORDER BY total DESC";
         
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                categories.add(new CategoryReportEntry(
-                    rs.getString("category"),
-                    rs.getDouble("total")
-                ));
+        try (PreparedStatement ps = conn.prepareStatement(CostEntryQueries.CATEGORY_TOTALS_BETWEEN)) {
+            ps.setString(1, fromMonth);
+            ps.setString(2, toMonth);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    categories.add(new CategoryReportEntry(
+                        rs.getString("category"),
+                        rs.getDouble("total")
+                    ));
+                }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
         
         return categories;
     }
     
-    private List<CategoryReportEntry> getCategoryDataYTD() {
-        List<CategoryReportEntry> categories = new ArrayList<>();
-        int currentYear = LocalDate.now().getYear();
-        String sql = "SELECT category, SUM(cost) as total FROM cost_entries WHERE strftime('%Y', date) = ? GROUP BY category ORDER BY total DESC";
+    private List<DetailReportEntry> getMonthlyDetailsData(Connection conn) throws SQLException {
+        List<DetailReportEntry> details = new ArrayList<>();
         
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setString(1, String.valueOf(currentYear));
-            ResultSet rs = ps.executeQuery();
-            
-            while (rs.next()) {
-                categories.add(new CategoryReportEntry(
-                    rs.getString("category"),
-                    rs.getDouble("total")
-                ));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        for (DetailReportEntry month : getMonthlyTotals(conn)) {
+            String displayMonth = LocalDate.parse(month.getPeriod() + "-01").format(DateTimeFormatter.ofPattern("MMM yyyy"));
+            details.add(new DetailReportEntry(displayMonth, month.getCategory(), month.getAmount(), month.getCount()));
         }
         
-        return categories;
+        return details;
     }
     
-    private List<DetailReportEntry> getMonthlyDetailsData() {
-        List<DetailReportEntry> details = new ArrayList<>();
-        String sql = """
-            SELECT 
-                strftime('%Y-%m', date) as month,
-                category,
-                SUM(cost) as total,
-                COUNT(*) as count
-            FROM cost_entries 
-            GROUP BY strftime('%Y-%m', date), category 
-            ORDER BY month DESC, category
-            """;
-        
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                String monthStr = rs.getString("month");
-                String displayMonth = monthStr != null ? 
-                    LocalDate.parse(monthStr + "-01").format(DateTimeFormatter.ofPattern("MMM yyyy")) : 
-                    "Unknown";
-                    
-                details.add(new DetailReportEntry(
-                    displayMonth,
-                    rs.getString("category"),
-                    rs.getDouble("total"),
-                    rs.getInt("count")
-                ));
+    /**
+     * Every (month, category) total from the spending rollup, newest month first.
+     * The period of each entry is the raw yyyy-MM month.
+     */
+    private static List<DetailReportEntry> getMonthlyTotals(Connection conn) throws SQLException {
+        List<DetailReportEntry> months = new ArrayList<>();
+        
+        try (PreparedStatement ps = conn.prepareStatement(CostEntryQueries.MONTHLY_CATEGORY_TOTALS)) {
+            ps.setString(1, CostEntryQueries.FIRST_MONTH);
+            ps.setString(2, CostEntryQueries.AFTER_LAST_MONTH);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    months.add(new DetailReportEntry(
+                        rs.getString("month"),
+                        rs.getString("category"),
+                        rs.getDouble("total"),
+                        rs.getInt("count")
+                    ));
+                }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
         
-        return details;
+        return months;
     }
     
 
@@ -523,16 +520,19 @@ public class CostTrackerController {
         
         // Initialize price unit combo
         priceUnitCombo.getItems().addAll("lb", "50lbs", "100lbs", "ton");
-        // Load last selected price unit, default to 50lbs
-        String lastPriceUnit = loadLastPriceUnit();
-        priceUnitCombo.setValue(lastPriceUnit != null ? lastPriceUnit : "50lbs");
-        
-        // Save price unit when changed
-        priceUnitCombo.valueProperty().addListener((obs, oldVal, newVal) -> {
-            if (newVal != null) {
-                saveLastPriceUnit(newVal);
-            }
-        });
+        priceUnitCombo.setValue("50lbs");
+        // Load last selected price unit, then start saving changes to it
+        DatabaseHelper.getExecutor().read(conn -> loadLastPriceUnit(conn))
+            .thenAcceptAsync(lastPriceUnit -> {
+                if (lastPriceUnit != null) {
+                    priceUnitCombo.setValue(lastPriceUnit);
+                }
+                priceUnitCombo.valueProperty().addListener((obs, oldVal, newVal) -> {
+                    if (newVal != null) {
+                        saveLastPriceUnit(newVal);
+                    }
+                });
+            }, DatabaseExecutor.FX_THREAD);
         
         // Show/hide feed type selection based on expense type
         expenseTypeCombo.valueProperty().addListener((obs, oldVal, newVal) -> {
@@ -542,11 +542,7 @@ public class CostTrackerController {
             priceUnitLabel.setVisible(isFeedExpense);
             priceUnitCombo.setVisible(isFeedExpense);
             if (isFeedExpense && ingredientCombo.getItems().isEmpty()) {
-                new Thread(() -> {
-                    javafx.application.Platform.runLater(() -> {
-                        loadIngredientsIntoCombo();
-                    });
-                }).start();
+                loadIngredientsIntoCombo();
             }
         });
         
@@ -557,11 +553,7 @@ public class CostTrackerController {
         priceUnitCombo.setVisible(true);
         
         // Load ingredients in background to avoid blocking startup
-        new Thread(() -> {
-            javafx.application.Platform.runLater(() -> {
-                loadIngredientsIntoCombo();
-            });
-        }).start();
+        loadIngredientsIntoCombo();
         
         // Auto-populate previous purchase info when ingredient is selected
         ingredientCombo.valueProperty().addListener((obs, oldVal, newVal) -> {
@@ -659,20 +651,11 @@ public class CostTrackerController {
         // Bind table to data
         costTable.setItems(costData);
 
-        // Load existing data in background
-        new Thread(() -> {
-            try {
-                Thread.sleep(100); // Brief delay to show loading
-                javafx.application.Platform.runLater(() -> {
-                    loadCostEntries();
-                    // Hide loading spinner and show table
-                    costLoadingPane.setVisible(false);
-                    costTable.setVisible(true);
-                });
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
+        // Load existing data in background, then hide loading spinner and show table
+        loadCostEntries().thenRunAsync(() -> {
+            costLoadingPane.setVisible(false);
+            costTable.setVisible(true);
+        }, DatabaseExecutor.FX_THREAD);
 
         // Listen for changes to update summary
         costData.addListener((javafx.collections.ListChangeListener<CostEntry>) change -> {
@@ -683,6 +666,7 @@ public class CostTrackerController {
         // Enable/disable edit button based on selection
         costTable.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             editButton.setDisable(newSelection == null);
+            deleteButton.setDisable(newSelection == null);
         });
         
         // Initialize reports tab only when first accessed to avoid blocking startup
@@ -698,6 +682,9 @@ public class CostTrackerController {
             if (newTab == reportsTab && !reportsInitialized) {
                 initializeReportsTab();
                 reportsInitialized = true;
+            } else if (newTab == reportsTab) {
+                // Entries may have changed since the last visit; the rollup is already current
+                updateReports();
             }
         });
     }
@@ -746,39 +733,35 @@ public class CostTrackerController {
         updateReports();
     }
 
+    // Monthly rollup rows behind the Reports tab (period = yyyy-MM), newest first
+    private List<DetailReportEntry> reportMonthlyTotals = new ArrayList<>();
+    
     private void updateReports() {
         if (reportPeriodCombo == null || reportPeriodCombo.getValue() == null) return;
         
-        String period = reportPeriodCombo.getValue();
+        // The rollup has one row per month and category, so this read stays small
+        // however many entries the ledger holds
+        DatabaseHelper.getExecutor().read(CostTrackerController::getMonthlyTotals)
+            .whenCompleteAsync((months, error) -> {
+                if (error != null) {
+                    showError("Database Error", "Could not load reports: " + rootMessage(error));
+                    return;
+                }
+                reportMonthlyTotals = months;
+                showReports(reportPeriodCombo.getValue());
+            }, DatabaseExecutor.FX_THREAD);
+    }
+    
+    private void showReports(String period) {
         categoryReportData.clear();
         detailReportData.clear();
         
         // Calculate category totals based on period
-        java.util.Map<String, Double> categoryTotals = new java.util.HashMap<>();
-        java.util.Map<String, Integer> categoryCounts = new java.util.HashMap<>();
+        java.util.Map<String, Double> categoryTotals = new java.util.LinkedHashMap<>();
         
-        java.time.LocalDate now = java.time.LocalDate.now();
-        
-        for (CostEntry entry : costData) {
-            boolean includeEntry = false;
-            
-            switch (period) {
-                case "Monthly":
-                    includeEntry = entry.getDate().getYear() == now.getYear() && 
-                                 entry.getDate().getMonth() == now.getMonth();
-                    break;
-                case "Yearly":
-                    includeEntry = entry.getDate().getYear() == now.getYear();
-                    break;
-                case "All Time":
-                    includeEntry = true;
-                    break;
-            }
-            
-            if (includeEntry) {
-                String category = entry.getCategory();
-                categoryTotals.put(category, categoryTotals.getOrDefault(category, 0.0) + entry.getCost());
-                categoryCounts.put(category, categoryCounts.getOrDefault(category, 0) + 1);
+        for (DetailReportEntry month : reportMonthlyTotals) {
+            if (isMonthInPeriod(month.getPeriod(), period)) {
+                categoryTotals.merge(month.getCategory(), month.getAmount(), Double::sum);
             }
         }
         
@@ -800,20 +783,42 @@ public class CostTrackerController {
         updateChart();
     }
     
+    private static boolean isMonthInPeriod(String month, String period) {
+        String currentMonth = LocalDate.now().toString().substring(0, 7);
+        switch (period) {
+            case "Monthly":
+                return month.equals(currentMonth);
+            case "Yearly":
+                return month.startsWith(currentMonth.substring(0, 4));
+            case "All Time":
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Turns a yyyy-MM rollup month into the label used in the details table, e.g. "MARCH 2025".
+     */
+    private static String formatReportMonth(String month) {
+        java.time.YearMonth yearMonth = java.time.YearMonth.parse(month);
+        return yearMonth.getMonth().toString() + " " + yearMonth.getYear();
+    }
+    
     private void populateDetailsTable(String period) {
         if ("All Time".equals(period)) {
             // Show yearly breakdown
-            java.util.Map<String, java.util.Map<String, Double>> yearlyData = new java.util.HashMap<>();
-            java.util.Map<String, java.util.Map<String, Integer>> yearlyCounts = new java.util.HashMap<>();
+            java.util.Map<String, java.util.Map<String, Double>> yearlyData = new java.util.LinkedHashMap<>();
+            java.util.Map<String, java.util.Map<String, Integer>> yearlyCounts = new java.util.LinkedHashMap<>();
             
-            for (CostEntry entry : costData) {
-                String year = String.valueOf(entry.getDate().getYear());
-                String category = entry.getCategory();
+            for (DetailReportEntry month : reportMonthlyTotals) {
+                String year = month.getPeriod().substring(0, 4);
+                String category = month.getCategory();
                 
-                yearlyData.computeIfAbsent(year, k -> new java.util.HashMap<>())
-                          .merge(category, entry.getCost(), Double::sum);
-                yearlyCounts.computeIfAbsent(year, k -> new java.util.HashMap<>())
-                           .merge(category, 1, Integer::sum);
+                yearlyData.computeIfAbsent(year, k -> new java.util.LinkedHashMap<>())
+                          .merge(category, month.getAmount(), Double::sum);
+                yearlyCounts.computeIfAbsent(year, k -> new java.util.LinkedHashMap<>())
+                           .merge(category, month.getCount(), Integer::sum);
             }
             
             for (String year : yearlyData.keySet()) {
@@ -827,32 +832,16 @@ public class CostTrackerController {
             }
             detailsHeaderLabel.setText("Yearly Details");
         } else {
-            // Show monthly breakdown
-            java.util.Map<String, java.util.Map<String, Double>> monthlyData = new java.util.HashMap<>();
-            java.util.Map<String, java.util.Map<String, Integer>> monthlyCounts = new java.util.HashMap<>();
-            
-            int targetYear = "Yearly".equals(period) ? java.time.LocalDate.now().getYear() : 0;
+            // Show monthly breakdown; the rollup already has one row per month and category
+            String targetYear = "Yearly".equals(period) ? String.valueOf(LocalDate.now().getYear()) : null;
             
-            for (CostEntry entry : costData) {
-                if (targetYear > 0 && entry.getDate().getYear() != targetYear) continue;
-                
-                String monthYear = entry.getDate().getMonth().toString() + " " + entry.getDate().getYear();
-                String category = entry.getCategory();
+            for (DetailReportEntry month : reportMonthlyTotals) {
+                if (targetYear != null && !month.getPeriod().startsWith(targetYear)) continue;
                 
-                monthlyData.computeIfAbsent(monthYear, k -> new java.util.HashMap<>())
-                          .merge(category, entry.getCost(), Double::sum);
-                monthlyCounts.computeIfAbsent(monthYear, k -> new java.util.HashMap<>())
-                           .merge(category, 1, Integer::sum);
-            }
-            
-            for (String monthYear : monthlyData.keySet()) {
-                for (String category : monthlyData.get(monthYear).keySet()) {
-                    detailReportData.add(new DetailReportEntry(
-                        monthYear, category,
-                        monthlyData.get(monthYear).get(category),
-                        monthlyCounts.get(monthYear).getOrDefault(category, 0)
-                    ));
-                }
+                detailReportData.add(new DetailReportEntry(
+                    formatReportMonth(month.getPeriod()), month.getCategory(),
+                    month.getAmount(), month.getCount()
+                ));
             }
             detailsHeaderLabel.setText("Monthly Details");
         }
@@ -863,40 +852,13 @@ public class CostTrackerController {
         detailReportData.clear();
         String period = reportPeriodCombo.getValue();
         
-        java.util.Map<String, Double> periodTotals = new java.util.HashMap<>();
-        java.util.Map<String, Integer> periodCounts = new java.util.HashMap<>();
-        
-        for (CostEntry entry : costData) {
-            if (!entry.getCategory().equals(selectedCategory)) continue;
+        for (DetailReportEntry month : reportMonthlyTotals) {
+            if (!month.getCategory().equals(selectedCategory)) continue;
+            if (!isMonthInPeriod(month.getPeriod(), period)) continue;
             
-            boolean includeEntry = false;
-            java.time.LocalDate now = java.time.LocalDate.now();
-            
-            switch (period) {
-                case "Monthly":
-                    includeEntry = entry.getDate().getYear() == now.getYear() && 
-                                 entry.getDate().getMonth() == now.getMonth();
-                    break;
-                case "Yearly":
-                    includeEntry = entry.getDate().getYear() == now.getYear();
-                    break;
-                case "All Time":
-                    includeEntry = true;
-                    break;
-            }
-            
-            if (includeEntry) {
-                String monthYear = entry.getDate().getMonth().toString() + " " + entry.getDate().getYear();
-                periodTotals.merge(monthYear, entry.getCost(), Double::sum);
-                periodCounts.merge(monthYear, 1, Integer::sum);
-            }
-        }
-        
-        for (String monthYear : periodTotals.keySet()) {
             detailReportData.add(new DetailReportEntry(
-                monthYear, selectedCategory,
-                periodTotals.get(monthYear),
-                periodCounts.get(monthYear)
+                formatReportMonth(month.getPeriod()), selectedCategory,
+                month.getAmount(), month.getCount()
             ));
         }
         
@@ -1006,11 +968,20 @@ public class CostTrackerController {
             // Create new entry: store total cost and total pounds/units
             CostEntry entry = new CostEntry(date, description, category, ingredient, unitSize, totalCost, totalPounds);
             
-            // Save to database
-            saveCostEntry(entry);
-            
-            // Add to table
-            costData.add(entry);
+            if (editingEntry != null && costData.contains(editingEntry)) {
+                // Save the edited values over the original row (same id) and replace it in the table
+                CostEntry original = editingEntry;
+                entry.setId(original.getId());
+                updateCostEntry(original, entry);
+                costData.set(costData.indexOf(original), entry);
+            } else {
+                // Save to database
+                saveCostEntry(entry);
+                
+                // Add to table
+                costData.add(entry);
+            }
+            editingEntry = null;
             
             // Clear form
             clearForm();
@@ -1020,61 +991,110 @@ public class CostTrackerController {
         }
     }
 
+    // Entry loaded into the form by "Edit"; the next save updates it instead of adding a new one
+    private CostEntry editingEntry;
+
     private void saveCostEntry(CostEntry entry) {
-        String sql = "INSERT INTO cost_entries (date, description, category, ingredient, unitSize, cost, quantity, total) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, entry.getDate().toString());
-            pstmt.setString(2, entry.getDescription());
-            pstmt.setString(3, entry.getCategory());
-            pstmt.setString(4, entry.getIngredient());
-            pstmt.setString(5, entry.getUnitSize());
-            pstmt.setDouble(6, entry.getCost());
-            pstmt.setDouble(7, entry.getQuantity());
-            pstmt.setDouble(8, entry.getTotal());
-            
-            pstmt.executeUpdate();
-            
-        } catch (SQLException e) {
-            showError("Database Error", "Could not save cost entry: " + e.getMessage());
-        }
+        DatabaseHelper.getExecutor().write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(CostEntryQueries.INSERT_ENTRY, Statement.RETURN_GENERATED_KEYS)) {
+                bindCostEntry(pstmt, entry);
+                
+                int rows = pstmt.executeUpdate();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        // Set here on the writer lane rather than back on the FX thread: an edit
+                        // or delete of this entry queues behind this insert and must see its id
+                        entry.setId(keys.getLong(1));
+                    }
+                }
+                DatabaseHelper.getPriceCache().entryAdded(entry.getCategory(), entry.getIngredient(),
+                    entry.getDate().toString(), entry.getCost(), entry.getQuantity(), entry.getUnitSize());
+                return rows;
+            }
+        }).whenCompleteAsync((rows, error) -> {
+            if (error != null) {
+                showError("Database Error", "Could not save cost entry: " + rootMessage(error));
+            }
+        }, DatabaseExecutor.FX_THREAD);
+    }
+
+    private void updateCostEntry(CostEntry original, CostEntry updated) {
+        DatabaseHelper.getExecutor().write(conn -> {
+            // Read the id now: if the original was only just added, its insert ran before this task
+            updated.setId(original.getId());
+            try (PreparedStatement pstmt = conn.prepareStatement(CostEntryQueries.UPDATE_ENTRY_BY_ID)) {
+                bindCostEntry(pstmt, updated);
+                pstmt.setLong(9, updated.getId());
+                
+                int rows = pstmt.executeUpdate();
+                // Either purchase may have been (or now be) an ingredient's latest price
+                if (rows > 0 && "Feed".equals(original.getCategory())) {
+                    DatabaseHelper.getPriceCache().refresh(conn, original.getIngredient());
+                }
+                if (rows > 0 && "Feed".equals(updated.getCategory())
+                        && !updated.getIngredient().equals(original.getIngredient())) {
+                    DatabaseHelper.getPriceCache().refresh(conn, updated.getIngredient());
+                }
+                return rows;
+            }
+        }).whenCompleteAsync((rows, error) -> {
+            if (error != null) {
+                showError("Database Error", "Could not update cost entry: " + rootMessage(error));
+            }
+        }, DatabaseExecutor.FX_THREAD);
+    }
+
+    private static void bindCostEntry(PreparedStatement pstmt, CostEntry entry) throws SQLException {
+        pstmt.setString(1, entry.getDate().toString());
+        pstmt.setString(2, entry.getDescription());
+        pstmt.setString(3, entry.getCategory());
+        pstmt.setString(4, entry.getIngredient());
+        pstmt.setString(5, entry.getUnitSize());
+        pstmt.setDouble(6, entry.getCost());
+        pstmt.setDouble(7, entry.getQuantity());
+        pstmt.setDouble(8, entry.getTotal());
     }
 
-    private void loadCostEntries() {
-        costData.clear();
+    private java.util.concurrent.CompletableFuture<Void> loadCostEntries() {
         String sql = "SELECT * FROM cost_entries ORDER BY date DESC";
         
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                try {
-                    LocalDate date = LocalDate.parse(rs.getString("date"));
-                    String description = rs.getString("description");
-                    String category = rs.getString("category");
-                    String ingredient = rs.getString("ingredient");
-                    String unitSize = rs.getString("unitSize");
-                    double cost = rs.getDouble("cost");
-                    double quantity = rs.getDouble("quantity");
-                    
-                    CostEntry entry = new CostEntry(date, description, category, ingredient, unitSize != null ? unitSize : "", cost, quantity);
-                    costData.add(entry);
-                } catch (Exception e) {
-                    e.printStackTrace();
+        return DatabaseHelper.getExecutor().read(conn -> {
+            List<CostEntry> entries = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                
+                while (rs.next()) {
+                    try {
+                        LocalDate date = LocalDate.parse(rs.getString("date"));
+                        String description = rs.getString("description");
+                        String category = rs.getString("category");
+                        String ingredient = rs.getString("ingredient");
+                        String unitSize = rs.getString("unitSize");
+                        double cost = rs.getDouble("cost");
+                        double quantity = rs.getDouble("quantity");
+                        
+                        CostEntry entry = new CostEntry(date, description, category, ingredient, unitSize != null ? unitSize : "", cost, quantity);
+                        entry.setId(rs.getLong("id"));
+                        entries.add(entry);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
                 }
             }
+            return entries;
+        }).handleAsync((entries, error) -> {
+            if (error != null) {
+                showError("Database Error", "Could not load cost entries: " + rootMessage(error));
+                return null;
+            }
+            costData.setAll(entries);
             
             // Force table refresh after loading data
             if (!costData.isEmpty()) {
                 costTable.refresh();
             }
-            
-        } catch (SQLException e) {
-            showError("Database Error", "Could not load cost entries: " + e.getMessage());
-        }
+            return null;
+        }, DatabaseExecutor.FX_THREAD);
     }
 
     @FXML
@@ -1085,15 +1105,40 @@ public class CostTrackerController {
         alert.setContentText("This will permanently delete all cost entries. This action cannot be undone.");
         
         if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
-            try (Connection conn = DriverManager.getConnection(DB_URL);
-                 Statement stmt = conn.createStatement()) {
-                
-                stmt.execute("DELETE FROM cost_entries");
-                costData.clear();
-                
-            } catch (SQLException e) {
-                showError("Database Error", "Could not clear entries: " + e.getMessage());
+            DatabaseHelper.getExecutor().write(conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    int rows = stmt.executeUpdate("DELETE FROM cost_entries");
+                    DatabaseHelper.getPriceCache().clear();
+                    return rows;
+                }
+            }).whenCompleteAsync((rows, error) -> {
+                if (error != null) {
+                    showError("Database Error", "Could not clear entries: " + rootMessage(error));
+                } else {
+                    costData.clear();
+                    editingEntry = null;
+                }
+            }, DatabaseExecutor.FX_THREAD);
+        }
+    }
+
+    @FXML
+    private void deleteSelectedEntry() {
+        CostEntry selectedEntry = costTable.getSelectionModel().getSelectedItem();
+        if (selectedEntry == null) return;
+        
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Delete Entry");
+        alert.setHeaderText("Delete this entry?");
+        alert.setContentText(selectedEntry.getDate() + " - " + selectedEntry.getDescription()
+            + String.format(" ($%.2f)", selectedEntry.getCost()));
+        
+        if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
+            if (selectedEntry == editingEntry) {
+                editingEntry = null;
             }
+            costData.remove(selectedEntry);
+            deleteEntryFromDatabase(selectedEntry);
         }
     }
 
@@ -1130,9 +1175,9 @@ public class CostTrackerController {
             quantityField.setText(String.format("%.0f", originalQuantityUnits));
         }
         
-        // Remove the selected entry from table and database so it can be re-added
-        costData.remove(selectedEntry);
-        deleteEntryFromDatabase(selectedEntry);
+        // The entry stays in the table and database until the changes are saved,
+        // then it is updated in place by id
+        editingEntry = selectedEntry;
         
         showInfo("Edit Entry", "Entry loaded for editing. Modify the values and click 'Add Entry' to save changes.");
     }
@@ -1208,20 +1253,25 @@ public class CostTrackerController {
         entryCountLabel.setText("Entries: " + costData.size());
     }
 
-    private void loadIngredientsIntoCombo() {
-        ingredientCombo.getItems().clear();
+    private java.util.concurrent.CompletableFuture<Void> loadIngredientsIntoCombo() {
         String sql = "SELECT name FROM ingredients ORDER BY name";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                ingredientCombo.getItems().add(rs.getString("name"));
+        return DatabaseHelper.getExecutor().read(conn -> {
+            List<String> names = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    names.add(rs.getString("name"));
+                }
             }
-            
-        } catch (SQLException e) {
-            showError("Database Error", "Could not load ingredients: " + e.getMessage());
-        }
+            return names;
+        }).handleAsync((names, error) -> {
+            if (error != null) {
+                showError("Database Error", "Could not load ingredients: " + rootMessage(error));
+            } else {
+                ingredientCombo.getItems().setAll(names);
+            }
+            return null;
+        }, DatabaseExecutor.FX_THREAD);
     }
     
     private void loadPreviousPurchaseInfo(String ingredientName) {
@@ -1229,45 +1279,42 @@ public class CostTrackerController {
         descriptionField.setText(ingredientName);
         
         // Then try to load the most recent purchase info for this ingredient
-        String sql = "SELECT cost, quantity FROM cost_entries WHERE ingredient = ? AND category = 'Feed' ORDER BY date DESC LIMIT 1";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setString(1, ingredientName);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    // Auto-populate with previous purchase info
-                    double cost = rs.getDouble("cost");
-                    double quantity = rs.getDouble("quantity");
-                    
-                    costField.setText(String.format("%.2f", cost));
-                    quantityField.setText(String.format("%.0f", quantity));
+        String sql = CostEntryQueries.LATEST_FEED_PURCHASE;
+        DatabaseHelper.getExecutor().read(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, ingredientName);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? new double[] { rs.getDouble("cost"), rs.getDouble("quantity") } : null;
                 }
             }
-            
-        } catch (SQLException e) {
-            // If no previous purchase found or error, just keep the description
-        }
+        }).thenAcceptAsync(previous -> {
+            // If no previous purchase found, just keep the description.
+            // Skip it too if the user already picked another ingredient meanwhile.
+            if (previous != null && ingredientName.equals(ingredientCombo.getValue())) {
+                // Auto-populate with previous purchase info
+                costField.setText(String.format("%.2f", previous[0]));
+                quantityField.setText(String.format("%.0f", previous[1]));
+            }
+        }, DatabaseExecutor.FX_THREAD);
     }
 
     private void deleteEntryFromDatabase(CostEntry entry) {
-        // Use ROWID to delete the specific entry since SQLite doesn't support LIMIT in DELETE
-        String sql = "DELETE FROM cost_entries WHERE ROWID = (SELECT ROWID FROM cost_entries WHERE date = ? AND description = ? AND category = ? AND cost = ? AND quantity = ? AND unitSize = ? LIMIT 1)";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, entry.getDate().toString());
-            pstmt.setString(2, entry.getDescription());
-            pstmt.setString(3, entry.getCategory());
-            pstmt.setDouble(4, entry.getCost());
-            pstmt.setDouble(5, entry.getQuantity());
-            pstmt.setString(6, entry.getUnitSize());
-            
-            pstmt.executeUpdate();
-            
-        } catch (SQLException e) {
-            showError("Database Error", "Could not delete cost entry: " + e.getMessage());
-        }
+        DatabaseHelper.getExecutor().write(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(CostEntryQueries.DELETE_ENTRY_BY_ID)) {
+                pstmt.setLong(1, entry.getId());
+                
+                int rows = pstmt.executeUpdate();
+                if (rows > 0 && "Feed".equals(entry.getCategory())) {
+                    // The deleted purchase may have been this ingredient's latest price
+                    DatabaseHelper.getPriceCache().refresh(conn, entry.getIngredient());
+                }
+                return rows;
+            }
+        }).whenCompleteAsync((rows, error) -> {
+            if (error != null) {
+                showError("Database Error", "Could not delete cost entry: " + rootMessage(error));
+            }
+        }, DatabaseExecutor.FX_THREAD);
     }
 
     /**
@@ -1276,13 +1323,7 @@ public class CostTrackerController {
      * So we calculate $15 ÷ 50 lbs = $0.30/lb instead of $15/lb
      */
     private double getPoundsPerUnit(String priceUnit) {
-        return switch (priceUnit) {
-            case "lb" -> 1.0;        // Individual pounds
-            case "50lbs" -> 50.0;    // Standard feed bag size
-            case "100lbs" -> 100.0;  // Large feed bag
-            case "ton" -> 2000.0;    // Bulk feed purchase (1 ton = 2000 lbs)
-            default -> 1.0;          // Default to 1 lb if unknown unit
-        };
+        return IngredientPriceCache.poundsPerUnit(priceUnit);
     }
 
     @FXML
@@ -1296,12 +1337,11 @@ public class CostTrackerController {
         java.util.Optional<String> result = dialog.showAndWait();
         result.ifPresent(feedTypeName -> {
             if (!feedTypeName.trim().isEmpty()) {
-                // Add the new feed type to the ingredients table with basic nutrition values
-                addNewFeedType(feedTypeName.trim());
-                // Refresh the dropdown
-                loadIngredientsIntoCombo();
-                // Select the newly added feed type
-                ingredientCombo.setValue(feedTypeName.trim());
+                // Add the new feed type to the ingredients table with basic nutrition values,
+                // then refresh the dropdown and select the newly added feed type
+                addNewFeedType(feedTypeName.trim())
+                    .thenCompose(added -> loadIngredientsIntoCombo())
+                    .thenRunAsync(() -> ingredientCombo.setValue(feedTypeName.trim()), DatabaseExecutor.FX_THREAD);
             }
         });
     }
@@ -1310,27 +1350,30 @@ public class CostTrackerController {
      * Adds a new feed type to the ingredients database with default nutrition values
      * Users can later edit these values in the Feed Mix Calculator
      */
-    private void addNewFeedType(String feedTypeName) {
+    private java.util.concurrent.CompletableFuture<Void> addNewFeedType(String feedTypeName) {
         String sql = "INSERT OR REPLACE INTO ingredients(name, crudeProtein, crudeFat, crudeFiber, lysine) VALUES(?,?,?,?,?)";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setString(1, feedTypeName);
-            // Set default nutrition values - users can edit these later
-            ps.setDouble(2, 14.0);  // Default protein %
-            ps.setDouble(3, 4.0);   // Default fat %
-            ps.setDouble(4, 5.0);   // Default fiber %
-            ps.setDouble(5, 0.8);   // Default lysine %
-            
-            ps.executeUpdate();
-            
+        return DatabaseHelper.getExecutor().write(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, feedTypeName);
+                // Set default nutrition values - users can edit these later
+                ps.setDouble(2, 14.0);  // Default protein %
+                ps.setDouble(3, 4.0);   // Default fat %
+                ps.setDouble(4, 5.0);   // Default fiber %
+                ps.setDouble(5, 0.8);   // Default lysine %
+                
+                int rows = ps.executeUpdate();
+                IngredientCatalog.update(catalog -> catalog.withIngredient(feedTypeName, 14.0, 4.0, 5.0, 0.8));
+                return rows;
+            }
+        }).handleAsync((rows, error) -> {
+            if (error != null) {
+                showError("Database Error", "Could not add feed type: " + rootMessage(error));
+                throw new java.util.concurrent.CompletionException(error);
+            }
             showSuccess("Success", "Feed type '" + feedTypeName + "' added successfully!\n" + 
                        "Default nutrition values have been set. You can edit them in the Feed Mix Calculator.");
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            showError("Database Error", "Could not add feed type: " + e.getMessage());
-        }
+            return null;
+        }, DatabaseExecutor.FX_THREAD);
     }
 
     /**
@@ -1389,32 +1432,22 @@ public class CostTrackerController {
         alert.showAndWait();
     }
     
-    private String loadLastPriceUnit() {
-        String sql = "SELECT value FROM user_preferences WHERE key = 'lastPriceUnit'";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("value");
-                }
-            }
-        } catch (SQLException e) {
-            // Ignore error, will return null to use default
-        }
-        return null; // Default to null so caller can use "50lbs"
+    private String loadLastPriceUnit(Connection conn) {
+        // Null so the caller can use "50lbs"
+        return UserPreferences.get(conn, "lastPriceUnit", null);
     }
     
     private void saveLastPriceUnit(String priceUnit) {
-        String sql = "INSERT OR REPLACE INTO user_preferences (key, value) VALUES ('lastPriceUnit', ?)";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setString(1, priceUnit);
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            // Silently ignore error
-        }
+        UserPreferences.save("lastPriceUnit", priceUnit);
+    }
+    
+    /**
+     * Message of the exception behind a failed database future.
+     */
+    private static String rootMessage(Throwable error) {
+        Throwable cause = error instanceof java.util.concurrent.CompletionException && error.getCause() != null
+            ? error.getCause() : error;
+        return cause.getMessage();
     }
     
     private void showAlert(String message) {
@@ -8,8 +8,30 @@ import javafx.scene.control.cell.TextFieldTableCell;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 import javafx.util.converter.NumberStringConverter;
+import org.pigfeed.pigfeedapp.database.CurrentMixWriter;
+import org.pigfeed.pigfeedapp.database.DatabaseExecutor;
+import org.pigfeed.pigfeedapp.database.DatabaseHelper;
+import org.pigfeed.pigfeedapp.database.IngredientCatalog;
+import org.pigfeed.pigfeedapp.database.IngredientPriceCache;
+import org.pigfeed.pigfeedapp.database.SavedMixes;
+import org.pigfeed.pigfeedapp.database.UserPreferences;
+import org.pigfeed.pigfeedapp.formulation.FormulationEngine;
+import org.pigfeed.pigfeedapp.formulation.FormulationProblem;
+import org.pigfeed.pigfeedapp.formulation.FormulationResult;
+import org.pigfeed.pigfeedapp.formulation.Infeasibility;
+import org.pigfeed.pigfeedapp.formulation.ParetoFrontier;
+import org.pigfeed.pigfeedapp.formulation.PriceRisk;
+import org.pigfeed.pigfeedapp.formulation.ProfileResult;
+import org.pigfeed.pigfeedapp.formulation.Reformulation;
+import org.pigfeed.pigfeedapp.formulation.Sensitivity;
+import org.pigfeed.pigfeedapp.formulation.TargetProfile;
+import org.pigfeed.pigfeedapp.formulation.WarmStarts;
+import org.pigfeed.pigfeedapp.formulation.WholeUnitMix;
 import org.pigfeed.pigfeedapp.model.FeedMixEntry;
 import org.pigfeed.pigfeedapp.model.SavedMix;
+import org.pigfeed.pigfeedapp.service.FeedMixOptimizer;
+import org.pigfeed.pigfeedapp.service.PurchaseReoptimizer;
+import org.pigfeed.pigfeedapp.service.SavedMixPriceRisk;
 
 import java.sql.*;
 import java.io.IOException;
@@ -33,8 +55,6 @@ import javafx.scene.Scene;
 
 public class FeedMixCalculatorController {
 
-    private static final String DB_URL = "jdbc:sqlite:pigfeed.db";
-    
     private boolean updatingComboBox = false; // Flag to prevent recursive updates
     private ObservableList<String> cachedIngredients = FXCollections.observableArrayList(); // Cache ingredients list
     private static boolean dataInitialized = false; // Prevent reloading data when switching screens
@@ -48,6 +68,8 @@ public class FeedMixCalculatorController {
     @FXML private TextField crudeFatField;
     @FXML private TextField crudeFiberField;
     @FXML private TextField lysineField;
+    @FXML private TextField minInclusionField;
+    @FXML private TextField maxInclusionField;
 
     // --- Save/Load mix controls ---
     @FXML private ComboBox<SavedMix> savedMixCombo;
@@ -71,6 +93,7 @@ public class FeedMixCalculatorController {
     @FXML private Label totalLysineLabel;
     @FXML private Label avgPricePerLbLabel;
     @FXML private Label totalCostLabel;
+    @FXML private Label sensitivityLabel;
     
     // Loading and content panes
     @FXML private VBox loadingPane;
@@ -78,12 +101,34 @@ public class FeedMixCalculatorController {
     
 
     private final ObservableList<FeedMixEntry> feedData = FXCollections.observableArrayList();
+    
+    // Refreshes the totals when Cost Tracker changes a price (only the newest controller listens)
+    private static IngredientPriceCache.Listener priceListener;
+    
+    // Re-solves the mixes when a Feed purchase changes a price (only the newest controller listens)
+    private static IngredientPriceCache.PurchaseListener purchaseListener;
+    
+    // Optimization running in the background, if any (only one at a time)
+    private javafx.concurrent.Task<?> optimizationTask;
+    
+    // Last optimal basis of each mix optimized here; only this tab's optimize and frontier
+    // runs use it, so background re-optimization never changes where they start from
+    private final WarmStarts warmStarts = new WarmStarts();
+    
+    // Purchases waiting for the next re-optimization run, and whether one is running (FX thread only)
+    private final java.util.Set<String> pendingPurchases = new java.util.HashSet<>();
+    private boolean reoptimizationRunning = false;
+    private final SavingsWindow savingsWindow = new SavingsWindow();
+    
+    // Weights of the least-cost mix the sensitivity label describes; it is cleared once the mix changes
+    private Map<String, Double> sensitivityMix;
 
     @FXML
     public void initialize() {
         // Fast initialization - only essential items
         setupBasicTable();
         setupDropdownPromptBehavior();
+        listenForPriceChanges();
         
         // If data is already pre-loaded AND we have actual data, restore everything immediately
         if (dataInitialized && !staticFeedData.isEmpty()) {
@@ -107,14 +152,13 @@ public class FeedMixCalculatorController {
                 ingredientModeCombo.setPromptText("Edit Existing Ingredient");
             });
         } else {
-            // First time loading - show spinner and load data
-            javafx.application.Platform.runLater(() -> {
-                loadAllIngredients();
-                setupTableCellFactories();
-                setupIngredientModeListener();
-                loadSavedFeedMix();
+            // First time loading - show spinner while the database reads run in the background
+            setupTableCellFactories();
+            setupIngredientModeListener();
+            loadAllIngredients();
+            loadSavedMixes(); // Load saved mixes dropdown
+            loadSavedFeedMix().thenRun(() -> {
                 ensureEmptyRowExists();
-                loadSavedMixes(); // Load saved mixes dropdown
                 dataInitialized = true;
                 
                 // Hide loading spinner and show content
@@ -340,27 +384,106 @@ public class FeedMixCalculatorController {
 
     }
     
+    private void listenForPriceChanges() {
+        IngredientPriceCache cache = DatabaseHelper.getPriceCache();
+        if (priceListener != null) {
+            cache.removeListener(priceListener);
+        }
+        priceListener = changed -> javafx.application.Platform.runLater(() -> {
+            boolean affectsMix = feedData.stream().anyMatch(entry -> changed.contains(entry.getIngredient()));
+            if (affectsMix) {
+                recalcPercentages();
+            }
+        });
+        cache.addListener(priceListener);
+        
+        if (purchaseListener != null) {
+            cache.removePurchaseListener(purchaseListener);
+        }
+        purchaseListener = (ingredient, pricePerLb) ->
+            javafx.application.Platform.runLater(() -> scheduleReoptimization(ingredient));
+        cache.addPurchaseListener(purchaseListener);
+    }
+    
+    /**
+     * Queues a re-optimization for mixes using the purchased ingredient. Purchases recorded
+     * while a run is busy are picked up by one follow-up run.
+     */
+    private void scheduleReoptimization(String ingredient) {
+        pendingPurchases.add(ingredient);
+        if (!reoptimizationRunning) {
+            startReoptimization();
+        }
+    }
+    
+    /**
+     * Re-solves the current mix and every saved mix that uses one of the purchased
+     * ingredients (see PurchaseReoptimizer); only the result comes back to the FX thread.
+     */
+    private void startReoptimization() {
+        java.util.Set<String> purchased = new java.util.HashSet<>(pendingPurchases);
+        pendingPurchases.clear();
+        reoptimizationRunning = true;
+        
+        // Read on the FX thread; reoptimize copies the entries before it returns
+        java.util.List<FeedMixEntry> currentEntries = feedData.stream()
+            .filter(entry -> entry.getIngredient() != null && !"Select ingredient...".equals(entry.getIngredient())
+                           && entry.getWeight() > 0 && entry.getProtein() > 0)
+            .collect(java.util.stream.Collectors.toList());
+        
+        PurchaseReoptimizer.reoptimize(purchased, currentEntries)
+            .whenCompleteAsync((savings, error) -> {
+                reoptimizationRunning = false;
+                if (error != null) {
+                    System.err.println("Background re-optimization failed: " + rootMessage(error));
+                    error.printStackTrace();
+                } else if (!savings.getFound().isEmpty()) {
+                    showSavingsNotification(savings.getFound(), savings.getCurrentProposal(), currentEntries);
+                }
+                if (!pendingPurchases.isEmpty()) {
+                    startReoptimization();
+                }
+            }, DatabaseExecutor.FX_THREAD);
+    }
+    
+    /**
+     * Lists the mixes that got cheaper to make in a non-modal window (see SavingsWindow);
+     * currentProposal (null if the current mix wasn't re-solved) can be applied from there.
+     */
+    private void showSavingsNotification(java.util.List<Reformulation> found, Reformulation currentProposal,
+                                         java.util.List<FeedMixEntry> currentEntries) {
+        savingsWindow.show(ownerWindow(), found, currentProposal, selected -> {
+            if (!currentEntries.stream().allMatch(feedData::contains)) {
+                showAlert("The mix changed since the prices were checked. Please optimize it again.");
+                return false;
+            }
+            double totalWeight = currentEntries.stream().mapToDouble(FeedMixEntry::getWeight).sum();
+            FeedMixOptimizer.applyWeights(currentEntries, selected.getProposed(), totalWeight);
+            recalcPercentages();
+            feedTable.refresh();
+            return true;
+        });
+    }
+    
     // Static method to pre-load data from Welcome screen
     public static void preloadData() {
         if (!dataInitialized) {
-            // Run directly without Platform.runLater to avoid blocking UI thread
-                staticCachedIngredients.clear();
-                staticCachedIngredients.add(""); // Blank option
-                
-                String sql = "SELECT name FROM ingredients ORDER BY name";
-                try (Connection conn = DriverManager.getConnection(DB_URL);
-                     Statement st = conn.createStatement();
-                     ResultSet rs = st.executeQuery(sql)) {
-                    while (rs.next()) {
-                        staticCachedIngredients.add(rs.getString("name"));
-                    }
+            // Query on a database reader thread, fill the static cache back on the FX thread
+            DatabaseHelper.getExecutor().read(FeedMixCalculatorController::loadIngredientNames)
+                .thenAcceptAsync(names -> {
+                    staticCachedIngredients.clear();
+                    staticCachedIngredients.add(""); // Blank option
+                    staticCachedIngredients.addAll(names);
                     dataInitialized = true;
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
+                }, DatabaseExecutor.FX_THREAD);
         }
     }
-
+    
+    // The catalog is loaded at startup (reads wait for it) and kept in name order
+    private static java.util.List<String> loadIngredientNames(Connection conn) {
+        return IngredientCatalog.current().getNames();
+    }
+    
     // Called by "Save New Ingredient" button
     @FXML
     private void saveIngredientInfo() {
@@ -370,53 +493,79 @@ public class FeedMixCalculatorController {
             return;
         }
 
-        // Check if ingredient already exists
-        if (ingredientExists(name)) {
-            Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
-            confirm.setTitle("Ingredient Exists");
-            confirm.setHeaderText("Ingredient '" + name + "' already exists.");
-            confirm.setContentText("Do you want to update it with new values?");
-            
-            // Add favicon to dialog
-            try {
-                javafx.stage.Stage stage = (javafx.stage.Stage) confirm.getDialogPane().getScene().getWindow();
-                setApplicationIcon(stage);
-            } catch (Exception e) {
-                // Ignore if can't set icon
-            }
-            
-            if (confirm.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
-                return;
-            }
-        }
-
         double protein = parseDouble(crudeProteinField.getText());
         double fat     = parseDouble(crudeFatField.getText());
         double fiber   = parseDouble(crudeFiberField.getText());
         double lysine  = parseDouble(lysineField.getText());
 
-        String sql = "INSERT OR REPLACE INTO ingredients(name, crudeProtein, crudeFat, crudeFiber, lysine) VALUES(?,?,?,?,?)";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, name);
-            ps.setDouble(2, protein);
-            ps.setDouble(3, fat);
-            ps.setDouble(4, fiber);
-            ps.setDouble(5, lysine);
-            ps.executeUpdate();
-            
-            showAlert("Ingredient '" + name + "' saved successfully!");
-        } catch (SQLException e) {
-            e.printStackTrace();
-            showAlert("Error saving ingredient to database.");
+        // Inclusion limits are optional: blank means no minimum / the default maximum
+        double minPercent;
+        double maxPercent;
+        try {
+            minPercent = parseInclusion(minInclusionField.getText());
+            maxPercent = parseInclusion(maxInclusionField.getText());
+        } catch (NumberFormatException e) {
+            showAlert("Min and max % of mix must be numbers between 0 and 100, or left blank.");
+            return;
+        }
+        if (!Double.isNaN(minPercent) && !Double.isNaN(maxPercent) && minPercent > maxPercent) {
+            showAlert("Min % of mix can't be above max % of mix.");
             return;
         }
 
-        // Refresh dropdown, table data, and clear form
-        loadAllIngredients();
-        refreshTableComboBoxes();
-        refreshIngredientDataInTable(name);
-        clearIngredientForm();
+        // Check if ingredient already exists, then ask before overwriting it
+        if (IngredientCatalog.current().contains(name) && !confirmOverwriteIngredient(name)) {
+            return;
+        }
+        writeIngredientInfo(name, protein, fat, fiber, lysine, minPercent, maxPercent);
+    }
+    
+    // Blank is NaN (no limit of its own); anything else must be a percentage
+    private static double parseInclusion(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return Double.NaN;
+        }
+        double percent = Double.parseDouble(text.trim());
+        if (percent < 0 || percent > 100) {
+            throw new NumberFormatException("Out of range: " + percent);
+        }
+        return percent;
+    }
+    
+    private boolean confirmOverwriteIngredient(String name) {
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+        confirm.setTitle("Ingredient Exists");
+        confirm.setHeaderText("Ingredient '" + name + "' already exists.");
+        confirm.setContentText("Do you want to update it with new values?");
+        
+        // Add favicon to dialog
+        try {
+            javafx.stage.Stage stage = (javafx.stage.Stage) confirm.getDialogPane().getScene().getWindow();
+            setApplicationIcon(stage);
+        } catch (Exception e) {
+            // Ignore if can't set icon
+        }
+        
+        return confirm.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK;
+    }
+    
+    private void writeIngredientInfo(String name, double protein, double fat, double fiber, double lysine,
+                                     double minPercent, double maxPercent) {
+        DatabaseHelper.getExecutor().write(conn ->
+            IngredientCatalog.save(conn, name, protein, fat, fiber, lysine, minPercent, maxPercent)
+        ).whenCompleteAsync((rows, error) -> {
+            if (error != null) {
+                showAlert("Error saving ingredient to database.");
+                return;
+            }
+            showAlert("Ingredient '" + name + "' saved successfully!");
+
+            // Refresh dropdown, table data, and clear form
+            loadAllIngredients();
+            refreshTableComboBoxes();
+            refreshIngredientDataInTable(name);
+            clearIngredientForm();
+        }, DatabaseExecutor.FX_THREAD);
     }
     
     @FXML
@@ -433,13 +582,11 @@ public class FeedMixCalculatorController {
         confirm.setContentText("This will permanently remove this ingredient from the database. This action cannot be undone.");
         
         if (confirm.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
-            String sql = "DELETE FROM ingredients WHERE name = ?";
-            try (Connection conn = DriverManager.getConnection(DB_URL);
-                 PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setString(1, selectedIngredient);
-                int rowsAffected = ps.executeUpdate();
-                
-                if (rowsAffected > 0) {
+            DatabaseHelper.getExecutor().write(conn -> IngredientCatalog.delete(conn, selectedIngredient))
+            .whenCompleteAsync((rowsAffected, error) -> {
+                if (error != null) {
+                    showAlert("Error deleting ingredient: " + rootMessage(error));
+                } else if (rowsAffected > 0) {
                     showAlert("Ingredient '" + selectedIngredient + "' has been deleted successfully.");
                     // Remove from feed mix table if present
                     feedData.removeIf(entry -> selectedIngredient.equals(entry.getIngredient()));
@@ -450,10 +597,7 @@ public class FeedMixCalculatorController {
                 } else {
                     showAlert("Failed to delete ingredient. It may not exist in the database.");
                 }
-            } catch (SQLException e) {
-                e.printStackTrace();
-                showAlert("Error deleting ingredient: " + e.getMessage());
-            }
+            }, DatabaseExecutor.FX_THREAD);
         }
     }
 
@@ -477,23 +621,17 @@ public class FeedMixCalculatorController {
         crudeFatField.clear();
         crudeFiberField.clear();
         lysineField.clear();
+        minInclusionField.clear();
+        maxInclusionField.clear();
     }
     
-    private boolean ingredientExists(String name) {
-        String sql = "SELECT COUNT(*) FROM ingredients WHERE name = ?";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, name);
-            ResultSet rs = ps.executeQuery();
-            return rs.next() && rs.getInt(1) > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
-    }
-
     // Load all ingredient names into the dropdown
     private void loadAllIngredients() {
+        DatabaseHelper.getExecutor().read(FeedMixCalculatorController::loadIngredientNames)
+            .thenAcceptAsync(this::showIngredientNames, DatabaseExecutor.FX_THREAD);
+    }
+    
+    private void showIngredientNames(java.util.List<String> names) {
         updatingComboBox = true;
         try {
             // Clear both the main combo and cache
@@ -505,19 +643,9 @@ public class FeedMixCalculatorController {
             cachedIngredients.add(""); // Keep cache in sync
             staticCachedIngredients.add(""); // Keep static cache in sync
             
-            String sql = "SELECT name FROM ingredients ORDER BY name";
-            try (Connection conn = DriverManager.getConnection(DB_URL);
-                 Statement st = conn.createStatement();
-                 ResultSet rs = st.executeQuery(sql)) {
-                while (rs.next()) {
-                    String ingredientName = rs.getString("name");
-                    ingredientModeCombo.getItems().add(ingredientName);
-                    cachedIngredients.add(ingredientName);
-                    staticCachedIngredients.add(ingredientName);
-                }
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+            ingredientModeCombo.getItems().addAll(names);
+            cachedIngredients.addAll(names);
+            staticCachedIngredients.addAll(names);
             
             // Set default selection to blank (which will show as "Add New Ingredient" mode)
             ingredientModeCombo.setValue("");
@@ -534,40 +662,32 @@ public class FeedMixCalculatorController {
             return;
         }
         
-        String sql = "SELECT crudeProtein, crudeFat, crudeFiber, lysine FROM ingredients WHERE name = ?";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, name);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    ingredientField.setText(name);
-                    crudeProteinField.setText(String.format("%.1f", rs.getDouble("crudeProtein")));
-                    crudeFatField.setText(String.format("%.1f", rs.getDouble("crudeFat")));
-                    crudeFiberField.setText(String.format("%.1f", rs.getDouble("crudeFiber")));
-                    lysineField.setText(String.format("%.2f", rs.getDouble("lysine")));
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        IngredientCatalog catalog = IngredientCatalog.current();
+        int index = catalog.indexOf(name);
+        if (index >= 0) {
+            ingredientField.setText(name);
+            crudeProteinField.setText(String.format("%.1f", catalog.getProtein(index)));
+            crudeFatField.setText(String.format("%.1f", catalog.getFat(index)));
+            crudeFiberField.setText(String.format("%.1f", catalog.getFiber(index)));
+            lysineField.setText(String.format("%.2f", catalog.getLysine(index)));
+            minInclusionField.setText(formatInclusion(catalog.getMinInclusion(index)));
+            maxInclusionField.setText(formatInclusion(catalog.getMaxInclusion(index)));
         }
     }
     
-    // Load nutrition data for a table entry
+    private static String formatInclusion(double percent) {
+        return Double.isNaN(percent) ? "" : String.format("%.1f", percent);
+    }
+    
+    // Load nutrition data for a table entry (from the in-memory ingredient catalog)
     private void loadIngredientDataForEntry(FeedMixEntry entry, String name) {
-        String sql = "SELECT crudeProtein, crudeFat, crudeFiber, lysine FROM ingredients WHERE name = ?";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, name);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    entry.setProtein(rs.getDouble("crudeProtein"));
-                    entry.setFat(rs.getDouble("crudeFat"));
-                    entry.setFiber(rs.getDouble("crudeFiber"));
-                    entry.setLysine(rs.getDouble("lysine"));
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        IngredientCatalog catalog = IngredientCatalog.current();
+        int index = catalog.indexOf(name);
+        if (index >= 0) {
+            entry.setProtein(catalog.getProtein(index));
+            entry.setFat(catalog.getFat(index));
+            entry.setFiber(catalog.getFiber(index));
+            entry.setLysine(catalog.getLysine(index));
         }
     }
 
@@ -611,9 +731,15 @@ public class FeedMixCalculatorController {
             totalLysineLabel.setText("0.0%");
             avgPricePerLbLabel.setText("$0.00/lb");
             totalCostLabel.setText("Total: $0.00");
+            clearSensitivity();
             return;
         }
         
+        // Shadow prices only hold for the mix they were computed for
+        if (sensitivityMix != null && !isSensitivityMix(validEntries)) {
+            clearSensitivity();
+        }
+        
         // Calculate weighted averages for nutrition
         double totalProtein = 0, totalFat = 0, totalFiber = 0, totalLysine = 0;
         for (FeedMixEntry e : validEntries) {
@@ -625,7 +751,14 @@ public class FeedMixCalculatorController {
             totalLysine += proportion * e.getLysine();
         }
         
-        // Calculate cost information
+        // Update UI labels
+        totalWeightLabel.setText(String.format("%.1f lbs", totalWeight));
+        totalProteinLabel.setText(String.format("%.1f%%", totalProtein));
+        totalFatLabel.setText(String.format("%.1f%%", totalFat));
+        totalFiberLabel.setText(String.format("%.1f%%", totalFiber));
+        totalLysineLabel.setText(String.format("%.2f%%", totalLysine));
+        
+        // Calculate cost information (prices come from the in-memory price cache)
         double totalCost = 0.0;
         double totalWeightWithPrices = 0.0;
         
@@ -640,13 +773,6 @@ public class FeedMixCalculatorController {
         
         double avgPricePerLb = totalWeightWithPrices > 0 ? totalCost / totalWeightWithPrices : 0.0;
         
-        // Update UI labels
-        totalWeightLabel.setText(String.format("%.1f lbs", totalWeight));
-        totalProteinLabel.setText(String.format("%.1f%%", totalProtein));
-        totalFatLabel.setText(String.format("%.1f%%", totalFat));
-        totalFiberLabel.setText(String.format("%.1f%%", totalFiber));
-        totalLysineLabel.setText(String.format("%.2f%%", totalLysine));
-        
         // Show cost info or helper text
         if (totalWeightWithPrices > 0) {
             avgPricePerLbLabel.setText(String.format("$%.2f/lb", avgPricePerLb));
@@ -669,10 +795,12 @@ public class FeedMixCalculatorController {
 
     @FXML
     private void optimizeMix() {
-        openNutritionOptimizationDialog();
+        // Read the remembered dialog settings first, then open the dialog on the FX thread
+        DatabaseHelper.getExecutor().read(conn -> new String[] { loadNumberOfPigs(conn), loadLastPigStage(conn) })
+            .thenAcceptAsync(settings -> openNutritionOptimizationDialog(settings[0], settings[1]), DatabaseExecutor.FX_THREAD);
     }
     
-    private void openNutritionOptimizationDialog() {
+    private void openNutritionOptimizationDialog(String savedNumberOfPigs, String savedPigStage) {
         Dialog<ButtonType> dialog = new Dialog<>();
         dialog.setTitle("Optimize by Nutrition");
         dialog.setHeaderText("Feed Mix Optimization");
@@ -686,7 +814,7 @@ public class FeedMixCalculatorController {
         
         // Number of pigs input
         Label pigsLabel = new Label("Number of pigs:");
-        TextField numberOfPigsField = new TextField(loadNumberOfPigs());
+        TextField numberOfPigsField = new TextField(savedNumberOfPigs);
         numberOfPigsField.setPrefWidth(60);
         numberOfPigsField.setMaxWidth(60);
         numberOfPigsField.setStyle("-fx-background-color: lightyellow; -fx-border-color: gray; -fx-border-width: 1px;");
@@ -697,7 +825,7 @@ public class FeedMixCalculatorController {
         Label stageLabel = new Label("Recommended for:");
         ComboBox<String> pigStageCombo = new ComboBox<>();
         pigStageCombo.getItems().addAll("Weaner", "Grower", "Finisher");
-        pigStageCombo.setValue(loadLastPigStage()); // Load last selection
+        pigStageCombo.setValue(savedPigStage); // Load last selection
         pigStageCombo.setPrefWidth(120);
         pigStageCombo.setStyle("-fx-background-color: lightyellow; -fx-border-color: gray; -fx-border-width: 1px;");
         grid.add(stageLabel, 0, 1);
@@ -728,47 +856,38 @@ public class FeedMixCalculatorController {
         grid.add(weightLabel, 0, 4);
         grid.add(weightField, 1, 4);
         
-        // Nutritional targets (editable) - will be updated based on pig stage
-        Label proteinLabel = new Label("Crude Protein (%):");
-        TextField proteinField = new TextField("16.0"); // Default for Grower
-        proteinField.setPrefWidth(60);
-        proteinField.setMaxWidth(60);
-        proteinField.setStyle("-fx-background-color: lightyellow; -fx-border-color: gray; -fx-border-width: 1px;");
+        // Nutritional ranges (editable) - will be updated based on pig stage.
+        // Each nutrient gets a min and a max; a blank max means no upper limit.
+        Label proteinLabel = new Label("Crude Protein (%, min - max):");
+        TextField proteinMinField = createRangeField("16.0"); // Defaults for Grower
+        TextField proteinMaxField = createRangeField("18.0");
         grid.add(proteinLabel, 0, 5);
-        grid.add(proteinField, 1, 5);
+        grid.add(new HBox(5, proteinMinField, new Label("-"), proteinMaxField), 1, 5);
         
-        Label fatLabel = new Label("Fat (%):");
-        TextField fatField = new TextField("4.0"); // Default for Grower
-        fatField.setPrefWidth(60);
-        fatField.setMaxWidth(60);
-        fatField.setStyle("-fx-background-color: lightyellow; -fx-border-color: gray; -fx-border-width: 1px;");
+        Label fatLabel = new Label("Fat (%, min - max):");
+        TextField fatMinField = createRangeField("0.0");
+        TextField fatMaxField = createRangeField("5.0");
         grid.add(fatLabel, 0, 6);
-        grid.add(fatField, 1, 6);
+        grid.add(new HBox(5, fatMinField, new Label("-"), fatMaxField), 1, 6);
         
-        Label fiberLabel = new Label("Fiber (%):");
-        TextField fiberField = new TextField("5.0"); // Default for Grower
-        fiberField.setPrefWidth(60);
-        fiberField.setMaxWidth(60);
-        fiberField.setStyle("-fx-background-color: lightyellow; -fx-border-color: gray; -fx-border-width: 1px;");
+        Label fiberLabel = new Label("Fiber (%, min - max):");
+        TextField fiberMinField = createRangeField("0.0");
+        TextField fiberMaxField = createRangeField("6.0");
         grid.add(fiberLabel, 0, 7);
-        grid.add(fiberField, 1, 7);
+        grid.add(new HBox(5, fiberMinField, new Label("-"), fiberMaxField), 1, 7);
         
-        Label lysineLabel = new Label("Lysine (%):");
-        TextField lysineField = new TextField("1.05"); // Default for Grower
-        lysineField.setPrefWidth(60);
-        lysineField.setMaxWidth(60);
-        lysineField.setStyle("-fx-background-color: lightyellow; -fx-border-color: gray; -fx-border-width: 1px;");
+        Label lysineLabel = new Label("Lysine (%, min - max):");
+        TextField lysineMinField = createRangeField("0.95");
+        TextField lysineMaxField = createRangeField("1.15");
         grid.add(lysineLabel, 0, 8);
-        grid.add(lysineField, 1, 8);
-        
-        // Helper method to get feed amount per pig based on stage
-        java.util.function.Function<String, Double> getFeedAmountPerPig = (stage) -> {
-            switch (stage) {
-                case "Weaner": return 3.0; // 1-3 lbs per day, default to 3 lbs
-                case "Finisher": return 6.0; // 5-6 lbs per day, default to 6 lbs
-                default: return 6.0; // Grower: 3-5 lbs per day, default to 6 lbs
-            }
-        };
+        grid.add(new HBox(5, lysineMinField, new Label("-"), lysineMaxField), 1, 8);
+        
+        // Optional: lysine has to keep pace with protein, not just clear its own minimum
+        Label ratioLabel = new Label("Min Lysine : Protein ratio:");
+        TextField ratioField = createRangeField("");
+        ratioField.setPromptText("none");
+        grid.add(ratioLabel, 0, 9);
+        grid.add(ratioField, 1, 9);
         
         // Helper method to update instructions and weight
         Runnable updateInstructionsAndWeight = () -> {
@@ -776,7 +895,7 @@ public class FeedMixCalculatorController {
                 int pigs = Integer.parseInt(numberOfPigsField.getText().trim());
                 String stage = pigStageCombo.getValue();
                 if (pigs > 0 && stage != null) {
-                    double feedPerPig = getFeedAmountPerPig.apply(stage);
+                    double feedPerPig = TargetProfile.feedPerPig(stage);
                     double totalWeight = feedPerPig * pigs;
                     
                     String rangeText;
@@ -806,19 +925,11 @@ public class FeedMixCalculatorController {
                 nutritionHeader.setText("Recommended Nutrition for " + newValue + " Pigs:");
                 
                 // Update nutrition field defaults based on stage
-                switch (newValue) {
-                    case "Weaner":
-                        proteinField.setText("20.0"); fatField.setText("4.5"); 
-                        fiberField.setText("4.0"); lysineField.setText("1.25");
-                        break;
-                    case "Finisher":
-                        proteinField.setText("15.0"); fatField.setText("4.0"); 
-                        fiberField.setText("6.0"); lysineField.setText("0.85");
-                        break;
-                    default: // Grower
-                        proteinField.setText("16.0"); fatField.setText("4.0"); 
-                        fiberField.setText("5.0"); lysineField.setText("1.05");
-                }
+                TargetProfile stageTargets = TargetProfile.forStage(newValue, 1);
+                setRangeFields(stageTargets, FormulationProblem.PROTEIN, proteinMinField, proteinMaxField);
+                setRangeFields(stageTargets, FormulationProblem.FAT, fatMinField, fatMaxField);
+                setRangeFields(stageTargets, FormulationProblem.FIBER, fiberMinField, fiberMaxField);
+                setRangeFields(stageTargets, FormulationProblem.LYSINE, lysineMinField, lysineMaxField);
                 
                 // Update feed amount and total weight
                 updateInstructionsAndWeight.run();
@@ -836,13 +947,18 @@ public class FeedMixCalculatorController {
             "• Finisher (130-240 lbs): Protein 14-16%, Fat 3-5%, Fiber 5-7%, Lysine 0.75-0.95%"
         );
         rangesInfo.setStyle("-fx-font-size: 12px; -fx-text-fill: #666666;");
-        grid.add(rangesInfo, 0, 9, 2, 1);
+        grid.add(rangesInfo, 0, 10, 2, 1);
         
         // Price optimization checkbox
         CheckBox priceOptimizationCheckBox = new CheckBox("💰 Price Optimization");
         priceOptimizationCheckBox.setSelected(true); // Default to enabled
         priceOptimizationCheckBox.setStyle("-fx-font-size: 12px; -fx-text-fill: #0066CC; -fx-font-weight: bold;");
-        grid.add(priceOptimizationCheckBox, 0, 10, 2, 1);
+        grid.add(priceOptimizationCheckBox, 0, 11, 2, 1);
+        
+        // Whole bags: every ingredient in multiples of the unit it was last bought in
+        CheckBox wholeUnitsCheckBox = new CheckBox("Whole bags only (mix in the units you buy)");
+        wholeUnitsCheckBox.setStyle("-fx-font-size: 12px;");
+        grid.add(wholeUnitsCheckBox, 0, 13, 2, 1);
         
         // Price optimization info
         Label priceInfo = new Label(
@@ -850,7 +966,7 @@ public class FeedMixCalculatorController {
             "Note: Prices must be input into the cost tracker for price optimization to work."
         );
         priceInfo.setStyle("-fx-font-size: 11px; -fx-text-fill: #666666; -fx-padding: 5 0 0 20;");
-        grid.add(priceInfo, 0, 10, 2, 1);
+        grid.add(priceInfo, 0, 11, 2, 1);
         priceInfo.setTranslateY(20); // Move it below the checkbox
         
         // Trace minerals warning
@@ -859,7 +975,7 @@ public class FeedMixCalculatorController {
             "you may want to add supplements like kelp."
         );
         mineralWarning.setStyle("-fx-font-size: 12px; -fx-text-fill: #cc0000;");
-        grid.add(mineralWarning, 0, 12, 2, 1);
+        grid.add(mineralWarning, 0, 14, 2, 1);
         
         dialog.getDialogPane().setContent(grid);
         dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
@@ -882,10 +998,10 @@ public class FeedMixCalculatorController {
             if (result == ButtonType.OK) {
                 try {
                     // Save the number of pigs preference
-                    saveNumberOfPigs(numberOfPigsField.getText().trim());
+                    UserPreferences.save("numberOfPigs", numberOfPigsField.getText().trim());
                     
                     // Save the pig stage preference
-                    saveLastPigStage(pigStageCombo.getValue());
+                    UserPreferences.save("lastPigStage", pigStageCombo.getValue());
                     
                     // Validate number of pigs
                     int numberOfPigs = Integer.parseInt(numberOfPigsField.getText().trim());
@@ -895,23 +1011,61 @@ public class FeedMixCalculatorController {
                     }
                     
                     double targetWeight = Double.parseDouble(weightField.getText());
-                    double targetProtein = Double.parseDouble(proteinField.getText());
-                    double targetFat = Double.parseDouble(fatField.getText());
-                    double targetFiber = Double.parseDouble(fiberField.getText());
-                    double targetLysine = Double.parseDouble(lysineField.getText());
+                    TargetProfile targets = TargetProfile.forStage(pigStageCombo.getValue(), numberOfPigs)
+                        .withMixWeight(targetWeight)
+                        .withRange(FormulationProblem.PROTEIN, parseRangeMin(proteinMinField), parseRangeMax(proteinMaxField))
+                        .withRange(FormulationProblem.FAT, parseRangeMin(fatMinField), parseRangeMax(fatMaxField))
+                        .withRange(FormulationProblem.FIBER, parseRangeMin(fiberMinField), parseRangeMax(fiberMaxField))
+                        .withRange(FormulationProblem.LYSINE, parseRangeMin(lysineMinField), parseRangeMax(lysineMaxField));
+                    String ratioText = ratioField.getText().trim();
+                    if (!ratioText.isEmpty()) {
+                        targets = targets.withRatioLimit(new FormulationProblem.RatioLimit(FormulationProblem.LYSINE,
+                            FormulationProblem.PROTEIN, Double.parseDouble(ratioText), Double.POSITIVE_INFINITY));
+                    }
                     
                     boolean usePriceOptimization = priceOptimizationCheckBox.isSelected();
-                    optimizeFeedMix(targetWeight, targetProtein, targetFat, targetFiber, targetLysine, usePriceOptimization);
+                    optimizeFeedMix(targets, usePriceOptimization, wholeUnitsCheckBox.isSelected());
                 } catch (NumberFormatException e) {
                     showAlert("Please enter valid numbers for all fields.");
+                } catch (IllegalArgumentException e) {
+                    // Ranges with min above max, negative ratios and the like
+                    showAlert(e.getMessage());
                 }
             }
         });
     }
     
-    private void optimizeFeedMix(double targetWeight, double targetProtein, double targetFat, 
-                               double targetFiber, double targetLysine, boolean usePriceOptimization) {
-        // Improved optimization algorithm with better nutrient balancing
+    private TextField createRangeField(String text) {
+        TextField field = new TextField(text);
+        field.setPrefWidth(60);
+        field.setMaxWidth(60);
+        field.setStyle("-fx-background-color: lightyellow; -fx-border-color: gray; -fx-border-width: 1px;");
+        return field;
+    }
+    
+    private static void setRangeFields(TargetProfile profile, int nutrient, TextField minField, TextField maxField) {
+        minField.setText(String.valueOf(profile.getMin(nutrient)));
+        double max = profile.getMax(nutrient);
+        maxField.setText(max == Double.POSITIVE_INFINITY ? "" : String.valueOf(max));
+    }
+    
+    // A blank min means no minimum
+    private static double parseRangeMin(TextField field) {
+        String text = field.getText().trim();
+        return text.isEmpty() ? 0.0 : Double.parseDouble(text);
+    }
+    
+    // A blank max means no upper limit
+    private static double parseRangeMax(TextField field) {
+        String text = field.getText().trim();
+        return text.isEmpty() ? Double.POSITIVE_INFINITY : Double.parseDouble(text);
+    }
+    
+    private void optimizeFeedMix(TargetProfile targets, boolean usePriceOptimization, boolean wholeUnits) {
+        if (optimizationTask != null && optimizationTask.isRunning()) {
+            showAlert("An optimization is already running. Cancel it or wait for it to finish.");
+            return;
+        }
         
         var validIngredients = feedData.stream()
             .filter(entry -> !"Select ingredient...".equals(entry.getIngredient()) &&
@@ -923,276 +1077,474 @@ public class FeedMixCalculatorController {
             return;
         }
         
-        if (validIngredients.size() == 1) {
-            // If only one ingredient, just set its weight to target
-            validIngredients.get(0).setWeight(targetWeight);
-        } else {
-            // Multi-ingredient optimization using iterative approach
-            optimizeMultiIngredient(validIngredients, targetWeight, targetProtein, targetFat, targetFiber, targetLysine, usePriceOptimization);
+        // The math lives in the formulation engine; here we only marshal the mix in and out.
+        // The problem is a snapshot, so the solver never touches feedData off the FX thread.
+        FormulationProblem problem = FeedMixOptimizer.buildProblem(validIngredients).withTargets(targets);
+        FormulationProblem candidates = FeedMixOptimizer.buildCatalogCandidates(validIngredients);
+        
+        // Check the ranges can be met at all before running (and trusting) the optimizer;
+        // a hopeless run would only balance its way to the closest mix
+        java.util.concurrent.CompletableFuture
+            .supplyAsync(() -> FormulationEngine.diagnose(problem, candidates),
+                java.util.concurrent.ForkJoinPool.commonPool())
+            .whenCompleteAsync((diagnosis, error) -> {
+                if (error != null) {
+                    // Not worth stopping for; the optimizer reports unmet ranges itself
+                    System.err.println("Could not check the nutrition ranges: " + error.getMessage());
+                    error.printStackTrace();
+                } else if (diagnosis != null && wholeUnits) {
+                    // No closest mix in whole units; bags can't fix what no blend can
+                    showAlert("No mix of these ingredients meets the nutrition ranges.\n\n" + diagnosis.describe());
+                    return;
+                } else if (diagnosis != null && !confirmClosestMix(diagnosis)) {
+                    return;
+                }
+                if (wholeUnits) {
+                    startWholeUnitOptimization(validIngredients, problem, targets.getMixWeight());
+                } else {
+                    startOptimization(validIngredients, problem, targets.getMixWeight(), usePriceOptimization);
+                }
+            }, DatabaseExecutor.FX_THREAD);
+    }
+    
+    /**
+     * Explains why the ranges can't be met and asks whether to balance to the closest mix anyway.
+     */
+    private boolean confirmClosestMix(Infeasibility diagnosis) {
+        ButtonType closestButton = new ButtonType("Use Closest Mix", ButtonBar.ButtonData.OK_DONE);
+        Alert alert = new Alert(Alert.AlertType.WARNING, "", closestButton, ButtonType.CANCEL);
+        alert.setTitle("Nutrition Ranges Can't Be Met");
+        alert.setHeaderText("No mix of these ingredients meets the nutrition ranges.");
+        alert.setContentText(diagnosis.describe()
+            + "\n\nYou can still balance the mix as closely as possible, but it won't meet the ranges.");
+        alert.getDialogPane().setMinHeight(javafx.scene.layout.Region.USE_PREF_SIZE);
+        return alert.showAndWait().orElse(ButtonType.CANCEL) == closestButton;
+    }
+    
+    /**
+     * Runs the optimization, unless the same one (same ingredients, prices, limits and
+     * ranges) was balanced before: then the earlier mix is read back from the cache.
+     */
+    private void startOptimization(java.util.List<FeedMixEntry> validIngredients, FormulationProblem problem,
+                                   double targetWeight, boolean usePriceOptimization) {
+        String cacheKey = FeedMixOptimizer.cacheKey(problem, usePriceOptimization);
+        FeedMixOptimizer.findCached(problem, cacheKey)
+            .thenAcceptAsync(cached -> {
+                if (cached != null) {
+                    applyOptimizationResult(validIngredients, cached, targetWeight, true);
+                } else {
+                    runOptimization(validIngredients, problem, targetWeight, usePriceOptimization, cacheKey);
+                }
+            }, DatabaseExecutor.FX_THREAD);
+    }
+    
+    private void runOptimization(java.util.List<FeedMixEntry> validIngredients, FormulationProblem problem,
+                                 double targetWeight, boolean usePriceOptimization, String cacheKey) {
+        // A fresh seed per run; it is remembered and shown so the mix can be reproduced
+        long seed = java.util.concurrent.ThreadLocalRandom.current().nextLong();
+        
+        MonitoredTask<FormulationResult> task = new MonitoredTask<>() {
+            @Override
+            protected FormulationResult call() {
+                updateMessage("Starting optimization...");
+                return FormulationEngine.formulate(problem, usePriceOptimization, seed,
+                    java.util.concurrent.ForkJoinPool.commonPool(), this, warmStarts);
+            }
+            
+            @Override
+            public void improved(int iteration, double objective, double violation) {
+                updateMessage(String.format("Iteration %d: best $%.4f/lb, %.3f pts outside ranges",
+                    iteration, objective, violation));
+            }
+        };
+        
+        runInBackground(task, "Could not optimize the mix", result -> {
+            FeedMixOptimizer.remember(problem, cacheKey, result);
+            applyOptimizationResult(validIngredients, result, targetWeight, false);
+        });
+    }
+    
+    private void applyOptimizationResult(java.util.List<FeedMixEntry> validIngredients, FormulationResult result,
+                                         double targetWeight, boolean fromCache) {
+        if (!validIngredients.stream().allMatch(feedData::contains)) {
+            showAlert("The mix changed while optimizing. Please run the optimization again.");
+            return;
         }
+        FeedMixOptimizer.applyWeights(validIngredients, result, targetWeight);
+        UserPreferences.save("lastOptimizationSeed", Long.toString(result.getSeed()));
         
         recalcPercentages();
         feedTable.refresh();
-        
-        showAlert("Feed mix optimized for target nutrition values!");
+        showSensitivity(validIngredients, result.getSensitivity());
+        
+        String message = "Feed mix optimized for the nutrition ranges!";
+        if (result.getMethod() == FormulationResult.Method.LEAST_COST) {
+            message = String.format("Least-cost mix found: $%.3f per lb of feed (priced ingredients only).", result.getCostPerLb());
+        } else if (!result.isTargetsMet()) {
+            message = "These ingredients can't meet all nutrition ranges within their inclusion limits.\n" +
+                      "The mix was balanced as closely as possible instead - try adding a protein or energy source.";
+        }
+        if (result.getMethod() == FormulationResult.Method.BALANCED && validIngredients.size() > 1) {
+            message += "\n(Optimization seed: " + result.getSeed() + ")";
+        }
+        if (fromCache) {
+            message += "\n(Same ingredients, prices and ranges as an earlier run, so its mix was reused.)";
+        }
+        showAlert(message);
     }
     
     /**
-     * Optimizes feed mix using multiple ingredients to meet target nutrition values
-     * Uses a proportion-based approach that gives consistent results regardless of total weight
-     * 
-     * @param ingredients List of available feed ingredients with nutrition data
-     * @param targetWeight Total weight of feed mix in pounds
-     * @param targetProtein Target crude protein percentage
-     * @param targetFat Target fat percentage  
-     * @param targetFiber Target fiber percentage
-     * @param targetLysine Target lysine percentage
-     * @param usePriceOptimization Whether to consider cost in optimization (currently informational only)
+     * Whole-unit mode: finds the cheapest mix of whole purchase units (see
+     * FeedMixOptimizer.wholeUnitRun) with a time limit on the search. A repeat of an
+     * earlier search is read back from the optimization cache instead.
      */
-    private void optimizeMultiIngredient(java.util.List<FeedMixEntry> ingredients, double targetWeight,
-                                       double targetProtein, double targetFat, double targetFiber, double targetLysine, 
-                                       boolean usePriceOptimization) {
-        
-        // Weight-independent approach: Work with proportions (0-1) first, then scale to target weight
-        // This ensures consistent nutrition percentages regardless of whether optimizing for 6 lbs or 600 lbs
-        int numIngredients = ingredients.size();
-        if (numIngredients == 0) return;
-        
-        // Work with proportions (0-1) instead of absolute weights
-        double[] proportions = new double[numIngredients];
-        
-        
-        // Use typical pig feed proportions as starting point, modified by price optimization if enabled
-        double[] pricesPerLb = new double[numIngredients];
-        double maxPrice = 0;
-        double minPrice = Double.MAX_VALUE;
-        
-        // Get prices for all ingredients if price optimization is enabled
-        if (usePriceOptimization) {
-            for (int i = 0; i < numIngredients; i++) {
-                pricesPerLb[i] = getIngredientPricePerLb(ingredients.get(i).getIngredient());
-                if (pricesPerLb[i] > 0) {
-                    maxPrice = Math.max(maxPrice, pricesPerLb[i]);
-                    minPrice = Math.min(minPrice, pricesPerLb[i]);
-                }
-            }
+    private void startWholeUnitOptimization(java.util.List<FeedMixEntry> validIngredients, FormulationProblem problem,
+                                            double targetWeight) {
+        if (optimizationTask != null && optimizationTask.isRunning()) {
+            showAlert("An optimization is already running. Cancel it or wait for it to finish.");
+            return;
         }
-        
-        for (int i = 0; i < numIngredients; i++) {
-            FeedMixEntry entry = ingredients.get(i);
-            String name = entry.getIngredient().toLowerCase();
-            
-            // Assign starting proportions based on ingredient's nutritional profile
-            // Be very conservative with high-lysine ingredients
-            double protein = entry.getProtein();
-            double lysine = entry.getLysine();
-            double fat = entry.getFat();
-            
-            double baseProportion;
-            if (lysine > 10) {
-                // Very high lysine ingredients (eggs, fish meal) - extremely limited
-                baseProportion = 0.01 + (Math.random() * 0.02); // 1-3%
-            } else if (protein > 25) {
-                // High protein ingredients (soybean meal, etc.) - use sparingly
-                baseProportion = 0.05 + (Math.random() * 0.05); // 5-10%
-            } else if (protein > 15) {
-                // Medium protein ingredients (alfalfa, etc.) - moderate amount
-                baseProportion = 0.15 + (Math.random() * 0.10); // 15-25%
-            } else if (protein < 10 && fat < 5) {
-                // Energy grains (corn, milo, etc.) - can be major component
-                baseProportion = 0.30 + (Math.random() * 0.20); // 30-50%
-            } else {
-                // Other ingredients - moderate amount
-                baseProportion = 0.08 + (Math.random() * 0.07); // 8-15%
+        FeedMixOptimizer.WholeUnitRun run = FeedMixOptimizer.wholeUnitRun(validIngredients, problem, targetWeight);
+        run.findCached()
+            .thenAcceptAsync(cached -> {
+                if (cached != null) {
+                    applyWholeUnitMix(validIngredients, cached, run, true);
+                } else {
+                    runWholeUnitOptimization(validIngredients, run);
+                }
+            }, DatabaseExecutor.FX_THREAD);
+    }
+    
+    private void runWholeUnitOptimization(java.util.List<FeedMixEntry> validIngredients, FeedMixOptimizer.WholeUnitRun run) {
+        MonitoredTask<WholeUnitMix> task = new MonitoredTask<>() {
+            @Override
+            protected WholeUnitMix call() {
+                updateMessage("Searching whole-unit mixes...");
+                return run.solve(this);
             }
             
-            // Apply price optimization: favor cheaper ingredients
-            if (usePriceOptimization && pricesPerLb[i] > 0 && maxPrice > minPrice) {
-                // Create price factor: expensive ingredients get reduced proportion, cheap ones get increased
-                double priceRange = maxPrice - minPrice;
-                double priceNormalized = (pricesPerLb[i] - minPrice) / priceRange; // 0 = cheapest, 1 = most expensive
-                double priceFactor = 1.5 - priceNormalized; // 1.5 for cheapest, 0.5 for most expensive
-                
-                // Don't let price completely override nutrition needs, but strongly influence proportions
-                proportions[i] = baseProportion * priceFactor;
-                
-                // Extra penalty for very expensive ingredients like eggs
-                if (pricesPerLb[i] > 5.0) { // $5+ per lb is very expensive
-                    proportions[i] *= 0.1; // Reduce by 90% (should give ~0.1-0.3 lbs for eggs)
-                } else if (pricesPerLb[i] > 3.0) { // $3+ per lb is expensive
-                    proportions[i] *= 0.4; // Reduce by 60%
-                }
-            } else {
-                proportions[i] = baseProportion;
+            @Override
+            public void improved(int nodes, double objective, double violation) {
+                updateMessage(String.format("After %d nodes: best $%.2f for the batch", nodes,
+                    objective * run.getTargetWeight()));
             }
+        };
+        
+        runInBackground(task, "Could not optimize the mix", mix -> {
+            run.remember(mix);
+            applyWholeUnitMix(validIngredients, mix, run, false);
+        });
+    }
+    
+    private void applyWholeUnitMix(java.util.List<FeedMixEntry> validIngredients, WholeUnitMix mix,
+                                   FeedMixOptimizer.WholeUnitRun run, boolean fromCache) {
+        if (!mix.hasMix()) {
+            showAlert(WholeUnitMixSummary.describeNoMix(mix, run.getTargetWeight(), run.getMaxWeight()));
+            return;
+        }
+        if (!validIngredients.stream().allMatch(feedData::contains)) {
+            showAlert("The mix changed while optimizing. Please run the optimization again.");
+            return;
+        }
+        for (int i = 0; i < validIngredients.size(); i++) {
+            validIngredients.get(i).setWeight(mix.getWeight(i));
+        }
+        recalcPercentages();
+        feedTable.refresh();
+        showAlert(WholeUnitMixSummary.describe(validIngredients, mix, fromCache));
+    }
+    
+    /**
+     * Runs the task on a "feed-optimizer" daemon thread with the progress window open, one
+     * optimization at a time. onSuccess gets the task's value on the FX thread; a failure is
+     * logged and shown after failureMessage, and a cancelled task just closes the window.
+     */
+    private <T> void runInBackground(javafx.concurrent.Task<T> task, String failureMessage,
+                                     java.util.function.Consumer<T> onSuccess) {
+        if (optimizationTask != null && optimizationTask.isRunning()) {
+            showAlert("An optimization is already running. Cancel it or wait for it to finish.");
+            return;
+        }
+        Stage progressStage = OptimizationProgressWindow.show(ownerWindow(), task);
+        
+        task.setOnSucceeded(event -> {
+            progressStage.close();
+            optimizationTask = null;
+            onSuccess.accept(task.getValue());
+        });
+        task.setOnCancelled(event -> {
+            progressStage.close();
+            optimizationTask = null;
+        });
+        task.setOnFailed(event -> {
+            progressStage.close();
+            optimizationTask = null;
+            System.err.println(failureMessage + ": " + task.getException());
+            task.getException().printStackTrace();
+            showAlert(failureMessage + ": " + rootMessage(task.getException()));
+        });
+        
+        optimizationTask = task;
+        Thread worker = new Thread(task, "feed-optimizer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    // Window the dialogs opened from this screen belong to (null before the scene is shown)
+    private javafx.stage.Window ownerWindow() {
+        return feedTable.getScene() != null ? feedTable.getScene().getWindow() : null;
+    }
+    
+    @FXML
+    private void compareAllStages() {
+        var validIngredients = feedData.stream()
+            .filter(entry -> !"Select ingredient...".equals(entry.getIngredient()) &&
+                           entry.getProtein() > 0)
+            .collect(java.util.stream.Collectors.toList());
+        
+        if (validIngredients.size() < 2) {
+            showAlert("Please add at least two ingredients to the mix first.");
+            return;
         }
         
-        // Normalize proportions to sum to 1.0
-        double currentTotal = java.util.Arrays.stream(proportions).sum();
-        if (currentTotal > 0) {
-            for (int i = 0; i < numIngredients; i++) {
-                proportions[i] = proportions[i] / currentTotal;
+        // Snapshot the mix on the FX thread; the batch itself runs on the fork-join pool
+        FormulationProblem problem = FeedMixOptimizer.buildProblem(validIngredients);
+        long seed = java.util.concurrent.ThreadLocalRandom.current().nextLong();
+        
+        DatabaseHelper.getExecutor().read(FeedMixCalculatorController::loadNumberOfPigs)
+            .thenApplyAsync(savedPigs -> {
+                int pigs = 1;
+                try {
+                    pigs = Math.max(1, Integer.parseInt(savedPigs.trim()));
+                } catch (NumberFormatException e) {
+                    // Fall back to one pig
+                }
+                return FormulationEngine.formulateBatch(problem, TargetProfile.standardStages(pigs),
+                    true, seed, java.util.concurrent.ForkJoinPool.commonPool());
+            }, java.util.concurrent.ForkJoinPool.commonPool())
+            .whenCompleteAsync((rows, error) -> {
+                if (error != null) {
+                    showAlert("Could not optimize the stages: " + rootMessage(error));
+                    return;
+                }
+                showStageComparison(validIngredients, rows);
+            }, DatabaseExecutor.FX_THREAD);
+    }
+    
+    /**
+     * Shows the batch results ranked by cost; the selected row can be applied to the mix.
+     */
+    private void showStageComparison(java.util.List<FeedMixEntry> ingredients, java.util.List<ProfileResult> rows) {
+        StageComparisonDialog.showAndWait(rows).ifPresent(selected -> {
+            if (!ingredients.stream().allMatch(feedData::contains)) {
+                showAlert("The mix changed while optimizing. Please run the comparison again.");
+                return;
             }
+            FeedMixOptimizer.applyWeights(ingredients, selected.getResult(), selected.getProfile().getMixWeight());
+            recalcPercentages();
+            feedTable.refresh();
+        });
+    }
+    
+    /**
+     * Plots what each extra point of protein (or lysine) costs with the current ingredients,
+     * so a cheaper or richer mix than the stage's default can be picked from the curve.
+     */
+    @FXML
+    private void exploreTradeoffs() {
+        var validIngredients = feedData.stream()
+            .filter(entry -> !"Select ingredient...".equals(entry.getIngredient()) &&
+                           entry.getProtein() > 0)
+            .collect(java.util.stream.Collectors.toList());
+        
+        if (validIngredients.size() < 2) {
+            showAlert("Please add at least two ingredients to the mix first.");
+            return;
         }
         
-        // Optimize proportions using multi-nutrient balancing with more iterations for precision
-        for (int iteration = 0; iteration < 100; iteration++) {
-            // Calculate current nutrition using proportions
-            double currentProtein = 0, currentFat = 0, currentFiber = 0, currentLysine = 0;
-            for (int i = 0; i < numIngredients; i++) {
-                currentProtein += proportions[i] * ingredients.get(i).getProtein();
-                currentFat += proportions[i] * ingredients.get(i).getFat();
-                currentFiber += proportions[i] * ingredients.get(i).getFiber();
-                currentLysine += proportions[i] * ingredients.get(i).getLysine();
+        FormulationProblem problem = FeedMixOptimizer.buildProblem(validIngredients);
+        DatabaseHelper.getExecutor().read(conn -> new String[] { loadNumberOfPigs(conn), loadLastPigStage(conn) })
+            .thenAcceptAsync(settings -> chooseTradeoff(validIngredients, problem, settings[0], settings[1]),
+                DatabaseExecutor.FX_THREAD);
+    }
+    
+    private void chooseTradeoff(java.util.List<FeedMixEntry> ingredients, FormulationProblem problem,
+                                String savedNumberOfPigs, String savedPigStage) {
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Cost vs Nutrition");
+        dialog.setHeaderText("How much does more protein or lysine cost with these ingredients?");
+        
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new javafx.geometry.Insets(20, 20, 10, 10));
+        
+        ComboBox<String> pigStageCombo = new ComboBox<>();
+        pigStageCombo.getItems().addAll("Weaner", "Grower", "Finisher");
+        pigStageCombo.setValue(savedPigStage);
+        ComboBox<String> nutrientCombo = new ComboBox<>();
+        nutrientCombo.getItems().addAll(FormulationProblem.getNutrientName(FormulationProblem.PROTEIN),
+            FormulationProblem.getNutrientName(FormulationProblem.LYSINE));
+        nutrientCombo.setValue(FormulationProblem.getNutrientName(FormulationProblem.PROTEIN));
+        grid.add(new Label("Other ranges from:"), 0, 0);
+        grid.add(pigStageCombo, 1, 0);
+        grid.add(new Label("Trade cost against:"), 0, 1);
+        grid.add(nutrientCombo, 1, 1);
+        grid.add(new Label("Every other nutrition range of the stage is kept."), 0, 2, 2, 1);
+        
+        dialog.getDialogPane().setContent(grid);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        
+        dialog.showAndWait().ifPresent(button -> {
+            if (button != ButtonType.OK) {
+                return;
             }
-            
-            // Calculate errors for all nutrients with very tight tolerances for protein and lysine
-            double proteinError = Math.abs(currentProtein - targetProtein);
-            double fatError = Math.abs(currentFat - targetFat);
-            double fiberError = Math.abs(currentFiber - targetFiber);
-            double lysineError = Math.abs(currentLysine - targetLysine);
-            
-            // Stop if protein and lysine are very close to targets (tight tolerances)
-            if (proteinError < 0.1 && lysineError < 0.05) {
-                break;
+            int pigs = 1;
+            try {
+                pigs = Math.max(1, Integer.parseInt(savedNumberOfPigs.trim()));
+            } catch (NumberFormatException e) {
+                // Fall back to one pig
             }
-            
-            // Prioritize protein and lysine adjustments
-            double adjustment = 0.002; // Even smaller 0.2% adjustment per iteration for higher precision
-            
-            if (proteinError > 0.1) {
-                // Protein is top priority
-                adjustProportionsForNutrient(proportions, ingredients, currentProtein, targetProtein, 
-                                           (entry) -> entry.getProtein(), adjustment);
-            } else if (lysineError > 0.05) {
-                // Lysine is second priority (very small adjustments)
-                adjustProportionsForNutrient(proportions, ingredients, currentLysine, targetLysine, 
-                                           (entry) -> entry.getLysine(), adjustment * 0.1);
-            } else if (fatError > 0.5) {
-                // Fat is third priority
-                adjustProportionsForNutrient(proportions, ingredients, currentFat, targetFat, 
-                                           (entry) -> entry.getFat(), adjustment);
-            } else if (fiberError > 0.5) {
-                // Fiber is lowest priority
-                adjustProportionsForNutrient(proportions, ingredients, currentFiber, targetFiber, 
-                                           (entry) -> entry.getFiber(), adjustment);
+            TargetProfile profile = TargetProfile.forStage(pigStageCombo.getValue(), pigs);
+            int nutrient = FormulationProblem.getNutrientName(FormulationProblem.LYSINE).equals(nutrientCombo.getValue())
+                ? FormulationProblem.LYSINE : FormulationProblem.PROTEIN;
+            startFrontierSweep(ingredients, problem.withTargets(profile), profile, nutrient);
+        });
+    }
+    
+    private void startFrontierSweep(java.util.List<FeedMixEntry> ingredients, FormulationProblem problem,
+                                    TargetProfile profile, int nutrient) {
+        MonitoredTask<ParetoFrontier> task = new MonitoredTask<>() {
+            @Override
+            protected ParetoFrontier call() {
+                updateMessage(String.format("Solving %d %s levels...", FormulationEngine.DEFAULT_FRONTIER_POINTS,
+                    FormulationProblem.getNutrientName(nutrient).toLowerCase()));
+                return FormulationEngine.sweepFrontier(problem, nutrient, FormulationEngine.DEFAULT_FRONTIER_POINTS,
+                    java.util.concurrent.ForkJoinPool.commonPool(), this, warmStarts);
             }
-            
-            // Ensure no negative or excessive proportions with ingredient-specific limits
-            for (int i = 0; i < numIngredients; i++) {
-                FeedMixEntry ingredient = ingredients.get(i);
-                
-                if (proportions[i] < 0.01) {
-                    proportions[i] = 0.01; // Minimum 1%
-                } else {
-                    // Apply ingredient-specific maximum limits
-                    double maxProportion = 0.65; // Default maximum
-                    
-                    if (ingredient.getLysine() > 10) {
-                        maxProportion = 0.05; // Max 5% for very high lysine ingredients (eggs, fish meal)
-                    } else if (ingredient.getProtein() > 25) {
-                        maxProportion = 0.25; // Max 25% for high protein ingredients
-                    } else if (ingredient.getFiber() > 25) {
-                        maxProportion = 0.30; // Max 30% for high fiber ingredients
-                    }
-                    
-                    if (proportions[i] > maxProportion) {
-                        proportions[i] = maxProportion;
-                    }
-                }
+        };
+        
+        runInBackground(task, "Could not compare costs", frontier -> {
+            if (frontier.isEmpty()) {
+                showAlert("These ingredients can't meet the stage's other nutrition ranges, whatever the " +
+                          FormulationProblem.getNutrientName(nutrient).toLowerCase() + " level.\n" +
+                          "Try Optimize by Nutrition to see what is missing.");
+                return;
             }
-            
-            // Re-normalize after constraints
-            double total = java.util.Arrays.stream(proportions).sum();
-            for (int i = 0; i < numIngredients; i++) {
-                proportions[i] = proportions[i] / total;
+            showFrontier(ingredients, problem, profile, frontier);
+        });
+    }
+    
+    /**
+     * Plots the frontier (see FrontierChartDialog); the picked point is loaded into the table.
+     */
+    private void showFrontier(java.util.List<FeedMixEntry> ingredients, FormulationProblem problem,
+                              TargetProfile profile, ParetoFrontier frontier) {
+        FrontierChartDialog.showAndWait(ingredients, profile, frontier).ifPresent(point -> {
+            if (!ingredients.stream().allMatch(feedData::contains)) {
+                showAlert("The mix changed while comparing. Please run the comparison again.");
+                return;
             }
+            FeedMixOptimizer.applyWeights(ingredients, point.getResult(), profile.getMixWeight());
+            // Re-optimizing this mix now starts from the picked point
+            warmStarts.useFrontierPoint(problem, point);
+            recalcPercentages();
+            feedTable.refresh();
+        });
+    }
+    
+    /**
+     * Simulates what every saved mix could cost over the coming purchases (see
+     * SavedMixPriceRisk), costed as saved and re-optimized for the same nutrition, so the
+     * table shows both the price risk and how much of it reformulating absorbs.
+     */
+    @FXML
+    private void showPriceRisk() {
+        if (optimizationTask != null && optimizationTask.isRunning()) {
+            showAlert("An optimization is already running. Cancel it or wait for it to finish.");
+            return;
         }
         
-        // Apply the calculated proportions scaled to target weight
-        for (int i = 0; i < numIngredients; i++) {
-            double finalWeight = proportions[i] * targetWeight;
-            ingredients.get(i).setWeight(Math.round(finalWeight * 100.0) / 100.0);
-        }
+        SavedMixPriceRisk.load().whenCompleteAsync((risk, error) -> {
+            if (error != null) {
+                System.err.println("Loading saved mixes for the price risk failed: " + rootMessage(error));
+                error.printStackTrace();
+                showAlert("Could not load the saved mixes: " + rootMessage(error));
+                return;
+            }
+            if (risk.isEmpty()) {
+                showAlert("Save a mix of at least two ingredients first; the price risk is worked out for saved mixes.");
+                return;
+            }
+            startPriceRiskSimulation(risk);
+        }, DatabaseExecutor.FX_THREAD);
     }
     
-    // Helper method to adjust proportions for a specific nutrient
-    private void adjustProportionsForNutrient(double[] proportions, java.util.List<FeedMixEntry> ingredients, 
-                                            double currentValue, double targetValue, 
-                                            java.util.function.Function<FeedMixEntry, Double> getNutrient,
-                                            double adjustment) {
-        int numIngredients = ingredients.size();
+    private void startPriceRiskSimulation(SavedMixPriceRisk risk) {
+        // Fixed and re-optimized runs share the seed, so they see the same price scenarios
+        long seed = java.util.concurrent.ThreadLocalRandom.current().nextLong();
+        int scenarios = FormulationEngine.DEFAULT_SCENARIOS;
         
-        // Find ingredient with highest and lowest value for this nutrient
-        int highIdx = 0, lowIdx = 0;
-        double highest = getNutrient.apply(ingredients.get(0));
-        double lowest = getNutrient.apply(ingredients.get(0));
-        
-        for (int i = 1; i < numIngredients; i++) {
-            double value = getNutrient.apply(ingredients.get(i));
-            if (value > highest) {
-                highest = value;
-                highIdx = i;
-            }
-            if (value < lowest) {
-                lowest = value;
-                lowIdx = i;
+        MonitoredTask<java.util.List<PriceRisk[]>> task = new MonitoredTask<>() {
+            @Override
+            protected java.util.List<PriceRisk[]> call() {
+                return risk.simulate(scenarios, seed, this, this::updateMessage);
             }
-        }
+        };
         
-        // Adjust proportions based on whether we need more or less of this nutrient
-        if (currentValue < targetValue) {
-            // Need more: increase high-nutrient ingredient, decrease low-nutrient ingredient
-            proportions[highIdx] += adjustment;
-            proportions[lowIdx] -= adjustment;
-        } else {
-            // Need less: decrease high-nutrient ingredient, increase low-nutrient ingredient
-            proportions[highIdx] -= adjustment;
-            proportions[lowIdx] += adjustment;
+        runInBackground(task, "Could not simulate prices", rows ->
+            PriceRiskDialog.showAndWait(rows, scenarios, risk.getNoHistory(), SavedMixPriceRisk.HISTORY_YEARS));
+    }
+    
+    /**
+     * Shows what the least-cost mix is sensitive to next to the cost row: the cost of each
+     * binding nutrient limit on the label, the full report (price ranges included) on its
+     * tooltip. Does nothing for results without a sensitivity report.
+     */
+    private void showSensitivity(java.util.List<FeedMixEntry> ingredients, Sensitivity sensitivity) {
+        if (sensitivity == null || sensitivityLabel == null) {
+            return;
+        }
+        sensitivityMix = mixWeights(ingredients);
+        sensitivityLabel.setText(sensitivity.summarize());
+        Tooltip tooltip = new Tooltip(sensitivity.describe());
+        tooltip.setShowDuration(javafx.util.Duration.seconds(30));
+        sensitivityLabel.setTooltip(tooltip);
+    }
+    
+    private void clearSensitivity() {
+        sensitivityMix = null;
+        if (sensitivityLabel != null) {
+            sensitivityLabel.setText("");
+            sensitivityLabel.setTooltip(null);
+        }
+    }
+    
+    // True while the mix still holds exactly the ingredients and weights the report was made for
+    private boolean isSensitivityMix(java.util.List<FeedMixEntry> validEntries) {
+        return mixWeights(validEntries).equals(sensitivityMix);
+    }
+    
+    private static Map<String, Double> mixWeights(java.util.List<FeedMixEntry> entries) {
+        Map<String, Double> weights = new HashMap<>();
+        for (FeedMixEntry entry : entries) {
+            weights.merge(entry.getIngredient(), entry.getWeight(), Double::sum);
         }
+        return weights;
     }
     
     /**
      * Gets the most recent price per pound for a feed ingredient from the cost tracker
      * This is used in the feed mix calculator to show cost information
      * 
+     * Served from the in-memory price cache, which Cost Tracker keeps up to date,
+     * so this never runs a query.
+     * 
      * @param ingredientName The name of the feed ingredient (e.g., "Corn", "Soybean Meal")
      * @return Price per pound in dollars, or 0.0 if no recent price data found
      */
     private double getIngredientPricePerLb(String ingredientName) {
-        // Query the most recent cost entry for this ingredient
-        String sql = """
-            SELECT cost, quantity, date FROM cost_entries 
-            WHERE ingredient = ? AND category = 'Feed' AND cost > 0 AND quantity > 0
-            ORDER BY date DESC LIMIT 1
-            """;
-            
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setString(1, ingredientName);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    double cost = rs.getDouble("cost");
-                    double quantity = rs.getDouble("quantity"); // This is already in total pounds from cost tracker
-                    
-                    if (quantity > 0) {
-                        double pricePerPound = cost / quantity;
-                        
-                        // Sanity check - reject unrealistic prices for animal feed
-                        if (pricePerPound > 10.0) { // More than $10/lb seems wrong for feed
-                            return 0.0;
-                        }
-                        
-                        return pricePerPound;
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error getting price for " + ingredientName + ": " + e.getMessage());
-        }
-        
-        return 0.0; // No price data found
+        return DatabaseHelper.getPriceCache().getPricePerLb(ingredientName);
     }
 
     // Ensure there's always an empty row available for new entries
@@ -1339,59 +1691,21 @@ public class FeedMixCalculatorController {
         }
     }
     
-    private String loadNumberOfPigs() {
-        String sql = "SELECT value FROM user_preferences WHERE key = 'numberOfPigs'";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("value");
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Could not load number of pigs preference: " + e.getMessage());
-        }
-        return "1"; // Default value
+    private static String loadNumberOfPigs(Connection conn) {
+        return UserPreferences.get(conn, "numberOfPigs", "1");
     }
     
-    private void saveNumberOfPigs(String numberOfPigs) {
-        String sql = "INSERT OR REPLACE INTO user_preferences (key, value) VALUES ('numberOfPigs', ?)";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setString(1, numberOfPigs);
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("Could not save number of pigs preference: " + e.getMessage());
-        }
+    private static String loadLastPigStage(Connection conn) {
+        return UserPreferences.get(conn, "lastPigStage", "Grower");
     }
     
-    private String loadLastPigStage() {
-        String sql = "SELECT value FROM user_preferences WHERE key = 'lastPigStage'";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            
-            if (rs.next()) {
-                return rs.getString("value");
-            }
-        } catch (SQLException e) {
-            System.err.println("Could not load last pig stage preference: " + e.getMessage());
-        }
-        return "Grower"; // Default value
-    }
-    
-    private void saveLastPigStage(String pigStage) {
-        String sql = "INSERT OR REPLACE INTO user_preferences (key, value) VALUES ('lastPigStage', ?)";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setString(1, pigStage);
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("Could not save last pig stage preference: " + e.getMessage());
-        }
+    /**
+     * Message of the exception behind a failed database future.
+     */
+    private static String rootMessage(Throwable error) {
+        Throwable cause = error instanceof java.util.concurrent.CompletionException && error.getCause() != null
+            ? error.getCause() : error;
+        return cause.getMessage();
     }
     
     // Utility method to scale the entire mix to a target weight while maintaining proportions
@@ -1419,79 +1733,59 @@ public class FeedMixCalculatorController {
     
     // Save current feed mix to database
     private void saveFeedMix() {
-        // Clear existing saved mix
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement()) {
-            stmt.execute("DELETE FROM current_feed_mix");
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return;
-        }
-        
-        // Save current mix (excluding empty rows)
-        String sql = "INSERT INTO current_feed_mix(ingredient_name, weight, protein, fat, fiber, lysine) VALUES(?,?,?,?,?,?)";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            for (FeedMixEntry entry : feedData) {
-                if (!"Select ingredient...".equals(entry.getIngredient()) && 
-                    entry.getIngredient() != null && 
-                    !entry.getIngredient().trim().isEmpty() &&
-                    entry.getWeight() > 0) {
-                    
-                    ps.setString(1, entry.getIngredient());
-                    ps.setDouble(2, entry.getWeight());
-                    ps.setDouble(3, entry.getProtein());
-                    ps.setDouble(4, entry.getFat());
-                    ps.setDouble(5, entry.getFiber());
-                    ps.setDouble(6, entry.getLysine());
-                    ps.executeUpdate();
-                }
+        // Snapshot the current mix (excluding empty rows) and let the background writer
+        // persist it; rapid edits are coalesced and only changed rows are written
+        java.util.List<CurrentMixWriter.MixRow> rows = new ArrayList<>();
+        for (FeedMixEntry entry : feedData) {
+            if (!"Select ingredient...".equals(entry.getIngredient()) && 
+                entry.getIngredient() != null && 
+                !entry.getIngredient().trim().isEmpty() &&
+                entry.getWeight() > 0) {
+                
+                rows.add(new CurrentMixWriter.MixRow(
+                    entry.getIngredient(),
+                    entry.getWeight(),
+                    entry.getProtein(),
+                    entry.getFat(),
+                    entry.getFiber(),
+                    entry.getLysine()));
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
+        DatabaseHelper.getCurrentMixWriter().submit(rows);
     }
     
-    // Load saved feed mix from database
-    private void loadSavedFeedMix() {
+    // Load saved feed mix from database; the returned future completes on the FX thread
+    private java.util.concurrent.CompletableFuture<Void> loadSavedFeedMix() {
+        return DatabaseHelper.getExecutor().read(SavedMixes::loadCurrentMix).handleAsync((entries, error) -> {
+            if (error == null) {
+                showLoadedMix(entries);
+            }
+            return null;
+        }, DatabaseExecutor.FX_THREAD);
+    }
+    
+    // Replace the table (and the static cache) with a loaded mix
+    private void showLoadedMix(java.util.List<FeedMixEntry> entries) {
         feedData.clear();
         staticFeedData.clear(); // Also clear static cache
         
-        String sql = "SELECT ingredient_name, weight, protein, fat, fiber, lysine FROM current_feed_mix";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                FeedMixEntry entry = new FeedMixEntry();
-                entry.setIngredient(rs.getString("ingredient_name"));
-                entry.setWeight(rs.getDouble("weight"));
-                entry.setProtein(rs.getDouble("protein"));
-                entry.setFat(rs.getDouble("fat"));
-                entry.setFiber(rs.getDouble("fiber"));
-                entry.setLysine(rs.getDouble("lysine"));
-                
-                feedData.add(entry);
-                
-                // Also add to static cache
-                FeedMixEntry staticEntry = new FeedMixEntry();
-                staticEntry.setIngredient(entry.getIngredient());
-                staticEntry.setWeight(entry.getWeight());
-                staticEntry.setProtein(entry.getProtein());
-                staticEntry.setFat(entry.getFat());
-                staticEntry.setFiber(entry.getFiber());
-                staticEntry.setLysine(entry.getLysine());
-                staticFeedData.add(staticEntry);
-            }
-            
-            // Recalculate totals if we loaded data
-            if (!feedData.isEmpty()) {
-                recalcPercentages();
-            }
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
+        for (FeedMixEntry entry : entries) {
+            feedData.add(entry);
+            
+            // Also add to static cache
+            FeedMixEntry staticEntry = new FeedMixEntry();
+            staticEntry.setIngredient(entry.getIngredient());
+            staticEntry.setWeight(entry.getWeight());
+            staticEntry.setProtein(entry.getProtein());
+            staticEntry.setFat(entry.getFat());
+            staticEntry.setFiber(entry.getFiber());
+            staticEntry.setLysine(entry.getLysine());
+            staticFeedData.add(staticEntry);
+        }
+        
+        // Recalculate totals if we loaded data
+        if (!feedData.isEmpty()) {
+            recalcPercentages();
         }
     }
     
@@ -1527,110 +1821,42 @@ public class FeedMixCalculatorController {
     }
     
     private void saveMixToDatabase(String mixName, java.util.List<FeedMixEntry> entries) {
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
-            conn.setAutoCommit(false);
-            
-            // Check if mix name already exists
-            String checkSql = "SELECT COUNT(*) FROM saved_mixes WHERE name = ?";
-            try (PreparedStatement checkPs = conn.prepareStatement(checkSql)) {
-                checkPs.setString(1, mixName);
-                ResultSet rs = checkPs.executeQuery();
-                if (rs.next() && rs.getInt(1) > 0) {
-                    // Mix name exists, ask user to confirm overwrite
-                    Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
-                    confirm.setTitle("Mix Exists");
-                    confirm.setHeaderText("A mix named '" + mixName + "' already exists.");
-                    confirm.setContentText("Do you want to overwrite it?");
-                    
-                    if (confirm.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
-                        conn.rollback();
-                        return;
-                    }
-                    
-                    // Delete existing mix and its entries
-                    String deleteMixSql = "DELETE FROM saved_mixes WHERE name = ?";
-                    try (PreparedStatement deletePs = conn.prepareStatement(deleteMixSql)) {
-                        deletePs.setString(1, mixName);
-                        deletePs.executeUpdate();
-                    }
+        // Check if mix name already exists (asking to overwrite happens back on the FX thread)
+        DatabaseHelper.getExecutor().read(conn -> SavedMixes.exists(conn, mixName)).thenAcceptAsync(exists -> {
+            if (exists) {
+                // Mix name exists, ask user to confirm overwrite
+                Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+                confirm.setTitle("Mix Exists");
+                confirm.setHeaderText("A mix named '" + mixName + "' already exists.");
+                confirm.setContentText("Do you want to overwrite it?");
+                
+                if (confirm.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+                    return;
                 }
             }
             
             // Calculate totals
             SavedMix savedMix = new SavedMix(mixName, entries);
             
-            // Insert new mix
-            String insertMixSql = "INSERT INTO saved_mixes (name, created_date, total_weight, total_protein, total_fat, total_fiber, total_lysine, total_cost) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-            int mixId;
-            try (PreparedStatement ps = conn.prepareStatement(insertMixSql, Statement.RETURN_GENERATED_KEYS)) {
-                ps.setString(1, mixName);
-                ps.setString(2, LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-                ps.setDouble(3, savedMix.getTotalWeight());
-                ps.setDouble(4, savedMix.getTotalProtein());
-                ps.setDouble(5, savedMix.getTotalFat());
-                ps.setDouble(6, savedMix.getTotalFiber());
-                ps.setDouble(7, savedMix.getTotalLysine());
-                ps.setDouble(8, savedMix.getTotalCost());
-                ps.executeUpdate();
-                
-                ResultSet keys = ps.getGeneratedKeys();
-                keys.next();
-                mixId = keys.getInt(1);
-            }
-            
-            // Insert mix entries
-            String insertEntrySql = "INSERT INTO saved_mix_entries (mix_id, ingredient_name, weight, protein, fat, fiber, lysine) VALUES (?, ?, ?, ?, ?, ?, ?)";
-            try (PreparedStatement ps = conn.prepareStatement(insertEntrySql)) {
-                for (FeedMixEntry entry : entries) {
-                    ps.setInt(1, mixId);
-                    ps.setString(2, entry.getIngredient());
-                    ps.setDouble(3, entry.getWeight());
-                    ps.setDouble(4, entry.getProtein());
-                    ps.setDouble(5, entry.getFat());
-                    ps.setDouble(6, entry.getFiber());
-                    ps.setDouble(7, entry.getLysine());
-                    ps.executeUpdate();
+            DatabaseHelper.getExecutor().write(conn -> {
+                SavedMixes.save(conn, savedMix, entries);
+                return null;
+            }).whenCompleteAsync((ignored, error) -> {
+                if (error != null) {
+                    showAlert("Error saving mix: " + rootMessage(error));
+                    return;
                 }
-            }
-            
-            conn.commit();
-            showAlert("Mix '" + mixName + "' saved successfully!");
-            loadSavedMixes(); // Refresh the dropdown
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            showAlert("Error saving mix: " + e.getMessage());
-        }
+                showAlert("Mix '" + mixName + "' saved successfully!");
+                loadSavedMixes(); // Refresh the dropdown
+            }, DatabaseExecutor.FX_THREAD);
+        }, DatabaseExecutor.FX_THREAD);
     }
     
     private void loadSavedMixes() {
         if (savedMixCombo == null) return;
         
-        savedMixCombo.getItems().clear();
-        
-        String sql = "SELECT * FROM saved_mixes ORDER BY created_date DESC";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                SavedMix mix = new SavedMix();
-                mix.setId(rs.getInt("id"));
-                mix.setName(rs.getString("name"));
-                mix.setCreatedDate(LocalDateTime.parse(rs.getString("created_date")));
-                mix.setTotalWeight(rs.getDouble("total_weight"));
-                mix.setTotalProtein(rs.getDouble("total_protein"));
-                mix.setTotalFat(rs.getDouble("total_fat"));
-                mix.setTotalFiber(rs.getDouble("total_fiber"));
-                mix.setTotalLysine(rs.getDouble("total_lysine"));
-                mix.setTotalCost(rs.getDouble("total_cost"));
-                
-                savedMixCombo.getItems().add(mix);
-            }
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        DatabaseHelper.getExecutor().read(SavedMixes::list)
+            .thenAcceptAsync(mixes -> savedMixCombo.getItems().setAll(mixes), DatabaseExecutor.FX_THREAD);
     }
     
     @FXML
@@ -1638,46 +1864,16 @@ public class FeedMixCalculatorController {
         SavedMix selectedMix = savedMixCombo.getValue();
         if (selectedMix == null) return;
         
-        feedData.clear();
-        staticFeedData.clear();
-        
-        String sql = "SELECT * FROM saved_mix_entries WHERE mix_id = ?";
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setInt(1, selectedMix.getId());
-            ResultSet rs = ps.executeQuery();
-            
-            while (rs.next()) {
-                FeedMixEntry entry = new FeedMixEntry();
-                entry.setIngredient(rs.getString("ingredient_name"));
-                entry.setWeight(rs.getDouble("weight"));
-                entry.setProtein(rs.getDouble("protein"));
-                entry.setFat(rs.getDouble("fat"));
-                entry.setFiber(rs.getDouble("fiber"));
-                entry.setLysine(rs.getDouble("lysine"));
-                
-                feedData.add(entry);
-                
-                // Also add to static cache
-                FeedMixEntry staticEntry = new FeedMixEntry();
-                staticEntry.setIngredient(entry.getIngredient());
-                staticEntry.setWeight(entry.getWeight());
-                staticEntry.setProtein(entry.getProtein());
-                staticEntry.setFat(entry.getFat());
-                staticEntry.setFiber(entry.getFiber());
-                staticEntry.setLysine(entry.getLysine());
-                staticFeedData.add(staticEntry);
+        DatabaseHelper.getExecutor().read(conn -> SavedMixes.findEntries(conn, selectedMix.getId())).whenCompleteAsync((entries, error) -> {
+            if (error != null) {
+                showAlert("Error loading mix: " + rootMessage(error));
+                return;
             }
-            
+            showLoadedMix(entries);
             ensureEmptyRowExists();
             recalcPercentages();
             feedTable.refresh();
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            showAlert("Error loading mix: " + e.getMessage());
-        }
+        }, DatabaseExecutor.FX_THREAD);
     }
     
     @FXML
@@ -0,0 +1,116 @@
+package org.pigfeed.pigfeedapp.controllers;
+
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.layout.VBox;
+import org.pigfeed.pigfeedapp.formulation.FormulationProblem;
+import org.pigfeed.pigfeedapp.formulation.FormulationResult;
+import org.pigfeed.pigfeedapp.formulation.ParetoFrontier;
+import org.pigfeed.pigfeedapp.formulation.TargetProfile;
+import org.pigfeed.pigfeedapp.model.FeedMixEntry;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plots a cost vs nutrient frontier (cost per ton against the nutrient level); clicking a
+ * point shows its mix. Points within all of the stage's ranges are drawn in green.
+ */
+final class FrontierChartDialog {
+
+    private static final String MEETS_RANGES_STYLE = "-fx-background-color: #2E7D32, white;";
+    private static final String SELECTED_STYLE = "-fx-background-color: #E91E63, white; -fx-padding: 6px;";
+
+    private FrontierChartDialog() {
+    }
+
+    /**
+     * Shows the frontier and waits; returns the point picked with Apply Selected, or empty
+     * if the dialog was closed without picking one.
+     */
+    static Optional<ParetoFrontier.Point> showAndWait(List<FeedMixEntry> ingredients, TargetProfile profile,
+                                                      ParetoFrontier frontier) {
+        String nutrientName = FormulationProblem.getNutrientName(frontier.getNutrient());
+        NumberAxis levelAxis = new NumberAxis();
+        levelAxis.setLabel(nutrientName + " (%)");
+        levelAxis.setForceZeroInRange(false);
+        NumberAxis costAxis = new NumberAxis();
+        costAxis.setLabel("Cost ($/ton)");
+        costAxis.setForceZeroInRange(false);
+        LineChart<Number, Number> chart = new LineChart<>(levelAxis, costAxis);
+        chart.setLegendVisible(false);
+        chart.setAnimated(false);
+        chart.setPrefSize(640, 360);
+
+        XYChart.Series<Number, Number> series = new XYChart.Series<>();
+        for (ParetoFrontier.Point point : frontier.getPoints()) {
+            FormulationResult result = point.getResult();
+            series.getData().add(new XYChart.Data<>(
+                result.getNutrientLevel(frontier.getNutrient()), result.getCostPerLb() * FormulationProblem.LB_PER_TON, point));
+        }
+        chart.getData().add(series);
+
+        Label details = new Label("Click a point to see its mix. Green points meet every " + profile.getName() + " range.");
+        details.setWrapText(true);
+        details.setPrefWidth(640);
+        ParetoFrontier.Point[] selected = { null };
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Cost vs " + nutrientName);
+        dialog.setHeaderText("Least-cost mix at each " + nutrientName.toLowerCase() + " level (" + profile.getName() +
+            ", prices from the cost tracker)");
+        dialog.getDialogPane().setContent(new VBox(8, chart, details));
+        ButtonType applyButton = new ButtonType("Apply Selected", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(applyButton, ButtonType.CLOSE);
+        dialog.getDialogPane().lookupButton(applyButton).setDisable(true);
+
+        // The chart creates a symbol node per point when the series is added
+        for (XYChart.Data<Number, Number> data : series.getData()) {
+            ParetoFrontier.Point point = (ParetoFrontier.Point) data.getExtraValue();
+            javafx.scene.Node symbol = data.getNode();
+            if (symbol == null) {
+                continue;
+            }
+            symbol.setStyle(baseStyle(point));
+            symbol.setCursor(javafx.scene.Cursor.HAND);
+            symbol.setOnMouseClicked(event -> {
+                for (XYChart.Data<Number, Number> other : series.getData()) {
+                    if (other.getNode() != null) {
+                        other.getNode().setStyle(baseStyle((ParetoFrontier.Point) other.getExtraValue()));
+                    }
+                }
+                symbol.setStyle(SELECTED_STYLE);
+                selected[0] = point;
+                details.setText(describePoint(ingredients, frontier.getNutrient(), point));
+                dialog.getDialogPane().lookupButton(applyButton).setDisable(false);
+            });
+        }
+
+        return dialog.showAndWait()
+            .filter(button -> button == applyButton && selected[0] != null)
+            .map(button -> selected[0]);
+    }
+
+    private static String baseStyle(ParetoFrontier.Point point) {
+        return point.getResult().isTargetsMet() ? MEETS_RANGES_STYLE : "";
+    }
+
+    private static String describePoint(List<FeedMixEntry> ingredients, int nutrient, ParetoFrontier.Point point) {
+        FormulationResult result = point.getResult();
+        StringBuilder mix = new StringBuilder();
+        for (int i = 0; i < ingredients.size(); i++) {
+            if (result.getProportion(i) < 0.005) continue;
+            if (mix.length() > 0) mix.append(", ");
+            mix.append(String.format("%s %.0f%%", ingredients.get(i).getIngredient(), result.getProportion(i) * 100));
+        }
+        return String.format("%s %.2f%% for $%.2f/ton%s%n%s",
+            FormulationProblem.getNutrientName(nutrient), result.getNutrientLevel(nutrient),
+            result.getCostPerLb() * FormulationProblem.LB_PER_TON, result.isTargetsMet() ? " (meets every range)" : " (outside the stage's ranges)",
+            mix);
+    }
+}
@@ -0,0 +1,20 @@
+package org.pigfeed.pigfeedapp.controllers;
+
+import javafx.concurrent.Task;
+import org.pigfeed.pigfeedapp.formulation.FormulationMonitor;
+
+/**
+ * Background task that is its own formulation monitor: cancelling the task stops the
+ * engine, and the engine's progress drives the task's progress. Subclasses pass this to
+ * the engine and override improved to report better mixes as they are found.
+ *
+ * Task.updateX may be called from any thread and is coalesced onto the FX thread, so the
+ * engine's solver threads can report through it directly.
+ */
+abstract class MonitoredTask<T> extends Task<T> implements FormulationMonitor {
+
+    @Override
+    public void progress(int done, int total) {
+        updateProgress(done, total);
+    }
+}
@@ -0,0 +1,69 @@
+package org.pigfeed.pigfeedapp.controllers;
+
+import javafx.concurrent.Task;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+/**
+ * Small non-modal window that follows a background optimization: a progress bar, the
+ * latest best solution, a log of every improvement and a Cancel button.
+ */
+final class OptimizationProgressWindow {
+
+    // Keep the log short; only the recent improvements are interesting
+    private static final int MAX_LOG_LINES = 200;
+
+    private OptimizationProgressWindow() {
+    }
+
+    /**
+     * Opens the window for the task; the caller closes the returned stage once the task is done.
+     * Closing the window is the same as pressing Cancel.
+     */
+    static Stage show(Window owner, Task<?> task) {
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setPrefWidth(420);
+        progressBar.progressProperty().bind(task.progressProperty());
+
+        Label statusLabel = new Label();
+        statusLabel.textProperty().bind(task.messageProperty());
+
+        ListView<String> improvements = new ListView<>();
+        improvements.setPrefHeight(160);
+        task.messageProperty().addListener((obs, oldMessage, newMessage) -> {
+            if (newMessage == null || newMessage.isEmpty()) {
+                return;
+            }
+            improvements.getItems().add(newMessage);
+            if (improvements.getItems().size() > MAX_LOG_LINES) {
+                improvements.getItems().remove(0);
+            }
+            improvements.scrollTo(improvements.getItems().size() - 1);
+        });
+
+        Button cancelButton = new Button("Cancel");
+        cancelButton.setOnAction(event -> task.cancel());
+        HBox buttons = new HBox(cancelButton);
+        buttons.setAlignment(javafx.geometry.Pos.CENTER_RIGHT);
+
+        VBox content = new VBox(8, new Label("Optimizing feed mix..."), progressBar, statusLabel, improvements, buttons);
+        content.setPadding(new javafx.geometry.Insets(12));
+
+        Stage stage = new Stage();
+        stage.setTitle("Optimizing");
+        if (owner != null) {
+            stage.initOwner(owner);
+        }
+        stage.setScene(new Scene(content));
+        stage.setOnCloseRequest(event -> task.cancel());
+        stage.show();
+        return stage;
+    }
+}
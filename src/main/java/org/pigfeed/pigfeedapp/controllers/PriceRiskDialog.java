@@ -0,0 +1,75 @@
+package org.pigfeed.pigfeedapp.controllers;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.VBox;
+import org.pigfeed.pigfeedapp.formulation.PriceRisk;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Percentile costs per ton of every saved mix over the simulated price scenarios, costed
+ * as saved and re-optimized.
+ */
+final class PriceRiskDialog {
+
+    private PriceRiskDialog() {
+    }
+
+    /**
+     * Shows the table and waits for it to be closed.
+     *
+     * @param rows        per mix: [0] costed as saved, [1] re-optimized (null if its nutrition can't be matched)
+     * @param noHistory   ingredients without purchases in the window, whose price was held at today's
+     * @param historyYears years of purchases the scenarios were drawn from
+     */
+    static void showAndWait(List<PriceRisk[]> rows, int scenarios, Set<String> noHistory, int historyYears) {
+        TableView<PriceRisk[]> table = new TableView<>(FXCollections.observableArrayList(rows));
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.setPrefSize(820, 260);
+
+        TableColumn<PriceRisk[], String> mixCol = new TableColumn<>("Mix");
+        mixCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue()[0].getMixName()));
+        table.getColumns().addAll(List.of(mixCol,
+            costColumn("Now $/ton", row -> row[0].getCurrentCostPerTon()),
+            costColumn("5th pct", row -> row[0].getPercentile(5)),
+            costColumn("Median", row -> row[0].getPercentile(50)),
+            costColumn("95th pct", row -> row[0].getPercentile(95)),
+            costColumn("Spread", row -> row[0].getSpread()),
+            costColumn("Re-optimized median", row -> row[1] == null ? null : row[1].getPercentile(50)),
+            costColumn("Re-optimized 95th", row -> row[1] == null ? null : row[1].getPercentile(95))));
+
+        Label note = new Label("Costs per ton across the scenarios: 90% of them fall between the 5th and 95th " +
+            "percentile. Re-optimized columns use the cheapest blend of the same ingredients with the same " +
+            "nutrition at each scenario's prices." +
+            (noHistory.isEmpty() ? "" : "\nNo purchases in the last " + historyYears +
+                " years, price held at today's: " + String.join(", ", noHistory)));
+        note.setWrapText(true);
+        note.setPrefWidth(820);
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Price Risk");
+        dialog.setHeaderText(String.format("Saved mixes over %,d price scenarios drawn from the last %d years of " +
+            "Feed purchases, riskiest first", scenarios, historyYears));
+        dialog.getDialogPane().setContent(new VBox(8, table, note));
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+        dialog.showAndWait();
+    }
+
+    // A dollar column; null values show as n/a
+    private static TableColumn<PriceRisk[], String> costColumn(String title, Function<PriceRisk[], Double> value) {
+        TableColumn<PriceRisk[], String> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> {
+            Double cost = value.apply(cell.getValue());
+            return new SimpleStringProperty(cost == null ? "n/a" : String.format("$%.2f", cost));
+        });
+        return column;
+    }
+}
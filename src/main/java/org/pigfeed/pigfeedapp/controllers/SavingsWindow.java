@@ -0,0 +1,99 @@
+package org.pigfeed.pigfeedapp.controllers;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import org.pigfeed.pigfeedapp.formulation.Reformulation;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Non-modal window listing the mixes that got cheaper to make after a feed purchase. It
+ * never takes over the window, so data entry carries on; the current mix's proposal can
+ * be applied. A newer notification replaces the open one rather than stacking windows.
+ */
+final class SavingsWindow {
+
+    private Stage stage;
+
+    /**
+     * Shows the reformulations, cheapest saving first as given. Apply is enabled only on
+     * currentProposal (matched by reference, not by name, since a saved mix may be called
+     * "Current mix" too) and hands it to the callback, which returns false to keep the
+     * window open (when the mix changed in the meantime, say).
+     */
+    void show(Window owner, List<Reformulation> found, Reformulation currentProposal,
+              Predicate<Reformulation> applyToCurrentMix) {
+        TableView<Reformulation> table = new TableView<>(FXCollections.observableArrayList(found));
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.setPrefSize(760, 180);
+
+        TableColumn<Reformulation, String> mixCol = new TableColumn<>("Mix");
+        mixCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getMixName()));
+        TableColumn<Reformulation, String> nowCol = new TableColumn<>("Now $/ton");
+        nowCol.setCellValueFactory(cell -> new SimpleStringProperty(
+            String.format("$%.2f", cell.getValue().getCurrentCostPerTon())));
+        TableColumn<Reformulation, String> proposedCol = new TableColumn<>("Proposed $/ton");
+        proposedCol.setCellValueFactory(cell -> new SimpleStringProperty(
+            String.format("$%.2f", cell.getValue().getProposedCostPerTon())));
+        TableColumn<Reformulation, String> savingsCol = new TableColumn<>("You save");
+        savingsCol.setCellValueFactory(cell -> new SimpleStringProperty(
+            String.format("$%.2f/ton", cell.getValue().getSavingsPerTon())));
+        TableColumn<Reformulation, String> blendCol = new TableColumn<>("Proposed mix");
+        blendCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().describeProposedMix()));
+        table.getColumns().addAll(List.of(mixCol, nowCol, proposedCol, savingsCol, blendCol));
+        table.getSelectionModel().selectFirst();
+
+        Reformulation best = found.get(0);
+        Label headline = new Label(String.format("New feed prices: you could save $%.2f/ton on %s.",
+            best.getSavingsPerTon(), best.getMixName()));
+        headline.setStyle("-fx-font-weight: bold;");
+
+        Button applyButton = new Button("Apply to Current Mix");
+        Button closeButton = new Button("Close");
+        applyButton.disableProperty().bind(javafx.beans.binding.Bindings.createBooleanBinding(
+            () -> currentProposal == null || table.getSelectionModel().getSelectedItem() != currentProposal,
+            table.getSelectionModel().selectedItemProperty()));
+        HBox buttons = new HBox(8, applyButton, closeButton);
+        buttons.setAlignment(javafx.geometry.Pos.CENTER_RIGHT);
+
+        VBox content = new VBox(8, headline, table,
+            new Label("Proposals keep each mix's protein, fat, fiber and lysine (within tolerance) at the latest prices."),
+            buttons);
+        content.setPadding(new javafx.geometry.Insets(12));
+
+        close();
+        Stage window = new Stage();
+        window.setTitle("Cheaper Mix Available");
+        window.initModality(javafx.stage.Modality.NONE);
+        if (owner != null) {
+            window.initOwner(owner);
+        }
+        window.setScene(new Scene(content));
+        stage = window;
+
+        closeButton.setOnAction(event -> window.close());
+        applyButton.setOnAction(event -> {
+            if (applyToCurrentMix.test(table.getSelectionModel().getSelectedItem())) {
+                window.close();
+            }
+        });
+        window.show();
+    }
+
+    void close() {
+        if (stage != null) {
+            stage.close();
+            stage = null;
+        }
+    }
+}
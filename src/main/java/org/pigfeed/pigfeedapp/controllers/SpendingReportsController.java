@@ -7,6 +7,9 @@ import javafx.scene.chart.*;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
+import org.pigfeed.pigfeedapp.database.CostEntryQueries;
+import org.pigfeed.pigfeedapp.database.DatabaseExecutor;
+import org.pigfeed.pigfeedapp.database.DatabaseHelper;
 import org.pigfeed.pigfeedapp.model.CostEntry;
 
 import java.sql.*;
@@ -16,8 +19,6 @@ import java.util.*;
 
 public class SpendingReportsController {
 
-    private static final String DB_URL = "jdbc:sqlite:pigfeed.db";
-
     // UI Controls
     @FXML private Button weeklyButton;
     @FXML private Button monthlyButton;
@@ -129,30 +130,23 @@ public class SpendingReportsController {
     }
 
     private void loadSpendingData(String period) {
-        try {
-            spendingData.clear();
-            
-            // Get date range based on period
-            LocalDate startDate = getStartDate(period);
-            LocalDate endDate = LocalDate.now();
-            
-            // Load cost entries for the table
-            String sql = "SELECT * FROM cost_entries WHERE date >= ? AND date <= ? ORDER BY date DESC";
-            
-            try (Connection conn = DriverManager.getConnection(DB_URL);
-                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        spendingData.clear();
+        
+        // Get date range based on period
+        LocalDate startDate = getStartDate(period);
+        LocalDate endDate = LocalDate.now();
+        
+        // Load cost entries for the table on a database reader thread
+        String sql = CostEntryQueries.ENTRIES_BETWEEN;
+        
+        DatabaseHelper.getExecutor().read(conn -> {
+            List<CostEntry> entries = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 
                 pstmt.setString(1, startDate.toString());
                 pstmt.setString(2, endDate.toString());
                 
                 try (ResultSet rs = pstmt.executeQuery()) {
-                    double totalSpending = 0.0;
-                    double feedCosts = 0.0;
-                    
-                    // For weekly: store individual entries, for others: aggregate by time period
-                    List<CostEntry> entriesForChart = new ArrayList<>();
-                    Map<String, Map<String, Double>> timeSeriesData = new LinkedHashMap<>();
-                    
                     while (rs.next()) {
                         LocalDate date = LocalDate.parse(rs.getString("date"));
                         String description = rs.getString("description");
@@ -161,41 +155,58 @@ public class SpendingReportsController {
                         double cost = rs.getDouble("cost");
                         double quantity = rs.getDouble("quantity");
                         
-                        CostEntry entry = new CostEntry(date, description, category, ingredient, cost, quantity);
-                        spendingData.add(entry);
-                        
-                        totalSpending += entry.getTotal();
-                        if ("Feed".equals(category)) {
-                            feedCosts += entry.getTotal();
-                        }
-                        
-                        if ("weekly".equals(period)) {
-                            // For weekly, store individual entries
-                            entriesForChart.add(entry);
-                        } else {
-                            // For monthly/ytd, aggregate by time period
-                            String timePeriod = getTimePeriodLabel(date, period);
-                            timeSeriesData.computeIfAbsent(timePeriod, k -> new HashMap<>())
-                                         .merge(category, entry.getTotal(), Double::sum);
-                        }
-                    }
-                    
-                    // Update summary labels
-                    totalSpendingLabel.setText(String.format("Total: $%.2f", totalSpending));
-                    feedCostsLabel.setText(String.format("Feed: $%.2f", feedCosts));
-                    otherCostsLabel.setText(String.format("Other: $%.2f", totalSpending - feedCosts));
-                    
-                    // Update chart
-                    if ("weekly".equals(period)) {
-                        updateWeeklyChart(entriesForChart);
-                    } else {
-                        updateLineChart(timeSeriesData, period);
+                        entries.add(new CostEntry(date, description, category, ingredient, cost, quantity));
                     }
                 }
             }
+            return entries;
+        }).whenCompleteAsync((entries, error) -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                showError("Database Error", "Could not load spending data: " + cause.getMessage());
+                return;
+            }
+            showSpendingData(entries, period);
+        }, DatabaseExecutor.FX_THREAD);
+    }
+    
+    private void showSpendingData(List<CostEntry> entries, String period) {
+        double totalSpending = 0.0;
+        double feedCosts = 0.0;
+        
+        // For weekly: store individual entries, for others: aggregate by time period
+        List<CostEntry> entriesForChart = new ArrayList<>();
+        Map<String, Map<String, Double>> timeSeriesData = new LinkedHashMap<>();
+        
+        for (CostEntry entry : entries) {
+            spendingData.add(entry);
             
-        } catch (SQLException e) {
-            showError("Database Error", "Could not load spending data: " + e.getMessage());
+            totalSpending += entry.getTotal();
+            if ("Feed".equals(entry.getCategory())) {
+                feedCosts += entry.getTotal();
+            }
+            
+            if ("weekly".equals(period)) {
+                // For weekly, store individual entries
+                entriesForChart.add(entry);
+            } else {
+                // For monthly/ytd, aggregate by time period
+                String timePeriod = getTimePeriodLabel(entry.getDate(), period);
+                timeSeriesData.computeIfAbsent(timePeriod, k -> new HashMap<>())
+                             .merge(entry.getCategory(), entry.getTotal(), Double::sum);
+            }
+        }
+        
+        // Update summary labels
+        totalSpendingLabel.setText(String.format("Total: $%.2f", totalSpending));
+        feedCostsLabel.setText(String.format("Feed: $%.2f", feedCosts));
+        otherCostsLabel.setText(String.format("Other: $%.2f", totalSpending - feedCosts));
+        
+        // Update chart
+        if ("weekly".equals(period)) {
+            updateWeeklyChart(entriesForChart);
+        } else {
+            updateLineChart(timeSeriesData, period);
         }
     }
 
@@ -0,0 +1,76 @@
+package org.pigfeed.pigfeedapp.controllers;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.VBox;
+import org.pigfeed.pigfeedapp.formulation.FormulationProblem;
+import org.pigfeed.pigfeedapp.formulation.FormulationResult;
+import org.pigfeed.pigfeedapp.formulation.ProfileResult;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The Compare All Stages table: the least-cost mix of every stage ranked by cost.
+ */
+final class StageComparisonDialog {
+
+    private StageComparisonDialog() {
+    }
+
+    /**
+     * Shows the batch results (already ranked) and waits; returns the row picked with
+     * Apply Selected, or empty if the dialog was closed.
+     */
+    static Optional<ProfileResult> showAndWait(List<ProfileResult> rows) {
+        TableView<ProfileResult> table = new TableView<>(FXCollections.observableArrayList(rows));
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.setPrefSize(760, 200);
+
+        TableColumn<ProfileResult, String> rankCol = new TableColumn<>("#");
+        rankCol.setCellValueFactory(cell -> new SimpleStringProperty(
+            String.valueOf(table.getItems().indexOf(cell.getValue()) + 1)));
+        TableColumn<ProfileResult, String> profileCol = new TableColumn<>("Profile");
+        profileCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getProfile().getName()));
+        TableColumn<ProfileResult, String> weightCol = new TableColumn<>("Mix (lbs)");
+        weightCol.setCellValueFactory(cell -> new SimpleStringProperty(
+            String.format("%.1f", cell.getValue().getProfile().getMixWeight())));
+        TableColumn<ProfileResult, String> metCol = new TableColumn<>("Targets met");
+        metCol.setCellValueFactory(cell -> new SimpleStringProperty(
+            cell.getValue().getResult().isTargetsMet() ? "Yes" : "No (closest)"));
+        TableColumn<ProfileResult, String> costCol = new TableColumn<>("$/lb");
+        costCol.setCellValueFactory(cell -> new SimpleStringProperty(
+            String.format("$%.3f", cell.getValue().getResult().getCostPerLb())));
+        TableColumn<ProfileResult, String> mixCostCol = new TableColumn<>("Mix cost");
+        mixCostCol.setCellValueFactory(cell -> new SimpleStringProperty(
+            String.format("$%.2f", cell.getValue().getMixCost())));
+        TableColumn<ProfileResult, String> nutritionCol = new TableColumn<>("Protein / Fat / Fiber / Lysine");
+        nutritionCol.setCellValueFactory(cell -> {
+            FormulationResult result = cell.getValue().getResult();
+            return new SimpleStringProperty(String.format("%.1f / %.1f / %.1f / %.2f",
+                result.getNutrientLevel(FormulationProblem.PROTEIN), result.getNutrientLevel(FormulationProblem.FAT),
+                result.getNutrientLevel(FormulationProblem.FIBER), result.getNutrientLevel(FormulationProblem.LYSINE)));
+        });
+        table.getColumns().addAll(List.of(rankCol, profileCol, weightCol, metCol, costCol, mixCostCol, nutritionCol));
+        table.getSelectionModel().selectFirst();
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Compare All Stages");
+        dialog.setHeaderText("Least-cost mix for every stage (cheapest first, prices from the cost tracker)");
+        VBox content = new VBox(8, table,
+            new Label("Select a stage and click Apply to load its mix into the table."));
+        dialog.getDialogPane().setContent(content);
+        ButtonType applyButton = new ButtonType("Apply Selected", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(applyButton, ButtonType.CLOSE);
+
+        return dialog.showAndWait()
+            .filter(button -> button == applyButton)
+            .map(button -> table.getSelectionModel().getSelectedItem());
+    }
+}
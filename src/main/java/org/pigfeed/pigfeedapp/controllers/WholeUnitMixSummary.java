@@ -0,0 +1,55 @@
+package org.pigfeed.pigfeedapp.controllers;
+
+import org.pigfeed.pigfeedapp.formulation.WholeUnitMix;
+import org.pigfeed.pigfeedapp.model.FeedMixEntry;
+
+import java.util.List;
+
+/**
+ * What the whole-bag mode tells the user about its search: the bags to mix, the batch
+ * weight and cost, and how close to the cheapest whole-bag mix it is.
+ */
+final class WholeUnitMixSummary {
+
+    private WholeUnitMixSummary() {
+    }
+
+    /**
+     * Explains a search that found no mix weighing between the target and the limit.
+     */
+    static String describeNoMix(WholeUnitMix mix, double targetWeight, double maxWeight) {
+        return String.format("No mix of whole units weighing %.0f-%.0f lbs meets the nutrition ranges%s.\n" +
+            "Try a larger batch, or buy some ingredients loose or in smaller bags.",
+            targetWeight, maxWeight,
+            mix.getStatus() == WholeUnitMix.Status.TIME_LIMIT ? " (none found in the time allowed)" : "");
+    }
+
+    /**
+     * Units of each ingredient (in the order of the problem the mix was solved for), the
+     * total, and whether a cheaper whole-unit mix could still exist.
+     */
+    static String describe(List<FeedMixEntry> ingredients, WholeUnitMix mix, boolean fromCache) {
+        StringBuilder message = new StringBuilder("Whole-unit mix:\n");
+        for (int i = 0; i < ingredients.size(); i++) {
+            if (mix.getUnits(i) > 0) {
+                message.append(String.format("  %d × %s lb %s%n", mix.getUnits(i),
+                    formatUnit(mix.getUnitLbs(i)), ingredients.get(i).getIngredient()));
+            }
+        }
+        message.append(String.format("Total %.0f lbs, $%.2f at known prices.", mix.getTotalWeight(), mix.getTotalCost()));
+        if (mix.getStatus() == WholeUnitMix.Status.OPTIMAL) {
+            message.append("\nNo cheaper whole-unit mix exists.");
+        } else {
+            message.append(String.format("\nBest found in the time allowed; at most %.1f%% above the cheapest.",
+                mix.getGap() * 100));
+        }
+        if (fromCache) {
+            message.append("\n(Same ingredients, prices and ranges as an earlier run, so its mix was reused.)");
+        }
+        return message.toString();
+    }
+
+    private static String formatUnit(double lbs) {
+        return lbs == Math.rint(lbs) ? String.format("%.0f", lbs) : String.format("%.2f", lbs);
+    }
+}
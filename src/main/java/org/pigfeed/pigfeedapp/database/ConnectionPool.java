@@ -0,0 +1,342 @@
+package org.pigfeed.pigfeedapp.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Small app-scoped pool of long-lived SQLite connections.
+ *
+ * Callers keep the usual try-with-resources pattern: closing a pooled connection
+ * hands it back to the pool instead of closing the file handle, and closing a
+ * statement obtained from prepareStatement(sql) only resets it so the next caller
+ * asking for the same SQL on that connection reuses the compiled statement.
+ *
+ * The pool never blocks. If every connection is checked out (for example a query
+ * that runs while another one still has its ResultSet open on the same thread)
+ * a new connection is opened, and it is only kept afterwards if the idle list has
+ * room for it.
+ */
+public class ConnectionPool {
+
+    private static final int STATEMENT_CACHE_SIZE = 32;
+
+    private final String url;
+    private final int maxIdle;
+    private final Deque<PhysicalConnection> idle = new ArrayDeque<>();
+    private boolean shutDown = false;
+
+    // True on threads that must never wait for the database (see setForbiddenThread)
+    private volatile BooleanSupplier forbiddenThread = () -> false;
+
+    // Statistics so we can see whether connection churn is actually gone
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong connectionsReused = new AtomicLong();
+    private final AtomicLong connectionsClosed = new AtomicLong();
+    private final AtomicLong statementsPrepared = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+
+    public ConnectionPool(String url, int maxIdle) {
+        this.url = url;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Makes getConnection fail on the threads the check returns true for, so blocking
+     * database work can't creep onto a thread that has to stay responsive.
+     */
+    public void setForbiddenThread(BooleanSupplier onForbiddenThread) {
+        this.forbiddenThread = onForbiddenThread;
+    }
+
+    /**
+     * Borrows a connection from the pool. Always close it (try-with-resources)
+     * so it goes back to the idle list.
+     *
+     * @throws IllegalStateException on a thread ruled out by setForbiddenThread
+     */
+    public Connection getConnection() throws SQLException {
+        if (forbiddenThread.getAsBoolean()) {
+            throw new IllegalStateException("Database connection requested on " + Thread.currentThread().getName() +
+                ", which must not run database work");
+        }
+        PhysicalConnection physical = null;
+        synchronized (this) {
+            if (shutDown) {
+                throw new SQLException("Connection pool has been shut down");
+            }
+            while (!idle.isEmpty() && physical == null) {
+                PhysicalConnection candidate = idle.pop();
+                if (candidate.connection.isClosed()) {
+                    connectionsClosed.incrementAndGet();
+                } else {
+                    physical = candidate;
+                }
+            }
+        }
+
+        if (physical != null) {
+            connectionsReused.incrementAndGet();
+        } else {
+            physical = new PhysicalConnection(openConnection());
+            connectionsOpened.incrementAndGet();
+        }
+
+        return (Connection) Proxy.newProxyInstance(
+            ConnectionPool.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new ConnectionHandle(physical));
+    }
+
+    /**
+     * Opens a new physical connection. Subclasses (or later configuration) can hook
+     * per-connection setup here.
+     */
+    protected Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(url);
+    }
+
+    private void release(PhysicalConnection physical) {
+        boolean keep;
+        try {
+            // Never hand out a connection with a half-finished transaction
+            if (!physical.connection.getAutoCommit()) {
+                physical.connection.rollback();
+                physical.connection.setAutoCommit(true);
+            }
+            keep = !physical.connection.isClosed();
+        } catch (SQLException e) {
+            System.err.println("Discarding pooled connection after reset failed: " + e.getMessage());
+            keep = false;
+        }
+
+        synchronized (this) {
+            if (keep && !shutDown && idle.size() < maxIdle) {
+                idle.push(physical);
+                return;
+            }
+        }
+        physical.closeQuietly();
+        connectionsClosed.incrementAndGet();
+    }
+
+    /**
+     * Closes all idle connections. Connections still checked out are closed when returned.
+     */
+    public void shutdown() {
+        Deque<PhysicalConnection> toClose;
+        synchronized (this) {
+            shutDown = true;
+            toClose = new ArrayDeque<>(idle);
+            idle.clear();
+        }
+        for (PhysicalConnection physical : toClose) {
+            physical.closeQuietly();
+            connectionsClosed.incrementAndGet();
+        }
+    }
+
+    public long getConnectionsOpened() { return connectionsOpened.get(); }
+    public long getConnectionsReused() { return connectionsReused.get(); }
+    public long getConnectionsClosed() { return connectionsClosed.get(); }
+    public long getStatementsPrepared() { return statementsPrepared.get(); }
+    public long getStatementCacheHits() { return statementCacheHits.get(); }
+
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * One-line summary of the pool counters, e.g. for logging at shutdown.
+     */
+    public String describeStats() {
+        return String.format(
+            "connections opened=%d reused=%d closed=%d idle=%d, statements prepared=%d cache hits=%d",
+            getConnectionsOpened(), getConnectionsReused(), getConnectionsClosed(), getIdleCount(),
+            getStatementsPrepared(), getStatementCacheHits());
+    }
+
+    /**
+     * A real SQLite connection plus its prepared statement cache (LRU, per connection).
+     */
+    private final class PhysicalConnection {
+        final Connection connection;
+        final Map<String, PreparedStatement> statements =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() > STATEMENT_CACHE_SIZE) {
+                        try {
+                            eldest.getValue().close();
+                        } catch (SQLException e) {
+                            // Statement is being dropped anyway
+                        }
+                        return true;
+                    }
+                    return false;
+                }
+            };
+
+        PhysicalConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+            String cacheKey = autoGeneratedKeys + ":" + sql;
+            PreparedStatement statement = statements.get(cacheKey);
+            if (statement != null && !statement.isClosed()) {
+                statementCacheHits.incrementAndGet();
+                return statement;
+            }
+            statement = autoGeneratedKeys == -1
+                ? connection.prepareStatement(sql)
+                : connection.prepareStatement(sql, autoGeneratedKeys);
+            statementsPrepared.incrementAndGet();
+            statements.put(cacheKey, statement);
+            return statement;
+        }
+
+        void closeQuietly() {
+            for (PreparedStatement statement : statements.values()) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    // Closing anyway
+                }
+            }
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing pooled connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The Connection handed to callers. Valid until close() is called.
+     */
+    private final class ConnectionHandle implements InvocationHandler {
+        private final PhysicalConnection physical;
+        private boolean closed = false;
+
+        ConnectionHandle(PhysicalConnection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(physical);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical.connection + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+
+            if ("prepareStatement".equals(name) && args != null && args[0] instanceof String) {
+                Class<?>[] types = method.getParameterTypes();
+                if (types.length == 1) {
+                    return cachedStatement(physical.prepare((String) args[0], -1));
+                }
+                if (types.length == 2 && types[1] == int.class) {
+                    return cachedStatement(physical.prepare((String) args[0], (Integer) args[1]));
+                }
+            }
+
+            try {
+                return method.invoke(physical.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private PreparedStatement cachedStatement(PreparedStatement statement) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                new StatementHandle(statement));
+        }
+    }
+
+    /**
+     * Wraps a cached PreparedStatement so close() resets it instead of finalizing it.
+     */
+    private static final class StatementHandle implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final Deque<ResultSet> openResults = new ArrayDeque<>(2);
+        private boolean closed = false;
+
+        StatementHandle(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        // Release read cursors so SQLite can reset the statement
+                        for (ResultSet open : openResults) {
+                            if (!open.isClosed()) {
+                                open.close();
+                            }
+                        }
+                        openResults.clear();
+                        statement.clearParameters();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement has been closed");
+            }
+            try {
+                Object result = method.invoke(statement, args);
+                if (result instanceof ResultSet) {
+                    openResults.add((ResultSet) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.pigfeed.pigfeedapp.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The cost_entries queries that run on every edit or report refresh.
+ *
+ * They live here (instead of inline in the controllers) so their query plans can be
+ * checked against the indexes created in migration 2. Dates are stored as ISO
+ * yyyy-MM-dd text, so year/month filters are written as plain range comparisons on
+ * the date column rather than strftime(date), which would hide it from the index.
+ *
+ * Spending totals don't touch cost_entries at all: they read the category_spending
+ * rollup (migration 3), whose size depends on the number of months and categories,
+ * not on the number of entries. Its months are yyyy-MM text and compare as strings too.
+ */
+public final class CostEntryQueries {
+
+    private CostEntryQueries() {}
+
+    /**
+     * New entry; the generated id is the entry's identity from then on.
+     * Params: date, description, category, ingredient, unitSize, cost, quantity, total
+     */
+    public static final String INSERT_ENTRY =
+        "INSERT INTO cost_entries (date, description, category, ingredient, unitSize, cost, quantity, total) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /** Edits an entry in place. Params: as INSERT_ENTRY, then id */
+    public static final String UPDATE_ENTRY_BY_ID =
+        "UPDATE cost_entries SET date = ?, description = ?, category = ?, ingredient = ?, unitSize = ?, " +
+        "cost = ?, quantity = ?, total = ? WHERE id = ?";
+
+    /** Params: id */
+    public static final String DELETE_ENTRY_BY_ID = "DELETE FROM cost_entries WHERE id = ?";
+
+    /**
+     * Most recent Feed purchase with a usable price. Covered by the (ingredient, category,
+     * date, cost, quantity, unitSize) index. Params: ingredient
+     */
+    public static final String LATEST_FEED_PRICE = """
+        SELECT cost, quantity, unitSize, date FROM cost_entries
+        WHERE ingredient = ? AND category = 'Feed' AND cost > 0 AND quantity > 0
+        ORDER BY date DESC LIMIT 1
+        """;
+
+    /** Most recent Feed purchase, used to pre-fill the entry form. Params: ingredient */
+    public static final String LATEST_FEED_PURCHASE =
+        "SELECT cost, quantity FROM cost_entries WHERE ingredient = ? AND category = 'Feed' ORDER BY date DESC LIMIT 1";
+
+    /**
+     * Every Feed purchase with a usable price since a date, for price simulations. Covered by
+     * the feed price index too. Params: ingredient, from date (inclusive)
+     */
+    public static final String FEED_PRICE_HISTORY = """
+        SELECT cost, quantity FROM cost_entries
+        WHERE ingredient = ? AND category = 'Feed' AND cost > 0 AND quantity > 0 AND date >= ?
+        """;
+
+    /** Spending per category over a range of months. Params: from month (inclusive), to month (exclusive) */
+    public static final String CATEGORY_TOTALS_BETWEEN = """
+        SELECT category, SUM(totalCost) AS total FROM category_spending
+        WHERE month >= ? AND month < ? GROUP BY category ORDER BY total DESC
+        """;
+
+    /**
+     * Spending and entry count per month and category, newest month first.
+     * Params: from month (inclusive), to month (exclusive)
+     */
+    public static final String MONTHLY_CATEGORY_TOTALS = """
+        SELECT month, category, SUM(totalCost) AS total, SUM(entryCount) AS count FROM category_spending
+        WHERE month >= ? AND month < ? GROUP BY month, category ORDER BY month DESC, category
+        """;
+
+    /** Month bounds that take in the whole rollup, for "All Time" reports */
+    public static final String FIRST_MONTH = "0000-01";
+    public static final String AFTER_LAST_MONTH = "9999-13";
+
+    /** All entries in a date range, newest first. Params: from (inclusive), to (inclusive) */
+    public static final String ENTRIES_BETWEEN =
+        "SELECT * FROM cost_entries WHERE date >= ? AND date <= ? ORDER BY date DESC";
+
+    /**
+     * Queries that run on every edit or report refresh; none of them may scan cost_entries.
+     * Checked by {@link #findTableScans}.
+     */
+    static final List<String> HOT_QUERIES = List.of(
+        UPDATE_ENTRY_BY_ID,
+        DELETE_ENTRY_BY_ID,
+        LATEST_FEED_PRICE,
+        LATEST_FEED_PURCHASE,
+        CATEGORY_TOTALS_BETWEEN,
+        MONTHLY_CATEGORY_TOTALS,
+        ENTRIES_BETWEEN
+    );
+
+    /**
+     * Runs EXPLAIN QUERY PLAN for every hot query and returns a description of each one
+     * that falls back to scanning cost_entries. An empty list means all plans use an index.
+     */
+    public static List<String> findTableScans(Connection conn) throws SQLException {
+        List<String> problems = new ArrayList<>();
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : HOT_QUERIES) {
+                // Unbound parameters are fine here, the plan doesn't depend on their values
+                try (ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+                    while (rs.next()) {
+                        String detail = rs.getString("detail");
+                        if (detail != null && detail.startsWith("SCAN cost_entries")) {
+                            problems.add(detail + "  <-  " + sql.strip().replaceAll("\\s+", " "));
+                        }
+                    }
+                }
+            }
+        }
+        return problems;
+    }
+}
@@ -0,0 +1,243 @@
+package org.pigfeed.pigfeedapp.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Write-behind persistence for the current_feed_mix table.
+ *
+ * The feed mix calculator re-saves the whole mix after every edit. Instead of writing
+ * straight away on the FX thread, it hands an immutable snapshot to submit(). Snapshots
+ * that arrive within the flush delay replace each other, so a burst of typing turns into
+ * one write. The flush runs on the DatabaseExecutor writer lane, compares the snapshot with
+ * what is already in the table (row by row, in table order) and only updates, inserts or
+ * deletes the rows that changed, all in one transaction.
+ */
+public class CurrentMixWriter {
+
+    private static final long FLUSH_DELAY_MS = 300;
+
+    /**
+     * One row of the current mix, as written to current_feed_mix.
+     */
+    public static final class MixRow {
+        final String ingredient;
+        final double weight;
+        final double protein;
+        final double fat;
+        final double fiber;
+        final double lysine;
+
+        public MixRow(String ingredient, double weight, double protein, double fat, double fiber, double lysine) {
+            this.ingredient = ingredient;
+            this.weight = weight;
+            this.protein = protein;
+            this.fat = fat;
+            this.fiber = fiber;
+            this.lysine = lysine;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MixRow)) return false;
+            MixRow other = (MixRow) o;
+            return Objects.equals(ingredient, other.ingredient)
+                && Double.compare(weight, other.weight) == 0
+                && Double.compare(protein, other.protein) == 0
+                && Double.compare(fat, other.fat) == 0
+                && Double.compare(fiber, other.fiber) == 0
+                && Double.compare(lysine, other.lysine) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ingredient, weight, protein, fat, fiber, lysine);
+        }
+    }
+
+    private final DatabaseExecutor executor;
+
+    // Latest snapshot not yet written (null when there is nothing to do)
+    private final AtomicReference<List<MixRow>> pending = new AtomicReference<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private volatile boolean shutDown = false;
+
+    // What the table holds right now, with the row ids. Only touched on the writer lane.
+    private List<Long> persistedIds;
+    private List<MixRow> persistedRows;
+
+    private final AtomicLong snapshotsSubmitted = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+
+    public CurrentMixWriter(DatabaseExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Queues the mix to be written. Returns immediately; only the latest snapshot
+     * submitted before the flush runs is written.
+     */
+    public void submit(List<MixRow> rows) {
+        snapshotsSubmitted.incrementAndGet();
+        pending.set(List.copyOf(rows));
+        if (!shutDown && flushScheduled.compareAndSet(false, true)) {
+            CompletableFuture.delayedExecutor(FLUSH_DELAY_MS, TimeUnit.MILLISECONDS)
+                .execute(() -> executor.write(this::flushPending));
+        }
+    }
+
+    /**
+     * Writes any pending snapshot now and waits for it. Called at application exit,
+     * before the executor shuts down.
+     */
+    public void shutdown() {
+        shutDown = true;
+        try {
+            executor.write(this::flushPending).get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("Failed to flush current feed mix at shutdown:");
+            e.printStackTrace();
+        }
+    }
+
+    public long getSnapshotsSubmitted() { return snapshotsSubmitted.get(); }
+    public long getFlushes() { return flushes.get(); }
+    public long getRowsWritten() { return rowsWritten.get(); }
+
+    private Void flushPending(Connection conn) throws SQLException {
+        // Snapshots submitted from here on need another flush
+        flushScheduled.set(false);
+        List<MixRow> rows = pending.getAndSet(null);
+        if (rows == null) {
+            return null;
+        }
+        try {
+            write(conn, rows);
+            flushes.incrementAndGet();
+        } catch (SQLException e) {
+            // Re-read the table next time instead of trusting a half-known state,
+            // and keep the snapshot unless a newer one arrived in the meantime
+            persistedIds = null;
+            persistedRows = null;
+            pending.compareAndSet(null, rows);
+            throw e;
+        }
+        return null;
+    }
+
+    private void write(Connection conn, List<MixRow> rows) throws SQLException {
+        if (persistedRows == null) {
+            loadPersisted(conn);
+        }
+
+        int common = Math.min(rows.size(), persistedRows.size());
+        List<Long> ids = new ArrayList<>(rows.size());
+        int changed = 0;
+
+        conn.setAutoCommit(false);
+        try {
+            // Same position, different contents: update in place
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE current_feed_mix SET ingredient_name=?, weight=?, protein=?, fat=?, fiber=?, lysine=? WHERE id=?")) {
+                for (int i = 0; i < common; i++) {
+                    long id = persistedIds.get(i);
+                    ids.add(id);
+                    if (!rows.get(i).equals(persistedRows.get(i))) {
+                        bindRow(ps, rows.get(i));
+                        ps.setLong(7, id);
+                        ps.addBatch();
+                        changed++;
+                    }
+                }
+                ps.executeBatch();
+            }
+
+            // Mix got longer: insert the new tail
+            if (rows.size() > common) {
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO current_feed_mix(ingredient_name, weight, protein, fat, fiber, lysine) VALUES(?,?,?,?,?,?)",
+                        Statement.RETURN_GENERATED_KEYS)) {
+                    for (int i = common; i < rows.size(); i++) {
+                        bindRow(ps, rows.get(i));
+                        ps.executeUpdate();
+                        try (ResultSet keys = ps.getGeneratedKeys()) {
+                            keys.next();
+                            ids.add(keys.getLong(1));
+                        }
+                        changed++;
+                    }
+                }
+            }
+
+            // Mix got shorter: drop the old tail
+            if (persistedRows.size() > common) {
+                try (PreparedStatement ps = conn.prepareStatement("DELETE FROM current_feed_mix WHERE id=?")) {
+                    for (int i = common; i < persistedRows.size(); i++) {
+                        ps.setLong(1, persistedIds.get(i));
+                        ps.addBatch();
+                        changed++;
+                    }
+                    ps.executeBatch();
+                }
+            }
+
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+
+        persistedIds = ids;
+        persistedRows = rows;
+        rowsWritten.addAndGet(changed);
+    }
+
+    private void loadPersisted(Connection conn) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        List<MixRow> rows = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT id, ingredient_name, weight, protein, fat, fiber, lysine FROM current_feed_mix ORDER BY id");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getLong("id"));
+                rows.add(new MixRow(
+                    rs.getString("ingredient_name"),
+                    rs.getDouble("weight"),
+                    rs.getDouble("protein"),
+                    rs.getDouble("fat"),
+                    rs.getDouble("fiber"),
+                    rs.getDouble("lysine")));
+            }
+        }
+        persistedIds = ids;
+        persistedRows = rows;
+    }
+
+    private static void bindRow(PreparedStatement ps, MixRow row) throws SQLException {
+        ps.setString(1, row.ingredient);
+        ps.setDouble(2, row.weight);
+        ps.setDouble(3, row.protein);
+        ps.setDouble(4, row.fat);
+        ps.setDouble(5, row.fiber);
+        ps.setDouble(6, row.lysine);
+    }
+}
@@ -0,0 +1,189 @@
+package org.pigfeed.pigfeedapp.database;
+
+import java.sql.Connection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs all database work off the JavaFX application thread.
+ *
+ * Writes go through a single writer thread, so they are applied one at a time in the
+ * order they were submitted (SQLite only allows one writer anyway, this way they queue
+ * here instead of spinning on busy_timeout). Reads run on a small pool of reader threads
+ * in parallel with each other and with the writer, which WAL journaling allows.
+ *
+ * Each task gets a pooled connection and returns a CompletableFuture. Controllers hand
+ * the result back to the FX thread with thenAcceptAsync(..., DatabaseExecutor.FX_THREAD).
+ *
+ * Startup work (schema migration, loading the caches) is queued with startup(). Writes
+ * run after it anyway, being behind it on the one writer thread; reads submitted before
+ * it finishes are held back until it has, so they never see a half-migrated schema.
+ */
+public class DatabaseExecutor {
+
+    /**
+     * A unit of database work. Anything it throws fails the returned future.
+     */
+    @FunctionalInterface
+    public interface DatabaseTask<T> {
+        T run(Connection conn) throws Exception;
+    }
+
+    /** Runs callbacks on the JavaFX application thread */
+    public static final Executor FX_THREAD = javafx.application.Platform::runLater;
+
+    private final Lane writer;
+    private final Lane readers;
+
+    // Done once startup work has finished (or failed); reads wait for it
+    private volatile CompletableFuture<?> started = CompletableFuture.completedFuture(null);
+
+    public DatabaseExecutor(int readerThreads) {
+        this.writer = new Lane("db-writer", 1);
+        this.readers = new Lane("db-reader", readerThreads);
+    }
+
+    /**
+     * Queues work on the writer lane. Writes run strictly one after another.
+     */
+    public <T> CompletableFuture<T> write(DatabaseTask<T> task) {
+        return writer.submit(task);
+    }
+
+    /**
+     * Queues work that every later read depends on, such as migrating the schema. It runs
+     * on the writer lane; reads queued before it finishes start once it has.
+     */
+    public <T> CompletableFuture<T> startup(DatabaseTask<T> task) {
+        CompletableFuture<T> future = writer.submit(task);
+        started = future;
+        return future;
+    }
+
+    /**
+     * Queues work on a reader thread. Don't modify the database from a read task.
+     */
+    public <T> CompletableFuture<T> read(DatabaseTask<T> task) {
+        CompletableFuture<?> gate = started;
+        if (gate.isDone()) {
+            return readers.submit(task);
+        }
+        // A failed startup has been logged already; reads go ahead and fail on their own
+        return gate.handle((result, error) -> null).thenCompose(ignored -> readers.submit(task));
+    }
+
+    /**
+     * Stops accepting work and waits for already queued tasks (pending writes included).
+     */
+    public void shutdown() {
+        writer.shutdown();
+        readers.shutdown();
+    }
+
+    public int getWriteQueueDepth() { return writer.getQueueDepth(); }
+    public int getReadQueueDepth() { return readers.getQueueDepth(); }
+    public double getAverageWriteWaitMillis() { return writer.getAverageWaitMillis(); }
+    public double getAverageReadWaitMillis() { return readers.getAverageWaitMillis(); }
+    public double getMaxWriteWaitMillis() { return writer.getMaxWaitMillis(); }
+    public double getMaxReadWaitMillis() { return readers.getMaxWaitMillis(); }
+
+    /**
+     * One-line summary of both lanes, e.g. for logging at shutdown.
+     */
+    public String describeStats() {
+        return writer.describeStats() + "; " + readers.describeStats();
+    }
+
+    /**
+     * A thread pool plus the counters for how long tasks waited in its queue.
+     */
+    private static final class Lane {
+        private final String name;
+        private final ThreadPoolExecutor threads;
+
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+        Lane(String name, int threadCount) {
+            this.name = name;
+            AtomicInteger threadNumber = new AtomicInteger();
+            ThreadFactory factory = runnable -> {
+                Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            this.threads = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), factory);
+        }
+
+        <T> CompletableFuture<T> submit(DatabaseTask<T> task) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            long queuedAt = System.nanoTime();
+            try {
+                threads.execute(() -> run(task, future, queuedAt));
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+                return future;
+            }
+            maxQueueDepth.accumulateAndGet(threads.getQueue().size(), Math::max);
+            return future;
+        }
+
+        private <T> void run(DatabaseTask<T> task, CompletableFuture<T> future, long queuedAt) {
+            long waited = System.nanoTime() - queuedAt;
+            totalWaitNanos.addAndGet(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+            try (Connection conn = DatabaseHelper.getConnection()) {
+                T result = task.run(conn);
+                completed.incrementAndGet();
+                future.complete(result);
+            } catch (Throwable e) {
+                failed.incrementAndGet();
+                System.err.println("Database task failed on " + Thread.currentThread().getName() + ":");
+                e.printStackTrace();
+                future.completeExceptionally(e);
+            }
+        }
+
+        void shutdown() {
+            threads.shutdown();
+            try {
+                if (!threads.awaitTermination(10, TimeUnit.SECONDS)) {
+                    System.err.println("Timed out waiting for " + name + " tasks to finish");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int getQueueDepth() {
+            return threads.getQueue().size();
+        }
+
+        double getAverageWaitMillis() {
+            long runs = completed.get() + failed.get();
+            return runs == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / runs;
+        }
+
+        double getMaxWaitMillis() {
+            return maxWaitNanos.get() / 1_000_000.0;
+        }
+
+        String describeStats() {
+            return String.format("%s completed=%d failed=%d queued=%d (max %d) wait avg=%.2fms max=%.2fms",
+                name, completed.get(), failed.get(), getQueueDepth(), maxQueueDepth.get(),
+                getAverageWaitMillis(), getMaxWaitMillis());
+        }
+    }
+}
@@ -1,186 +1,561 @@
 package org.pigfeed.pigfeedapp.database;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
 
 public class DatabaseHelper {
     // JDBC URL: SQLite will create the file if it doesn't exist
     public static final String DB_URL = "jdbc:sqlite:pigfeed.db";
 
+    // Run with -Dpigfeed.debug=true to print the pool and executor statistics on exit
+    private static final boolean DEBUG = Boolean.getBoolean("pigfeed.debug");
+
+    // Connections kept open between queries (one per concurrently active thread is plenty)
+    private static final int MAX_IDLE_CONNECTIONS = 4;
+
+    /**
+     * Applied to every connection the pool opens. WAL itself is a property of the
+     * database file (set once in initializeDatabase), everything here is per connection:
+     * - foreign_keys: SQLite ships with it off, so ON DELETE CASCADE would never fire
+     * - synchronous=NORMAL: safe with WAL (a power cut can only lose the last commit)
+     * - busy_timeout: wait for the writer instead of failing with SQLITE_BUSY
+     * - cache_size (negative = KiB), temp_store and mmap_size keep report queries in memory
+     */
+    private static final String[] CONNECTION_PRAGMAS = {
+        "PRAGMA foreign_keys = ON",
+        "PRAGMA synchronous = NORMAL",
+        "PRAGMA busy_timeout = 5000",
+        "PRAGMA cache_size = -8000",
+        "PRAGMA temp_store = MEMORY",
+        "PRAGMA mmap_size = 67108864"
+    };
+
+    private static final ConnectionPool POOL = new ConnectionPool(DB_URL, MAX_IDLE_CONNECTIONS) {
+        @Override
+        protected Connection openConnection() throws SQLException {
+            Connection conn = super.openConnection();
+            applyConnectionPragmas(conn);
+            return conn;
+        }
+    };
+
+    /**
+     * Gives a connection the same pragmas as the pooled ones. Package-private so tests and
+     * benchmarks can open scratch databases that behave like pigfeed.db.
+     */
+    static void applyConnectionPragmas(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String pragma : CONNECTION_PRAGMAS) {
+                stmt.execute(pragma);
+            }
+        }
+    }
+
+    static {
+        // Database work belongs on getExecutor(), never on the JavaFX application thread
+        POOL.setForbiddenThread(javafx.application.Platform::isFxApplicationThread);
+    }
+
+    /**
+     * Borrows a pooled connection to pigfeed.db. Use try-with-resources; closing the
+     * connection returns it to the pool and closing its prepared statements keeps them
+     * cached for the next query with the same SQL.
+     *
+     * @throws IllegalStateException when called on the JavaFX application thread
+     */
+    public static Connection getConnection() throws SQLException {
+        return POOL.getConnection();
+    }
+
+    public static ConnectionPool getPool() {
+        return POOL;
+    }
+
+    // One writer thread plus readers; together they fit in the idle connection pool
+    private static final int READER_THREADS = MAX_IDLE_CONNECTIONS - 1;
+
+    private static final DatabaseExecutor EXECUTOR = new DatabaseExecutor(READER_THREADS);
+
     /**
-     * Call this once at startup. It will:
+     * Where controllers send their database work, so no SQL runs on the FX thread.
+     */
+    public static DatabaseExecutor getExecutor() {
+        return EXECUTOR;
+    }
+
+    // Latest Feed price per ingredient, so mix totals don't need a query per row
+    private static final IngredientPriceCache PRICE_CACHE = new IngredientPriceCache();
+
+    public static IngredientPriceCache getPriceCache() {
+        return PRICE_CACHE;
+    }
+
+    // Background writer for the feed mix calculator's auto-save
+    private static final CurrentMixWriter CURRENT_MIX_WRITER = new CurrentMixWriter(EXECUTOR);
+
+    public static CurrentMixWriter getCurrentMixWriter() {
+        return CURRENT_MIX_WRITER;
+    }
+
+    /**
+     * Call once when the application exits. Writes any pending feed mix changes,
+     * lets queued database work finish, then closes the pooled connections.
+     */
+    public static void shutdown() {
+        CURRENT_MIX_WRITER.shutdown();
+        EXECUTOR.shutdown();
+        POOL.shutdown();
+        if (DEBUG) {
+            System.out.println("Database executor: " + EXECUTOR.describeStats());
+            System.out.println("Database pool: " + POOL.describeStats());
+        }
+    }
+
+    /**
+     * Schema history. Each version is applied once per database file, in order, and
+     * recorded in PRAGMA user_version. Add new steps at the end; never edit old ones.
+     */
+    private static final SchemaMigrator MIGRATIONS = new SchemaMigrator()
+        .add(1, "Baseline schema", DatabaseHelper::createBaselineSchema)
+        .add(2, "Indexes for cost_entries lookups", DatabaseHelper::createCostEntryIndexes)
+        .add(3, "Monthly spending rollup", DatabaseHelper::createSpendingRollup)
+        .add(4, "Per-ingredient inclusion limits", DatabaseHelper::addInclusionLimits)
+        .add(5, "Optimization result cache", DatabaseHelper::createOptimizationCache)
+        .add(6, "Cover unitSize in the feed price index", DatabaseHelper::coverUnitSizeInPriceIndex);
+
+    /**
+     * Call this once at startup, before any controller queries the database. It queues
+     * startup work on the executor that will:
      * 1) create pigfeed.db if missing
-     * 2) create the ingredients, feed_purchases, and other_expenses tables if missing
+     * 2) switch the file to WAL journaling so report reads don't block writes
+     * 3) apply any schema migrations newer than the file's user_version
+     * 4) load the ingredient catalog and the price cache
+     *
+     * Reads queued before this finishes wait for it, and writes queue behind it, so nothing
+     * sees the old schema or an empty cache. A database that is already current only costs
+     * the user_version read before the caches load.
      */
-    public static void initializeDatabase() {
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement()) {
-
-            // Ingredients table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS ingredients (
-                  name TEXT PRIMARY KEY,
-                  crudeProtein REAL,
-                  crudeFat REAL,
-                  crudeFiber REAL,
-                  lysine REAL,
-                  price REAL DEFAULT 0.0,
-                  priceUnit TEXT DEFAULT '50lbs'
-                );
-            """);
-
-            // Feed purchases table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS feed_purchases (
-                  id INTEGER PRIMARY KEY AUTOINCREMENT,
-                  ingredientName TEXT NOT NULL,
-                  quantity REAL NOT NULL,
-                  quantityUnit TEXT NOT NULL DEFAULT '50lbs',
-                  pricePerUnit REAL NOT NULL,
-                  totalCost REAL NOT NULL,
-                  date TEXT NOT NULL,
-                  FOREIGN KEY (ingredientName) REFERENCES ingredients(name)
-                );
-            """);
-            
-            // Ingredient spending summary (for faster reporting)
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS ingredient_spending (
-                  id INTEGER PRIMARY KEY AUTOINCREMENT,
-                  ingredientName TEXT NOT NULL,
-                  month TEXT NOT NULL,
-                  year INTEGER NOT NULL,
-                  totalQuantity REAL NOT NULL,
-                  totalCost REAL NOT NULL,
-                  FOREIGN KEY (ingredientName) REFERENCES ingredients(name),
-                  UNIQUE(ingredientName, month, year)
-                );
-            """);
-
-            // Other expenses table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS other_expenses (
-                  id INTEGER PRIMARY KEY AUTOINCREMENT,
-                  type TEXT NOT NULL,
-                  description TEXT,
-                  cost REAL NOT NULL,
-                  date TEXT NOT NULL
-                );
-            """);
-
-            // Current feed mix table (for persistence)
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS current_feed_mix (
-                  id INTEGER PRIMARY KEY AUTOINCREMENT,
-                  ingredient_name TEXT NOT NULL,
-                  weight REAL NOT NULL,
-                  protein REAL NOT NULL,
-                  fat REAL NOT NULL,
-                  fiber REAL NOT NULL,
-                  lysine REAL NOT NULL
-                );
-            """);
-
-            // Cost tracking table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS cost_entries (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    date TEXT NOT NULL,
-                    description TEXT NOT NULL,
-                    category TEXT NOT NULL,
-                    ingredient TEXT,
-                    unitSize TEXT,
-                    cost REAL NOT NULL,
-                    quantity REAL NOT NULL,
-                    total REAL NOT NULL
-                );
-            """);
-
-            // Migrate existing ingredients table to add price columns if they don't exist
-            migrateIngredientsTable(stmt);
-            
-            // Migrate cost_entries table to add ingredient column if it doesn't exist
-            migrateCostEntriesTable(stmt);
-            
-            // Create user preferences table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS user_preferences (
-                    key TEXT PRIMARY KEY,
-                    value TEXT NOT NULL
-                );
-            """);
-
-            // Create saved mixes table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS saved_mixes (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    name TEXT NOT NULL UNIQUE,
-                    created_date TEXT NOT NULL,
-                    total_weight REAL NOT NULL,
-                    total_protein REAL NOT NULL,
-                    total_fat REAL NOT NULL,
-                    total_fiber REAL NOT NULL,
-                    total_lysine REAL NOT NULL,
-                    total_cost REAL DEFAULT 0.0
-                );
-            """);
-
-            // Create saved mix entries table (stores individual ingredients for each saved mix)
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS saved_mix_entries (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    mix_id INTEGER NOT NULL,
-                    ingredient_name TEXT NOT NULL,
-                    weight REAL NOT NULL,
-                    protein REAL NOT NULL,
-                    fat REAL NOT NULL,
-                    fiber REAL NOT NULL,
-                    lysine REAL NOT NULL,
-                    FOREIGN KEY (mix_id) REFERENCES saved_mixes(id) ON DELETE CASCADE
-                );
-            """);
-
-        } catch (SQLException e) {
-            // Log and/or show an alert
-            System.err.println("Failed to initialize database:");
-            e.printStackTrace();
+    public static CompletableFuture<Void> initializeDatabase() {
+        return EXECUTOR.startup(conn -> {
+            initializeSchema(conn);
+            IngredientCatalog.reload(conn);
+            PRICE_CACHE.load(conn);
+            return null;
+        });
+    }
+
+    /**
+     * Steps 2 and 3 of initializeDatabase on the given connection's database. Package-private
+     * so tests and benchmarks can set up scratch databases exactly like pigfeed.db.
+     */
+    static void initializeSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (!MIGRATIONS.needsMigration(stmt)) {
+                return;
+            }
+
+            // WAL is persistent in the database file; readers no longer wait for the writer
+            // (and vice versa). Must run outside a transaction, and the pragma returns a row
+            // that has to be consumed before the migration transaction can commit.
+            try (ResultSet rs = stmt.executeQuery("PRAGMA journal_mode = WAL")) {
+                if (rs.next() && !"wal".equalsIgnoreCase(rs.getString(1))) {
+                    System.err.println("Could not enable WAL journaling, using " + rs.getString(1));
+                }
+            }
+
+            MIGRATIONS.migrate(conn);
         }
     }
 
+    /** Schema version a fully migrated database has */
+    static int getLatestSchemaVersion() {
+        return MIGRATIONS.getLatestVersion();
+    }
+
+    /**
+     * Version 1: every table the app had before versioned migrations existed.
+     * Uses IF NOT EXISTS and column checks so it also upgrades older pigfeed.db files.
+     */
+    private static void createBaselineSchema(Statement stmt) throws SQLException {
+        // Ingredients table
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS ingredients (
+              name TEXT PRIMARY KEY,
+              crudeProtein REAL,
+              crudeFat REAL,
+              crudeFiber REAL,
+              lysine REAL,
+              price REAL DEFAULT 0.0,
+              priceUnit TEXT DEFAULT '50lbs'
+            );
+        """);
+
+        // Feed purchases table
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS feed_purchases (
+              id INTEGER PRIMARY KEY AUTOINCREMENT,
+              ingredientName TEXT NOT NULL,
+              quantity REAL NOT NULL,
+              quantityUnit TEXT NOT NULL DEFAULT '50lbs',
+              pricePerUnit REAL NOT NULL,
+              totalCost REAL NOT NULL,
+              date TEXT NOT NULL,
+              FOREIGN KEY (ingredientName) REFERENCES ingredients(name)
+            );
+        """);
+        
+        // Ingredient spending summary (for faster reporting)
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS ingredient_spending (
+              id INTEGER PRIMARY KEY AUTOINCREMENT,
+              ingredientName TEXT NOT NULL,
+              month TEXT NOT NULL,
+              year INTEGER NOT NULL,
+              totalQuantity REAL NOT NULL,
+              totalCost REAL NOT NULL,
+              FOREIGN KEY (ingredientName) REFERENCES ingredients(name),
+              UNIQUE(ingredientName, month, year)
+            );
+        """);
+
+        // Other expenses table
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS other_expenses (
+              id INTEGER PRIMARY KEY AUTOINCREMENT,
+              type TEXT NOT NULL,
+              description TEXT,
+              cost REAL NOT NULL,
+              date TEXT NOT NULL
+            );
+        """);
+
+        // Current feed mix table (for persistence)
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS current_feed_mix (
+              id INTEGER PRIMARY KEY AUTOINCREMENT,
+              ingredient_name TEXT NOT NULL,
+              weight REAL NOT NULL,
+              protein REAL NOT NULL,
+              fat REAL NOT NULL,
+              fiber REAL NOT NULL,
+              lysine REAL NOT NULL
+            );
+        """);
+
+        // Cost tracking table
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS cost_entries (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                date TEXT NOT NULL,
+                description TEXT NOT NULL,
+                category TEXT NOT NULL,
+                ingredient TEXT,
+                unitSize TEXT,
+                cost REAL NOT NULL,
+                quantity REAL NOT NULL,
+                total REAL NOT NULL
+            );
+        """);
+
+        // Migrate existing ingredients table to add price columns if they don't exist
+        migrateIngredientsTable(stmt);
+        
+        // Migrate cost_entries table to add ingredient column if it doesn't exist
+        migrateCostEntriesTable(stmt);
+        
+        // Create user preferences table
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS user_preferences (
+                key TEXT PRIMARY KEY,
+                value TEXT NOT NULL
+            );
+        """);
+
+        // Create saved mixes table
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS saved_mixes (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                name TEXT NOT NULL UNIQUE,
+                created_date TEXT NOT NULL,
+                total_weight REAL NOT NULL,
+                total_protein REAL NOT NULL,
+                total_fat REAL NOT NULL,
+                total_fiber REAL NOT NULL,
+                total_lysine REAL NOT NULL,
+                total_cost REAL DEFAULT 0.0
+            );
+        """);
+
+        // Create saved mix entries table (stores individual ingredients for each saved mix)
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS saved_mix_entries (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                mix_id INTEGER NOT NULL,
+                ingredient_name TEXT NOT NULL,
+                weight REAL NOT NULL,
+                protein REAL NOT NULL,
+                fat REAL NOT NULL,
+                fiber REAL NOT NULL,
+                lysine REAL NOT NULL,
+                FOREIGN KEY (mix_id) REFERENCES saved_mixes(id) ON DELETE CASCADE
+            );
+        """);
+    }
+
+    /**
+     * Version 2: indexes for the per-ingredient price lookups and the date range reports.
+     * (ingredient, category, date, cost, quantity) answers "latest Feed price for X" from the
+     * index alone; (date, category, cost) covers the year/month category totals.
+     */
+    private static void createCostEntryIndexes(Statement stmt) throws SQLException {
+        stmt.execute("""
+            CREATE INDEX IF NOT EXISTS idx_cost_entries_ingredient_category_date
+            ON cost_entries (ingredient, category, date, cost, quantity)
+        """);
+        stmt.execute("""
+            CREATE INDEX IF NOT EXISTS idx_cost_entries_date_category
+            ON cost_entries (date, category, cost)
+        """);
+        stmt.execute("ANALYZE cost_entries");
+    }
+
+    /**
+     * Version 3: category_spending holds one row per (month, category, ingredient) with the
+     * summed cost, quantity and entry count, so the reports read a few hundred rollup rows
+     * instead of aggregating the whole ledger. Triggers on cost_entries keep it current for
+     * every write path, and the existing entries are backfilled once here.
+     *
+     * It replaces ingredient_spending, which was never written or read. That table only
+     * covered feed and its foreign key on ingredients(name) would reject entries for
+     * ingredients that were deleted later, so it is dropped rather than reused.
+     */
+    private static void createSpendingRollup(Statement stmt) throws SQLException {
+        stmt.execute("DROP TABLE IF EXISTS ingredient_spending");
+
+        // month is yyyy-MM (the date prefix); ingredient is '' for non-feed entries so it
+        // can be part of the primary key
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS category_spending (
+              month TEXT NOT NULL,
+              category TEXT NOT NULL,
+              ingredient TEXT NOT NULL DEFAULT '',
+              totalCost REAL NOT NULL,
+              totalQuantity REAL NOT NULL,
+              entryCount INTEGER NOT NULL,
+              PRIMARY KEY (month, category, ingredient)
+            ) WITHOUT ROWID
+        """);
+
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_cost_entries_rollup_insert
+            AFTER INSERT ON cost_entries
+            BEGIN
+              INSERT INTO category_spending (month, category, ingredient, totalCost, totalQuantity, entryCount)
+              VALUES (substr(NEW.date, 1, 7), NEW.category, COALESCE(NEW.ingredient, ''), NEW.cost, NEW.quantity, 1)
+              ON CONFLICT (month, category, ingredient) DO UPDATE SET
+                totalCost = totalCost + excluded.totalCost,
+                totalQuantity = totalQuantity + excluded.totalQuantity,
+                entryCount = entryCount + 1;
+            END
+        """);
+
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_cost_entries_rollup_delete
+            AFTER DELETE ON cost_entries
+            BEGIN
+              UPDATE category_spending SET
+                totalCost = totalCost - OLD.cost,
+                totalQuantity = totalQuantity - OLD.quantity,
+                entryCount = entryCount - 1
+              WHERE month = substr(OLD.date, 1, 7) AND category = OLD.category
+                AND ingredient = COALESCE(OLD.ingredient, '');
+              DELETE FROM category_spending
+              WHERE month = substr(OLD.date, 1, 7) AND category = OLD.category
+                AND ingredient = COALESCE(OLD.ingredient, '') AND entryCount <= 0;
+            END
+        """);
+
+        // An update is the old row leaving its bucket and the new row joining its own
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_cost_entries_rollup_update
+            AFTER UPDATE OF date, category, ingredient, cost, quantity ON cost_entries
+            BEGIN
+              UPDATE category_spending SET
+                totalCost = totalCost - OLD.cost,
+                totalQuantity = totalQuantity - OLD.quantity,
+                entryCount = entryCount - 1
+              WHERE month = substr(OLD.date, 1, 7) AND category = OLD.category
+                AND ingredient = COALESCE(OLD.ingredient, '');
+              DELETE FROM category_spending
+              WHERE month = substr(OLD.date, 1, 7) AND category = OLD.category
+                AND ingredient = COALESCE(OLD.ingredient, '') AND entryCount <= 0;
+              INSERT INTO category_spending (month, category, ingredient, totalCost, totalQuantity, entryCount)
+              VALUES (substr(NEW.date, 1, 7), NEW.category, COALESCE(NEW.ingredient, ''), NEW.cost, NEW.quantity, 1)
+              ON CONFLICT (month, category, ingredient) DO UPDATE SET
+                totalCost = totalCost + excluded.totalCost,
+                totalQuantity = totalQuantity + excluded.totalQuantity,
+                entryCount = entryCount + 1;
+            END
+        """);
+
+        // Backfill from the entries recorded before the triggers existed
+        stmt.execute("DELETE FROM category_spending");
+        stmt.execute("""
+            INSERT INTO category_spending (month, category, ingredient, totalCost, totalQuantity, entryCount)
+            SELECT substr(date, 1, 7), category, COALESCE(ingredient, ''), SUM(cost), SUM(quantity), COUNT(*)
+            FROM cost_entries
+            GROUP BY substr(date, 1, 7), category, COALESCE(ingredient, '')
+        """);
+    }
+
+    /**
+     * Version 4: optional minimum and maximum share of a mix per ingredient, in percent.
+     * NULL means no limit of its own: no minimum, and the default maximum for the
+     * ingredient's nutrient profile (see FormulationProblem.defaultMaxInclusion).
+     */
+    private static void addInclusionLimits(Statement stmt) throws SQLException {
+        if (!SchemaMigrator.columnExists(stmt, "ingredients", "minInclusion")) {
+            stmt.execute("ALTER TABLE ingredients ADD COLUMN minInclusion REAL");
+        }
+        if (!SchemaMigrator.columnExists(stmt, "ingredients", "maxInclusion")) {
+            stmt.execute("ALTER TABLE ingredients ADD COLUMN maxInclusion REAL");
+        }
+    }
+
+    /**
+     * Version 5: optimization results by cache key (see OptimizationCache), plus the
+     * ingredients each one used. The key already changes with any input, so the triggers
+     * here are housekeeping: when an ingredient row is written or deleted, or a Feed cost
+     * entry (a price) for it is added, edited or deleted, every cached result that used the
+     * ingredient is dropped instead of lingering until it ages out.
+     *
+     * ingredients is written with INSERT OR REPLACE, whose implicit delete doesn't fire
+     * delete triggers, so inserts are covered too.
+     */
+    private static void createOptimizationCache(Statement stmt) throws SQLException {
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS optimization_cache (
+              cache_key TEXT PRIMARY KEY,
+              method TEXT NOT NULL,
+              proportions TEXT NOT NULL,
+              units TEXT,
+              seed INTEGER NOT NULL DEFAULT 0,
+              status TEXT,
+              gap REAL NOT NULL DEFAULT 0.0,
+              nodes INTEGER NOT NULL DEFAULT 0,
+              created_date TEXT NOT NULL
+            ) WITHOUT ROWID
+        """);
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS optimization_cache_ingredients (
+              ingredient TEXT NOT NULL,
+              cache_key TEXT NOT NULL REFERENCES optimization_cache(cache_key) ON DELETE CASCADE,
+              PRIMARY KEY (ingredient, cache_key)
+            ) WITHOUT ROWID
+        """);
+        // The cascade looks rows up by cache_key; the trim orders by created_date
+        stmt.execute("""
+            CREATE INDEX IF NOT EXISTS idx_optimization_cache_ingredients_key
+            ON optimization_cache_ingredients (cache_key)
+        """);
+        stmt.execute("""
+            CREATE INDEX IF NOT EXISTS idx_optimization_cache_created
+            ON optimization_cache (created_date)
+        """);
+
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_ingredients_cache_insert
+            AFTER INSERT ON ingredients
+            BEGIN
+              DELETE FROM optimization_cache WHERE cache_key IN (
+                SELECT cache_key FROM optimization_cache_ingredients WHERE ingredient = NEW.name);
+            END
+        """);
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_ingredients_cache_update
+            AFTER UPDATE ON ingredients
+            BEGIN
+              DELETE FROM optimization_cache WHERE cache_key IN (
+                SELECT cache_key FROM optimization_cache_ingredients WHERE ingredient = OLD.name);
+              DELETE FROM optimization_cache WHERE cache_key IN (
+                SELECT cache_key FROM optimization_cache_ingredients WHERE ingredient = NEW.name);
+            END
+        """);
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_ingredients_cache_delete
+            AFTER DELETE ON ingredients
+            BEGIN
+              DELETE FROM optimization_cache WHERE cache_key IN (
+                SELECT cache_key FROM optimization_cache_ingredients WHERE ingredient = OLD.name);
+            END
+        """);
+
+        // Feed entries are where prices come from
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_cost_entries_cache_insert
+            AFTER INSERT ON cost_entries
+            WHEN NEW.category = 'Feed'
+            BEGIN
+              DELETE FROM optimization_cache WHERE cache_key IN (
+                SELECT cache_key FROM optimization_cache_ingredients WHERE ingredient = NEW.ingredient);
+            END
+        """);
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_cost_entries_cache_update
+            AFTER UPDATE ON cost_entries
+            WHEN OLD.category = 'Feed' OR NEW.category = 'Feed'
+            BEGIN
+              DELETE FROM optimization_cache WHERE cache_key IN (
+                SELECT cache_key FROM optimization_cache_ingredients WHERE ingredient = OLD.ingredient);
+              DELETE FROM optimization_cache WHERE cache_key IN (
+                SELECT cache_key FROM optimization_cache_ingredients WHERE ingredient = NEW.ingredient);
+            END
+        """);
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS trg_cost_entries_cache_delete
+            AFTER DELETE ON cost_entries
+            WHEN OLD.category = 'Feed'
+            BEGIN
+              DELETE FROM optimization_cache WHERE cache_key IN (
+                SELECT cache_key FROM optimization_cache_ingredients WHERE ingredient = OLD.ingredient);
+            END
+        """);
+    }
+
+    /**
+     * Version 6: the latest-price lookup also reads unitSize (the whole-bag mode needs the
+     * purchase unit), which version 2's price index doesn't hold, so each lookup went back to
+     * the table row. The index is rebuilt with unitSize as its last column to answer it from
+     * the index alone again; the price history query still only needs its leading columns.
+     */
+    private static void coverUnitSizeInPriceIndex(Statement stmt) throws SQLException {
+        stmt.execute("DROP INDEX IF EXISTS idx_cost_entries_ingredient_category_date");
+        stmt.execute("""
+            CREATE INDEX IF NOT EXISTS idx_cost_entries_feed_price
+            ON cost_entries (ingredient, category, date, cost, quantity, unitSize)
+        """);
+        stmt.execute("ANALYZE cost_entries");
+    }
+
     private static void migrateIngredientsTable(Statement stmt) throws SQLException {
-        // Check if price column exists, if not add it
-        try {
-            stmt.execute("SELECT price FROM ingredients LIMIT 1");
-        } catch (SQLException e) {
-            // Column doesn't exist, add it
+        // Older databases were created before the price columns existed
+        if (!SchemaMigrator.columnExists(stmt, "ingredients", "price")) {
             stmt.execute("ALTER TABLE ingredients ADD COLUMN price REAL DEFAULT 0.0");
         }
-        
-        // Check if priceUnit column exists, if not add it
-        try {
-            stmt.execute("SELECT priceUnit FROM ingredients LIMIT 1");
-        } catch (SQLException e) {
-            // Column doesn't exist, add it
+        if (!SchemaMigrator.columnExists(stmt, "ingredients", "priceUnit")) {
             stmt.execute("ALTER TABLE ingredients ADD COLUMN priceUnit TEXT DEFAULT '50lbs'");
         }
     }
     
     private static void migrateCostEntriesTable(Statement stmt) throws SQLException {
-        // Check if ingredient column exists, if not add it
-        try {
-            stmt.execute("SELECT ingredient FROM cost_entries LIMIT 1");
-        } catch (SQLException e) {
-            // Column doesn't exist, add it
+        // Older databases were created before ingredient/unitSize were tracked
+        if (!SchemaMigrator.columnExists(stmt, "cost_entries", "ingredient")) {
             stmt.execute("ALTER TABLE cost_entries ADD COLUMN ingredient TEXT");
         }
-        
-        // Check if unitSize column exists, if not add it
-        try {
-            stmt.execute("SELECT unitSize FROM cost_entries LIMIT 1");
-        } catch (SQLException e) {
-            // Column doesn't exist, add it
+        if (!SchemaMigrator.columnExists(stmt, "cost_entries", "unitSize")) {
             stmt.execute("ALTER TABLE cost_entries ADD COLUMN unitSize TEXT");
         }
     }
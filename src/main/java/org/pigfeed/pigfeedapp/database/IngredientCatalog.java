@@ -0,0 +1,303 @@
+package org.pigfeed.pigfeedapp.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable snapshot of the ingredients table: names plus nutrient values and inclusion
+ * limits in parallel primitive arrays, indexed by position (the ingredient id within this
+ * snapshot).
+ *
+ * The app shares one current snapshot. Lookups read it without locking, allocating or
+ * querying. Changes to the ingredients table build a new snapshot from the old one
+ * (copy-on-write) and swap it in, so readers never see a half-updated catalog.
+ */
+public final class IngredientCatalog {
+
+    private static final IngredientCatalog EMPTY = new IngredientCatalog(
+        new String[0], new double[0], new double[0], new double[0], new double[0], new double[0], new double[0]);
+
+    private static volatile IngredientCatalog current = EMPTY;
+
+    // Sorted by name, like the ingredient dropdowns
+    private final String[] names;
+    private final double[] protein;
+    private final double[] fat;
+    private final double[] fiber;
+    private final double[] lysine;
+    // Percent of the mix; NaN where the ingredient has no limit of its own
+    private final double[] minInclusion;
+    private final double[] maxInclusion;
+    private final Map<String, Integer> indexByName;
+    private final List<String> nameList;
+
+    private IngredientCatalog(String[] names, double[] protein, double[] fat, double[] fiber, double[] lysine,
+                              double[] minInclusion, double[] maxInclusion) {
+        this.names = names;
+        this.protein = protein;
+        this.fat = fat;
+        this.fiber = fiber;
+        this.lysine = lysine;
+        this.minInclusion = minInclusion;
+        this.maxInclusion = maxInclusion;
+        this.indexByName = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            indexByName.put(names[i], i);
+        }
+        this.nameList = Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * The snapshot everyone should read right now.
+     */
+    public static IngredientCatalog current() {
+        return current;
+    }
+
+    /**
+     * Rebuilds the catalog from the ingredients table (one query) and publishes it.
+     */
+    public static IngredientCatalog reload(Connection conn) throws SQLException {
+        List<String> names = new ArrayList<>();
+        List<double[]> rows = new ArrayList<>();
+        String sql = "SELECT name, crudeProtein, crudeFat, crudeFiber, lysine, minInclusion, maxInclusion FROM ingredients ORDER BY name";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                names.add(rs.getString("name"));
+                rows.add(new double[] {
+                    rs.getDouble("crudeProtein"),
+                    rs.getDouble("crudeFat"),
+                    rs.getDouble("crudeFiber"),
+                    rs.getDouble("lysine"),
+                    inclusion(rs, "minInclusion"),
+                    inclusion(rs, "maxInclusion")
+                });
+            }
+        }
+
+        int n = names.size();
+        double[] protein = new double[n];
+        double[] fat = new double[n];
+        double[] fiber = new double[n];
+        double[] lysine = new double[n];
+        double[] minInclusion = new double[n];
+        double[] maxInclusion = new double[n];
+        for (int i = 0; i < n; i++) {
+            double[] row = rows.get(i);
+            protein[i] = row[0];
+            fat[i] = row[1];
+            fiber[i] = row[2];
+            lysine[i] = row[3];
+            minInclusion[i] = row[4];
+            maxInclusion[i] = row[5];
+        }
+        IngredientCatalog catalog = new IngredientCatalog(names.toArray(new String[0]), protein, fat, fiber, lysine,
+            minInclusion, maxInclusion);
+        current = catalog;
+        return catalog;
+    }
+
+    // NULL (no limit of its own) becomes NaN
+    private static double inclusion(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? Double.NaN : value;
+    }
+
+    /**
+     * Publishes a modified copy of the current catalog. Call it from the write task that
+     * changed the ingredients table, after the change succeeded.
+     */
+    public static synchronized IngredientCatalog update(UnaryOperator<IngredientCatalog> change) {
+        IngredientCatalog updated = change.apply(current);
+        current = updated;
+        return updated;
+    }
+
+    /**
+     * Adds the ingredient or replaces the one of that name (inclusion limits in percent of
+     * the mix, NaN for none of its own), then publishes the catalog with the change.
+     */
+    public static int save(Connection conn, String name, double crudeProtein, double crudeFat, double crudeFiber,
+                           double lysine, double minPercent, double maxPercent) throws SQLException {
+        String sql = "INSERT OR REPLACE INTO ingredients(name, crudeProtein, crudeFat, crudeFiber, lysine, minInclusion, maxInclusion) VALUES(?,?,?,?,?,?,?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, name);
+            ps.setDouble(2, crudeProtein);
+            ps.setDouble(3, crudeFat);
+            ps.setDouble(4, crudeFiber);
+            ps.setDouble(5, lysine);
+            setInclusion(ps, 6, minPercent);
+            setInclusion(ps, 7, maxPercent);
+            int rows = ps.executeUpdate();
+            update(catalog -> catalog.withIngredient(name, crudeProtein, crudeFat, crudeFiber, lysine,
+                minPercent, maxPercent));
+            return rows;
+        }
+    }
+
+    // NaN (no limit of its own) is stored as NULL
+    private static void setInclusion(PreparedStatement ps, int index, double percent) throws SQLException {
+        if (Double.isNaN(percent)) {
+            ps.setNull(index, Types.REAL);
+        } else {
+            ps.setDouble(index, percent);
+        }
+    }
+
+    /**
+     * Deletes the ingredient and publishes the catalog without it. Returns the rows deleted
+     * (0 if there was no such ingredient).
+     */
+    public static int delete(Connection conn, String name) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM ingredients WHERE name = ?")) {
+            ps.setString(1, name);
+            int rows = ps.executeUpdate();
+            update(catalog -> catalog.withoutIngredient(name));
+            return rows;
+        }
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Position of the ingredient in this snapshot, or -1 if it isn't in the catalog.
+     */
+    public int indexOf(String name) {
+        if (name == null) {
+            return -1;
+        }
+        Integer index = indexByName.get(name);
+        return index == null ? -1 : index;
+    }
+
+    public boolean contains(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    public String getName(int index) { return names[index]; }
+    public double getProtein(int index) { return protein[index]; }
+    public double getFat(int index) { return fat[index]; }
+    public double getFiber(int index) { return fiber[index]; }
+    public double getLysine(int index) { return lysine[index]; }
+
+    /** Minimum share of a mix in percent, or NaN if the ingredient has none set */
+    public double getMinInclusion(int index) { return minInclusion[index]; }
+
+    /** Maximum share of a mix in percent, or NaN if the default limit applies */
+    public double getMaxInclusion(int index) { return maxInclusion[index]; }
+
+    /**
+     * Ingredient names in dropdown order (read-only view, no copy).
+     */
+    public List<String> getNames() {
+        return nameList;
+    }
+
+    /**
+     * Copy with the ingredient added, or its nutrient values replaced if it already exists
+     * (an existing ingredient keeps its inclusion limits).
+     */
+    public IngredientCatalog withIngredient(String name, double crudeProtein, double crudeFat,
+                                            double crudeFiber, double lysineValue) {
+        int existing = indexOf(name);
+        return withIngredient(name, crudeProtein, crudeFat, crudeFiber, lysineValue,
+            existing >= 0 ? minInclusion[existing] : Double.NaN,
+            existing >= 0 ? maxInclusion[existing] : Double.NaN);
+    }
+
+    /**
+     * Copy with the ingredient added or replaced, including its inclusion limits (percent, NaN for none).
+     */
+    public IngredientCatalog withIngredient(String name, double crudeProtein, double crudeFat,
+                                            double crudeFiber, double lysineValue,
+                                            double minPercent, double maxPercent) {
+        int existing = indexOf(name);
+        if (existing >= 0) {
+            double[] newProtein = protein.clone();
+            double[] newFat = fat.clone();
+            double[] newFiber = fiber.clone();
+            double[] newLysine = lysine.clone();
+            double[] newMin = minInclusion.clone();
+            double[] newMax = maxInclusion.clone();
+            newProtein[existing] = crudeProtein;
+            newFat[existing] = crudeFat;
+            newFiber[existing] = crudeFiber;
+            newLysine[existing] = lysineValue;
+            newMin[existing] = minPercent;
+            newMax[existing] = maxPercent;
+            return new IngredientCatalog(names, newProtein, newFat, newFiber, newLysine, newMin, newMax);
+        }
+
+        int insertAt = -(Arrays.binarySearch(names, name) + 1);
+        return new IngredientCatalog(
+            insert(names, insertAt, name),
+            insert(protein, insertAt, crudeProtein),
+            insert(fat, insertAt, crudeFat),
+            insert(fiber, insertAt, crudeFiber),
+            insert(lysine, insertAt, lysineValue),
+            insert(minInclusion, insertAt, minPercent),
+            insert(maxInclusion, insertAt, maxPercent));
+    }
+
+    /**
+     * Copy without the ingredient (this catalog itself if it wasn't there).
+     */
+    public IngredientCatalog withoutIngredient(String name) {
+        int index = indexOf(name);
+        if (index < 0) {
+            return this;
+        }
+        return new IngredientCatalog(
+            remove(names, index),
+            remove(protein, index),
+            remove(fat, index),
+            remove(fiber, index),
+            remove(lysine, index),
+            remove(minInclusion, index),
+            remove(maxInclusion, index));
+    }
+
+    private static String[] insert(String[] values, int at, String value) {
+        String[] copy = new String[values.length + 1];
+        System.arraycopy(values, 0, copy, 0, at);
+        copy[at] = value;
+        System.arraycopy(values, at, copy, at + 1, values.length - at);
+        return copy;
+    }
+
+    private static double[] insert(double[] values, int at, double value) {
+        double[] copy = new double[values.length + 1];
+        System.arraycopy(values, 0, copy, 0, at);
+        copy[at] = value;
+        System.arraycopy(values, at, copy, at + 1, values.length - at);
+        return copy;
+    }
+
+    private static String[] remove(String[] values, int at) {
+        String[] copy = new String[values.length - 1];
+        System.arraycopy(values, 0, copy, 0, at);
+        System.arraycopy(values, at + 1, copy, at, values.length - at - 1);
+        return copy;
+    }
+
+    private static double[] remove(double[] values, int at) {
+        double[] copy = new double[values.length - 1];
+        System.arraycopy(values, 0, copy, 0, at);
+        System.arraycopy(values, at + 1, copy, at, values.length - at - 1);
+        return copy;
+    }
+}
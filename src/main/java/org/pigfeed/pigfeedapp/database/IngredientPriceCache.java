@@ -0,0 +1,254 @@
+package org.pigfeed.pigfeedapp.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Latest Feed purchase price per pound for every ingredient, kept in memory.
+ *
+ * Loaded with one grouped query at startup and then kept current by the cost tracker's
+ * write tasks: a new Feed entry can only replace an ingredient's price if it is at least as
+ * recent, and deleting an entry re-reads just that ingredient. Lookups never touch the
+ * database, so recalculating the feed mix totals runs no SQL at all.
+ *
+ * Mutations happen on the database writer lane; lookups may come from any thread.
+ */
+public class IngredientPriceCache {
+
+    /**
+     * Prices above this are treated as typos rather than real feed prices.
+     */
+    private static final double MAX_PLAUSIBLE_PRICE_PER_LB = 10.0;
+
+    /**
+     * Notified (on the database thread) after prices of the given ingredients changed.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void pricesChanged(Set<String> ingredients);
+    }
+
+    /**
+     * Notified (on the database thread) when a newly recorded Feed purchase became an
+     * ingredient's current price. Unlike {@link Listener}, loads, edits and deletes don't count.
+     */
+    @FunctionalInterface
+    public interface PurchaseListener {
+        void feedPurchased(String ingredient, double pricePerLb);
+    }
+
+    /**
+     * The purchase a price comes from. Dates are ISO yyyy-MM-dd, so they compare as strings.
+     */
+    private static final class LatestPurchase {
+        final String date;
+        final double pricePerLb;
+        final String unitSize;
+
+        LatestPurchase(String date, double cost, double quantity, String unitSize) {
+            this.date = date;
+            this.pricePerLb = cost / quantity;
+            this.unitSize = unitSize;
+        }
+    }
+
+    private static final String LOAD_ALL = """
+        SELECT ingredient, cost, quantity, unitSize, MAX(date) AS date FROM cost_entries
+        WHERE ingredient IS NOT NULL AND category = 'Feed' AND cost > 0 AND quantity > 0
+        GROUP BY ingredient
+        """;
+
+    private final Map<String, LatestPurchase> latest = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<PurchaseListener> purchaseListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean loaded = false;
+
+    /**
+     * Replaces the cache contents with the latest price of every ingredient (one query).
+     */
+    public void load(Connection conn) throws SQLException {
+        Map<String, LatestPurchase> fresh = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(LOAD_ALL)) {
+            // SQLite fills the bare cost/quantity columns from the row holding MAX(date)
+            while (rs.next()) {
+                fresh.put(rs.getString("ingredient"),
+                    new LatestPurchase(rs.getString("date"), rs.getDouble("cost"), rs.getDouble("quantity"),
+                        rs.getString("unitSize")));
+            }
+        }
+        Set<String> changed = new java.util.HashSet<>(latest.keySet());
+        changed.addAll(fresh.keySet());
+        latest.keySet().retainAll(fresh.keySet());
+        latest.putAll(fresh);
+        loaded = true;
+        fireChanged(changed);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Most recent price per pound for an ingredient, or 0.0 if there is no usable Feed purchase.
+     */
+    public double getPricePerLb(String ingredient) {
+        if (ingredient == null) {
+            return 0.0;
+        }
+        LatestPurchase purchase = latest.get(ingredient);
+        if (purchase == null || purchase.pricePerLb > MAX_PLAUSIBLE_PRICE_PER_LB) {
+            // Sanity check - reject unrealistic prices for animal feed
+            return 0.0;
+        }
+        return purchase.pricePerLb;
+    }
+
+    /**
+     * Pounds in the unit the ingredient was last bought in (a 50 lb bag, a ton...), or 0.0
+     * if there is no Feed purchase with a unit on record.
+     */
+    public double getPurchaseUnitLbs(String ingredient) {
+        if (ingredient == null) {
+            return 0.0;
+        }
+        LatestPurchase purchase = latest.get(ingredient);
+        if (purchase == null || purchase.unitSize == null || purchase.unitSize.isEmpty()) {
+            return 0.0;
+        }
+        return poundsPerUnit(purchase.unitSize);
+    }
+
+    /**
+     * Pounds per purchase unit as offered by the cost tracker ("lb", "50lbs", "100lbs",
+     * "ton"); anything else counts as 1 lb.
+     */
+    public static double poundsPerUnit(String unitSize) {
+        if (unitSize == null) {
+            return 1.0;
+        }
+        return switch (unitSize) {
+            case "lb" -> 1.0;        // Individual pounds
+            case "50lbs" -> 50.0;    // Standard feed bag size
+            case "100lbs" -> 100.0;  // Large feed bag
+            case "ton" -> 2000.0;    // Bulk feed purchase (1 ton = 2000 lbs)
+            default -> 1.0;          // Default to 1 lb if unknown unit
+        };
+    }
+
+    /**
+     * Call after a cost entry was inserted. Non-Feed and unpriced entries are ignored.
+     */
+    public void entryAdded(String category, String ingredient, String isoDate, double cost, double quantity,
+                           String unitSize) {
+        if (!"Feed".equals(category) || ingredient == null || cost <= 0 || quantity <= 0) {
+            return;
+        }
+        LatestPurchase candidate = new LatestPurchase(isoDate, cost, quantity, unitSize);
+        LatestPurchase merged = latest.merge(ingredient, candidate,
+            (current, added) -> added.date.compareTo(current.date) >= 0 ? added : current);
+        if (merged == candidate) {
+            fireChanged(Set.of(ingredient));
+            for (PurchaseListener listener : purchaseListeners) {
+                try {
+                    listener.feedPurchased(ingredient, candidate.pricePerLb);
+                } catch (RuntimeException e) {
+                    System.err.println("Purchase listener failed:");
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Call after a cost entry for this ingredient was deleted; re-reads its latest purchase.
+     */
+    public void refresh(Connection conn, String ingredient) throws SQLException {
+        if (ingredient == null) {
+            return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(CostEntryQueries.LATEST_FEED_PRICE)) {
+            ps.setString(1, ingredient);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    latest.put(ingredient,
+                        new LatestPurchase(rs.getString("date"), rs.getDouble("cost"), rs.getDouble("quantity"),
+                            rs.getString("unitSize")));
+                } else {
+                    latest.remove(ingredient);
+                }
+            }
+        }
+        fireChanged(Set.of(ingredient));
+    }
+
+    /**
+     * Price per pound of every Feed purchase of the ingredient since fromDate (ISO
+     * yyyy-MM-dd), in no particular order; implausible prices are left out, as in
+     * {@link #getPricePerLb}. Reads the database, not the cache.
+     */
+    public static double[] loadPriceHistory(Connection conn, String ingredient, String fromDate) throws SQLException {
+        List<Double> prices = new java.util.ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(CostEntryQueries.FEED_PRICE_HISTORY)) {
+            ps.setString(1, ingredient);
+            ps.setString(2, fromDate);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    double pricePerLb = rs.getDouble("cost") / rs.getDouble("quantity");
+                    if (pricePerLb <= MAX_PLAUSIBLE_PRICE_PER_LB) {
+                        prices.add(pricePerLb);
+                    }
+                }
+            }
+        }
+        return prices.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Call after all cost entries were deleted.
+     */
+    public void clear() {
+        Set<String> changed = Set.copyOf(latest.keySet());
+        latest.clear();
+        fireChanged(changed);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public void addPurchaseListener(PurchaseListener listener) {
+        purchaseListeners.add(listener);
+    }
+
+    public void removePurchaseListener(PurchaseListener listener) {
+        purchaseListeners.remove(listener);
+    }
+
+    private void fireChanged(Set<String> ingredients) {
+        if (ingredients.isEmpty()) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.pricesChanged(ingredients);
+            } catch (RuntimeException e) {
+                System.err.println("Price cache listener failed:");
+                e.printStackTrace();
+            }
+        }
+    }
+}
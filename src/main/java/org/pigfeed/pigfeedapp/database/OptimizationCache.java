@@ -0,0 +1,264 @@
+package org.pigfeed.pigfeedapp.database;
+
+import org.pigfeed.pigfeedapp.formulation.FormulationEngine;
+import org.pigfeed.pigfeedapp.formulation.FormulationProblem;
+import org.pigfeed.pigfeedapp.formulation.FormulationResult;
+import org.pigfeed.pigfeedapp.formulation.WholeUnitMix;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * Optimization results worked out before, kept in the optimization_cache table (migration 5)
+ * so running the same optimization again returns the earlier mix instead of solving again.
+ *
+ * The key is a SHA-256 of everything a result depends on: each ingredient's name, nutrients,
+ * price and inclusion limits, the nutrient ranges and ratio limits, and the optimization
+ * mode with its settings. Any change to those gives a new key, so a stale row can never be
+ * returned. Triggers on ingredients and on Feed cost entries delete the rows that used a
+ * changed ingredient, so rows for old prices don't pile up; on top of that only the newest
+ * MAX_ENTRIES rows are kept.
+ *
+ * Only the mix itself is stored (proportions, or whole units). Nutrient levels and cost are
+ * recomputed from the problem when a row is read back.
+ */
+public final class OptimizationCache {
+
+    /** Rows kept at most; the oldest go first */
+    public static final int MAX_ENTRIES = 500;
+
+    // Part of every key, so changing what goes into the key retires all old rows
+    private static final int KEY_VERSION = 1;
+
+    private static final String FIND = """
+        SELECT method, proportions, units, seed, status, gap, nodes FROM optimization_cache
+        WHERE cache_key = ?
+        """;
+
+    private static final String INSERT = """
+        INSERT INTO optimization_cache (cache_key, method, proportions, units, seed, status, gap, nodes, created_date)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String INSERT_INGREDIENT =
+        "INSERT OR IGNORE INTO optimization_cache_ingredients (ingredient, cache_key) VALUES (?, ?)";
+
+    private static final String TRIM = """
+        DELETE FROM optimization_cache WHERE cache_key NOT IN (
+          SELECT cache_key FROM optimization_cache ORDER BY created_date DESC LIMIT ?)
+        """;
+
+    private OptimizationCache() {}
+
+    /**
+     * Cache key for solving the problem in the given mode (e.g. "balanced"), with any
+     * settings the mode has (unit sizes, weight limits...). Pure computation, no SQL.
+     */
+    public static String key(FormulationProblem problem, String mode, double... settings) {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java runtime is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+        try (DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), sha256))) {
+            out.writeInt(KEY_VERSION);
+            out.writeUTF(mode);
+            out.writeInt(settings.length);
+            for (double setting : settings) {
+                out.writeDouble(setting);
+            }
+            out.writeInt(problem.getIngredientCount());
+            for (int i = 0; i < problem.getIngredientCount(); i++) {
+                out.writeUTF(problem.getName(i));
+                for (int k = 0; k < FormulationProblem.NUTRIENT_COUNT; k++) {
+                    out.writeDouble(problem.getNutrient(i, k));
+                }
+                out.writeDouble(problem.getPrice(i));
+                out.writeDouble(problem.getMinInclusion(i));
+                out.writeDouble(problem.getMaxInclusion(i));
+            }
+            for (int k = 0; k < FormulationProblem.NUTRIENT_COUNT; k++) {
+                out.writeDouble(problem.getMinLevel(k));
+                out.writeDouble(problem.getMaxLevel(k));
+            }
+            out.writeInt(problem.getRatioLimits().size());
+            for (FormulationProblem.RatioLimit limit : problem.getRatioLimits()) {
+                out.writeInt(limit.getNumerator());
+                out.writeInt(limit.getDenominator());
+                out.writeDouble(limit.getMin());
+                out.writeDouble(limit.getMax());
+            }
+        } catch (IOException e) {
+            // The null stream never fails
+            throw new IllegalStateException(e);
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    /**
+     * The result stored under the key, recomputed for the problem, or null if there is none.
+     */
+    public static FormulationResult findResult(Connection conn, String key, FormulationProblem problem) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(FIND)) {
+            ps.setString(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getString("units") != null) {
+                    return null;
+                }
+                double[] proportions = parseNumbers(rs.getString("proportions"));
+                if (proportions.length != problem.getIngredientCount()) {
+                    return null;
+                }
+                return FormulationEngine.evaluate(problem, FormulationResult.Method.valueOf(rs.getString("method")),
+                    proportions, rs.getLong("seed"));
+            }
+        }
+    }
+
+    /**
+     * The whole-unit mix stored under the key, or null if there is none.
+     */
+    public static WholeUnitMix findWholeUnitMix(Connection conn, String key, FormulationProblem problem,
+                                                double[] unitLbs) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(FIND)) {
+            ps.setString(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getString("units") == null) {
+                    return null;
+                }
+                double[] stored = parseNumbers(rs.getString("units"));
+                if (stored.length != unitLbs.length) {
+                    return null;
+                }
+                int[] units = new int[stored.length];
+                double totalWeight = 0.0;
+                for (int i = 0; i < units.length; i++) {
+                    units[i] = (int) stored[i];
+                    totalWeight += units[i] * unitLbs[i];
+                }
+                double[] proportions = new double[units.length];
+                for (int i = 0; i < units.length; i++) {
+                    proportions[i] = units[i] * unitLbs[i] / totalWeight;
+                }
+                FormulationResult result = FormulationEngine.evaluate(problem, FormulationResult.Method.WHOLE_UNITS,
+                    proportions, 0L);
+                return new WholeUnitMix(WholeUnitMix.Status.valueOf(rs.getString("status")), result, units, unitLbs,
+                    totalWeight, rs.getDouble("gap"), rs.getInt("nodes"));
+            }
+        }
+    }
+
+    /**
+     * Stores a result under the key (replacing any earlier one). Run on the writer lane.
+     */
+    public static void storeResult(Connection conn, String key, FormulationProblem problem,
+                                   FormulationResult result) throws SQLException {
+        store(conn, key, problem, result.getMethod(), formatNumbers(result.getProportions()), null,
+            result.getSeed(), null, 0.0, 0);
+    }
+
+    /**
+     * Stores a whole-unit mix under the key. Only mixes that were found can be stored.
+     */
+    public static void storeWholeUnitMix(Connection conn, String key, FormulationProblem problem,
+                                         WholeUnitMix mix) throws SQLException {
+        if (!mix.hasMix()) {
+            throw new IllegalArgumentException("No mix to store");
+        }
+        double[] units = new double[problem.getIngredientCount()];
+        for (int i = 0; i < units.length; i++) {
+            units[i] = mix.getUnits(i);
+        }
+        store(conn, key, problem, FormulationResult.Method.WHOLE_UNITS, formatNumbers(mix.getResult().getProportions()),
+            formatNumbers(units), 0L, mix.getStatus().name(), mix.getGap(), mix.getNodes());
+    }
+
+    // One transaction: the row, the ingredients it used (for the invalidation triggers)
+    // and the trim to MAX_ENTRIES
+    private static void store(Connection conn, String key, FormulationProblem problem, FormulationResult.Method method,
+                              String proportions, String units, long seed, String status, double gap,
+                              int nodes) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            // Deleting first also drops the old ingredient links (ON DELETE CASCADE)
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM optimization_cache WHERE cache_key = ?")) {
+                ps.setString(1, key);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(INSERT)) {
+                ps.setString(1, key);
+                ps.setString(2, method.name());
+                ps.setString(3, proportions);
+                if (units == null) {
+                    ps.setNull(4, Types.VARCHAR);
+                } else {
+                    ps.setString(4, units);
+                }
+                ps.setLong(5, seed);
+                if (status == null) {
+                    ps.setNull(6, Types.VARCHAR);
+                } else {
+                    ps.setString(6, status);
+                }
+                ps.setDouble(7, gap);
+                ps.setInt(8, nodes);
+                ps.setString(9, LocalDateTime.now().toString());
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(INSERT_INGREDIENT)) {
+                for (int i = 0; i < problem.getIngredientCount(); i++) {
+                    ps.setString(1, problem.getName(i));
+                    ps.setString(2, key);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(TRIM)) {
+                ps.setInt(1, MAX_ENTRIES);
+                ps.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Double.toString round-trips exactly, so a stored mix reads back bit for bit
+    private static String formatNumbers(double[] values) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) text.append(',');
+            text.append(values[i]);
+        }
+        return text.toString();
+    }
+
+    private static double[] parseNumbers(String text) {
+        if (text == null || text.isEmpty()) {
+            return new double[0];
+        }
+        String[] parts = text.split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Double.parseDouble(parts[i]);
+        }
+        return values;
+    }
+}
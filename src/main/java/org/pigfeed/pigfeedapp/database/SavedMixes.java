@@ -0,0 +1,230 @@
+package org.pigfeed.pigfeedapp.database;
+
+import org.pigfeed.pigfeedapp.model.FeedMixEntry;
+import org.pigfeed.pigfeedapp.model.SavedMix;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads and writes the saved_mixes and saved_mix_entries tables, and reads the
+ * current_feed_mix table (CurrentMixWriter writes it).
+ *
+ * Every method takes the connection of the lane it runs on (see DatabaseExecutor) and
+ * returns plain model objects, so callers only decide which lane to use. Entries come back
+ * in the order they were saved; mixes that are grouped by name come back in name order.
+ */
+public final class SavedMixes {
+
+    private static final String LIST = "SELECT * FROM saved_mixes ORDER BY created_date DESC";
+
+    private static final String COUNT_BY_NAME = "SELECT COUNT(*) FROM saved_mixes WHERE name = ?";
+
+    private static final String ENTRIES_BY_MIX =
+        "SELECT ingredient_name, weight, protein, fat, fiber, lysine FROM saved_mix_entries WHERE mix_id = ? ORDER BY id";
+
+    private static final String ALL_ENTRIES = """
+        SELECT m.name, e.ingredient_name, e.weight, e.protein, e.fat, e.fiber, e.lysine
+        FROM saved_mixes m JOIN saved_mix_entries e ON e.mix_id = m.id ORDER BY m.name, e.id
+        """;
+
+    // Followed by the IN list of the ingredients and ORDER BY
+    private static final String ENTRIES_OF_MIXES_USING = """
+        SELECT m.name, e.ingredient_name, e.weight, e.protein, e.fat, e.fiber, e.lysine
+        FROM saved_mixes m JOIN saved_mix_entries e ON e.mix_id = m.id
+        WHERE m.id IN (SELECT mix_id FROM saved_mix_entries WHERE ingredient_name IN (%s))
+        ORDER BY m.name, e.id
+        """;
+
+    private static final String DELETE_BY_NAME = "DELETE FROM saved_mixes WHERE name = ?";
+
+    private static final String INSERT_MIX = """
+        INSERT INTO saved_mixes (name, created_date, total_weight, total_protein, total_fat, total_fiber, total_lysine, total_cost)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String INSERT_ENTRY =
+        "INSERT INTO saved_mix_entries (mix_id, ingredient_name, weight, protein, fat, fiber, lysine) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String CURRENT_MIX =
+        "SELECT ingredient_name, weight, protein, fat, fiber, lysine FROM current_feed_mix ORDER BY id";
+
+    private SavedMixes() {}
+
+    /**
+     * Every saved mix with its totals (no entries), newest first.
+     */
+    public static List<SavedMix> list(Connection conn) throws SQLException {
+        List<SavedMix> mixes = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(LIST)) {
+            while (rs.next()) {
+                SavedMix mix = new SavedMix();
+                mix.setId(rs.getInt("id"));
+                mix.setName(rs.getString("name"));
+                mix.setCreatedDate(LocalDateTime.parse(rs.getString("created_date")));
+                mix.setTotalWeight(rs.getDouble("total_weight"));
+                mix.setTotalProtein(rs.getDouble("total_protein"));
+                mix.setTotalFat(rs.getDouble("total_fat"));
+                mix.setTotalFiber(rs.getDouble("total_fiber"));
+                mix.setTotalLysine(rs.getDouble("total_lysine"));
+                mix.setTotalCost(rs.getDouble("total_cost"));
+                mixes.add(mix);
+            }
+        }
+        return mixes;
+    }
+
+    public static boolean exists(Connection conn, String name) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(COUNT_BY_NAME)) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    /**
+     * Entries of the saved mix with the given id.
+     */
+    public static List<FeedMixEntry> findEntries(Connection conn, int mixId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(ENTRIES_BY_MIX)) {
+            ps.setInt(1, mixId);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<FeedMixEntry> entries = new ArrayList<>();
+                while (rs.next()) {
+                    entries.add(readEntry(rs));
+                }
+                return entries;
+            }
+        }
+    }
+
+    /**
+     * Entries of every saved mix, by mix name.
+     */
+    public static Map<String, List<FeedMixEntry>> findAllEntries(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(ALL_ENTRIES)) {
+            return groupByMix(rs);
+        }
+    }
+
+    /**
+     * Entries of every saved mix containing at least one of the ingredients, by mix name.
+     */
+    public static Map<String, List<FeedMixEntry>> findEntriesUsing(Connection conn, Set<String> ingredients)
+            throws SQLException {
+        if (ingredients.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ingredients.size(), "?"));
+        try (PreparedStatement ps = conn.prepareStatement(String.format(ENTRIES_OF_MIXES_USING, placeholders))) {
+            int index = 1;
+            for (String ingredient : ingredients) {
+                ps.setString(index++, ingredient);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return groupByMix(rs);
+            }
+        }
+    }
+
+    /**
+     * Saves the mix under its name in one transaction, replacing any mix saved under that
+     * name before (its entries go with it via ON DELETE CASCADE).
+     */
+    public static void save(Connection conn, SavedMix savedMix, List<FeedMixEntry> entries) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement ps = conn.prepareStatement(DELETE_BY_NAME)) {
+                ps.setString(1, savedMix.getName());
+                ps.executeUpdate();
+            }
+
+            int mixId;
+            try (PreparedStatement ps = conn.prepareStatement(INSERT_MIX, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setString(1, savedMix.getName());
+                ps.setString(2, LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                ps.setDouble(3, savedMix.getTotalWeight());
+                ps.setDouble(4, savedMix.getTotalProtein());
+                ps.setDouble(5, savedMix.getTotalFat());
+                ps.setDouble(6, savedMix.getTotalFiber());
+                ps.setDouble(7, savedMix.getTotalLysine());
+                ps.setDouble(8, savedMix.getTotalCost());
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                    mixId = keys.getInt(1);
+                }
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(INSERT_ENTRY)) {
+                for (FeedMixEntry entry : entries) {
+                    ps.setInt(1, mixId);
+                    ps.setString(2, entry.getIngredient());
+                    ps.setDouble(3, entry.getWeight());
+                    ps.setDouble(4, entry.getProtein());
+                    ps.setDouble(5, entry.getFat());
+                    ps.setDouble(6, entry.getFiber());
+                    ps.setDouble(7, entry.getLysine());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * The mix on the calculator when it was last saved (the current_feed_mix table).
+     */
+    public static List<FeedMixEntry> loadCurrentMix(Connection conn) throws SQLException {
+        List<FeedMixEntry> entries = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(CURRENT_MIX)) {
+            while (rs.next()) {
+                entries.add(readEntry(rs));
+            }
+        }
+        return entries;
+    }
+
+    // Rows of name plus entry columns, grouped into entries per mix name
+    private static Map<String, List<FeedMixEntry>> groupByMix(ResultSet rs) throws SQLException {
+        Map<String, List<FeedMixEntry>> mixes = new LinkedHashMap<>();
+        while (rs.next()) {
+            mixes.computeIfAbsent(rs.getString("name"), name -> new ArrayList<>()).add(readEntry(rs));
+        }
+        return mixes;
+    }
+
+    // ingredient_name/weight/nutrition columns of current_feed_mix or saved_mix_entries
+    private static FeedMixEntry readEntry(ResultSet rs) throws SQLException {
+        FeedMixEntry entry = new FeedMixEntry();
+        entry.setIngredient(rs.getString("ingredient_name"));
+        entry.setWeight(rs.getDouble("weight"));
+        entry.setProtein(rs.getDouble("protein"));
+        entry.setFat(rs.getDouble("fat"));
+        entry.setFiber(rs.getDouble("fiber"));
+        entry.setLysine(rs.getDouble("lysine"));
+        return entry;
+    }
+}
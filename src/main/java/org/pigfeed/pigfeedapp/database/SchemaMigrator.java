@@ -0,0 +1,121 @@
+package org.pigfeed.pigfeedapp.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ordered, versioned schema migrations keyed on SQLite's PRAGMA user_version.
+ *
+ * Each step runs at most once per database file. All pending steps are applied in a
+ * single transaction together with the user_version bump, so a failed upgrade leaves
+ * the file exactly as it was. A database that is already current costs one pragma read.
+ */
+public class SchemaMigrator {
+
+    // Run with -Dpigfeed.debug=true to print each migration as it is applied
+    private static final boolean DEBUG = Boolean.getBoolean("pigfeed.debug");
+
+    @FunctionalInterface
+    public interface Step {
+        void apply(Statement stmt) throws SQLException;
+    }
+
+    private static class Migration {
+        final int version;
+        final String description;
+        final Step step;
+
+        Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+
+    private final List<Migration> migrations = new ArrayList<>();
+
+    /**
+     * Registers the next migration. Versions must be added in increasing order.
+     */
+    public SchemaMigrator add(int version, String description, Step step) {
+        if (!migrations.isEmpty() && version <= getLatestVersion()) {
+            throw new IllegalArgumentException("Migration " + version + " is out of order");
+        }
+        migrations.add(new Migration(version, description, step));
+        return this;
+    }
+
+    public int getLatestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version;
+    }
+
+    public static int readUserVersion(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Returns true when the database is behind and migrate() has work to do.
+     */
+    public boolean needsMigration(Statement stmt) throws SQLException {
+        return readUserVersion(stmt) < getLatestVersion();
+    }
+
+    /**
+     * Applies every step newer than the database's user_version in one transaction.
+     *
+     * @return number of steps applied (0 if the database was already current)
+     */
+    public int migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            int current = readUserVersion(stmt);
+            int latest = getLatestVersion();
+            if (current >= latest) {
+                return 0;
+            }
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            int applied = 0;
+            try {
+                for (Migration migration : migrations) {
+                    if (migration.version > current) {
+                        if (DEBUG) {
+                            System.out.println("Applying schema migration " + migration.version + ": " + migration.description);
+                        }
+                        migration.step.apply(stmt);
+                        applied++;
+                    }
+                }
+                // user_version lives in the database header and is part of the transaction
+                stmt.execute("PRAGMA user_version = " + latest);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            return applied;
+        }
+    }
+
+    /**
+     * Checks a column through PRAGMA table_info (no failing SELECT needed).
+     */
+    public static boolean columnExists(Statement stmt, String table, String column) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
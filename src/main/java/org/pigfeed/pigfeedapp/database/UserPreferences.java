@@ -0,0 +1,54 @@
+package org.pigfeed.pigfeedapp.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The user_preferences table: one text value per key, remembered between runs (number of
+ * pigs, last pig stage, last price unit...).
+ *
+ * Reads run on a reader lane and writes on the writer lane like every other query; a
+ * missing or unreadable preference is only ever a reason to fall back to a default.
+ */
+public final class UserPreferences {
+
+    private static final String FIND = "SELECT value FROM user_preferences WHERE key = ?";
+
+    private static final String SAVE = "INSERT OR REPLACE INTO user_preferences (key, value) VALUES (?, ?)";
+
+    private UserPreferences() {}
+
+    /**
+     * The stored value, or fallback if there is none or it can't be read (the error is logged).
+     */
+    public static String get(Connection conn, String key, String fallback) {
+        try (PreparedStatement ps = conn.prepareStatement(FIND)) {
+            ps.setString(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getString("value");
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Could not load the " + key + " preference: " + e.getMessage());
+        }
+        return fallback;
+    }
+
+    public static int set(Connection conn, String key, String value) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SAVE)) {
+            ps.setString(1, key);
+            ps.setString(2, value);
+            return ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Saves the value on the writer lane without waiting; the executor logs a failure.
+     */
+    public static void save(String key, String value) {
+        DatabaseHelper.getExecutor().write(conn -> set(conn, key, value));
+    }
+}
@@ -0,0 +1,1364 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
+
+import static org.pigfeed.pigfeedapp.formulation.FormulationProblem.FAT;
+import static org.pigfeed.pigfeedapp.formulation.FormulationProblem.FIBER;
+import static org.pigfeed.pigfeedapp.formulation.FormulationProblem.LB_PER_TON;
+import static org.pigfeed.pigfeedapp.formulation.FormulationProblem.LYSINE;
+import static org.pigfeed.pigfeedapp.formulation.FormulationProblem.NUTRIENT_COUNT;
+import static org.pigfeed.pigfeedapp.formulation.FormulationProblem.PROTEIN;
+
+/**
+ * Feed formulation without any UI: turns a {@link FormulationProblem} into mix proportions.
+ *
+ * Two methods are available. The least-cost method solves a linear program and returns
+ * the cheapest mix that keeps every nutrient within tolerance (or nothing if no such mix
+ * exists). The balancing method is the original iterative approach: start from typical
+ * pig feed proportions and nudge the richest and poorest ingredient for one nutrient at a
+ * time; it always returns a mix, but with no cost guarantee. Because its outcome depends
+ * on the random starting point, it is run from many seeded starting points in parallel and
+ * the best mix is kept. The run is reproducible from its seed, whatever the thread count.
+ *
+ * The least-cost method can warm-start from the last optimal basis of the mix, kept in a
+ * {@link WarmStarts} the caller owns, so re-optimizing after a price update or a small
+ * target change takes a few pivots instead of a full solve. Without one it starts cold.
+ */
+public final class FormulationEngine {
+
+    private static final int BALANCING_ITERATIONS = 100;
+
+    /** Starting points tried by {@link #formulate} when it has to balance */
+    public static final int DEFAULT_STARTS = 64;
+
+    /** Fixing ingredients named by {@link #diagnose(FormulationProblem, FormulationProblem)} at most */
+    public static final int MAX_FIXES = 3;
+
+    /** Nutrient levels {@link #sweepFrontier} solves for when asked for a default sweep */
+    public static final int DEFAULT_FRONTIER_POINTS = 40;
+
+    /** Price scenarios {@link #simulatePriceRisk} runs when asked for a default simulation */
+    public static final int DEFAULT_SCENARIOS = 20000;
+
+    // Scenarios one fork-join task simulates; each block has its own seed
+    private static final int SCENARIOS_PER_BLOCK = 1000;
+
+    // Starting points one fork-join task runs before it stops splitting
+    private static final int STARTS_PER_TASK = 4;
+
+    private FormulationEngine() {}
+
+    /**
+     * Formulates a mix. With leastCost set, the exact least-cost mix is returned when the
+     * targets can be met; otherwise (or without leastCost) the balancing method runs from
+     * DEFAULT_STARTS seeded starting points on the common fork-join pool.
+     */
+    public static FormulationResult formulate(FormulationProblem problem, boolean leastCost, long seed) {
+        return formulate(problem, leastCost, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Same as {@link #formulate(FormulationProblem, boolean, long)}, balancing on the given pool.
+     */
+    public static FormulationResult formulate(FormulationProblem problem, boolean leastCost, long seed, ForkJoinPool pool) {
+        return formulate(problem, leastCost, seed, pool, FormulationMonitor.NONE);
+    }
+
+    /**
+     * Formulates while reporting improvements to the monitor.
+     *
+     * @throws CancellationException if the monitor asked to stop
+     */
+    public static FormulationResult formulate(FormulationProblem problem, boolean leastCost, long seed,
+                                              ForkJoinPool pool, FormulationMonitor monitor) {
+        return formulate(problem, leastCost, seed, pool, monitor, null);
+    }
+
+    /**
+     * Formulates with the least-cost solve warm-started from (and leaving its basis in) the
+     * given store; null solves cold.
+     *
+     * @throws CancellationException if the monitor asked to stop
+     */
+    public static FormulationResult formulate(FormulationProblem problem, boolean leastCost, long seed,
+                                              ForkJoinPool pool, FormulationMonitor monitor, WarmStarts warmStarts) {
+        if (problem.getIngredientCount() == 1) {
+            return result(problem, FormulationResult.Method.BALANCED, new double[] { 1.0 }, seed);
+        }
+        if (leastCost) {
+            FormulationResult result = solveLeastCost(problem, monitor, warmStarts);
+            if (result != null) {
+                return result.withSeed(seed);
+            }
+        }
+        return balanceMultiStart(problem, leastCost, seed, DEFAULT_STARTS, pool, monitor);
+    }
+
+    /**
+     * Formulates the same ingredients for every profile concurrently and returns one row
+     * per profile, ranked: profiles whose targets were met first, cheapest per lb first.
+     * Each profile gets its own seed derived from seed and every least-cost solve starts
+     * cold, so the batch is reproducible.
+     */
+    public static List<ProfileResult> formulateBatch(FormulationProblem problem, List<TargetProfile> profiles,
+                                                     boolean leastCost, long seed, ForkJoinPool pool) {
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<ForkJoinTask<FormulationResult>> tasks = new ArrayList<>(profiles.size());
+        for (TargetProfile profile : profiles) {
+            FormulationProblem profileProblem = problem.withTargets(profile);
+            long profileSeed = seeds.nextLong();
+            tasks.add(pool.submit(() -> formulate(profileProblem, leastCost, profileSeed, pool)));
+        }
+
+        List<ProfileResult> results = new ArrayList<>(profiles.size());
+        for (int i = 0; i < profiles.size(); i++) {
+            results.add(new ProfileResult(profiles.get(i), tasks.get(i).join()));
+        }
+        results.sort(Comparator
+            .comparing((ProfileResult row) -> !row.getResult().isTargetsMet())
+            .thenComparingDouble(row -> row.getResult().getCostPerLb()));
+        return results;
+    }
+
+    /**
+     * Runs the balancing method from several starting points in parallel and keeps the best
+     * mix: one that meets the targets if any does, then the cheapest, then the one closest
+     * to the targets. The starting points are derived from seed alone and ties go to the
+     * earliest start, so the same seed always gives the same mix.
+     */
+    public static FormulationResult balanceMultiStart(FormulationProblem problem, boolean priceBias,
+                                                      long seed, int starts, ForkJoinPool pool) {
+        return balanceMultiStart(problem, priceBias, seed, starts, pool, FormulationMonitor.NONE);
+    }
+
+    /**
+     * Multi-start balancing that reports every new best mix to the monitor.
+     *
+     * @throws CancellationException if the monitor asked to stop
+     */
+    public static FormulationResult balanceMultiStart(FormulationProblem problem, boolean priceBias,
+                                                      long seed, int starts, ForkJoinPool pool,
+                                                      FormulationMonitor monitor) {
+        // Derive every start's seed up front, so which thread runs it doesn't matter
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long[] startSeeds = new long[Math.max(1, starts)];
+        for (int i = 0; i < startSeeds.length; i++) {
+            startSeeds[i] = seeds.nextLong();
+        }
+        MultiStartProgress progress = new MultiStartProgress(problem, monitor, startSeeds.length);
+        FormulationResult best = pool.invoke(new MultiStartTask(problem, priceBias, startSeeds, 0, startSeeds.length, progress));
+        return best.withSeed(seed);
+    }
+
+    /**
+     * Shared by the tasks of one multi-start: counts finished starts and tells the monitor
+     * whenever one of them beats the best so far (in completion order, for display only;
+     * the returned result is still chosen by start order).
+     */
+    private static final class MultiStartProgress {
+        private final FormulationProblem problem;
+        private final FormulationMonitor monitor;
+        private final int total;
+        private int done = 0;
+        private FormulationResult best;
+
+        MultiStartProgress(FormulationProblem problem, FormulationMonitor monitor, int total) {
+            this.problem = problem;
+            this.monitor = monitor;
+            this.total = total;
+        }
+
+        void checkCancelled() {
+            if (monitor.isCancelled()) {
+                throw new CancellationException("Optimization cancelled");
+            }
+        }
+
+        synchronized void finished(FormulationResult result) {
+            done++;
+            if (best == null || isBetter(problem, result, best)) {
+                best = result;
+                monitor.improved(done, result.getCostPerLb(), result.getViolation());
+            }
+            monitor.progress(done, total);
+        }
+    }
+
+    /**
+     * Balances from the given range of starting points, splitting in halves until the
+     * ranges are small, and reduces to the best result of the range.
+     */
+    private static final class MultiStartTask extends RecursiveTask<FormulationResult> {
+        // ForkJoinTask is Serializable; these tasks are never serialized
+        private static final long serialVersionUID = 1L;
+
+        private final FormulationProblem problem;
+        private final boolean priceBias;
+        private final long[] startSeeds;
+        private final int from;
+        private final int to;
+        private final MultiStartProgress progress;
+
+        MultiStartTask(FormulationProblem problem, boolean priceBias, long[] startSeeds, int from, int to,
+                       MultiStartProgress progress) {
+            this.problem = problem;
+            this.priceBias = priceBias;
+            this.startSeeds = startSeeds;
+            this.from = from;
+            this.to = to;
+            this.progress = progress;
+        }
+
+        @Override
+        protected FormulationResult compute() {
+            if (to - from <= STARTS_PER_TASK) {
+                FormulationResult best = null;
+                for (int i = from; i < to; i++) {
+                    progress.checkCancelled();
+                    FormulationResult candidate = balance(problem, priceBias, new SplittableRandom(startSeeds[i]));
+                    progress.finished(candidate);
+                    if (best == null || isBetter(problem, candidate, best)) {
+                        best = candidate;
+                    }
+                }
+                return best;
+            }
+            int middle = (from + to) >>> 1;
+            MultiStartTask left = new MultiStartTask(problem, priceBias, startSeeds, from, middle, progress);
+            MultiStartTask right = new MultiStartTask(problem, priceBias, startSeeds, middle, to, progress);
+            left.fork();
+            FormulationResult rightBest = right.compute();
+            FormulationResult leftBest = left.join();
+            // Left holds the earlier starts, so it wins ties
+            return isBetter(problem, rightBest, leftBest) ? rightBest : leftBest;
+        }
+    }
+
+    /**
+     * Whether candidate is strictly better than current: meeting the targets beats not
+     * meeting them, then lower cost wins, then being closer to the targets.
+     */
+    static boolean isBetter(FormulationProblem problem, FormulationResult candidate, FormulationResult current) {
+        if (candidate.isTargetsMet() != current.isTargetsMet()) {
+            return candidate.isTargetsMet();
+        }
+        if (candidate.isTargetsMet() && Math.abs(candidate.getCostPerLb() - current.getCostPerLb()) > 1e-9) {
+            return candidate.getCostPerLb() < current.getCostPerLb();
+        }
+        return candidate.getTargetDeviation(problem) < current.getTargetDeviation(problem) - 1e-12;
+    }
+
+    /**
+     * Cheapest proportions (summing to 1, within each ingredient's inclusion bounds) that
+     * keep every nutrient within its tolerance of the target. Ingredients without a price
+     * are charged the highest known price, so they are only used when they are needed.
+     *
+     * @return the mix, or null if no mix meets all targets
+     */
+    public static FormulationResult solveLeastCost(FormulationProblem problem) {
+        return solveLeastCost(problem, FormulationMonitor.NONE);
+    }
+
+    /**
+     * Least-cost solve that reports each improving simplex step to the monitor.
+     *
+     * @throws CancellationException if the monitor asked to stop
+     */
+    public static FormulationResult solveLeastCost(FormulationProblem problem, FormulationMonitor monitor) {
+        return solveLeastCost(problem, monitor, null);
+    }
+
+    /**
+     * Least-cost solve warm-started from the mix's basis in the given store, if it has one,
+     * leaving the new optimal basis there for the next solve. With null it starts cold.
+     *
+     * @throws CancellationException if the monitor asked to stop
+     */
+    public static FormulationResult solveLeastCost(FormulationProblem problem, FormulationMonitor monitor,
+                                                   WarmStarts warmStarts) {
+        LinearProgram lp = buildProgram(problem);
+        double[] lastReported = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+        LinearProgram.Solution solution = lp.solve((iteration, objective, infeasibility) -> {
+            if (monitor.isCancelled()) {
+                return false;
+            }
+            // Phase 1 drives the infeasibility down, phase 2 the cost
+            if (infeasibility < lastReported[1] - 1e-9
+                    || (infeasibility <= 1e-9 && objective < lastReported[0] - 1e-12)) {
+                lastReported[0] = objective;
+                lastReported[1] = infeasibility;
+                monitor.improved(iteration, objective, infeasibility);
+            }
+            return true;
+        }, warmStarts == null ? null : warmStarts.get(problem));
+        if (warmStarts != null) {
+            warmStarts.remember(problem, solution.getBasis());
+        }
+        if (solution.getStatus() == LinearProgram.Status.CANCELLED) {
+            throw new CancellationException("Optimization cancelled");
+        }
+        if (!solution.isOptimal()) {
+            return null;
+        }
+        return result(problem, FormulationResult.Method.LEAST_COST, solution.getValues(), 0L)
+            .withSensitivity(sensitivity(problem, solution));
+    }
+
+    // Rows as laid out by buildProgram: the sum row, one per nutrient, then each ratio
+    // limit's lower row (if it has a minimum) and upper row (if it has a maximum)
+    private static Sensitivity sensitivity(FormulationProblem problem, LinearProgram.Solution solution) {
+        int n = problem.getIngredientCount();
+        double[] priceLow = new double[n];
+        double[] priceHigh = new double[n];
+        for (int i = 0; i < n; i++) {
+            priceLow[i] = solution.getCostRangeLow(i);
+            priceHigh[i] = solution.getCostRangeHigh(i);
+        }
+        double[] nutrientDuals = new double[NUTRIENT_COUNT];
+        for (int k = 0; k < NUTRIENT_COUNT; k++) {
+            nutrientDuals[k] = solution.getDual(1 + k);
+        }
+        List<FormulationProblem.RatioLimit> limits = problem.getRatioLimits();
+        double[] ratioDuals = new double[limits.size()];
+        int row = 1 + NUTRIENT_COUNT;
+        for (int r = 0; r < limits.size(); r++) {
+            // Only one end of a limit can bind, so the two rows' duals just add up
+            if (limits.get(r).getMin() > 0) {
+                ratioDuals[r] += solution.getDual(row++);
+            }
+            if (limits.get(r).getMax() != Double.POSITIVE_INFINITY) {
+                ratioDuals[r] += solution.getDual(row++);
+            }
+        }
+        return new Sensitivity(problem, priceLow, priceHigh, nutrientDuals, limits, ratioDuals);
+    }
+
+    // Columns are the ingredients (cost per lb, inclusion bounds); rows are "adds up to 1",
+    // one row per nutrient range and one or two per ratio limit
+    private static LinearProgram buildProgram(FormulationProblem problem) {
+        int n = problem.getIngredientCount();
+        double fallbackPrice = problem.getMaxKnownPrice();
+        double[] matrix = problem.nutrientMatrix();
+
+        LinearProgram lp = new LinearProgram(n);
+        double[] ones = new double[n];
+        for (int i = 0; i < n; i++) {
+            double price = problem.getPrice(i);
+            lp.setObjective(i, price > 0 ? price : fallbackPrice);
+            lp.setBounds(i, problem.getMinInclusion(i), problem.getMaxInclusion(i));
+            ones[i] = 1.0;
+        }
+        lp.addConstraint(ones, 1.0, 1.0);
+
+        double[] row = new double[n];
+        for (int k = 0; k < NUTRIENT_COUNT; k++) {
+            for (int i = 0; i < n; i++) {
+                row[i] = matrix[i * NUTRIENT_COUNT + k];
+            }
+            lp.addConstraint(row, problem.getMinLevel(k), problem.getMaxLevel(k));
+        }
+
+        // numerator/denominator >= min becomes numerator - min * denominator >= 0 (and likewise for max)
+        for (FormulationProblem.RatioLimit limit : problem.getRatioLimits()) {
+            if (limit.getMin() > 0) {
+                ratioRow(matrix, limit, limit.getMin(), row);
+                lp.addConstraint(row, 0.0, Double.POSITIVE_INFINITY);
+            }
+            if (limit.getMax() != Double.POSITIVE_INFINITY) {
+                ratioRow(matrix, limit, limit.getMax(), row);
+                lp.addConstraint(row, Double.NEGATIVE_INFINITY, 0.0);
+            }
+        }
+        return lp;
+    }
+
+    // Whether any mix meets the requirements (a cold solve; the relaxed problems are throwaway)
+    private static boolean isFeasible(FormulationProblem problem) {
+        return buildProgram(problem).solve().getStatus() != LinearProgram.Status.INFEASIBLE;
+    }
+
+    private static void ratioRow(double[] matrix, FormulationProblem.RatioLimit limit, double ratio, double[] row) {
+        for (int i = 0; i < row.length; i++) {
+            row[i] = matrix[i * NUTRIENT_COUNT + limit.getNumerator()]
+                - ratio * matrix[i * NUTRIENT_COUNT + limit.getDenominator()];
+        }
+    }
+
+    /**
+     * Cheapest mix of the problem's ingredients that keeps the nutrition of the given
+     * proportions (within the problem's tolerances), at the problem's prices. The problem's
+     * own targets are ignored. Returns null when every ingredient isn't priced, since savings
+     * against unknown prices mean nothing, or when no mix within the inclusion limits matches.
+     */
+    public static Reformulation reformulate(String mixName, FormulationProblem problem, double[] currentProportions) {
+        double currentCostPerLb = 0.0;
+        for (int i = 0; i < problem.getIngredientCount(); i++) {
+            if (problem.getPrice(i) <= 0) {
+                return null;
+            }
+            currentCostPerLb += currentProportions[i] * problem.getPrice(i);
+        }
+        double[] levels = problem.nutrientLevels(currentProportions);
+        FormulationProblem sameNutrition = problem.withTargets(new TargetProfile(mixName, 1.0,
+            levels[PROTEIN], levels[FAT], levels[FIBER], levels[LYSINE]));
+        FormulationResult proposed = solveLeastCost(sameNutrition);
+        if (proposed == null) {
+            return null;
+        }
+        return new Reformulation(mixName, sameNutrition, currentCostPerLb, proposed);
+    }
+
+    /**
+     * Monte Carlo price risk of a mix. In each scenario every ingredient's price per lb is
+     * drawn at random from its own price history (a bootstrap of recorded purchases, each
+     * ingredient drawn independently) and the mix is re-costed at those prices. With
+     * reoptimize, each scenario instead costs the least-cost mix with the same nutrition as
+     * the given proportions (as {@link #reformulate} finds it), warm-started from the
+     * previous scenario's basis: only the prices change, so the basis stays feasible and a
+     * few phase 2 pivots finish the solve.
+     *
+     * An ingredient without history keeps its problem price in every scenario (unpriced
+     * ingredients count as free, as in {@link FormulationResult#getCostPerLb()}). Scenarios
+     * run in blocks on the pool, each block with a seed derived from seed, so a run is
+     * reproducible whatever the thread count, and the same seed draws the same prices with
+     * and without reoptimize, so the two can be compared scenario by scenario.
+     *
+     * @param priceHistory recorded prices per lb of each ingredient (an empty array if none)
+     * @return the cost distribution; null with reoptimize if no mix of the ingredients has
+     *         the same nutrition within the inclusion limits
+     * @throws CancellationException if the monitor asked to stop
+     */
+    public static PriceRisk simulatePriceRisk(String mixName, FormulationProblem problem, double[] proportions,
+                                              double[][] priceHistory, boolean reoptimize, int scenarios, long seed,
+                                              ForkJoinPool pool, FormulationMonitor monitor) {
+        int n = problem.getIngredientCount();
+        // One packed array for the sampling loop: ingredient i's prices are history[start[i]..start[i + 1])
+        int[] start = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            start[i + 1] = start[i] + priceHistory[i].length;
+        }
+        double[] history = new double[start[n]];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(priceHistory[i], 0, history, start[i], priceHistory[i].length);
+        }
+
+        double currentCostPerLb = 0.0;
+        for (int i = 0; i < n; i++) {
+            currentCostPerLb += proportions[i] * problem.getPrice(i);
+        }
+        FormulationProblem sameNutrition = null;
+        if (reoptimize) {
+            double[] levels = problem.nutrientLevels(proportions);
+            sameNutrition = problem.withTargets(new TargetProfile(mixName, 1.0,
+                levels[PROTEIN], levels[FAT], levels[FIBER], levels[LYSINE]));
+            if (!isFeasible(sameNutrition)) {
+                return null;
+            }
+        }
+
+        int count = Math.max(1, scenarios);
+        int blocks = (count + SCENARIOS_PER_BLOCK - 1) / SCENARIOS_PER_BLOCK;
+        SplittableRandom seeds = new SplittableRandom(seed);
+        double[] costsPerTon = new double[count];
+        AtomicInteger done = new AtomicInteger();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(blocks);
+        for (int b = 0; b < blocks; b++) {
+            long blockSeed = seeds.nextLong();
+            int from = b * SCENARIOS_PER_BLOCK;
+            int to = Math.min(count, from + SCENARIOS_PER_BLOCK);
+            FormulationProblem target = sameNutrition;
+            tasks.add(pool.submit(() -> simulateBlock(problem, proportions, target, history, start, blockSeed,
+                from, to, costsPerTon, done, monitor)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        Arrays.sort(costsPerTon);
+        return new PriceRisk(mixName, reoptimize, currentCostPerLb * LB_PER_TON, costsPerTon);
+    }
+
+    // Fills costsPerTon[from..to) with one scenario each
+    private static void simulateBlock(FormulationProblem problem, double[] proportions, FormulationProblem sameNutrition,
+                                      double[] history, int[] start, long blockSeed, int from, int to,
+                                      double[] costsPerTon, AtomicInteger done, FormulationMonitor monitor) {
+        if (monitor.isCancelled()) {
+            throw new CancellationException("Optimization cancelled");
+        }
+        int n = problem.getIngredientCount();
+        SplittableRandom random = new SplittableRandom(blockSeed);
+        double[] prices = new double[n];
+        // Unpriced ingredients keep the stand-in price buildProgram gave them
+        LinearProgram lp = sameNutrition == null ? null : buildProgram(sameNutrition);
+        LinearProgram.Basis basis = null;
+
+        for (int s = from; s < to; s++) {
+            for (int i = 0; i < n; i++) {
+                int recorded = start[i + 1] - start[i];
+                prices[i] = recorded > 0 ? history[start[i] + random.nextInt(recorded)] : problem.getPrice(i);
+            }
+            double[] mix = proportions;
+            if (lp != null) {
+                for (int i = 0; i < n; i++) {
+                    if (prices[i] > 0) {
+                        lp.setObjective(i, prices[i]);
+                    }
+                }
+                LinearProgram.Solution solution = lp.solve(null, basis);
+                if (solution.isOptimal()) {
+                    mix = solution.getValues();
+                    basis = solution.getBasis();
+                }
+                // Otherwise (round-off) the mix as it is still has the same nutrition
+            }
+            double costPerLb = 0.0;
+            for (int i = 0; i < n; i++) {
+                costPerLb += mix[i] * prices[i];
+            }
+            costsPerTon[s] = costPerLb * LB_PER_TON;
+        }
+        monitor.progress(done.addAndGet(to - from), costsPerTon.length);
+    }
+
+    /**
+     * Sweeps the trade-off between mix cost and one nutrient: the nutrient's minimum is
+     * stepped over everything the ingredients can reach (its own range dropped, every other
+     * requirement kept) and the least-cost mix solved at each of the given number of levels.
+     *
+     * The levels are split into one contiguous run per pool thread and the runs are solved in
+     * parallel. Within a run each level warm-starts from the one before it: only the
+     * nutrient's row bound moves, which a few dual simplex steps repair. The first level of
+     * each run starts cold. Points that buy no more of the nutrient than a cheaper one are
+     * dropped.
+     *
+     * @throws CancellationException if the monitor asked to stop
+     */
+    public static ParetoFrontier sweepFrontier(FormulationProblem problem, int nutrient, int points,
+                                               ForkJoinPool pool, FormulationMonitor monitor) {
+        return sweepFrontier(problem, nutrient, points, pool, monitor, null);
+    }
+
+    /**
+     * Same sweep with the first level of each run warm-started from the mix's basis in the
+     * given store, if it has one. The store is only read.
+     *
+     * @throws CancellationException if the monitor asked to stop
+     */
+    public static ParetoFrontier sweepFrontier(FormulationProblem problem, int nutrient, int points,
+                                               ForkJoinPool pool, FormulationMonitor monitor, WarmStarts warmStarts) {
+        double[] minLevels = new double[NUTRIENT_COUNT];
+        double[] maxLevels = new double[NUTRIENT_COUNT];
+        for (int k = 0; k < NUTRIENT_COUNT; k++) {
+            minLevels[k] = problem.getMinLevel(k);
+            maxLevels[k] = problem.getMaxLevel(k);
+        }
+        minLevels[nutrient] = 0.0;
+        maxLevels[nutrient] = Double.POSITIVE_INFINITY;
+        FormulationProblem open = problem.withRequirements(minLevels, maxLevels, problem.getRatioLimits());
+
+        double low = extremeLevel(open, nutrient, false);
+        double high = extremeLevel(open, nutrient, true);
+        if (Double.isNaN(low) || Double.isNaN(high)) {
+            return new ParetoFrontier(nutrient, List.of());
+        }
+        int count = high - low > 1e-6 ? Math.max(2, points) : 1;
+        double[] levels = new double[count];
+        for (int p = 0; p < count; p++) {
+            levels[p] = count == 1 ? high : low + (high - low) * p / (count - 1);
+        }
+
+        int runs = Math.min(count, Math.max(1, pool.getParallelism()));
+        LinearProgram.Basis remembered = warmStarts == null ? null : warmStarts.get(problem);
+        AtomicInteger done = new AtomicInteger();
+        List<ForkJoinTask<ParetoFrontier.Point[]>> tasks = new ArrayList<>(runs);
+        for (int r = 0; r < runs; r++) {
+            int from = r * count / runs;
+            int to = (r + 1) * count / runs;
+            tasks.add(pool.submit(() -> sweepRun(problem, open, nutrient, levels, from, to, remembered, done, monitor)));
+        }
+
+        // The cost never drops as the minimum rises, so walking down from the top level a
+        // point is efficient only if it is strictly cheaper than every point above it
+        List<ParetoFrontier.Point> all = new ArrayList<>(count);
+        for (ForkJoinTask<ParetoFrontier.Point[]> task : tasks) {
+            all.addAll(Arrays.asList(task.join()));
+        }
+        Deque<ParetoFrontier.Point> efficient = new ArrayDeque<>();
+        double cheapestAbove = Double.POSITIVE_INFINITY;
+        for (int p = all.size() - 1; p >= 0; p--) {
+            ParetoFrontier.Point point = all.get(p);
+            if (point != null && point.getObjective() < cheapestAbove - 1e-9) {
+                efficient.addFirst(point);
+                cheapestAbove = point.getObjective();
+            }
+        }
+        return new ParetoFrontier(nutrient, new ArrayList<>(efficient));
+    }
+
+    // Solves levels[from..to) in order, each warm-started from the previous optimal basis.
+    // Entries stay null where no mix reaches the level (only possible through round-off).
+    private static ParetoFrontier.Point[] sweepRun(FormulationProblem problem, FormulationProblem open, int nutrient,
+                                                   double[] levels, int from, int to, LinearProgram.Basis basis,
+                                                   AtomicInteger done, FormulationMonitor monitor) {
+        double[] minLevels = new double[NUTRIENT_COUNT];
+        double[] maxLevels = new double[NUTRIENT_COUNT];
+        for (int k = 0; k < NUTRIENT_COUNT; k++) {
+            minLevels[k] = open.getMinLevel(k);
+            maxLevels[k] = open.getMaxLevel(k);
+        }
+        ParetoFrontier.Point[] found = new ParetoFrontier.Point[to - from];
+        for (int p = from; p < to; p++) {
+            if (monitor.isCancelled()) {
+                throw new CancellationException("Optimization cancelled");
+            }
+            minLevels[nutrient] = levels[p];
+            FormulationProblem step = open.withRequirements(minLevels, maxLevels, open.getRatioLimits());
+            LinearProgram.Solution solution = buildProgram(step)
+                .solve((iteration, objective, infeasibility) -> !monitor.isCancelled(), basis);
+            if (solution.getStatus() == LinearProgram.Status.CANCELLED) {
+                throw new CancellationException("Optimization cancelled");
+            }
+            if (solution.isOptimal()) {
+                // Judged against the original requirements, so the point knows if it is in spec
+                FormulationResult result = result(problem, FormulationResult.Method.LEAST_COST, solution.getValues(), 0L);
+                found[p - from] = new ParetoFrontier.Point(levels[p], result, solution.getObjectiveValue(),
+                    solution.getBasis());
+                if (solution.getBasis() != null) {
+                    basis = solution.getBasis();
+                }
+            }
+            monitor.progress(done.incrementAndGet(), levels.length);
+        }
+        return found;
+    }
+
+    // Lowest (or highest) level of the nutrient in any mix meeting the requirements, NaN if none does
+    private static double extremeLevel(FormulationProblem problem, int nutrient, boolean highest) {
+        LinearProgram lp = buildProgram(problem);
+        for (int i = 0; i < problem.getIngredientCount(); i++) {
+            lp.setObjective(i, highest ? -problem.getNutrient(i, nutrient) : problem.getNutrient(i, nutrient));
+        }
+        LinearProgram.Solution solution = lp.solve();
+        return solution.isOptimal() ? problem.nutrientLevels(solution.getValues())[nutrient] : Double.NaN;
+    }
+
+    /**
+     * Cheapest mix that can be built from whole purchase units: each ingredient's weight is a
+     * whole number of its unit (a 50 lb bag, a ton, 1 lb for loose feed) and the mix weighs
+     * between minWeight and maxWeight. The nutrient ranges, ratio limits and inclusion limits
+     * hold for the mix as built, not just for the continuous least-cost proportions.
+     *
+     * Solved by depth-first branch-and-bound over the LP relaxation: each node is the
+     * least-cost LP with the unit counts bounded, warm-started from its parent's basis (a
+     * branch only moves one bound, which a few dual simplex steps repair). Nodes whose LP
+     * costs no less than the best whole-unit mix so far are cut, and rounding each node's
+     * relaxation is tried as a quick way to a first mix. The search stops after
+     * timeBudgetMillis with the best mix found and how far it may be from the cheapest.
+     * Unpriced ingredients cost the highest known price, as in {@link #solveLeastCost}.
+     *
+     * @param unitLbs pounds per purchase unit of each ingredient (all > 0)
+     * @throws CancellationException if the monitor asked to stop
+     */
+    public static WholeUnitMix formulateWholeUnits(FormulationProblem problem, double[] unitLbs, double minWeight,
+                                                   double maxWeight, long timeBudgetMillis, FormulationMonitor monitor) {
+        int n = problem.getIngredientCount();
+        if (unitLbs.length != n || minWeight <= 0 || maxWeight < minWeight) {
+            throw new IllegalArgumentException("Invalid units or weight range [" + minWeight + ", " + maxWeight + "]");
+        }
+        long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+
+        // LP variables are pounds as a share of minWeight, so the rows are scaled like the
+        // proportion LP's; one unit of an ingredient is step[i] of them
+        double[] step = new double[n];
+        int[] lo = new int[n];
+        int[] hi = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (!(unitLbs[i] > 0)) {
+                throw new IllegalArgumentException("No purchase unit for " + problem.getName(i));
+            }
+            step[i] = unitLbs[i] / minWeight;
+            hi[i] = (int) Math.min(Integer.MAX_VALUE, Math.floor(maxWeight * problem.getMaxInclusion(i) / unitLbs[i] + 1e-9));
+        }
+        LinearProgram lp = buildUnitProgram(problem, maxWeight / minWeight);
+
+        Deque<UnitNode> open = new ArrayDeque<>();
+        open.push(new UnitNode(lo, hi, null, Double.NEGATIVE_INFINITY));
+        int[] best = null;
+        double bestObjective = Double.POSITIVE_INFINITY;
+        int nodes = 0;
+        boolean timedOut = false;
+        double[] units = new double[n];
+        while (!open.isEmpty()) {
+            if (monitor.isCancelled()) {
+                throw new CancellationException("Optimization cancelled");
+            }
+            if (System.nanoTime() > deadline) {
+                timedOut = true;
+                break;
+            }
+            UnitNode node = open.pop();
+            if (node.bound >= bestObjective - 1e-12) {
+                continue;
+            }
+            for (int i = 0; i < n; i++) {
+                lp.setBounds(i, node.lo[i] * step[i], node.hi[i] * step[i]);
+            }
+            LinearProgram.Solution solution = lp.solve(null, node.basis);
+            nodes++;
+            if (!solution.isOptimal() || solution.getObjectiveValue() >= bestObjective - 1e-12) {
+                continue;
+            }
+
+            // Branch on the unit count furthest from a whole number
+            int branch = -1;
+            double mostFractional = 1e-6;
+            for (int i = 0; i < n; i++) {
+                units[i] = solution.getValue(i) / step[i];
+                double fraction = Math.abs(units[i] - Math.rint(units[i]));
+                if (fraction > mostFractional) {
+                    mostFractional = fraction;
+                    branch = i;
+                }
+            }
+
+            // Rounding the relaxation often gives a mix that can be built already
+            int[] rounded = new int[n];
+            for (int i = 0; i < n; i++) {
+                rounded[i] = (int) Math.max(node.lo[i], Math.min(node.hi[i], Math.rint(units[i])));
+            }
+            if (wholeUnitsFit(problem, rounded, unitLbs, minWeight, maxWeight)) {
+                double objective = 0.0;
+                for (int i = 0; i < n; i++) {
+                    objective += lp.getObjective(i) * rounded[i] * step[i];
+                }
+                if (objective < bestObjective - 1e-12) {
+                    best = rounded;
+                    bestObjective = objective;
+                    monitor.improved(nodes, objective, 0.0);
+                }
+            }
+            if (branch < 0) {
+                continue;
+            }
+
+            // Depth first, the side nearer the relaxation first (so it goes on the stack last)
+            int down = (int) Math.floor(units[branch]);
+            double bound = solution.getObjectiveValue();
+            UnitNode below = node.withBounds(branch, node.lo[branch], down, solution.getBasis(), bound);
+            UnitNode above = node.withBounds(branch, down + 1, node.hi[branch], solution.getBasis(), bound);
+            if (units[branch] - down < 0.5) {
+                open.push(above);
+                open.push(below);
+            } else {
+                open.push(below);
+                open.push(above);
+            }
+        }
+
+        // Nothing left open can beat the bound of its parent's LP
+        double lowerBound = bestObjective;
+        for (UnitNode node : open) {
+            lowerBound = Math.min(lowerBound, node.bound);
+        }
+        WholeUnitMix.Status status = timedOut ? WholeUnitMix.Status.TIME_LIMIT
+            : best == null ? WholeUnitMix.Status.INFEASIBLE : WholeUnitMix.Status.OPTIMAL;
+        if (best == null) {
+            return new WholeUnitMix(status, null, null, unitLbs, 0.0, 1.0, nodes);
+        }
+        double totalWeight = 0.0;
+        for (int i = 0; i < n; i++) {
+            totalWeight += best[i] * unitLbs[i];
+        }
+        double[] proportions = new double[n];
+        for (int i = 0; i < n; i++) {
+            proportions[i] = best[i] * unitLbs[i] / totalWeight;
+        }
+        double gap = timedOut ? Math.max(0.0, Math.min(1.0, (bestObjective - lowerBound) / bestObjective)) : 0.0;
+        return new WholeUnitMix(status, result(problem, FormulationResult.Method.WHOLE_UNITS, proportions, 0L),
+            best, unitLbs, totalWeight, gap, nodes);
+    }
+
+    /**
+     * One branch-and-bound node: unit count bounds, the parent's basis and the parent's LP
+     * cost, which nothing below this node can undercut.
+     */
+    private static final class UnitNode {
+        final int[] lo;
+        final int[] hi;
+        final LinearProgram.Basis basis;
+        final double bound;
+
+        UnitNode(int[] lo, int[] hi, LinearProgram.Basis basis, double bound) {
+            this.lo = lo;
+            this.hi = hi;
+            this.basis = basis;
+            this.bound = bound;
+        }
+
+        UnitNode withBounds(int ingredient, int low, int high, LinearProgram.Basis childBasis, double childBound) {
+            int[] childLo = lo.clone();
+            int[] childHi = hi.clone();
+            childLo[ingredient] = low;
+            childHi[ingredient] = high;
+            return new UnitNode(childLo, childHi, childBasis, childBound);
+        }
+    }
+
+    // Like buildProgram, but over pounds (as a share of the minimum weight) instead of
+    // proportions: the total is a row of its own, and every range, ratio and inclusion limit
+    // becomes a row relative to the total, e.g. sum (protein_i - min) * y_i >= 0
+    private static LinearProgram buildUnitProgram(FormulationProblem problem, double maxTotal) {
+        int n = problem.getIngredientCount();
+        double fallbackPrice = problem.getMaxKnownPrice();
+        double[] matrix = problem.nutrientMatrix();
+
+        LinearProgram lp = new LinearProgram(n);
+        double[] row = new double[n];
+        for (int i = 0; i < n; i++) {
+            double price = problem.getPrice(i);
+            lp.setObjective(i, price > 0 ? price : fallbackPrice);
+            row[i] = 1.0;
+        }
+        lp.addConstraint(row, 1.0, maxTotal);
+
+        for (int k = 0; k < NUTRIENT_COUNT; k++) {
+            if (problem.getMinLevel(k) > 0) {
+                for (int i = 0; i < n; i++) {
+                    row[i] = matrix[i * NUTRIENT_COUNT + k] - problem.getMinLevel(k);
+                }
+                lp.addConstraint(row, 0.0, Double.POSITIVE_INFINITY);
+            }
+            if (problem.getMaxLevel(k) != Double.POSITIVE_INFINITY) {
+                for (int i = 0; i < n; i++) {
+                    row[i] = matrix[i * NUTRIENT_COUNT + k] - problem.getMaxLevel(k);
+                }
+                lp.addConstraint(row, Double.NEGATIVE_INFINITY, 0.0);
+            }
+        }
+        for (FormulationProblem.RatioLimit limit : problem.getRatioLimits()) {
+            if (limit.getMin() > 0) {
+                ratioRow(matrix, limit, limit.getMin(), row);
+                lp.addConstraint(row, 0.0, Double.POSITIVE_INFINITY);
+            }
+            if (limit.getMax() != Double.POSITIVE_INFINITY) {
+                ratioRow(matrix, limit, limit.getMax(), row);
+                lp.addConstraint(row, Double.NEGATIVE_INFINITY, 0.0);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (problem.getMinInclusion(i) > 0) {
+                Arrays.fill(row, -problem.getMinInclusion(i));
+                row[i] += 1.0;
+                lp.addConstraint(row, 0.0, Double.POSITIVE_INFINITY);
+            }
+            if (problem.getMaxInclusion(i) < 1.0) {
+                Arrays.fill(row, -problem.getMaxInclusion(i));
+                row[i] += 1.0;
+                lp.addConstraint(row, Double.NEGATIVE_INFINITY, 0.0);
+            }
+        }
+        return lp;
+    }
+
+    // Whether a whole-unit mix is in the weight range and meets every requirement, with the
+    // LP's feasibility tolerance so an integral relaxation isn't turned down for rounding noise
+    private static boolean wholeUnitsFit(FormulationProblem problem, int[] units, double[] unitLbs,
+                                         double minWeight, double maxWeight) {
+        int n = problem.getIngredientCount();
+        double total = 0.0;
+        for (int i = 0; i < n; i++) {
+            total += units[i] * unitLbs[i];
+        }
+        if (total < minWeight * (1 - 1e-9) || total > maxWeight * (1 + 1e-9)) {
+            return false;
+        }
+        double[] proportions = new double[n];
+        for (int i = 0; i < n; i++) {
+            proportions[i] = units[i] * unitLbs[i] / total;
+            if (proportions[i] < problem.getMinInclusion(i) - 1e-7 || proportions[i] > problem.getMaxInclusion(i) + 1e-7) {
+                return false;
+            }
+        }
+        double[] levels = problem.nutrientLevels(proportions);
+        for (int k = 0; k < NUTRIENT_COUNT; k++) {
+            if (problem.distanceOutside(k, levels[k]) > 1e-7) {
+                return false;
+            }
+        }
+        for (FormulationProblem.RatioLimit limit : problem.getRatioLimits()) {
+            if (limit.violation(levels) > 1e-7) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks up front whether any mix of the problem's ingredients can meet its requirements.
+     * Returns null if one can, otherwise why not: the cheap checks come first (inclusion limits
+     * that can't add up to 100%, a nutrient no mix can bring into range), and when every
+     * requirement is reachable on its own the LP narrows the requirements down to a minimal
+     * conflicting set. Prices don't matter here.
+     */
+    public static Infeasibility diagnose(FormulationProblem problem) {
+        return diagnose(problem, null);
+    }
+
+    /**
+     * Same as {@link #diagnose(FormulationProblem)}, also naming up to MAX_FIXES of the
+     * candidates' ingredients (cheapest known price first) that would make the requirements
+     * achievable if added to the mix with their own inclusion limits.
+     *
+     * @param candidates ingredients that could be added, or null; their requirements are ignored
+     */
+    public static Infeasibility diagnose(FormulationProblem problem, FormulationProblem candidates) {
+        Infeasibility conflict = findConflict(problem);
+        if (conflict == null || candidates == null) {
+            return conflict;
+        }
+
+        List<Integer> fixes = new ArrayList<>();
+        for (int c = 0; c < candidates.getIngredientCount(); c++) {
+            if (!containsIngredient(problem, candidates.getName(c))
+                    && isFeasible(problem.withIngredientFrom(candidates, c))) {
+                fixes.add(c);
+            }
+        }
+        // Priced ones first, cheapest first; unpriced ones after, by name
+        fixes.sort(Comparator
+            .comparing((Integer c) -> candidates.getPrice(c) <= 0)
+            .thenComparingDouble(candidates::getPrice)
+            .thenComparing(candidates::getName));
+        List<String> names = new ArrayList<>();
+        for (int c : fixes.subList(0, Math.min(MAX_FIXES, fixes.size()))) {
+            names.add(candidates.getName(c));
+        }
+        return conflict.withFixes(names);
+    }
+
+    private static Infeasibility findConflict(FormulationProblem problem) {
+        int n = problem.getIngredientCount();
+
+        // 1. The inclusion limits have to leave room for a mix that adds up to 100%
+        double minTotal = 0.0;
+        double maxTotal = 0.0;
+        for (int i = 0; i < n; i++) {
+            minTotal += problem.getMinInclusion(i);
+            maxTotal += problem.getMaxInclusion(i);
+        }
+        if (minTotal > 1.0 + 1e-9 || maxTotal < 1.0 - 1e-9) {
+            boolean tooMuch = minTotal > 1.0 + 1e-9;
+            List<String> limiting = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (!tooMuch || problem.getMinInclusion(i) > 0) {
+                    limiting.add(problem.getName(i));
+                }
+            }
+            return new Infeasibility(Infeasibility.Kind.INCLUSION_LIMITS, -1, 100.0,
+                100.0 * (tooMuch ? minTotal : maxTotal), List.of("Inclusion limits add up to 100%"), limiting, List.of());
+        }
+
+        // 2. Each nutrient on its own: the richest and leanest mixes the limits allow
+        for (int k = 0; k < NUTRIENT_COUNT; k++) {
+            if (problem.getMinLevel(k) > 0) {
+                Infeasibility conflict = checkReachable(problem, k, true);
+                if (conflict != null) return conflict;
+            }
+            if (problem.getMaxLevel(k) != Double.POSITIVE_INFINITY) {
+                Infeasibility conflict = checkReachable(problem, k, false);
+                if (conflict != null) return conflict;
+            }
+        }
+
+        // 3. Everything is reachable on its own; see whether it is all together
+        if (isFeasible(problem)) {
+            return null;
+        }
+
+        // Deletion filter: drop each requirement in turn and keep it dropped if the rest still
+        // conflict. What's left is minimal: without any one of them a mix exists.
+        double[] minLevels = new double[NUTRIENT_COUNT];
+        double[] maxLevels = new double[NUTRIENT_COUNT];
+        List<FormulationProblem.RatioLimit> ratios = new ArrayList<>();
+        for (int k = 0; k < NUTRIENT_COUNT; k++) {
+            minLevels[k] = problem.getMinLevel(k);
+            maxLevels[k] = problem.getMaxLevel(k);
+        }
+        // A two-sided ratio limit is two requirements
+        for (FormulationProblem.RatioLimit limit : problem.getRatioLimits()) {
+            if (limit.getMin() > 0) {
+                ratios.add(new FormulationProblem.RatioLimit(limit.getNumerator(), limit.getDenominator(),
+                    limit.getMin(), Double.POSITIVE_INFINITY));
+            }
+            if (limit.getMax() != Double.POSITIVE_INFINITY) {
+                ratios.add(new FormulationProblem.RatioLimit(limit.getNumerator(), limit.getDenominator(),
+                    0.0, limit.getMax()));
+            }
+        }
+        for (int k = 0; k < NUTRIENT_COUNT; k++) {
+            double min = minLevels[k];
+            minLevels[k] = 0.0;
+            if (isFeasible(problem.withRequirements(minLevels, maxLevels, ratios))) {
+                minLevels[k] = min;
+            }
+            double max = maxLevels[k];
+            maxLevels[k] = Double.POSITIVE_INFINITY;
+            if (isFeasible(problem.withRequirements(minLevels, maxLevels, ratios))) {
+                maxLevels[k] = max;
+            }
+        }
+        for (int r = ratios.size() - 1; r >= 0; r--) {
+            FormulationProblem.RatioLimit limit = ratios.remove(r);
+            if (isFeasible(problem.withRequirements(minLevels, maxLevels, ratios))) {
+                ratios.add(r, limit);
+            }
+        }
+
+        List<String> requirements = new ArrayList<>();
+        for (int k = 0; k < NUTRIENT_COUNT; k++) {
+            if (minLevels[k] > 0) {
+                requirements.add(String.format("%s ≥ %.2f%%", FormulationProblem.getNutrientName(k), minLevels[k]));
+            }
+            if (maxLevels[k] != Double.POSITIVE_INFINITY) {
+                requirements.add(String.format("%s ≤ %.2f%%", FormulationProblem.getNutrientName(k), maxLevels[k]));
+            }
+        }
+        for (FormulationProblem.RatioLimit limit : ratios) {
+            requirements.add(limit.toString());
+        }
+
+        // An ingredient's limits are part of the conflict if lifting them alone resolves it
+        List<String> limiting = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (problem.getMinInclusion(i) <= 0 && problem.getMaxInclusion(i) >= 1) continue;
+            FormulationProblem lifted = problem.withRequirements(minLevels, maxLevels, ratios);
+            lifted.setInclusionBounds(i, 0.0, 1.0);
+            if (isFeasible(lifted)) {
+                limiting.add(problem.getName(i));
+            }
+        }
+        return new Infeasibility(Infeasibility.Kind.COMBINATION, -1, Double.NaN, Double.NaN,
+            requirements, limiting, List.of());
+    }
+
+    /**
+     * Whether nutrient k can get up to its minimum (raise) or down to its maximum at all.
+     * The extreme mix is greedy: every ingredient at its minimum inclusion, then the rest of
+     * the mix filled with the richest (or leanest) ingredients first, each up to its maximum.
+     */
+    private static Infeasibility checkReachable(FormulationProblem problem, int k, boolean raise) {
+        int n = problem.getIngredientCount();
+        double[] proportions = new double[n];
+        double remaining = 1.0;
+        List<Integer> order = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            proportions[i] = problem.getMinInclusion(i);
+            remaining -= proportions[i];
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble(i -> raise ? -problem.getNutrient(i, k) : problem.getNutrient(i, k)));
+        for (int i : order) {
+            double add = Math.min(problem.getMaxInclusion(i) - proportions[i], remaining);
+            proportions[i] += add;
+            remaining -= add;
+        }
+
+        double level = problem.nutrientLevels(proportions)[k];
+        double required = raise ? problem.getMinLevel(k) : problem.getMaxLevel(k);
+        if (raise ? level >= required - 1e-9 : level <= required + 1e-9) {
+            return null;
+        }
+
+        // The limits that hold the extreme mix back: ingredients that would help capped at
+        // their maximum, and ingredients that hurt forced in by their minimum
+        List<String> limiting = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            double value = problem.getNutrient(i, k);
+            boolean helps = raise ? value > required : value < required;
+            boolean capped = proportions[i] >= problem.getMaxInclusion(i) - 1e-12 && problem.getMaxInclusion(i) < 1.0;
+            boolean forced = proportions[i] <= problem.getMinInclusion(i) + 1e-12 && problem.getMinInclusion(i) > 0;
+            if ((helps && capped) || (!helps && forced)) {
+                limiting.add(problem.getName(i));
+            }
+        }
+        String requirement = String.format("%s %s %.2f%%", FormulationProblem.getNutrientName(k),
+            raise ? "≥" : "≤", required);
+        return new Infeasibility(raise ? Infeasibility.Kind.NUTRIENT_TOO_LOW : Infeasibility.Kind.NUTRIENT_TOO_HIGH,
+            k, required, level, List.of(requirement), limiting, List.of());
+    }
+
+    private static boolean containsIngredient(FormulationProblem problem, String name) {
+        for (int i = 0; i < problem.getIngredientCount(); i++) {
+            if (problem.getName(i).equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The original iterative balancing. Starting proportions come from each ingredient's
+     * nutrient profile with some random spread; with priceBias they lean towards cheaper
+     * ingredients.
+     *
+     * The inclusion limits are treated as bounds on every move: the start is projected into
+     * them once, and each step shifts weight from an ingredient above its minimum to one
+     * below its maximum, so the mix stays within its limits and adds up to 1 throughout.
+     * Only nutrients outside their range are worked on; ratio limits are left to the LP.
+     */
+    public static FormulationResult balance(FormulationProblem problem, boolean priceBias, RandomGenerator random) {
+        double[] matrix = problem.nutrientMatrix();
+        double[] proportions = startingProportions(problem, priceBias, random);
+        fitToBounds(problem, proportions);
+
+        double[] levels = new double[NUTRIENT_COUNT];
+        for (int iteration = 0; iteration < BALANCING_ITERATIONS; iteration++) {
+            computeLevels(matrix, proportions, levels);
+
+            boolean proteinOut = problem.distanceOutside(PROTEIN, levels[PROTEIN]) > 0;
+            boolean lysineOut = problem.distanceOutside(LYSINE, levels[LYSINE]) > 0;
+
+            // Stop once protein and lysine are within their ranges
+            if (!proteinOut && !lysineOut) {
+                break;
+            }
+
+            // One nutrient per iteration, in priority order: protein, lysine, fat, fiber
+            // (a nutrient the limits won't let move any further passes its turn on)
+            boolean moved = false;
+            if (proteinOut) {
+                moved = nudge(proportions, levels, problem, PROTEIN);
+            }
+            if (!moved && lysineOut) {
+                moved = nudge(proportions, levels, problem, LYSINE);
+            }
+            if (!moved && problem.distanceOutside(FAT, levels[FAT]) > 0) {
+                moved = nudge(proportions, levels, problem, FAT);
+            }
+            if (!moved && problem.distanceOutside(FIBER, levels[FIBER]) > 0) {
+                moved = nudge(proportions, levels, problem, FIBER);
+            }
+            if (!moved) {
+                break; // The limits leave no room to get closer
+            }
+        }
+
+        return result(problem, FormulationResult.Method.BALANCED, proportions, 0L);
+    }
+
+    private static double[] startingProportions(FormulationProblem problem, boolean priceBias, RandomGenerator random) {
+        int n = problem.getIngredientCount();
+        double[] proportions = new double[n];
+
+        double maxPrice = 0;
+        double minPrice = Double.MAX_VALUE;
+        if (priceBias) {
+            for (int i = 0; i < n; i++) {
+                double price = problem.getPrice(i);
+                if (price > 0) {
+                    maxPrice = Math.max(maxPrice, price);
+                    minPrice = Math.min(minPrice, price);
+                }
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            double protein = problem.getNutrient(i, PROTEIN);
+            double lysine = problem.getNutrient(i, LYSINE);
+            double fat = problem.getNutrient(i, FAT);
+
+            // Typical pig feed shares by nutrient profile; very conservative with high-lysine ingredients
+            double baseProportion;
+            if (lysine > 10) {
+                // Very high lysine ingredients (eggs, fish meal) - extremely limited
+                baseProportion = 0.01 + random.nextDouble() * 0.02; // 1-3%
+            } else if (protein > 25) {
+                // High protein ingredients (soybean meal, etc.) - use sparingly
+                baseProportion = 0.05 + random.nextDouble() * 0.05; // 5-10%
+            } else if (protein > 15) {
+                // Medium protein ingredients (alfalfa, etc.) - moderate amount
+                baseProportion = 0.15 + random.nextDouble() * 0.10; // 15-25%
+            } else if (protein < 10 && fat < 5) {
+                // Energy grains (corn, milo, etc.) - can be major component
+                baseProportion = 0.30 + random.nextDouble() * 0.20; // 30-50%
+            } else {
+                // Other ingredients - moderate amount
+                baseProportion = 0.08 + random.nextDouble() * 0.07; // 8-15%
+            }
+
+            double price = problem.getPrice(i);
+            if (priceBias && price > 0 && maxPrice > minPrice) {
+                // 1.5x for the cheapest ingredient down to 0.5x for the most expensive
+                double priceNormalized = (price - minPrice) / (maxPrice - minPrice);
+                proportions[i] = baseProportion * (1.5 - priceNormalized);
+
+                // Extra penalty for very expensive ingredients like eggs
+                if (price > 5.0) {
+                    proportions[i] *= 0.1;
+                } else if (price > 3.0) {
+                    proportions[i] *= 0.4;
+                }
+            } else {
+                proportions[i] = baseProportion;
+            }
+        }
+        normalize(proportions);
+        return proportions;
+    }
+
+    /**
+     * Shifts part of the mix towards (or away from) the ingredient richest in the nutrient.
+     * Only ingredients with room inside their limits take part: the richest one below its
+     * maximum gains what the poorest one above its minimum gives up (or the other way
+     * round). The shift is what brings the nutrient just inside its range (half a default
+     * tolerance in, or to the middle of a narrower range), or as much of that as the limits
+     * allow; with a fixed small step the loop used to run out of iterations first.
+     *
+     * @return false if no pair of ingredients can move the level towards the range
+     */
+    private static boolean nudge(double[] proportions, double[] levels, FormulationProblem problem, int nutrient) {
+        boolean raise = levels[nutrient] < problem.getMinLevel(nutrient);
+        double inward = Math.min(FormulationProblem.getDefaultTolerance(nutrient) / 2,
+            (problem.getMaxLevel(nutrient) - problem.getMinLevel(nutrient)) / 2);
+        double aim = raise ? problem.getMinLevel(nutrient) + inward : problem.getMaxLevel(nutrient) - inward;
+        double[] matrix = problem.nutrientMatrix();
+        int richest = -1;
+        int poorest = -1;
+        for (int i = 0; i < proportions.length; i++) {
+            double value = matrix[i * NUTRIENT_COUNT + nutrient];
+            // Raising: the rich one gains, the poor one gives. Lowering: the other way round.
+            boolean canGain = proportions[i] < problem.getMaxInclusion(i) - 1e-12;
+            boolean canGive = proportions[i] > problem.getMinInclusion(i) + 1e-12;
+            if ((raise ? canGain : canGive)
+                    && (richest < 0 || value > matrix[richest * NUTRIENT_COUNT + nutrient])) {
+                richest = i;
+            }
+            if ((raise ? canGive : canGain)
+                    && (poorest < 0 || value < matrix[poorest * NUTRIENT_COUNT + nutrient])) {
+                poorest = i;
+            }
+        }
+        if (richest < 0 || poorest < 0
+                || matrix[richest * NUTRIENT_COUNT + nutrient] <= matrix[poorest * NUTRIENT_COUNT + nutrient]) {
+            return false;
+        }
+
+        int gaining = raise ? richest : poorest;
+        int giving = raise ? poorest : richest;
+        double needed = Math.abs(aim - levels[nutrient])
+            / (matrix[richest * NUTRIENT_COUNT + nutrient] - matrix[poorest * NUTRIENT_COUNT + nutrient]);
+        double amount = Math.min(needed, Math.min(
+            problem.getMaxInclusion(gaining) - proportions[gaining],
+            proportions[giving] - problem.getMinInclusion(giving)));
+        proportions[gaining] += amount;
+        proportions[giving] -= amount;
+        return true;
+    }
+
+    /**
+     * Closest proportions (adding up to 1) within the inclusion limits: every share is moved
+     * by the same amount and then clipped to its limits, with the amount found by bisection.
+     * If the limits can't add up to 1 at all, the shares are left at the nearest limit and
+     * rescaled, which breaks the limits as little as possible.
+     */
+    private static void fitToBounds(FormulationProblem problem, double[] proportions) {
+        int n = proportions.length;
+        double minTotal = 0.0;
+        double maxTotal = 0.0;
+        double low = Double.POSITIVE_INFINITY;
+        double high = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            minTotal += problem.getMinInclusion(i);
+            maxTotal += problem.getMaxInclusion(i);
+            low = Math.min(low, problem.getMinInclusion(i) - proportions[i]);
+            high = Math.max(high, problem.getMaxInclusion(i) - proportions[i]);
+        }
+        if (minTotal > 1.0 || maxTotal < 1.0) {
+            for (int i = 0; i < n; i++) {
+                proportions[i] = minTotal > 1.0 ? problem.getMinInclusion(i) : problem.getMaxInclusion(i);
+            }
+            normalize(proportions);
+            return;
+        }
+
+        double[] start = proportions.clone();
+        for (int round = 0; round < 60; round++) {
+            double shift = (low + high) / 2;
+            double total = 0.0;
+            for (int i = 0; i < n; i++) {
+                total += clip(start[i] + shift, problem.getMinInclusion(i), problem.getMaxInclusion(i));
+            }
+            if (total < 1.0) {
+                low = shift;
+            } else {
+                high = shift;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            proportions[i] = clip(start[i] + high, problem.getMinInclusion(i), problem.getMaxInclusion(i));
+        }
+    }
+
+    private static double clip(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static void computeLevels(double[] matrix, double[] proportions, double[] levels) {
+        for (int k = 0; k < NUTRIENT_COUNT; k++) {
+            levels[k] = 0.0;
+        }
+        for (int i = 0; i < proportions.length; i++) {
+            int row = i * NUTRIENT_COUNT;
+            double share = proportions[i];
+            for (int k = 0; k < NUTRIENT_COUNT; k++) {
+                levels[k] += share * matrix[row + k];
+            }
+        }
+    }
+
+    private static void normalize(double[] proportions) {
+        double total = 0.0;
+        for (double proportion : proportions) {
+            total += proportion;
+        }
+        if (total > 0) {
+            for (int i = 0; i < proportions.length; i++) {
+                proportions[i] /= total;
+            }
+        }
+    }
+
+    /**
+     * Result for proportions worked out earlier (e.g. read back from a cache): nutrient
+     * levels, cost and whether the requirements are met, recomputed for the problem.
+     */
+    public static FormulationResult evaluate(FormulationProblem problem, FormulationResult.Method method,
+                                             double[] proportions, long seed) {
+        if (proportions.length != problem.getIngredientCount()) {
+            throw new IllegalArgumentException("Expected " + problem.getIngredientCount() + " proportions");
+        }
+        return result(problem, method, proportions, seed);
+    }
+
+    private static FormulationResult result(FormulationProblem problem, FormulationResult.Method method,
+                                            double[] proportions, long seed) {
+        double[] levels = problem.nutrientLevels(proportions);
+        double costPerLb = 0.0;
+        for (int i = 0; i < proportions.length; i++) {
+            costPerLb += proportions[i] * problem.getPrice(i);
+        }
+        return new FormulationResult(method, proportions, levels, costPerLb,
+            problem.meetsTargets(levels), problem.violation(levels), seed);
+    }
+}
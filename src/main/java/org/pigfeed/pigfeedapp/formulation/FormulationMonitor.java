@@ -0,0 +1,37 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+/**
+ * Lets a caller follow a long formulation and stop it early.
+ *
+ * Callbacks come from the solver threads (possibly several at once during a multi-start),
+ * so implementations must be thread-safe and quick; hand anything UI related over to the
+ * UI thread.
+ */
+public interface FormulationMonitor {
+
+    /** Monitor that never cancels and ignores progress */
+    FormulationMonitor NONE = new FormulationMonitor() {};
+
+    /**
+     * Polled between simplex steps and balancing starts. Returning true makes the engine
+     * stop and throw a CancellationException.
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+
+    /**
+     * A better mix than any reported before was found.
+     *
+     * @param iteration simplex steps or balancing starts done so far
+     * @param objective cost per lb of the best mix (LP objective while solving least-cost)
+     * @param violation how far the best mix is outside the nutrient ranges and ratio limits,
+     *                  in percentage points summed over all of them (0 = every requirement met)
+     */
+    default void improved(int iteration, double objective, double violation) {}
+
+    /**
+     * Share of the work done, when it is known up front (balancing starts).
+     */
+    default void progress(int done, int total) {}
+}
@@ -0,0 +1,307 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Input to the formulation engine: the candidate ingredients with their nutrient values,
+ * prices and inclusion limits, plus the nutrient ranges the mix has to land in.
+ *
+ * Each nutrient has a [min, max] range (either end may be open, so a ceiling is just
+ * [0, max]); a point target t becomes the range t ± the nutrient's default tolerance. Ratio
+ * limits, such as lysine per unit of protein, constrain one nutrient relative to another.
+ *
+ * Nutrients are stored packed, one row of NUTRIENT_COUNT percentages per ingredient
+ * (nutrients[ingredient * NUTRIENT_COUNT + nutrient]), so the solvers read plain doubles
+ * without going through FeedMixEntry or JavaFX properties.
+ */
+public class FormulationProblem {
+
+    public static final int PROTEIN = 0;
+    public static final int FAT = 1;
+    public static final int FIBER = 2;
+    public static final int LYSINE = 3;
+    public static final int NUTRIENT_COUNT = 4;
+
+    /** Pounds in a (short) ton, the unit mix costs, savings and shadow prices are quoted in */
+    public static final double LB_PER_TON = 2000.0;
+
+    private static final String[] NUTRIENT_NAMES = { "Protein", "Fat", "Fiber", "Lysine" };
+
+    // How far from a point target each nutrient may end up, in percentage points
+    private static final double[] DEFAULT_TOLERANCES = { 0.1, 0.5, 0.5, 0.05 };
+
+    /**
+     * numerator level / denominator level must stay within [min, max] (either end may be
+     * open). In the LP this is two linear rows, e.g. lysine - min·protein ≥ 0.
+     */
+    public static final class RatioLimit {
+        private final int numerator;
+        private final int denominator;
+        private final double min;
+        private final double max;
+
+        public RatioLimit(int numerator, int denominator, double min, double max) {
+            if (numerator == denominator || min > max || min < 0) {
+                throw new IllegalArgumentException("Invalid ratio limit [" + min + ", " + max + "]");
+            }
+            this.numerator = numerator;
+            this.denominator = denominator;
+            this.min = min;
+            this.max = max;
+        }
+
+        public int getNumerator() { return numerator; }
+        public int getDenominator() { return denominator; }
+        public double getMin() { return min; }
+        public double getMax() { return max; }
+
+        /**
+         * How far the numerator level is outside the allowed band, in percentage points.
+         */
+        double violation(double[] levels) {
+            double numeratorLevel = levels[numerator];
+            double denominatorLevel = levels[denominator];
+            return Math.max(0.0, Math.max(min * denominatorLevel - numeratorLevel,
+                                          numeratorLevel - max * denominatorLevel));
+        }
+
+        @Override
+        public String toString() {
+            String ratio = getNutrientName(numerator) + ":" + getNutrientName(denominator);
+            if (max == Double.POSITIVE_INFINITY) return String.format("%s ≥ %.3f", ratio, min);
+            if (min == 0) return String.format("%s ≤ %.3f", ratio, max);
+            return String.format("%.3f ≤ %s ≤ %.3f", min, ratio, max);
+        }
+    }
+
+    private final String[] names;
+    private final double[] nutrients;
+    private final double[] prices;
+    private final double[] minInclusion;
+    private final double[] maxInclusion;
+    private final double[] minLevels = new double[NUTRIENT_COUNT];
+    private final double[] maxLevels = new double[NUTRIENT_COUNT];
+    private final List<RatioLimit> ratioLimits = new ArrayList<>();
+
+    /**
+     * @param names ingredient names, used in messages only
+     * @param nutrients packed ingredient × nutrient matrix (percent)
+     * @param prices price per lb of each ingredient, 0 if unknown
+     */
+    public FormulationProblem(String[] names, double[] nutrients, double[] prices) {
+        if (nutrients.length != names.length * NUTRIENT_COUNT || prices.length != names.length) {
+            throw new IllegalArgumentException("Expected " + names.length + " ingredients in every array");
+        }
+        this.names = names;
+        this.nutrients = nutrients;
+        this.prices = prices;
+        this.minInclusion = new double[names.length];
+        this.maxInclusion = new double[names.length];
+        for (int i = 0; i < names.length; i++) {
+            maxInclusion[i] = defaultMaxInclusion(
+                getNutrient(i, PROTEIN), getNutrient(i, FIBER), getNutrient(i, LYSINE));
+        }
+        // No nutrient requirements until ranges or targets are set
+        Arrays.fill(maxLevels, Double.POSITIVE_INFINITY);
+    }
+
+    // Copy sharing the (read-only) ingredient data, with its own bounds, ranges and ratio limits
+    private FormulationProblem(FormulationProblem other) {
+        this(other, other.names, other.nutrients, other.prices);
+    }
+
+    // Copy with other ingredient data but the same bounds, ranges and ratio limits
+    private FormulationProblem(FormulationProblem other, String[] names, double[] nutrients, double[] prices) {
+        this.names = names;
+        this.nutrients = nutrients;
+        this.prices = prices;
+        this.minInclusion = Arrays.copyOf(other.minInclusion, names.length);
+        this.maxInclusion = Arrays.copyOf(other.maxInclusion, names.length);
+        System.arraycopy(other.minLevels, 0, minLevels, 0, NUTRIENT_COUNT);
+        System.arraycopy(other.maxLevels, 0, maxLevels, 0, NUTRIENT_COUNT);
+        ratioLimits.addAll(other.ratioLimits);
+    }
+
+    /**
+     * Same ingredients and inclusion limits, with the profile's nutrient ranges and ratio
+     * limits instead of this problem's.
+     */
+    public FormulationProblem withTargets(TargetProfile profile) {
+        FormulationProblem copy = new FormulationProblem(this);
+        for (int k = 0; k < NUTRIENT_COUNT; k++) {
+            if (profile.getMin(k) == profile.getMax(k)) {
+                copy.setTarget(k, profile.getMin(k));
+            } else {
+                copy.setRange(k, profile.getMin(k), profile.getMax(k));
+            }
+        }
+        copy.ratioLimits.clear();
+        copy.ratioLimits.addAll(profile.getRatioLimits());
+        return copy;
+    }
+
+    /**
+     * Same problem with one more ingredient, copied (nutrients, price and inclusion limits)
+     * from another problem's ingredient list.
+     */
+    FormulationProblem withIngredientFrom(FormulationProblem source, int ingredient) {
+        int n = names.length;
+        String[] moreNames = Arrays.copyOf(names, n + 1);
+        double[] moreNutrients = Arrays.copyOf(nutrients, (n + 1) * NUTRIENT_COUNT);
+        double[] morePrices = Arrays.copyOf(prices, n + 1);
+        moreNames[n] = source.names[ingredient];
+        System.arraycopy(source.nutrients, ingredient * NUTRIENT_COUNT, moreNutrients, n * NUTRIENT_COUNT, NUTRIENT_COUNT);
+        morePrices[n] = source.prices[ingredient];
+        FormulationProblem copy = new FormulationProblem(this, moreNames, moreNutrients, morePrices);
+        copy.minInclusion[n] = source.minInclusion[ingredient];
+        copy.maxInclusion[n] = source.maxInclusion[ingredient];
+        return copy;
+    }
+
+    /**
+     * Same ingredients and inclusion limits with other nutrient ranges and ratio limits,
+     * used to switch requirements on and off while diagnosing.
+     */
+    FormulationProblem withRequirements(double[] minLevels, double[] maxLevels, List<RatioLimit> ratioLimits) {
+        FormulationProblem copy = new FormulationProblem(this);
+        System.arraycopy(minLevels, 0, copy.minLevels, 0, NUTRIENT_COUNT);
+        System.arraycopy(maxLevels, 0, copy.maxLevels, 0, NUTRIENT_COUNT);
+        copy.ratioLimits.clear();
+        copy.ratioLimits.addAll(ratioLimits);
+        return copy;
+    }
+
+    /**
+     * Practical upper limit on an ingredient's share of the mix, by nutrient profile.
+     */
+    public static double defaultMaxInclusion(double protein, double fiber, double lysine) {
+        if (lysine > 10) {
+            return 0.05; // Max 5% for very high lysine ingredients (eggs, fish meal)
+        } else if (protein > 25) {
+            return 0.25; // Max 25% for high protein ingredients
+        } else if (fiber > 25) {
+            return 0.30; // Max 30% for high fiber ingredients
+        }
+        return 0.65; // Default maximum
+    }
+
+    public static String getNutrientName(int nutrient) {
+        return NUTRIENT_NAMES[nutrient];
+    }
+
+    public int getIngredientCount() { return names.length; }
+    public String getName(int ingredient) { return names[ingredient]; }
+    public double getNutrient(int ingredient, int nutrient) { return nutrients[ingredient * NUTRIENT_COUNT + nutrient]; }
+    public double getPrice(int ingredient) { return prices[ingredient]; }
+    public double getMinInclusion(int ingredient) { return minInclusion[ingredient]; }
+    public double getMaxInclusion(int ingredient) { return maxInclusion[ingredient]; }
+    public double getMinLevel(int nutrient) { return minLevels[nutrient]; }
+    public double getMaxLevel(int nutrient) { return maxLevels[nutrient]; }
+    public List<RatioLimit> getRatioLimits() { return Collections.unmodifiableList(ratioLimits); }
+
+    /** Point-target tolerance of a nutrient, also the unit deviations are measured in */
+    public static double getDefaultTolerance(int nutrient) { return DEFAULT_TOLERANCES[nutrient]; }
+
+    /** The packed matrix itself (not a copy); don't modify it. */
+    double[] nutrientMatrix() { return nutrients; }
+
+    /**
+     * Point target: the range becomes target ± the nutrient's default tolerance.
+     */
+    public void setTarget(int nutrient, double target) {
+        setRange(nutrient, Math.max(0.0, target - DEFAULT_TOLERANCES[nutrient]), target + DEFAULT_TOLERANCES[nutrient]);
+    }
+
+    /**
+     * Level (percent) the nutrient must stay within; use 0 for no minimum and +inf for no maximum.
+     */
+    public void setRange(int nutrient, double min, double max) {
+        if (min < 0 || min > max) {
+            throw new IllegalArgumentException("Invalid " + NUTRIENT_NAMES[nutrient] + " range [" + min + ", " + max + "]");
+        }
+        minLevels[nutrient] = min;
+        maxLevels[nutrient] = max;
+    }
+
+    public void addRatioLimit(RatioLimit limit) {
+        ratioLimits.add(limit);
+    }
+
+    /**
+     * Share of the mix (0-1) the ingredient must stay within.
+     */
+    public void setInclusionBounds(int ingredient, double min, double max) {
+        if (min < 0 || max > 1 || min > max) {
+            throw new IllegalArgumentException("Invalid inclusion bounds [" + min + ", " + max + "] for " + names[ingredient]);
+        }
+        minInclusion[ingredient] = min;
+        maxInclusion[ingredient] = max;
+    }
+
+    /**
+     * Highest known price, used as a stand-in for ingredients without one (1.0 if none is known).
+     */
+    public double getMaxKnownPrice() {
+        double max = 0.0;
+        for (double price : prices) {
+            max = Math.max(max, price);
+        }
+        return max > 0 ? max : 1.0;
+    }
+
+    /**
+     * Nutrient levels (percent) of a mix with the given proportions.
+     */
+    public double[] nutrientLevels(double[] proportions) {
+        double[] levels = new double[NUTRIENT_COUNT];
+        for (int i = 0; i < names.length; i++) {
+            int row = i * NUTRIENT_COUNT;
+            for (int k = 0; k < NUTRIENT_COUNT; k++) {
+                levels[k] += proportions[i] * nutrients[row + k];
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * How far a nutrient level is outside its range, in percentage points (0 inside it).
+     */
+    public double distanceOutside(int nutrient, double level) {
+        return Math.max(0.0, Math.max(minLevels[nutrient] - level, level - maxLevels[nutrient]));
+    }
+
+    /**
+     * How far the levels are outside the ranges and ratio limits, in percentage points
+     * summed over all of them (0 when every requirement is met).
+     */
+    public double violation(double[] levels) {
+        double violation = 0.0;
+        for (int k = 0; k < NUTRIENT_COUNT; k++) {
+            violation += distanceOutside(k, levels[k]);
+        }
+        for (RatioLimit limit : ratioLimits) {
+            violation += limit.violation(levels);
+        }
+        return violation;
+    }
+
+    /**
+     * True if every nutrient is within its range and every ratio limit holds.
+     */
+    public boolean meetsTargets(double[] levels) {
+        for (int k = 0; k < NUTRIENT_COUNT; k++) {
+            if (distanceOutside(k, levels[k]) > 1e-9) {
+                return false;
+            }
+        }
+        for (RatioLimit limit : ratioLimits) {
+            if (limit.violation(levels) > 1e-9) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,102 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+/**
+ * A mix produced by the formulation engine: one proportion (0-1) per ingredient of the
+ * problem, in the same order, plus what the mix costs and contains.
+ */
+public class FormulationResult {
+
+    /**
+     * How the proportions were found.
+     */
+    public enum Method {
+        /** Exact linear program: the cheapest mix that meets every target */
+        LEAST_COST,
+        /** Iterative balancing towards the targets, no cost guarantee */
+        BALANCED,
+        /** Branch-and-bound over whole purchase units, see {@link WholeUnitMix} */
+        WHOLE_UNITS
+    }
+
+    private final Method method;
+    private final double[] proportions;
+    private final double[] nutrientLevels;
+    private final double costPerLb;
+    private final boolean targetsMet;
+    private final double violation;
+    private final long seed;
+    private final Sensitivity sensitivity;
+
+    public FormulationResult(Method method, double[] proportions, double[] nutrientLevels,
+                             double costPerLb, boolean targetsMet, double violation, long seed) {
+        this(method, proportions, nutrientLevels, costPerLb, targetsMet, violation, seed, null);
+    }
+
+    private FormulationResult(Method method, double[] proportions, double[] nutrientLevels, double costPerLb,
+                              boolean targetsMet, double violation, long seed, Sensitivity sensitivity) {
+        this.method = method;
+        this.proportions = proportions;
+        this.nutrientLevels = nutrientLevels;
+        this.costPerLb = costPerLb;
+        this.targetsMet = targetsMet;
+        this.violation = violation;
+        this.seed = seed;
+        this.sensitivity = sensitivity;
+    }
+
+    /**
+     * Same mix, labelled with the seed of the run that produced it.
+     */
+    FormulationResult withSeed(long runSeed) {
+        return new FormulationResult(method, proportions, nutrientLevels, costPerLb, targetsMet, violation, runSeed,
+            sensitivity);
+    }
+
+    FormulationResult withSensitivity(Sensitivity report) {
+        return new FormulationResult(method, proportions, nutrientLevels, costPerLb, targetsMet, violation, seed,
+            report);
+    }
+
+    public Method getMethod() { return method; }
+
+    /**
+     * Price ranges and shadow prices of a LEAST_COST mix; null for the other methods.
+     */
+    public Sensitivity getSensitivity() { return sensitivity; }
+    public double[] getProportions() { return proportions; }
+    public double getProportion(int ingredient) { return proportions[ingredient]; }
+    public double getNutrientLevel(int nutrient) { return nutrientLevels[nutrient]; }
+
+    /**
+     * Cost per lb of mix at known prices (ingredients without a price count as free here).
+     */
+    public double getCostPerLb() { return costPerLb; }
+
+    /**
+     * Whether every nutrient ended up within its tolerance of the target.
+     */
+    public boolean isTargetsMet() { return targetsMet; }
+
+    /**
+     * Percentage points outside the nutrient ranges and ratio limits, summed over all of them.
+     */
+    public double getViolation() { return violation; }
+
+    /**
+     * Seed the mix was formulated with. Formulating the same problem with this seed gives
+     * the same mix again (the least-cost method doesn't depend on it at all).
+     */
+    public long getSeed() { return seed; }
+
+    /**
+     * Sum of how far each nutrient is outside its range, in default tolerances so every
+     * nutrient counts alike (0 = all inside).
+     */
+    public double getTargetDeviation(FormulationProblem problem) {
+        double deviation = 0.0;
+        for (int k = 0; k < FormulationProblem.NUTRIENT_COUNT; k++) {
+            deviation += problem.distanceOutside(k, nutrientLevels[k]) / FormulationProblem.getDefaultTolerance(k);
+        }
+        return deviation;
+    }
+}
@@ -0,0 +1,106 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import java.util.List;
+
+/**
+ * Why a problem's requirements can't be met by any mix of its ingredients, as found by
+ * {@link FormulationEngine#diagnose}: a minimal set of requirements that conflict (drop any
+ * one of them and the rest can be met), the ingredients whose inclusion limits take part in
+ * the conflict, and the candidate ingredients that would resolve it if added to the mix.
+ */
+public class Infeasibility {
+
+    /**
+     * What kind of conflict was found, from the cheapest check to the most general.
+     */
+    public enum Kind {
+        /** The inclusion limits alone can't add up to 100% */
+        INCLUSION_LIMITS,
+        /** One nutrient can't get up to its minimum, whatever the mix */
+        NUTRIENT_TOO_LOW,
+        /** One nutrient can't get down to its maximum, whatever the mix */
+        NUTRIENT_TOO_HIGH,
+        /** Every requirement can be met on its own, but not these ones together */
+        COMBINATION
+    }
+
+    private final Kind kind;
+    private final int nutrient;
+    private final double required;
+    private final double reachable;
+    private final List<String> requirements;
+    private final List<String> limitingIngredients;
+    private final List<String> fixes;
+
+    /**
+     * @param nutrient the nutrient that can't be reached, -1 unless the kind is NUTRIENT_TOO_LOW/HIGH
+     * @param required the level (or total inclusion, in percent) the requirements need
+     * @param reachable the closest level (or total) the ingredients can get to
+     * @param requirements the conflicting requirements, as text
+     * @param limitingIngredients mix ingredients whose inclusion limits are part of the conflict
+     * @param fixes candidate ingredients that would make the requirements achievable if added
+     */
+    public Infeasibility(Kind kind, int nutrient, double required, double reachable, List<String> requirements,
+                         List<String> limitingIngredients, List<String> fixes) {
+        this.kind = kind;
+        this.nutrient = nutrient;
+        this.required = required;
+        this.reachable = reachable;
+        this.requirements = List.copyOf(requirements);
+        this.limitingIngredients = List.copyOf(limitingIngredients);
+        this.fixes = List.copyOf(fixes);
+    }
+
+    /**
+     * Same diagnosis with the given fixing ingredients.
+     */
+    Infeasibility withFixes(List<String> fixIngredients) {
+        return new Infeasibility(kind, nutrient, required, reachable, requirements, limitingIngredients, fixIngredients);
+    }
+
+    public Kind getKind() { return kind; }
+    public int getNutrient() { return nutrient; }
+    public double getRequired() { return required; }
+    public double getReachable() { return reachable; }
+    public List<String> getRequirements() { return requirements; }
+    public List<String> getLimitingIngredients() { return limitingIngredients; }
+    public List<String> getFixes() { return fixes; }
+
+    /**
+     * A few lines for the user: what can't be reached, what limits it and what would help.
+     */
+    public String describe() {
+        StringBuilder text = new StringBuilder();
+        switch (kind) {
+            case INCLUSION_LIMITS:
+                text.append(String.format("The ingredient inclusion limits can't add up to 100%% (they come to %s %.1f%%).",
+                    reachable < required ? "at most" : "at least", reachable));
+                break;
+            case NUTRIENT_TOO_LOW:
+                text.append(String.format("%s can't reach %.2f%%: the richest possible mix has %.2f%%.",
+                    FormulationProblem.getNutrientName(nutrient), required, reachable));
+                break;
+            case NUTRIENT_TOO_HIGH:
+                text.append(String.format("%s can't get down to %.2f%%: the leanest possible mix has %.2f%%.",
+                    FormulationProblem.getNutrientName(nutrient), required, reachable));
+                break;
+            default:
+                text.append("These requirements can't all be met at once:");
+                for (String requirement : requirements) {
+                    text.append("\n  • ").append(requirement);
+                }
+        }
+        if (!limitingIngredients.isEmpty()) {
+            text.append("\nHeld back by the inclusion limits on: ").append(String.join(", ", limitingIngredients));
+        }
+        if (!fixes.isEmpty()) {
+            text.append("\nAdding one of these would fix it: ").append(String.join(", ", fixes));
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return describe();
+    }
+}
@@ -0,0 +1,766 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import java.util.Arrays;
+
+/**
+ * Dense linear program: minimize c·x subject to range rows lo ≤ a·x ≤ hi and bounds
+ * lower ≤ x ≤ upper, solved with a two-phase bounded-variable primal simplex.
+ *
+ * Feed formulation problems have few rows (one per nutrient plus the "proportions add up
+ * to 1" row) and many columns (one per ingredient), so the tableau stays small and each
+ * pivot is a handful of array passes. Variable bounds are handled in the ratio test
+ * instead of as extra rows, so per-ingredient inclusion limits cost nothing.
+ *
+ * Everything runs on primitive arrays; a solve allocates its tableau once up front.
+ * Not thread-safe: build and solve one program per thread.
+ *
+ * An optimal solution carries its {@link Basis}. Passing it to the next solve of a program
+ * with the same shape (a price or a target moved a little) skips phase 1: if the old basis
+ * is still feasible only phase 2 runs, and if only the row bounds moved it is repaired with
+ * dual simplex steps. Either way this usually takes a few pivots instead of a full solve.
+ * A basis that doesn't fit falls back to the cold two-phase solve.
+ *
+ * An optimal solution also carries sensitivity information read off the final tableau: the
+ * dual value (shadow price) of every row and the range each objective coefficient can move
+ * within before the optimal basis changes.
+ */
+public class LinearProgram {
+
+    public enum Status { OPTIMAL, INFEASIBLE, UNBOUNDED, ITERATION_LIMIT, CANCELLED }
+
+    /**
+     * Called after every simplex step with the current structural objective and the remaining
+     * infeasibility (sum of the phase 1 artificials, 0 once a feasible point is reached).
+     */
+    @FunctionalInterface
+    public interface IterationListener {
+        /**
+         * @return false to stop the solve; it then ends with status CANCELLED
+         */
+        boolean iteration(int iteration, double objective, double infeasibility);
+    }
+
+    private static final double PIVOT_TOLERANCE = 1e-9;
+    private static final double FEASIBILITY_TOLERANCE = 1e-7;
+
+    // Consecutive degenerate pivots after which pricing switches to Bland's rule (no cycling)
+    private static final int DEGENERATE_PIVOTS_BEFORE_BLAND = 25;
+
+    private final int numVariables;
+    private final double[] objective;
+    private final double[] lower;
+    private final double[] upper;
+
+    // Row-major, numVariables coefficients per row; grown as rows are added
+    private double[] rowCoefficients = new double[0];
+    private double[] rowLower = new double[0];
+    private double[] rowUpper = new double[0];
+    private int numRows = 0;
+
+    /**
+     * Result of a solve. The values array only holds the structural variables.
+     */
+    public static final class Solution {
+        private final Status status;
+        private final double[] values;
+        private final double objectiveValue;
+        private final int iterations;
+        private final Basis basis;
+        private final boolean warmStarted;
+        private final double[] duals;
+        private final double[] costLower;
+        private final double[] costUpper;
+
+        Solution(Status status, double[] values, double objectiveValue, int iterations,
+                 Basis basis, boolean warmStarted, double[] duals, double[] costLower, double[] costUpper) {
+            this.status = status;
+            this.values = values;
+            this.objectiveValue = objectiveValue;
+            this.iterations = iterations;
+            this.basis = basis;
+            this.warmStarted = warmStarted;
+            this.duals = duals;
+            this.costLower = costLower;
+            this.costUpper = costUpper;
+        }
+
+        public Status getStatus() { return status; }
+        public boolean isOptimal() { return status == Status.OPTIMAL; }
+        public double[] getValues() { return values; }
+        public double getValue(int variable) { return values[variable]; }
+        public double getObjectiveValue() { return objectiveValue; }
+        public int getIterations() { return iterations; }
+
+        /** Final basis of an optimal solve, for warm-starting the next one (null otherwise) */
+        public Basis getBasis() { return basis; }
+
+        /** True if the solve started from a given basis instead of from scratch */
+        public boolean isWarmStarted() { return warmStarted; }
+
+        /**
+         * Shadow price of a row: how much the optimal objective rises per unit the row's
+         * binding bound is raised (0 if the row isn't binding). Positive when the lower
+         * bound binds, negative when the upper one does. NaN unless the solve was optimal.
+         */
+        public double getDual(int row) {
+            return duals == null ? Double.NaN : duals[row];
+        }
+
+        /**
+         * Lowest objective coefficient of the variable (the others unchanged) for which the
+         * solution stays optimal; may be -inf. NaN unless the solve was optimal.
+         */
+        public double getCostRangeLow(int variable) {
+            return costLower == null ? Double.NaN : costLower[variable];
+        }
+
+        /**
+         * Highest objective coefficient of the variable for which the solution stays optimal;
+         * may be +inf. NaN unless the solve was optimal.
+         */
+        public double getCostRangeHigh(int variable) {
+            return costUpper == null ? Double.NaN : costUpper[variable];
+        }
+    }
+
+    /**
+     * Which variable is basic in each row and where the others sit, as left by an optimal
+     * solve. Immutable, so it can be kept and shared between threads.
+     */
+    public static final class Basis {
+        private final int numVariables;
+        private final int[] basic;       // structural or slack column per row
+        private final boolean[] atUpper; // per structural and slack column
+
+        Basis(int numVariables, int[] basic, boolean[] atUpper) {
+            this.numVariables = numVariables;
+            this.basic = basic;
+            this.atUpper = atUpper;
+        }
+
+        /** True if the basis came from a program with this many variables and rows */
+        public boolean fits(int variables, int rows) {
+            return numVariables == variables && basic.length == rows;
+        }
+    }
+
+    /**
+     * A program over numVariables variables, each bounded to [0, +inf) with zero cost.
+     */
+    public LinearProgram(int numVariables) {
+        this.numVariables = numVariables;
+        this.objective = new double[numVariables];
+        this.lower = new double[numVariables];
+        this.upper = new double[numVariables];
+        Arrays.fill(upper, Double.POSITIVE_INFINITY);
+    }
+
+    public int getNumVariables() { return numVariables; }
+    public int getNumRows() { return numRows; }
+
+    public void setObjective(int variable, double cost) {
+        objective[variable] = cost;
+    }
+
+    public double getObjective(int variable) {
+        return objective[variable];
+    }
+
+    public void setObjective(double[] costs) {
+        System.arraycopy(costs, 0, objective, 0, numVariables);
+    }
+
+    /**
+     * Bounds for one variable. The lower bound may be -inf and the upper +inf.
+     */
+    public void setBounds(int variable, double lowerBound, double upperBound) {
+        if (lowerBound > upperBound) {
+            throw new IllegalArgumentException("Lower bound " + lowerBound + " is above upper bound " + upperBound);
+        }
+        lower[variable] = lowerBound;
+        upper[variable] = upperBound;
+    }
+
+    /**
+     * Adds lo ≤ coefficients·x ≤ hi (use lo == hi for an equality, ±inf for one-sided rows).
+     *
+     * @return index of the new row
+     */
+    public int addConstraint(double[] coefficients, double lo, double hi) {
+        if (coefficients.length != numVariables) {
+            throw new IllegalArgumentException("Expected " + numVariables + " coefficients, got " + coefficients.length);
+        }
+        if (lo > hi) {
+            throw new IllegalArgumentException("Row lower bound " + lo + " is above upper bound " + hi);
+        }
+        if (numRows == rowLower.length) {
+            int capacity = Math.max(4, numRows * 2);
+            rowCoefficients = Arrays.copyOf(rowCoefficients, capacity * numVariables);
+            rowLower = Arrays.copyOf(rowLower, capacity);
+            rowUpper = Arrays.copyOf(rowUpper, capacity);
+        }
+        System.arraycopy(coefficients, 0, rowCoefficients, numRows * numVariables, numVariables);
+        rowLower[numRows] = lo;
+        rowUpper[numRows] = hi;
+        return numRows++;
+    }
+
+    public Solution solve() {
+        return solve(null, null);
+    }
+
+    /**
+     * Solves, reporting every step to the listener (which may be null).
+     */
+    public Solution solve(IterationListener listener) {
+        return solve(listener, null);
+    }
+
+    /**
+     * Solves starting from the basis of an earlier solve (null, or a basis that doesn't fit
+     * this program, means a cold solve).
+     */
+    public Solution solve(IterationListener listener, Basis warmStart) {
+        return new Tableau(listener).solve(warmStart);
+    }
+
+    /**
+     * Working state of one solve.
+     *
+     * Columns are the structural variables, then one slack per row (s_i = a_i·x, carrying
+     * the row bounds), then one artificial per row for phase 1. Every row reads
+     * a_i·x - s_i ± art_i = 0, so the artificials form the starting basis.
+     */
+    private final class Tableau {
+        final int m = numRows;
+        final int n = numVariables;
+        final int columns = n + 2 * m;
+        final int firstArtificial = n + m;
+
+        final double[] tab = new double[m * columns]; // B^-1 A, row-major
+        final double[] reducedCost = new double[columns];
+        final double[] cost = new double[columns];
+        final double[] lb = new double[columns];
+        final double[] ub = new double[columns];
+        final double[] x = new double[columns];
+        final int[] basis = new int[m];
+        final boolean[] isBasic = new boolean[columns];
+        final int maxIterations = 50 * (m + columns) + 1000;
+        final IterationListener listener;
+        int iterations = 0;
+        boolean warmStarted = false;
+
+        Tableau(IterationListener listener) {
+            this.listener = listener;
+        }
+
+        Solution solve(Basis warmStart) {
+            if (warmStart != null && warmStart.fits(n, m) && setUpFromBasis(warmStart)) {
+                warmStarted = true;
+                // Prices moved: the basis is still feasible. Row bounds moved: the reduced
+                // costs are still fine, so dual steps bring it back to a feasible basis.
+                Status status = isPrimalFeasible() ? Status.OPTIMAL
+                    : isDualFeasible() ? dualIterate() : Status.INFEASIBLE;
+                if (status == Status.OPTIMAL) {
+                    return result(iterate(false));
+                }
+                if (status == Status.CANCELLED) {
+                    return result(status);
+                }
+                // Anything else (including an apparently infeasible program) is settled by a cold solve
+                warmStarted = false;
+                Arrays.fill(tab, 0.0);
+                Arrays.fill(cost, 0.0);
+                Arrays.fill(isBasic, false);
+            }
+            return solveCold();
+        }
+
+        private Solution solveCold() {
+            setUpPhaseOne();
+            Status status = iterate(true);
+            if (status != Status.OPTIMAL) {
+                return result(status);
+            }
+            double infeasibility = 0.0;
+            for (int j = firstArtificial; j < columns; j++) {
+                infeasibility += x[j];
+            }
+            if (infeasibility > FEASIBILITY_TOLERANCE * Math.max(1, m)) {
+                return result(Status.INFEASIBLE);
+            }
+
+            // Phase 2: artificials are pinned at zero and never re-enter
+            for (int j = firstArtificial; j < columns; j++) {
+                lb[j] = 0.0;
+                ub[j] = 0.0;
+                cost[j] = 0.0;
+                if (!isBasic[j]) {
+                    x[j] = 0.0;
+                }
+            }
+            System.arraycopy(objective, 0, cost, 0, n);
+            computeReducedCosts();
+            return result(iterate(false));
+        }
+
+        private void setUpPhaseOne() {
+            for (int j = 0; j < n; j++) {
+                lb[j] = lower[j];
+                ub[j] = upper[j];
+                x[j] = startingValue(j);
+            }
+            for (int i = 0; i < m; i++) {
+                int slack = n + i;
+                lb[slack] = rowLower[i];
+                ub[slack] = rowUpper[i];
+                x[slack] = startingValue(slack);
+            }
+
+            for (int i = 0; i < m; i++) {
+                int rowStart = i * columns;
+                int coefficientStart = i * n;
+                double activity = 0.0;
+                for (int j = 0; j < n; j++) {
+                    activity += rowCoefficients[coefficientStart + j] * x[j];
+                }
+                // Residual the artificial has to absorb, flipped so the artificial starts >= 0
+                double residual = x[n + i] - activity;
+                double sign = residual >= 0 ? 1.0 : -1.0;
+                for (int j = 0; j < n; j++) {
+                    tab[rowStart + j] = sign * rowCoefficients[coefficientStart + j];
+                }
+                tab[rowStart + n + i] = -sign;
+                tab[rowStart + firstArtificial + i] = 1.0;
+
+                int artificial = firstArtificial + i;
+                lb[artificial] = 0.0;
+                ub[artificial] = Double.POSITIVE_INFINITY;
+                x[artificial] = Math.abs(residual);
+                basis[i] = artificial;
+                isBasic[artificial] = true;
+                cost[artificial] = 1.0;
+            }
+            computeReducedCosts();
+        }
+
+        /**
+         * Rebuilds the tableau around the given basis: the rows are set up with the
+         * artificials basic, and each wanted column is pivoted in place of one of them. The
+         * artificials are then fixed at zero and the costs set for phase 2.
+         *
+         * @return false if the basis is singular for this program
+         */
+        private boolean setUpFromBasis(Basis warmStart) {
+            for (int j = 0; j < n; j++) {
+                lb[j] = lower[j];
+                ub[j] = upper[j];
+            }
+            for (int i = 0; i < m; i++) {
+                int slack = n + i;
+                lb[slack] = rowLower[i];
+                ub[slack] = rowUpper[i];
+
+                int rowStart = i * columns;
+                System.arraycopy(rowCoefficients, i * n, tab, rowStart, n);
+                tab[rowStart + slack] = -1.0;
+                tab[rowStart + firstArtificial + i] = 1.0;
+
+                int artificial = firstArtificial + i;
+                lb[artificial] = 0.0;
+                ub[artificial] = 0.0;
+                x[artificial] = 0.0;
+                basis[i] = artificial;
+                isBasic[artificial] = true;
+            }
+
+            for (int wanted : warmStart.basic) {
+                if (isBasic[wanted]) {
+                    return false; // listed twice, can't be a basis
+                }
+                // Replace the artificial with the biggest pivot, for stability
+                int row = -1;
+                double bestPivot = 1e-7;
+                for (int i = 0; i < m; i++) {
+                    double pivot = Math.abs(tab[i * columns + wanted]);
+                    if (basis[i] >= firstArtificial && pivot > bestPivot) {
+                        row = i;
+                        bestPivot = pivot;
+                    }
+                }
+                if (row < 0) {
+                    return false;
+                }
+                isBasic[basis[row]] = false;
+                pivot(row, wanted);
+                basis[row] = wanted;
+                isBasic[wanted] = true;
+            }
+
+            // Non-basic variables sit on the bound they had; the basic ones follow from them
+            for (int j = 0; j < firstArtificial; j++) {
+                if (isBasic[j]) continue;
+                x[j] = warmStart.atUpper[j] && ub[j] != Double.POSITIVE_INFINITY ? ub[j] : startingValue(j);
+            }
+            updateBasicValues();
+
+            System.arraycopy(objective, 0, cost, 0, n);
+            computeReducedCosts();
+            return true;
+        }
+
+        // Every row reads x_B + sum(tab * x_N) = 0
+        private void updateBasicValues() {
+            for (int i = 0; i < m; i++) {
+                int rowStart = i * columns;
+                double value = 0.0;
+                for (int j = 0; j < columns; j++) {
+                    if (!isBasic[j]) {
+                        value -= tab[rowStart + j] * x[j];
+                    }
+                }
+                x[basis[i]] = value;
+            }
+        }
+
+        private boolean isPrimalFeasible() {
+            for (int i = 0; i < m; i++) {
+                if (boundViolation(basis[i]) > FEASIBILITY_TOLERANCE) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private double boundViolation(int j) {
+            return Math.max(0.0, Math.max(lb[j] - x[j], x[j] - ub[j]));
+        }
+
+        // No non-basic variable could improve the objective by leaving its bound
+        private boolean isDualFeasible() {
+            for (int j = 0; j < firstArtificial; j++) {
+                if (isBasic[j] || ub[j] - lb[j] <= PIVOT_TOLERANCE) continue;
+                double d = reducedCost[j];
+                if ((d < -PIVOT_TOLERANCE && x[j] < ub[j] - PIVOT_TOLERANCE)
+                        || (d > PIVOT_TOLERANCE && x[j] > lb[j] + PIVOT_TOLERANCE)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Bounded dual simplex: keeps the reduced costs optimal and moves the most out-of-bounds
+         * basic variable onto its bound each step, until the basis is feasible.
+         */
+        private Status dualIterate() {
+            while (iterations < maxIterations) {
+                int leavingRow = -1;
+                double worst = FEASIBILITY_TOLERANCE;
+                for (int i = 0; i < m; i++) {
+                    double violation = boundViolation(basis[i]);
+                    if (violation > worst) {
+                        leavingRow = i;
+                        worst = violation;
+                    }
+                }
+                if (leavingRow < 0) {
+                    return Status.OPTIMAL;
+                }
+                int leaving = basis[leavingRow];
+                boolean toLower = x[leaving] < lb[leaving];
+                double target = toLower ? lb[leaving] : ub[leaving];
+
+                // The entering variable must push the leaving one towards its bound, and is the
+                // one whose reduced cost hits zero first (so the others stay optimal)
+                int rowStart = leavingRow * columns;
+                int entering = -1;
+                double bestRatio = Double.POSITIVE_INFINITY;
+                double bestPivot = 0.0;
+                for (int j = 0; j < firstArtificial; j++) {
+                    if (isBasic[j] || ub[j] - lb[j] <= PIVOT_TOLERANCE) continue;
+                    double alpha = tab[rowStart + j];
+                    if (Math.abs(alpha) <= PIVOT_TOLERANCE) continue;
+                    // x_leaving changes by -alpha per unit of x_j
+                    boolean increase = toLower ? alpha < 0 : alpha > 0;
+                    if (increase ? x[j] >= ub[j] - PIVOT_TOLERANCE : x[j] <= lb[j] + PIVOT_TOLERANCE) continue;
+                    double ratio = Math.abs(reducedCost[j]) / Math.abs(alpha);
+                    if (ratio < bestRatio - 1e-12
+                            || (ratio <= bestRatio + 1e-12 && Math.abs(alpha) > Math.abs(bestPivot))) {
+                        entering = j;
+                        bestRatio = ratio;
+                        bestPivot = alpha;
+                    }
+                }
+                if (entering < 0) {
+                    return Status.INFEASIBLE;
+                }
+
+                iterations++;
+                double delta = (x[leaving] - target) / bestPivot;
+                x[entering] += delta;
+                for (int i = 0; i < m; i++) {
+                    x[basis[i]] -= delta * tab[i * columns + entering];
+                }
+                x[leaving] = target;
+                pivot(leavingRow, entering);
+                isBasic[leaving] = false;
+                isBasic[entering] = true;
+                basis[leavingRow] = entering;
+
+                if (listener != null && !notifyListener()) {
+                    return Status.CANCELLED;
+                }
+            }
+            return Status.ITERATION_LIMIT;
+        }
+
+        private double startingValue(int j) {
+            if (lb[j] != Double.NEGATIVE_INFINITY) return lb[j];
+            if (ub[j] != Double.POSITIVE_INFINITY) return ub[j];
+            return 0.0; // free variable
+        }
+
+        private void computeReducedCosts() {
+            System.arraycopy(cost, 0, reducedCost, 0, columns);
+            for (int i = 0; i < m; i++) {
+                double basicCost = cost[basis[i]];
+                if (basicCost == 0.0) continue;
+                int rowStart = i * columns;
+                for (int j = 0; j < columns; j++) {
+                    reducedCost[j] -= basicCost * tab[rowStart + j];
+                }
+            }
+        }
+
+        private Status iterate(boolean phaseOne) {
+            int enteringLimit = phaseOne ? columns : firstArtificial;
+            int degenerateRun = 0;
+
+            while (iterations < maxIterations) {
+                boolean bland = degenerateRun >= DEGENERATE_PIVOTS_BEFORE_BLAND;
+
+                // Pricing: most negative reduced cost in the direction the variable can move
+                int entering = -1;
+                int direction = 0;
+                double bestScore = PIVOT_TOLERANCE;
+                for (int j = 0; j < enteringLimit; j++) {
+                    if (isBasic[j] || ub[j] - lb[j] <= PIVOT_TOLERANCE) continue;
+                    double d = reducedCost[j];
+                    if (d < -bestScore && x[j] < ub[j] - PIVOT_TOLERANCE) {
+                        entering = j;
+                        direction = 1;
+                        bestScore = -d;
+                    } else if (d > bestScore && x[j] > lb[j] + PIVOT_TOLERANCE) {
+                        entering = j;
+                        direction = -1;
+                        bestScore = d;
+                    } else {
+                        continue;
+                    }
+                    if (bland) {
+                        break;
+                    }
+                }
+                if (entering < 0) {
+                    return Status.OPTIMAL;
+                }
+
+                // Ratio test, including the entering variable hitting its own opposite bound
+                double step = ub[entering] - lb[entering];
+                int leavingRow = -1;
+                boolean leavesAtUpper = false;
+                double leavingPivot = 0.0;
+                for (int i = 0; i < m; i++) {
+                    double alpha = direction * tab[i * columns + entering];
+                    int b = basis[i];
+                    double ratio;
+                    boolean toUpper;
+                    if (alpha > PIVOT_TOLERANCE && lb[b] != Double.NEGATIVE_INFINITY) {
+                        ratio = (x[b] - lb[b]) / alpha;
+                        toUpper = false;
+                    } else if (alpha < -PIVOT_TOLERANCE && ub[b] != Double.POSITIVE_INFINITY) {
+                        ratio = (ub[b] - x[b]) / -alpha;
+                        toUpper = true;
+                    } else {
+                        continue;
+                    }
+                    if (ratio < 0) ratio = 0;
+                    // Among ties keep the largest pivot, it is the most stable one
+                    if (ratio < step - 1e-12
+                            || (ratio <= step + 1e-12 && leavingRow >= 0 && Math.abs(alpha) > Math.abs(leavingPivot))) {
+                        step = ratio;
+                        leavingRow = i;
+                        leavesAtUpper = toUpper;
+                        leavingPivot = alpha;
+                    }
+                }
+                if (step == Double.POSITIVE_INFINITY) {
+                    return Status.UNBOUNDED;
+                }
+
+                iterations++;
+                degenerateRun = step <= PIVOT_TOLERANCE ? degenerateRun + 1 : 0;
+
+                // Move along the edge
+                double delta = direction * step;
+                x[entering] += delta;
+                for (int i = 0; i < m; i++) {
+                    x[basis[i]] -= delta * tab[i * columns + entering];
+                }
+
+                if (leavingRow < 0) {
+                    // Bound flip: the entering variable reached its other bound first
+                    x[entering] = direction > 0 ? ub[entering] : lb[entering];
+                } else {
+                    int leaving = basis[leavingRow];
+                    x[leaving] = leavesAtUpper ? ub[leaving] : lb[leaving];
+                    pivot(leavingRow, entering);
+                    isBasic[leaving] = false;
+                    isBasic[entering] = true;
+                    basis[leavingRow] = entering;
+                }
+
+                if (listener != null && !notifyListener()) {
+                    return Status.CANCELLED;
+                }
+            }
+            return Status.ITERATION_LIMIT;
+        }
+
+        private boolean notifyListener() {
+            double objectiveValue = 0.0;
+            for (int j = 0; j < n; j++) {
+                objectiveValue += objective[j] * x[j];
+            }
+            // Artificials in phase 1, out-of-bounds basics during dual steps
+            double infeasibility = 0.0;
+            for (int j = firstArtificial; j < columns; j++) {
+                infeasibility += x[j];
+            }
+            for (int i = 0; i < m; i++) {
+                if (basis[i] < firstArtificial) {
+                    infeasibility += boundViolation(basis[i]);
+                }
+            }
+            return listener.iteration(iterations, objectiveValue, infeasibility);
+        }
+
+        private void pivot(int row, int column) {
+            int pivotStart = row * columns;
+            double inverse = 1.0 / tab[pivotStart + column];
+            for (int j = 0; j < columns; j++) {
+                tab[pivotStart + j] *= inverse;
+            }
+            tab[pivotStart + column] = 1.0;
+
+            for (int i = 0; i < m; i++) {
+                if (i == row) continue;
+                int rowStart = i * columns;
+                double factor = tab[rowStart + column];
+                if (factor == 0.0) continue;
+                for (int j = 0; j < columns; j++) {
+                    tab[rowStart + j] -= factor * tab[pivotStart + j];
+                }
+                tab[rowStart + column] = 0.0;
+            }
+
+            double factor = reducedCost[column];
+            if (factor != 0.0) {
+                for (int j = 0; j < columns; j++) {
+                    reducedCost[j] -= factor * tab[pivotStart + j];
+                }
+                reducedCost[column] = 0.0;
+            }
+        }
+
+        private Solution result(Status status) {
+            double[] values = new double[n];
+            double objectiveValue = 0.0;
+            for (int j = 0; j < n; j++) {
+                // Snap round-off back inside the bounds
+                values[j] = Math.min(ub[j], Math.max(lb[j], x[j]));
+                objectiveValue += objective[j] * values[j];
+            }
+            if (status != Status.OPTIMAL) {
+                return new Solution(status, values, objectiveValue, iterations, null, warmStarted, null, null, null);
+            }
+
+            // A non-basic slack sits on the row bound that binds, and its reduced cost is
+            // what moving that bound costs; a basic slack means the row has room to spare
+            double[] duals = new double[m];
+            for (int i = 0; i < m; i++) {
+                duals[i] = isBasic[n + i] ? 0.0 : reducedCost[n + i];
+            }
+
+            double[] costLower = new double[n];
+            double[] costUpper = new double[n];
+            for (int j = 0; j < n; j++) {
+                costLower[j] = Double.NEGATIVE_INFINITY;
+                costUpper[j] = Double.POSITIVE_INFINITY;
+                if (isBasic[j]) {
+                    rangeBasicCost(j, costLower, costUpper);
+                } else if (ub[j] - lb[j] > PIVOT_TOLERANCE) {
+                    // Out of the basis: it stays out until its reduced cost changes sign
+                    if (isAtUpper(j)) {
+                        costUpper[j] = objective[j] - Math.min(0.0, reducedCost[j]);
+                    } else {
+                        costLower[j] = objective[j] - Math.max(0.0, reducedCost[j]);
+                    }
+                }
+            }
+            return new Solution(status, values, objectiveValue, iterations, currentBasis(), warmStarted,
+                duals, costLower, costUpper);
+        }
+
+        private boolean isAtUpper(int j) {
+            return ub[j] != Double.POSITIVE_INFINITY && x[j] >= ub[j] - PIVOT_TOLERANCE;
+        }
+
+        // Changing the cost of basic variable j by delta changes every non-basic reduced cost
+        // d_k by -delta * tab[row][k]; the basis stays optimal while none of them changes sign
+        private void rangeBasicCost(int j, double[] costLower, double[] costUpper) {
+            int rowStart = -1;
+            for (int i = 0; i < m; i++) {
+                if (basis[i] == j) {
+                    rowStart = i * columns;
+                    break;
+                }
+            }
+            double deltaLow = Double.NEGATIVE_INFINITY;
+            double deltaHigh = Double.POSITIVE_INFINITY;
+            for (int k = 0; k < firstArtificial; k++) {
+                if (isBasic[k] || ub[k] - lb[k] <= PIVOT_TOLERANCE) continue;
+                double alpha = tab[rowStart + k];
+                if (Math.abs(alpha) <= PIVOT_TOLERANCE) continue;
+                // At its lower bound d_k has to stay >= 0, at its upper bound <= 0
+                double ratio = reducedCost[k] / alpha;
+                boolean limitsFromAbove = isAtUpper(k) ? alpha < 0 : alpha > 0;
+                if (limitsFromAbove) {
+                    deltaHigh = Math.min(deltaHigh, ratio);
+                } else {
+                    deltaLow = Math.max(deltaLow, ratio);
+                }
+            }
+            // Round-off can leave a reduced cost a hair on the wrong side of zero
+            costLower[j] = objective[j] + Math.min(0.0, deltaLow);
+            costUpper[j] = objective[j] + Math.max(0.0, deltaHigh);
+        }
+
+        // Null while an artificial is still basic (degenerate at zero); such a basis isn't reusable
+        private Basis currentBasis() {
+            int[] basic = basis.clone();
+            for (int b : basic) {
+                if (b >= firstArtificial) {
+                    return null;
+                }
+            }
+            boolean[] atUpper = new boolean[firstArtificial];
+            for (int j = 0; j < firstArtificial; j++) {
+                atUpper[j] = !isBasic[j] && ub[j] != Double.POSITIVE_INFINITY
+                    && x[j] >= ub[j] - PIVOT_TOLERANCE && ub[j] > lb[j];
+            }
+            return new Basis(n, basic, atUpper);
+        }
+    }
+}
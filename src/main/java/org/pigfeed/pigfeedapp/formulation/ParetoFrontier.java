@@ -0,0 +1,59 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import java.util.List;
+
+/**
+ * The trade-off between mix cost and one nutrient, as swept by
+ * {@link FormulationEngine#sweepFrontier}: for a series of minimum levels of the nutrient,
+ * the least-cost mix that reaches it with every other requirement met. Only efficient
+ * points are kept, so going up the list always buys more of the nutrient for more money.
+ */
+public class ParetoFrontier {
+
+    /**
+     * One least-cost mix on the frontier.
+     */
+    public static final class Point {
+        private final double level;
+        private final FormulationResult result;
+        private final double objective;
+        private final LinearProgram.Basis basis;
+
+        Point(double level, FormulationResult result, double objective, LinearProgram.Basis basis) {
+            this.level = level;
+            this.result = result;
+            this.objective = objective;
+            this.basis = basis;
+        }
+
+        /** The minimum level (percent) asked for; the mix may have a little more */
+        public double getLevel() { return level; }
+
+        /**
+         * The mix, checked against the original requirements: isTargetsMet() says whether
+         * the point is within the nutrient's own range as well as the others.
+         */
+        public FormulationResult getResult() { return result; }
+
+        // LP objective, which prices unpriced ingredients like solveLeastCost does
+        double getObjective() { return objective; }
+
+        // Optimal basis of the point's LP, which has the same shape as the problem's own
+        LinearProgram.Basis getBasis() { return basis; }
+    }
+
+    private final int nutrient;
+    private final List<Point> points;
+
+    ParetoFrontier(int nutrient, List<Point> points) {
+        this.nutrient = nutrient;
+        this.points = List.copyOf(points);
+    }
+
+    public int getNutrient() { return nutrient; }
+
+    /** Efficient points, lowest nutrient level (and cost) first; empty if no mix is possible */
+    public List<Point> getPoints() { return points; }
+
+    public boolean isEmpty() { return points.isEmpty(); }
+}
@@ -0,0 +1,64 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+/**
+ * What a mix costs across simulated price scenarios, as found by
+ * {@link FormulationEngine#simulatePriceRisk}: the cost per ton at today's prices and the
+ * distribution of costs per ton when ingredient prices are drawn from their history.
+ *
+ * The mix is either kept as it is in every scenario (fixed) or re-optimized for the same
+ * nutrition at each scenario's prices, which shows how much of a price move a flexible
+ * formulation can absorb.
+ */
+public class PriceRisk {
+
+    private final String mixName;
+    private final boolean reoptimized;
+    private final double currentCostPerTon;
+    private final double[] sortedCostsPerTon;
+
+    /**
+     * @param sortedCostsPerTon one cost per ton per scenario, in increasing order (not copied)
+     */
+    PriceRisk(String mixName, boolean reoptimized, double currentCostPerTon, double[] sortedCostsPerTon) {
+        this.mixName = mixName;
+        this.reoptimized = reoptimized;
+        this.currentCostPerTon = currentCostPerTon;
+        this.sortedCostsPerTon = sortedCostsPerTon;
+    }
+
+    public String getMixName() { return mixName; }
+    public boolean isReoptimized() { return reoptimized; }
+    public double getCurrentCostPerTon() { return currentCostPerTon; }
+    public int getScenarioCount() { return sortedCostsPerTon.length; }
+
+    /**
+     * Cost per ton that the given share (0-100) of scenarios stay at or below, interpolated
+     * between neighbouring scenarios.
+     */
+    public double getPercentile(double percent) {
+        if (sortedCostsPerTon.length == 0) {
+            return Double.NaN;
+        }
+        double position = Math.max(0.0, Math.min(100.0, percent)) / 100.0 * (sortedCostsPerTon.length - 1);
+        int below = (int) Math.floor(position);
+        int above = Math.min(below + 1, sortedCostsPerTon.length - 1);
+        double fraction = position - below;
+        return sortedCostsPerTon[below] + fraction * (sortedCostsPerTon[above] - sortedCostsPerTon[below]);
+    }
+
+    public double getMean() {
+        double sum = 0.0;
+        for (double cost : sortedCostsPerTon) {
+            sum += cost;
+        }
+        return sortedCostsPerTon.length == 0 ? Double.NaN : sum / sortedCostsPerTon.length;
+    }
+
+    /**
+     * Width of the middle 90% of scenarios (95th minus 5th percentile): how far the cost
+     * of the mix swings with prices.
+     */
+    public double getSpread() {
+        return getPercentile(95) - getPercentile(5);
+    }
+}
@@ -0,0 +1,25 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+/**
+ * One row of a batch formulation: the profile and the mix found for it.
+ */
+public class ProfileResult {
+
+    private final TargetProfile profile;
+    private final FormulationResult result;
+
+    public ProfileResult(TargetProfile profile, FormulationResult result) {
+        this.profile = profile;
+        this.result = result;
+    }
+
+    public TargetProfile getProfile() { return profile; }
+    public FormulationResult getResult() { return result; }
+
+    /**
+     * Cost of the whole mix at the profile's weight, at known prices.
+     */
+    public double getMixCost() {
+        return result.getCostPerLb() * profile.getMixWeight();
+    }
+}
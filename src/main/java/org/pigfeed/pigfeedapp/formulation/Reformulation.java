@@ -0,0 +1,43 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+/**
+ * An existing mix and the cheapest mix of the same ingredients with the same nutrition at
+ * today's prices, as found by {@link FormulationEngine#reformulate}.
+ */
+public class Reformulation {
+
+    private final String mixName;
+    private final FormulationProblem problem;
+    private final double currentCostPerLb;
+    private final FormulationResult proposed;
+
+    public Reformulation(String mixName, FormulationProblem problem, double currentCostPerLb, FormulationResult proposed) {
+        this.mixName = mixName;
+        this.problem = problem;
+        this.currentCostPerLb = currentCostPerLb;
+        this.proposed = proposed;
+    }
+
+    public String getMixName() { return mixName; }
+    public FormulationResult getProposed() { return proposed; }
+    public double getCurrentCostPerTon() { return currentCostPerLb * FormulationProblem.LB_PER_TON; }
+    public double getProposedCostPerTon() { return proposed.getCostPerLb() * FormulationProblem.LB_PER_TON; }
+
+    public double getSavingsPerTon() {
+        return getCurrentCostPerTon() - getProposedCostPerTon();
+    }
+
+    /**
+     * The proposed mix as "Corn 62.0%, Soybean Meal 30.5%, ..." (ingredients left out are skipped).
+     */
+    public String describeProposedMix() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < problem.getIngredientCount(); i++) {
+            double share = proposed.getProportion(i);
+            if (share < 0.0005) continue;
+            if (text.length() > 0) text.append(", ");
+            text.append(problem.getName(i)).append(String.format(" %.1f%%", share * 100.0));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,135 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import java.util.List;
+
+/**
+ * What a least-cost mix is sensitive to, read off the optimal LP: for every ingredient the
+ * price range over which the mix stays the same, and for every nutrient range and ratio
+ * limit what it costs (its shadow price). Attached to LEAST_COST results, see
+ * {@link FormulationResult#getSensitivity()}.
+ *
+ * Shadow prices are marginal: they hold for small moves of a requirement, until another
+ * requirement or inclusion limit starts to bind.
+ */
+public class Sensitivity {
+
+    // Shadow prices are quoted per this many percentage points of the nutrient
+    private static final double QUOTE_STEP = 0.1;
+
+    private final FormulationProblem problem;
+    private final double[] priceLow;
+    private final double[] priceHigh;
+    private final double[] nutrientDuals;
+    private final List<FormulationProblem.RatioLimit> ratioLimits;
+    private final double[] ratioDuals;
+
+    /**
+     * @param priceLow lowest price per lb of each ingredient that keeps the mix (-inf if none)
+     * @param priceHigh highest price per lb of each ingredient that keeps the mix (+inf if none)
+     * @param nutrientDuals change in cost per lb of mix per percentage point the binding end of
+     *                      each nutrient range moves up (0 when the nutrient has room)
+     * @param ratioDuals the same for each ratio limit's binding end, per percentage point of
+     *                   the numerator nutrient (one entry per ratio limit)
+     */
+    Sensitivity(FormulationProblem problem, double[] priceLow, double[] priceHigh,
+                double[] nutrientDuals, List<FormulationProblem.RatioLimit> ratioLimits, double[] ratioDuals) {
+        this.problem = problem;
+        this.priceLow = priceLow;
+        this.priceHigh = priceHigh;
+        this.nutrientDuals = nutrientDuals;
+        this.ratioLimits = List.copyOf(ratioLimits);
+        this.ratioDuals = ratioDuals;
+    }
+
+    public double getPriceRangeLow(int ingredient) { return priceLow[ingredient]; }
+    public double getPriceRangeHigh(int ingredient) { return priceHigh[ingredient]; }
+
+    /**
+     * Change in mix cost per ton when the binding end of the nutrient's range moves up one
+     * percentage point: positive when the minimum binds (asking for more costs money),
+     * negative when the maximum binds (allowing more saves money), 0 when neither does.
+     */
+    public double getNutrientCostPerTon(int nutrient) {
+        return nutrientDuals[nutrient] * FormulationProblem.LB_PER_TON;
+    }
+
+    public boolean isBinding(int nutrient) {
+        return Math.abs(nutrientDuals[nutrient]) > 1e-9;
+    }
+
+    public List<FormulationProblem.RatioLimit> getRatioLimits() { return ratioLimits; }
+
+    /**
+     * Like {@link #getNutrientCostPerTon}, for a ratio limit: per percentage point of the
+     * numerator nutrient demanded beyond (or allowed over) the limit.
+     */
+    public double getRatioCostPerTon(int limit) {
+        return ratioDuals[limit] * FormulationProblem.LB_PER_TON;
+    }
+
+    /**
+     * One line for the cost row: what tightening each binding nutrient limit costs per ton.
+     */
+    public String summarize() {
+        StringBuilder text = new StringBuilder();
+        for (int k = 0; k < FormulationProblem.NUTRIENT_COUNT; k++) {
+            if (!isBinding(k)) continue;
+            text.append(text.length() == 0 ? "Per 0.1% tighter: " : ", ");
+            text.append(String.format("%s %s $%.2f/ton", FormulationProblem.getNutrientName(k),
+                nutrientDuals[k] > 0 ? "min" : "max", Math.abs(getNutrientCostPerTon(k)) * QUOTE_STEP));
+        }
+        return text.length() == 0 ? "No nutrient limit is binding" : text.toString();
+    }
+
+    /**
+     * The full report: price ranges per ingredient, then the cost of every binding requirement.
+     */
+    public String describe() {
+        StringBuilder text = new StringBuilder("The mix stays the same while prices stay within:\n");
+        for (int i = 0; i < problem.getIngredientCount(); i++) {
+            text.append("  ").append(problem.getName(i)).append(": ");
+            if (problem.getPrice(i) <= 0) {
+                text.append("no price on record\n");
+                continue;
+            }
+            boolean noLow = priceLow[i] <= 0;
+            boolean noHigh = priceHigh[i] == Double.POSITIVE_INFINITY;
+            if (noLow && noHigh) {
+                text.append("any price\n");
+            } else if (noLow) {
+                text.append(String.format("up to $%.3f/lb (now $%.3f)%n", priceHigh[i], problem.getPrice(i)));
+            } else if (noHigh) {
+                text.append(String.format("down to $%.3f/lb (now $%.3f)%n", priceLow[i], problem.getPrice(i)));
+            } else {
+                text.append(String.format("$%.3f - $%.3f/lb (now $%.3f)%n", priceLow[i], priceHigh[i], problem.getPrice(i)));
+            }
+        }
+
+        text.append("\nWhat the nutrition limits cost:\n");
+        boolean any = false;
+        for (int k = 0; k < FormulationProblem.NUTRIENT_COUNT; k++) {
+            if (!isBinding(k)) continue;
+            any = true;
+            String name = FormulationProblem.getNutrientName(k);
+            double perStep = Math.abs(getNutrientCostPerTon(k)) * QUOTE_STEP;
+            if (nutrientDuals[k] > 0) {
+                text.append(String.format("  %s minimum (%.2f%%): each 0.1%% more costs $%.2f/ton%n",
+                    name, problem.getMinLevel(k), perStep));
+            } else {
+                text.append(String.format("  %s maximum (%.2f%%): each 0.1%% more allowed saves $%.2f/ton%n",
+                    name, problem.getMaxLevel(k), perStep));
+            }
+        }
+        for (int r = 0; r < ratioLimits.size(); r++) {
+            if (Math.abs(ratioDuals[r]) <= 1e-9) continue;
+            any = true;
+            text.append(String.format("  %s: $%.2f/ton per 0.1%% of %s%n", ratioLimits.get(r),
+                Math.abs(getRatioCostPerTon(r)) * QUOTE_STEP,
+                FormulationProblem.getNutrientName(ratioLimits.get(r).getNumerator())));
+        }
+        if (!any) {
+            text.append("  None are binding; only the inclusion limits shape the mix\n");
+        }
+        return text.toString();
+    }
+}
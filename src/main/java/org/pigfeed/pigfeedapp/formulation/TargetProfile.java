@@ -0,0 +1,124 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A named set of nutrient requirements and a mix weight to formulate for: a pig stage, a
+ * herd group, or any what-if scenario. Several profiles can be formulated in one batch with
+ * {@link FormulationEngine#formulateBatch}.
+ *
+ * Each nutrient is a [min, max] range (min == max is a point target, which the problem
+ * widens by the nutrient's default tolerance), optionally with ratio limits on top.
+ * Profiles are immutable; the with... methods return changed copies.
+ */
+public class TargetProfile {
+
+    private final String name;
+    private final double mixWeight;
+    private final double[] min = new double[FormulationProblem.NUTRIENT_COUNT];
+    private final double[] max = new double[FormulationProblem.NUTRIENT_COUNT];
+    private final List<FormulationProblem.RatioLimit> ratioLimits = new ArrayList<>();
+
+    /**
+     * Profile with point targets for every nutrient.
+     */
+    public TargetProfile(String name, double mixWeight, double protein, double fat, double fiber, double lysine) {
+        this.name = name;
+        this.mixWeight = mixWeight;
+        min[FormulationProblem.PROTEIN] = max[FormulationProblem.PROTEIN] = protein;
+        min[FormulationProblem.FAT] = max[FormulationProblem.FAT] = fat;
+        min[FormulationProblem.FIBER] = max[FormulationProblem.FIBER] = fiber;
+        min[FormulationProblem.LYSINE] = max[FormulationProblem.LYSINE] = lysine;
+    }
+
+    private TargetProfile(TargetProfile other, String name, double mixWeight) {
+        this.name = name;
+        this.mixWeight = mixWeight;
+        System.arraycopy(other.min, 0, min, 0, min.length);
+        System.arraycopy(other.max, 0, max, 0, max.length);
+        ratioLimits.addAll(other.ratioLimits);
+    }
+
+    /**
+     * Recommended daily requirements for one of the stages offered in the optimization
+     * dialog ("Weaner", "Grower" or "Finisher"; anything else is treated as Grower).
+     * Protein and lysine are ranges; fat and fiber are ceilings only.
+     */
+    public static TargetProfile forStage(String stage, int numberOfPigs) {
+        double weight = feedPerPig(stage) * numberOfPigs;
+        switch (stage == null ? "" : stage) {
+            case "Weaner":
+                return new TargetProfile("Weaner", weight, 20.0, 4.5, 4.0, 1.25)
+                    .withRange(FormulationProblem.PROTEIN, 18.0, 22.0)
+                    .withRange(FormulationProblem.FAT, 0.0, 6.0)
+                    .withRange(FormulationProblem.FIBER, 0.0, 5.0)
+                    .withRange(FormulationProblem.LYSINE, 1.15, 1.35);
+            case "Finisher":
+                return new TargetProfile("Finisher", weight, 15.0, 4.0, 6.0, 0.85)
+                    .withRange(FormulationProblem.PROTEIN, 14.0, 16.0)
+                    .withRange(FormulationProblem.FAT, 0.0, 5.0)
+                    .withRange(FormulationProblem.FIBER, 0.0, 7.0)
+                    .withRange(FormulationProblem.LYSINE, 0.75, 0.95);
+            default:
+                return new TargetProfile("Grower", weight, 16.0, 4.0, 5.0, 1.05)
+                    .withRange(FormulationProblem.PROTEIN, 16.0, 18.0)
+                    .withRange(FormulationProblem.FAT, 0.0, 5.0)
+                    .withRange(FormulationProblem.FIBER, 0.0, 6.0)
+                    .withRange(FormulationProblem.LYSINE, 0.95, 1.15);
+        }
+    }
+
+    /**
+     * Weaner, Grower and Finisher profiles for the given herd size.
+     */
+    public static List<TargetProfile> standardStages(int numberOfPigs) {
+        return List.of(
+            forStage("Weaner", numberOfPigs),
+            forStage("Grower", numberOfPigs),
+            forStage("Finisher", numberOfPigs));
+    }
+
+    /**
+     * Pounds of feed per pig per day used as the default mix weight for a stage.
+     */
+    public static double feedPerPig(String stage) {
+        if ("Weaner".equals(stage)) return 3.0;   // 1-3 lbs per day, default to 3 lbs
+        if ("Finisher".equals(stage)) return 6.0; // 5-6 lbs per day, default to 6 lbs
+        return 6.0;                               // Grower: 4-6 lbs per day, default to 6 lbs
+    }
+
+    /**
+     * Copy with the nutrient's range replaced (0 for no minimum, +inf for no maximum).
+     */
+    public TargetProfile withRange(int nutrient, double minLevel, double maxLevel) {
+        if (minLevel < 0 || minLevel > maxLevel) {
+            throw new IllegalArgumentException("Invalid " + FormulationProblem.getNutrientName(nutrient)
+                + " range [" + minLevel + ", " + maxLevel + "]");
+        }
+        TargetProfile copy = new TargetProfile(this, name, mixWeight);
+        copy.min[nutrient] = minLevel;
+        copy.max[nutrient] = maxLevel;
+        return copy;
+    }
+
+    /**
+     * Copy with one more ratio limit.
+     */
+    public TargetProfile withRatioLimit(FormulationProblem.RatioLimit limit) {
+        TargetProfile copy = new TargetProfile(this, name, mixWeight);
+        copy.ratioLimits.add(limit);
+        return copy;
+    }
+
+    public TargetProfile withMixWeight(double weight) {
+        return new TargetProfile(this, name, weight);
+    }
+
+    public String getName() { return name; }
+    public double getMixWeight() { return mixWeight; }
+    public double getMin(int nutrient) { return min[nutrient]; }
+    public double getMax(int nutrient) { return max[nutrient]; }
+    public List<FormulationProblem.RatioLimit> getRatioLimits() { return Collections.unmodifiableList(ratioLimits); }
+}
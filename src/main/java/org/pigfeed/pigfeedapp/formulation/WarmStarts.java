@@ -0,0 +1,70 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The last optimal basis of each mix (same ingredients in the same order), for warm-starting
+ * the next least-cost solve of that mix: after a price update or a small target change it
+ * takes a few pivots instead of a full solve.
+ *
+ * Whoever wants warm starts owns one and passes it to the engine; solves given none start
+ * cold. Keeping the store with its owner (the feed mix tab has one for the mix being edited)
+ * means a background batch or sweep can't swap in a basis of its own, and which basis a
+ * solve starts from never depends on what else happens to be running. Thread-safe; the
+ * least recently solved mixes are dropped beyond a fixed number.
+ */
+public final class WarmStarts {
+
+    // Mixes whose last optimal basis is kept, least recently solved dropped first
+    private static final int MIXES = 32;
+
+    private final Map<String, LinearProgram.Basis> bases = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LinearProgram.Basis> eldest) {
+                return size() > MIXES;
+            }
+        });
+
+    /**
+     * The mix's remembered basis, or null if it has none.
+     */
+    LinearProgram.Basis get(FormulationProblem problem) {
+        return bases.get(mixKey(problem));
+    }
+
+    /**
+     * Remembers the basis for the mix (nothing happens for null).
+     */
+    void remember(FormulationProblem problem, LinearProgram.Basis basis) {
+        if (basis != null) {
+            bases.put(mixKey(problem), basis);
+        }
+    }
+
+    /**
+     * Makes a frontier point's basis the mix's remembered one, so the next least-cost solve
+     * of the mix (after the point has been picked) starts from it.
+     */
+    public void useFrontierPoint(FormulationProblem problem, ParetoFrontier.Point point) {
+        remember(problem, point.getBasis());
+    }
+
+    /**
+     * Drops every remembered basis, so the next solves start cold.
+     */
+    public void clear() {
+        bases.clear();
+    }
+
+    // Same ingredients in the same order means the same LP columns
+    private static String mixKey(FormulationProblem problem) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < problem.getIngredientCount(); i++) {
+            key.append(problem.getName(i)).append('\n');
+        }
+        return key.toString();
+    }
+}
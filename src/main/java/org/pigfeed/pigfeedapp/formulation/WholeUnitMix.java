@@ -0,0 +1,69 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+/**
+ * A mix made only of whole purchase units (50 lb bags, 1 lb scoops, tons...), as found by
+ * {@link FormulationEngine#formulateWholeUnits}: how many units of each ingredient to use,
+ * and how sure the search is that nothing cheaper can be built.
+ */
+public class WholeUnitMix {
+
+    /**
+     * How the branch-and-bound search ended.
+     */
+    public enum Status {
+        /** Searched to the end: no whole-unit mix is cheaper */
+        OPTIMAL,
+        /** Ran out of time; the mix is the best found so far (see {@link #getGap()}) */
+        TIME_LIMIT,
+        /** Searched to the end: no whole-unit mix in the weight range meets the requirements */
+        INFEASIBLE
+    }
+
+    private final Status status;
+    private final FormulationResult result;
+    private final int[] units;
+    private final double[] unitLbs;
+    private final double totalWeight;
+    private final double gap;
+    private final int nodes;
+
+    /**
+     * @param result the mix as proportions of its total weight, or null if none was found
+     * @param units whole units of each ingredient (null if none was found)
+     * @param gap share (0-1) by which the cheapest whole-unit mix might undercut this one
+     * @param nodes branch-and-bound nodes solved
+     */
+    public WholeUnitMix(Status status, FormulationResult result, int[] units, double[] unitLbs,
+                        double totalWeight, double gap, int nodes) {
+        this.status = status;
+        this.result = result;
+        this.units = units;
+        this.unitLbs = unitLbs;
+        this.totalWeight = totalWeight;
+        this.gap = gap;
+        this.nodes = nodes;
+    }
+
+    public Status getStatus() { return status; }
+    public boolean hasMix() { return result != null; }
+    public FormulationResult getResult() { return result; }
+    public int getUnits(int ingredient) { return units[ingredient]; }
+    public double getUnitLbs(int ingredient) { return unitLbs[ingredient]; }
+    public double getWeight(int ingredient) { return units[ingredient] * unitLbs[ingredient]; }
+    public double getTotalWeight() { return totalWeight; }
+    public int getNodes() { return nodes; }
+
+    /**
+     * Cost of the whole mix at known prices (unpriced ingredients count as free, as in
+     * {@link FormulationResult#getCostPerLb()}).
+     */
+    public double getTotalCost() {
+        return result == null ? 0.0 : result.getCostPerLb() * totalWeight;
+    }
+
+    /**
+     * Share (0-1) by which the cheapest whole-unit mix might undercut this one, from the
+     * best bound left when time ran out; 0 when the search finished.
+     */
+    public double getGap() { return gap; }
+}
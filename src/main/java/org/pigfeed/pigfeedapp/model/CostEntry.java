@@ -4,6 +4,8 @@ import javafx.beans.property.*;
 import java.time.LocalDate;
 
 public class CostEntry {
+    // cost_entries.id; 0 until the entry has been inserted
+    private final LongProperty id;
     private final ObjectProperty<LocalDate> date;
     private final StringProperty description;
     private final StringProperty category;
@@ -14,6 +16,7 @@ public class CostEntry {
     private final DoubleProperty total;
 
     public CostEntry() {
+        this.id = new SimpleLongProperty(0);
         this.date = new SimpleObjectProperty<>();
         this.description = new SimpleStringProperty("");
         this.category = new SimpleStringProperty("");
@@ -48,6 +51,12 @@ public class CostEntry {
         this(date, description, category, null, cost, quantity);
     }
 
+    // Id property
+    public LongProperty idProperty() { return id; }
+    public long getId() { return id.get(); }
+    public void setId(long id) { this.id.set(id); }
+    public boolean isSaved() { return id.get() > 0; }
+
     // Date property
     public ObjectProperty<LocalDate> dateProperty() { return date; }
     public LocalDate getDate() { return date.get(); }
@@ -0,0 +1,234 @@
+package org.pigfeed.pigfeedapp.service;
+
+import org.pigfeed.pigfeedapp.database.DatabaseHelper;
+import org.pigfeed.pigfeedapp.database.IngredientCatalog;
+import org.pigfeed.pigfeedapp.database.OptimizationCache;
+import org.pigfeed.pigfeedapp.formulation.FormulationEngine;
+import org.pigfeed.pigfeedapp.formulation.FormulationMonitor;
+import org.pigfeed.pigfeedapp.formulation.FormulationProblem;
+import org.pigfeed.pigfeedapp.formulation.FormulationResult;
+import org.pigfeed.pigfeedapp.formulation.WholeUnitMix;
+import org.pigfeed.pigfeedapp.model.FeedMixEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Everything between a feed mix and the formulation engine that isn't screen work: packing
+ * mix entries into problems (cached prices, the catalog's inclusion limits), the cache keys
+ * and lookups that let a repeated optimization reuse its earlier mix, the settings of a
+ * whole-unit search, and writing a result back to the entries as weights.
+ *
+ * Nothing here touches JavaFX. The caller snapshots the mix on the FX thread and passes it
+ * in; the futures returned complete on database or fork-join threads, so the caller moves
+ * back to the FX thread itself.
+ */
+public final class FeedMixOptimizer {
+
+    /** How long the whole-bag search may run before settling for the best mix found */
+    public static final long WHOLE_UNIT_TIME_BUDGET_MS = 3000;
+
+    private FeedMixOptimizer() {}
+
+    /**
+     * Packs the mix ingredients (nutrients, cached prices, inclusion limits) into a problem for
+     * the formulation engine. The problem has no nutrient requirements yet; add them with
+     * withTargets.
+     */
+    public static FormulationProblem buildProblem(List<FeedMixEntry> ingredients) {
+        int count = ingredients.size();
+        String[] names = new String[count];
+        double[] nutrients = new double[count * FormulationProblem.NUTRIENT_COUNT];
+        double[] prices = new double[count];
+        for (int i = 0; i < count; i++) {
+            FeedMixEntry entry = ingredients.get(i);
+            int row = i * FormulationProblem.NUTRIENT_COUNT;
+            names[i] = entry.getIngredient();
+            nutrients[row + FormulationProblem.PROTEIN] = entry.getProtein();
+            nutrients[row + FormulationProblem.FAT] = entry.getFat();
+            nutrients[row + FormulationProblem.FIBER] = entry.getFiber();
+            nutrients[row + FormulationProblem.LYSINE] = entry.getLysine();
+            // Served from the in-memory price cache, so this never runs a query
+            prices[i] = DatabaseHelper.getPriceCache().getPricePerLb(entry.getIngredient());
+        }
+
+        FormulationProblem problem = new FormulationProblem(names, nutrients, prices);
+
+        // Limits set on the ingredient replace the defaults the problem starts with
+        IngredientCatalog catalog = IngredientCatalog.current();
+        for (int i = 0; i < count; i++) {
+            int index = catalog.indexOf(names[i]);
+            if (index < 0) continue;
+            double minPercent = catalog.getMinInclusion(index);
+            double maxPercent = catalog.getMaxInclusion(index);
+            if (Double.isNaN(minPercent) && Double.isNaN(maxPercent)) continue;
+            double min = Double.isNaN(minPercent) ? 0.0 : minPercent / 100.0;
+            double max = Double.isNaN(maxPercent) ? Math.max(min, problem.getMaxInclusion(i)) : maxPercent / 100.0;
+            problem.setInclusionBounds(i, min, max);
+        }
+        return problem;
+    }
+
+    /**
+     * Every catalog ingredient that isn't in the mix yet, packed like the mix itself, so the
+     * engine can tell which of them would make unreachable ranges reachable.
+     */
+    public static FormulationProblem buildCatalogCandidates(List<FeedMixEntry> mixIngredients) {
+        IngredientCatalog catalog = IngredientCatalog.current();
+        Set<String> inMix = new HashSet<>();
+        for (FeedMixEntry entry : mixIngredients) {
+            inMix.add(entry.getIngredient());
+        }
+        List<FeedMixEntry> candidates = new ArrayList<>();
+        for (int i = 0; i < catalog.size(); i++) {
+            if (inMix.contains(catalog.getName(i))) continue;
+            FeedMixEntry entry = new FeedMixEntry();
+            entry.setIngredient(catalog.getName(i));
+            entry.setProtein(catalog.getProtein(i));
+            entry.setFat(catalog.getFat(i));
+            entry.setFiber(catalog.getFiber(i));
+            entry.setLysine(catalog.getLysine(i));
+            candidates.add(entry);
+        }
+        return buildProblem(candidates);
+    }
+
+    /**
+     * Each entry's share of the total weight (the total must be above zero).
+     */
+    public static double[] proportions(List<FeedMixEntry> entries) {
+        double totalWeight = entries.stream().mapToDouble(FeedMixEntry::getWeight).sum();
+        double[] proportions = new double[entries.size()];
+        for (int i = 0; i < proportions.length; i++) {
+            proportions[i] = entries.get(i).getWeight() / totalWeight;
+        }
+        return proportions;
+    }
+
+    /**
+     * Writes the result's proportions back to the entries as weights (rounded to 0.01 lb).
+     */
+    public static void applyWeights(List<FeedMixEntry> entries, FormulationResult result, double targetWeight) {
+        for (int i = 0; i < entries.size(); i++) {
+            double finalWeight = result.getProportion(i) * targetWeight;
+            entries.get(i).setWeight(Math.round(finalWeight * 100.0) / 100.0);
+        }
+    }
+
+    /**
+     * Optimization cache key of formulating the problem by least cost or by balancing.
+     */
+    public static String cacheKey(FormulationProblem problem, boolean leastCost) {
+        return OptimizationCache.key(problem, leastCost ? "least-cost" : "balanced");
+    }
+
+    /**
+     * The result stored under the key, or null if there is none. A cache that can't be read
+     * only costs a re-solve, so the error is logged and the future completes with null.
+     */
+    public static CompletableFuture<FormulationResult> findCached(FormulationProblem problem, String cacheKey) {
+        return DatabaseHelper.getExecutor()
+            .read(conn -> OptimizationCache.findResult(conn, cacheKey, problem))
+            .exceptionally(error -> logCacheReadFailure(error));
+    }
+
+    /**
+     * Stores a balanced result under the key, without waiting. Least-cost mixes aren't
+     * cached; the LP solves faster than the lookup.
+     */
+    public static void remember(FormulationProblem problem, String cacheKey, FormulationResult result) {
+        if (result.getMethod() == FormulationResult.Method.BALANCED) {
+            DatabaseHelper.getExecutor().write(conn -> {
+                OptimizationCache.storeResult(conn, cacheKey, problem, result);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Sets up a whole-unit search of the mix: whole purchase units (as last bought in the
+     * cost tracker; loose pounds for ingredients without a purchase) weighing between the
+     * target weight and one of the largest units more.
+     */
+    public static WholeUnitRun wholeUnitRun(List<FeedMixEntry> ingredients, FormulationProblem problem,
+                                            double targetWeight) {
+        double[] unitLbs = new double[ingredients.size()];
+        double largestUnit = 0.0;
+        for (int i = 0; i < unitLbs.length; i++) {
+            double unit = DatabaseHelper.getPriceCache().getPurchaseUnitLbs(ingredients.get(i).getIngredient());
+            unitLbs[i] = unit > 0 ? unit : 1.0;
+            largestUnit = Math.max(largestUnit, unitLbs[i]);
+        }
+        return new WholeUnitRun(problem, unitLbs, targetWeight, targetWeight + largestUnit);
+    }
+
+    private static <T> T logCacheReadFailure(Throwable error) {
+        System.err.println("Could not read the optimization cache: " + error.getMessage());
+        error.printStackTrace();
+        return null;
+    }
+
+    /**
+     * One whole-unit search: the problem, unit sizes and weight limits, and the cache key
+     * they (and the time budget) make up.
+     */
+    public static final class WholeUnitRun {
+        private final FormulationProblem problem;
+        private final double[] unitLbs;
+        private final double targetWeight;
+        private final double maxWeight;
+        private final String cacheKey;
+
+        private WholeUnitRun(FormulationProblem problem, double[] unitLbs, double targetWeight, double maxWeight) {
+            this.problem = problem;
+            this.unitLbs = unitLbs;
+            this.targetWeight = targetWeight;
+            this.maxWeight = maxWeight;
+            // The unit sizes, weight limits and time budget are part of what the mix depends on
+            double[] settings = Arrays.copyOf(unitLbs, unitLbs.length + 3);
+            settings[unitLbs.length] = targetWeight;
+            settings[unitLbs.length + 1] = maxWeight;
+            settings[unitLbs.length + 2] = WHOLE_UNIT_TIME_BUDGET_MS;
+            this.cacheKey = OptimizationCache.key(problem, "whole-units", settings);
+        }
+
+        public double getTargetWeight() { return targetWeight; }
+        public double getMaxWeight() { return maxWeight; }
+        public String getCacheKey() { return cacheKey; }
+
+        /**
+         * The mix an identical earlier search found, or null (also when the cache can't be read).
+         */
+        public CompletableFuture<WholeUnitMix> findCached() {
+            return DatabaseHelper.getExecutor()
+                .read(conn -> OptimizationCache.findWholeUnitMix(conn, cacheKey, problem, unitLbs))
+                .exceptionally(error -> logCacheReadFailure(error));
+        }
+
+        /**
+         * Runs the search on the calling thread, within the time budget.
+         *
+         * @throws java.util.concurrent.CancellationException if the monitor asked to stop
+         */
+        public WholeUnitMix solve(FormulationMonitor monitor) {
+            return FormulationEngine.formulateWholeUnits(problem, unitLbs, targetWeight, maxWeight,
+                WHOLE_UNIT_TIME_BUDGET_MS, monitor);
+        }
+
+        /**
+         * Stores a found mix for the next identical search, without waiting.
+         */
+        public void remember(WholeUnitMix mix) {
+            if (mix.hasMix()) {
+                DatabaseHelper.getExecutor().write(conn -> {
+                    OptimizationCache.storeWholeUnitMix(conn, cacheKey, problem, mix);
+                    return null;
+                });
+            }
+        }
+    }
+}
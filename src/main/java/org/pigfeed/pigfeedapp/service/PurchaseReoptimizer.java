@@ -0,0 +1,110 @@
+package org.pigfeed.pigfeedapp.service;
+
+import org.pigfeed.pigfeedapp.database.DatabaseHelper;
+import org.pigfeed.pigfeedapp.database.SavedMixes;
+import org.pigfeed.pigfeedapp.formulation.FormulationEngine;
+import org.pigfeed.pigfeedapp.formulation.FormulationProblem;
+import org.pigfeed.pigfeedapp.formulation.Reformulation;
+import org.pigfeed.pigfeedapp.model.FeedMixEntry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Looks for cheaper blends after a Feed purchase changes prices: the current mix and every
+ * saved mix that uses one of the purchased ingredients is re-solved for the same nutrition
+ * at the new prices (see FormulationEngine.reformulate).
+ *
+ * Saved mixes are read on a database reader and the solves run on the fork-join pool. Each
+ * solve starts cold, so what a run finds depends only on the mixes and the prices.
+ */
+public final class PurchaseReoptimizer {
+
+    /** Savings below this per ton aren't worth interrupting anyone for */
+    public static final double MIN_SAVINGS_PER_TON = 1.0;
+
+    // The current mix's name in the list of cheaper mixes
+    private static final String CURRENT_MIX = "Current mix";
+
+    private PurchaseReoptimizer() {}
+
+    /**
+     * What a run found: the mixes that got at least MIN_SAVINGS_PER_TON cheaper, most saved
+     * first, and the current mix's own proposal (null if the current mix doesn't use a
+     * purchased ingredient or can't be compared), kept by reference since a saved mix may be
+     * named "Current mix" too.
+     */
+    public static final class Savings {
+        private final List<Reformulation> found;
+        private final Reformulation currentProposal;
+
+        private Savings(List<Reformulation> found, Reformulation currentProposal) {
+            this.found = found;
+            this.currentProposal = currentProposal;
+        }
+
+        public List<Reformulation> getFound() { return found; }
+        public Reformulation getCurrentProposal() { return currentProposal; }
+    }
+
+    /**
+     * Re-solves the current mix (if it uses a purchased ingredient) and the saved mixes that
+     * do. The current mix's entries are copied before this returns, so the caller may keep
+     * editing them.
+     */
+    public static CompletableFuture<Savings> reoptimize(Set<String> purchased, List<FeedMixEntry> currentMix) {
+        List<FeedMixEntry> currentCopy = new ArrayList<>();
+        boolean currentAffected = false;
+        for (FeedMixEntry entry : currentMix) {
+            currentCopy.add(copyEntry(entry));
+            currentAffected |= purchased.contains(entry.getIngredient());
+        }
+        boolean reformulateCurrent = currentAffected;
+
+        return DatabaseHelper.getExecutor().read(conn -> SavedMixes.findEntriesUsing(conn, purchased))
+            .thenApplyAsync(savedMixes -> {
+                List<Reformulation> found = new ArrayList<>();
+                Reformulation currentProposal = null;
+                if (reformulateCurrent) {
+                    currentProposal = reformulate(CURRENT_MIX, currentCopy);
+                    addIfCheaper(found, currentProposal);
+                }
+                savedMixes.forEach((name, entries) -> addIfCheaper(found, reformulate(name, entries)));
+                found.sort(Comparator.comparingDouble(Reformulation::getSavingsPerTon).reversed());
+                return new Savings(found, currentProposal);
+            }, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Same nutrition, cheapest blend; null if the mix can't be compared (see FormulationEngine.reformulate).
+     */
+    static Reformulation reformulate(String name, List<FeedMixEntry> entries) {
+        double totalWeight = entries.stream().mapToDouble(FeedMixEntry::getWeight).sum();
+        if (entries.size() < 2 || totalWeight <= 0) {
+            return null;
+        }
+        FormulationProblem problem = FeedMixOptimizer.buildProblem(entries);
+        return FormulationEngine.reformulate(name, problem, FeedMixOptimizer.proportions(entries));
+    }
+
+    private static void addIfCheaper(List<Reformulation> found, Reformulation reformulation) {
+        if (reformulation != null && reformulation.getSavingsPerTon() >= MIN_SAVINGS_PER_TON) {
+            found.add(reformulation);
+        }
+    }
+
+    private static FeedMixEntry copyEntry(FeedMixEntry entry) {
+        FeedMixEntry copy = new FeedMixEntry();
+        copy.setIngredient(entry.getIngredient());
+        copy.setWeight(entry.getWeight());
+        copy.setProtein(entry.getProtein());
+        copy.setFat(entry.getFat());
+        copy.setFiber(entry.getFiber());
+        copy.setLysine(entry.getLysine());
+        return copy;
+    }
+}
@@ -0,0 +1,126 @@
+package org.pigfeed.pigfeedapp.service;
+
+import org.pigfeed.pigfeedapp.database.DatabaseHelper;
+import org.pigfeed.pigfeedapp.database.IngredientPriceCache;
+import org.pigfeed.pigfeedapp.database.SavedMixes;
+import org.pigfeed.pigfeedapp.formulation.FormulationEngine;
+import org.pigfeed.pigfeedapp.formulation.FormulationMonitor;
+import org.pigfeed.pigfeedapp.formulation.FormulationProblem;
+import org.pigfeed.pigfeedapp.formulation.PriceRisk;
+import org.pigfeed.pigfeedapp.model.FeedMixEntry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Price risk of every saved mix: what it could cost over the coming purchases, with prices
+ * drawn from the Feed purchases of the last HISTORY_YEARS years, costed as saved and
+ * re-optimized for the same nutrition (see FormulationEngine.simulatePriceRisk).
+ *
+ * load() reads the mixes and price histories on a database reader and snapshots them into
+ * problems, so simulate() only needs the fork-join pool.
+ */
+public final class SavedMixPriceRisk {
+
+    /** Years of Feed purchases the prices are drawn from */
+    public static final int HISTORY_YEARS = 2;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<FormulationProblem> problems = new ArrayList<>();
+    private final List<double[]> proportions = new ArrayList<>();
+    private final List<double[][]> histories = new ArrayList<>();
+    private final Set<String> noHistory = new TreeSet<>();
+
+    private SavedMixPriceRisk() {}
+
+    /**
+     * Reads every saved mix of at least two ingredients and some weight, and the price
+     * history of each of their ingredients.
+     */
+    public static CompletableFuture<SavedMixPriceRisk> load() {
+        String fromDate = LocalDate.now().minusYears(HISTORY_YEARS).toString();
+        return DatabaseHelper.getExecutor().read(conn -> {
+            SavedMixPriceRisk risk = new SavedMixPriceRisk();
+            Map<String, double[]> histories = new HashMap<>();
+            for (Map.Entry<String, List<FeedMixEntry>> mix : SavedMixes.findAllEntries(conn).entrySet()) {
+                List<FeedMixEntry> entries = mix.getValue();
+                if (entries.size() < 2 || entries.stream().mapToDouble(FeedMixEntry::getWeight).sum() <= 0) {
+                    continue;
+                }
+                double[][] history = new double[entries.size()][];
+                for (int i = 0; i < entries.size(); i++) {
+                    String ingredient = entries.get(i).getIngredient();
+                    if (!histories.containsKey(ingredient)) {
+                        histories.put(ingredient, IngredientPriceCache.loadPriceHistory(conn, ingredient, fromDate));
+                    }
+                    history[i] = histories.get(ingredient);
+                    if (history[i].length == 0) {
+                        risk.noHistory.add(ingredient);
+                    }
+                }
+                risk.names.add(mix.getKey());
+                risk.problems.add(FeedMixOptimizer.buildProblem(entries));
+                risk.proportions.add(FeedMixOptimizer.proportions(entries));
+                risk.histories.add(history);
+            }
+            return risk;
+        });
+    }
+
+    public boolean isEmpty() {
+        return names.isEmpty();
+    }
+
+    /** Ingredients of the mixes with no Feed purchases in the period; their price stays fixed */
+    public Set<String> getNoHistory() {
+        return noHistory;
+    }
+
+    /**
+     * Runs the scenarios for every mix on the calling thread (fanning out to the fork-join
+     * pool), riskiest first: the highest cost a bad year could bring. Each row holds the mix
+     * costed as saved and re-optimized (null if its nutrition can't be matched); both share
+     * the seed, so they see the same price scenarios. status gets a line per run, and the
+     * monitor the progress over all of them.
+     *
+     * @throws java.util.concurrent.CancellationException if the monitor asked to stop
+     */
+    public List<PriceRisk[]> simulate(int scenarios, long seed, FormulationMonitor monitor, Consumer<String> status) {
+        int runs = names.size() * 2;
+        List<PriceRisk[]> rows = new ArrayList<>();
+        for (int m = 0; m < names.size(); m++) {
+            PriceRisk[] row = new PriceRisk[2];
+            for (int pass = 0; pass < 2; pass++) {
+                boolean reoptimize = pass == 1;
+                int run = m * 2 + pass;
+                status.accept(String.format("%s: %,d price scenarios%s...", names.get(m), scenarios,
+                    reoptimize ? ", re-optimized" : ""));
+                FormulationMonitor runMonitor = new FormulationMonitor() {
+                    @Override
+                    public boolean isCancelled() {
+                        return monitor.isCancelled();
+                    }
+
+                    @Override
+                    public void progress(int done, int total) {
+                        monitor.progress(run * total + done, runs * total);
+                    }
+                };
+                row[pass] = FormulationEngine.simulatePriceRisk(names.get(m), problems.get(m), proportions.get(m),
+                    histories.get(m), reoptimize, scenarios, seed, ForkJoinPool.commonPool(), runMonitor);
+            }
+            rows.add(row);
+        }
+        rows.sort(Comparator.comparingDouble((PriceRisk[] row) -> row[0].getPercentile(95)).reversed());
+        return rows;
+    }
+}
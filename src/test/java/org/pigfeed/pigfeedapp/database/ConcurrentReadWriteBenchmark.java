@@ -0,0 +1,167 @@
+package org.pigfeed.pigfeedapp.database;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write and read latency with report queries running next to cost entry saves, in the
+ * rollback journal the app used to have and in WAL (what initializeDatabase sets up).
+ *
+ * Two reader threads run the GROUP BY category report over and over while one writer inserts
+ * a cost entry every 20 ms. Run with
+ *
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=org.pigfeed.pigfeedapp.database.ConcurrentReadWriteBenchmark \
+ *       -Dexec.args="300000 8"
+ *
+ * Arguments: ledger rows (default 300000), seconds per mode (default 8).
+ */
+public class ConcurrentReadWriteBenchmark {
+
+    private static final int READERS = 2;
+    private static final long WRITE_INTERVAL_MS = 20;
+
+    private static final String REPORT =
+        "SELECT category, SUM(total) FROM cost_entries GROUP BY category";
+
+    private static final String INSERT =
+        "INSERT INTO cost_entries (date, description, category, ingredient, unitSize, cost, quantity, total) " +
+        "VALUES (?, ?, ?, ?, '50lbs', ?, ?, ?)";
+
+    private static final String[] CATEGORIES = { "Feed", "Vet", "Equipment", "Labor", "Utilities" };
+    private static final String[] INGREDIENTS = { "Corn", "Soybean Meal", "Wheat Midds", "Barley", "Fish Meal" };
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+        Path dir = Files.createTempDirectory("pigfeed-bench");
+        Path file = dir.resolve("pigfeed.db");
+        try (Connection conn = TestDatabases.openMigrated(file)) {
+            fillLedger(conn, rows);
+        }
+        System.out.printf("%,d cost entries, %d readers, one insert every %d ms, %d s per mode%n",
+            rows, READERS, WRITE_INTERVAL_MS, seconds);
+
+        try {
+            run(file, "DELETE", seconds);
+            run(file, "WAL", seconds);
+        } finally {
+            deleteScratch(dir);
+        }
+    }
+
+    // Removes the scratch database with its -wal and -shm files
+    static void deleteScratch(Path dir) throws java.io.IOException {
+        try (var files = Files.list(dir)) {
+            for (Path path : files.toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private static void run(Path file, String journalMode, int seconds) throws Exception {
+        try (Connection conn = TestDatabases.open(file);
+             Statement stmt = conn.createStatement()) {
+            stmt.executeQuery("PRAGMA journal_mode = " + journalMode).close();
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Long> readNanos = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            Thread reader = new Thread(() -> {
+                try (Connection conn = TestDatabases.open(file);
+                     PreparedStatement ps = conn.prepareStatement(REPORT)) {
+                    while (running.get()) {
+                        long start = System.nanoTime();
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                rs.getDouble(2);
+                            }
+                        }
+                        readNanos.add(System.nanoTime() - start);
+                    }
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }, "bench-reader-" + r);
+            reader.start();
+            readers.add(reader);
+        }
+
+        List<Long> writeNanos = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(1);
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        try (Connection conn = TestDatabases.open(file);
+             PreparedStatement ps = conn.prepareStatement(INSERT)) {
+            while (System.nanoTime() < end) {
+                long start = System.nanoTime();
+                bindEntry(ps, random, "2026-06-15");
+                ps.executeUpdate();
+                writeNanos.add(System.nanoTime() - start);
+                Thread.sleep(WRITE_INTERVAL_MS);
+            }
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        System.out.printf("%-8s %4d writes  p50 %8.2f ms  p99 %8.2f ms | %4d reads  p50 %8.1f ms  p99 %8.1f ms%n",
+            journalMode, writeNanos.size(), percentileMillis(writeNanos, 50), percentileMillis(writeNanos, 99),
+            readNanos.size(), percentileMillis(readNanos, 50), percentileMillis(readNanos, 99));
+    }
+
+    private static void fillLedger(Connection conn, int rows) throws SQLException {
+        SplittableRandom random = new SplittableRandom(42);
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(INSERT)) {
+            for (int i = 0; i < rows; i++) {
+                bindEntry(ps, random, String.format("%d-%02d-%02d", 2018 + random.nextInt(8),
+                    1 + random.nextInt(12), 1 + random.nextInt(28)));
+                ps.addBatch();
+                if (i % 10_000 == 9_999) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    private static void bindEntry(PreparedStatement ps, SplittableRandom random, String date) throws SQLException {
+        String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+        double cost = 5 + random.nextDouble() * 50;
+        double quantity = 1 + random.nextInt(20);
+        ps.setString(1, date);
+        ps.setString(2, "Bench entry");
+        ps.setString(3, category);
+        ps.setString(4, "Feed".equals(category) ? INGREDIENTS[random.nextInt(INGREDIENTS.length)] : null);
+        ps.setDouble(5, cost);
+        ps.setDouble(6, quantity);
+        ps.setDouble(7, cost * quantity);
+    }
+
+    static double percentileMillis(List<Long> nanos, double percent) {
+        if (nanos.isEmpty()) {
+            return Double.NaN;
+        }
+        List<Long> sorted = new ArrayList<>(nanos);
+        Collections.sort(sorted);
+        int index = (int) Math.min(sorted.size() - 1, Math.round(percent / 100.0 * (sorted.size() - 1)));
+        return sorted.get(index) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,56 @@
+package org.pigfeed.pigfeedapp.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ConnectionPoolTest {
+
+    // Stands in for the JavaFX application thread, which needs a display to start
+    private static final String UI_THREAD = "ui-thread";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void forbiddenThreadCannotBorrowConnection() throws Exception {
+        ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + dir.resolve("pigfeed.db"), 2);
+        pool.setForbiddenThread(() -> UI_THREAD.equals(Thread.currentThread().getName()));
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread ui = new Thread(() -> {
+            try {
+                // Throws before a connection is opened
+                pool.getConnection().close();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        }, UI_THREAD);
+        ui.start();
+        ui.join();
+        assertInstanceOf(IllegalStateException.class, failure.get());
+        assertEquals(0, pool.getConnectionsOpened());
+
+        // Every other thread still gets its connection
+        AtomicReference<Throwable> workerFailure = new AtomicReference<>();
+        Thread worker = new Thread(() -> {
+            try (Connection conn = pool.getConnection()) {
+                conn.createStatement().execute("SELECT 1");
+            } catch (Throwable e) {
+                workerFailure.set(e);
+            }
+        }, "db-reader-1");
+        worker.start();
+        worker.join();
+        assertNull(workerFailure.get());
+        assertEquals(1, pool.getConnectionsOpened());
+        pool.shutdown();
+    }
+}
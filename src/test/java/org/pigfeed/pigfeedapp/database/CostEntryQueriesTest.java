@@ -0,0 +1,186 @@
+package org.pigfeed.pigfeedapp.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CostEntryQueriesTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void hotQueriesUseIndexesOnFreshDatabase() throws SQLException {
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"))) {
+            List<String> scans = CostEntryQueries.findTableScans(conn);
+            assertTrue(scans.isEmpty(), () -> "Hot queries scanning cost_entries: " + scans);
+        }
+    }
+
+    @Test
+    void hotQueriesUseIndexesOnAnalyzedLedger() throws SQLException {
+        // With real statistics the planner could decide a scan is cheaper; it mustn't
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"))) {
+            fillLedger(conn, 5_000);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ANALYZE");
+            }
+            List<String> scans = CostEntryQueries.findTableScans(conn);
+            assertTrue(scans.isEmpty(), () -> "Hot queries scanning cost_entries: " + scans);
+        }
+    }
+
+    @Test
+    void feedPriceLookupsAreAnsweredFromTheIndexAlone() throws SQLException {
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"))) {
+            fillLedger(conn, 5_000);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ANALYZE");
+            }
+            for (String sql : List.of(CostEntryQueries.LATEST_FEED_PRICE, CostEntryQueries.FEED_PRICE_HISTORY)) {
+                String plan = explain(conn, sql);
+                assertTrue(plan.contains("USING COVERING INDEX idx_cost_entries_feed_price"), plan);
+            }
+        }
+    }
+
+    @Test
+    void findTableScansReportsQueriesWithoutIndex() throws SQLException {
+        // Guards the check itself: without the lookup indexes the lookups must be flagged
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"));
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP INDEX idx_cost_entries_feed_price");
+            stmt.execute("DROP INDEX idx_cost_entries_date_category");
+            List<String> scans = CostEntryQueries.findTableScans(conn);
+            assertFalse(scans.isEmpty());
+            assertTrue(scans.stream().allMatch(scan -> scan.startsWith("SCAN cost_entries")));
+        }
+    }
+
+    @Test
+    void deleteByIdRemovesOnlyThatEntryAmongIdenticalOnes() throws SQLException {
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"))) {
+            long first = insertEntry(conn, "2026-03-01", 12.5);
+            long second = insertEntry(conn, "2026-03-01", 12.5);
+            assertNotEquals(first, second);
+
+            try (PreparedStatement ps = conn.prepareStatement(CostEntryQueries.DELETE_ENTRY_BY_ID)) {
+                ps.setLong(1, second);
+                assertEquals(1, ps.executeUpdate());
+            }
+            assertEquals(List.of(first), ids(conn));
+        }
+    }
+
+    @Test
+    void updateByIdEditsEntryInPlace() throws SQLException {
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"))) {
+            long id = insertEntry(conn, "2026-03-01", 12.5);
+            insertEntry(conn, "2026-03-02", 14.0);
+            try (PreparedStatement ps = conn.prepareStatement(CostEntryQueries.UPDATE_ENTRY_BY_ID)) {
+                bindEntry(ps, "2026-03-05", 13.0);
+                ps.setLong(9, id);
+                assertEquals(1, ps.executeUpdate());
+            }
+            try (PreparedStatement ps = conn.prepareStatement("SELECT date, cost FROM cost_entries WHERE id = ?")) {
+                ps.setLong(1, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    assertTrue(rs.next());
+                    assertEquals("2026-03-05", rs.getString("date"));
+                    assertEquals(13.0, rs.getDouble("cost"));
+                }
+            }
+            assertEquals(2, ids(conn).size());
+        }
+    }
+
+    @Test
+    void editsAndDeletesGoByPrimaryKey() throws SQLException {
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"));
+             Statement stmt = conn.createStatement()) {
+            for (String sql : List.of(CostEntryQueries.UPDATE_ENTRY_BY_ID, CostEntryQueries.DELETE_ENTRY_BY_ID)) {
+                try (ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+                    assertTrue(rs.next());
+                    assertEquals("SEARCH cost_entries USING INTEGER PRIMARY KEY (rowid=?)", rs.getString("detail"));
+                }
+            }
+        }
+    }
+
+    private static long insertEntry(Connection conn, String date, double cost) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(CostEntryQueries.INSERT_ENTRY, Statement.RETURN_GENERATED_KEYS)) {
+            bindEntry(ps, date, cost);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                assertTrue(keys.next());
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    private static void bindEntry(PreparedStatement ps, String date, double cost) throws SQLException {
+        ps.setString(1, date);
+        ps.setString(2, "Corn");
+        ps.setString(3, "Feed");
+        ps.setString(4, "Corn");
+        ps.setString(5, "50lbs");
+        ps.setDouble(6, cost);
+        ps.setDouble(7, 2);
+        ps.setDouble(8, cost * 2);
+    }
+
+    // Plan details of a query, one step per line
+    private static String explain(Connection conn, String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+            while (rs.next()) {
+                plan.append(rs.getString("detail")).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    private static List<Long> ids(Connection conn) throws SQLException {
+        List<Long> ids = new java.util.ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id FROM cost_entries ORDER BY id")) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    private static void fillLedger(Connection conn, int rows) throws SQLException {
+        String[] categories = { "Feed", "Vet", "Equipment", "Labor" };
+        String[] ingredients = { "Corn", "Soybean Meal", "Barley" };
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO cost_entries (date, description, category, ingredient, unitSize, cost, quantity, total) " +
+                "VALUES (?, 'Entry', ?, ?, '50lbs', 12.5, 2, 25)")) {
+            for (int i = 0; i < rows; i++) {
+                String category = categories[i % categories.length];
+                ps.setString(1, String.format("%d-%02d-%02d", 2020 + i % 6, 1 + i % 12, 1 + i % 28));
+                ps.setString(2, category);
+                ps.setString(3, "Feed".equals(category) ? ingredients[i % ingredients.length] : null);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+}
@@ -0,0 +1,108 @@
+package org.pigfeed.pigfeedapp.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatabaseHelperTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void initializeSchemaSwitchesToWalAndMigratesToLatest() throws SQLException {
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"));
+             Statement stmt = conn.createStatement()) {
+            assertEquals("wal", queryString(stmt, "PRAGMA journal_mode"));
+            assertEquals(DatabaseHelper.getLatestSchemaVersion(), SchemaMigrator.readUserVersion(stmt));
+        }
+    }
+
+    @Test
+    void connectionPragmasMakeSavedMixEntriesCascade() throws SQLException {
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"));
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO saved_mixes (id, name, created_date, total_weight, total_protein, " +
+                "total_fat, total_fiber, total_lysine, total_cost) VALUES (1, 'Grower', '2026-01-01T00:00', 100, 16, 3, 4, 0.9, 20)");
+            stmt.executeUpdate("INSERT INTO saved_mix_entries (mix_id, ingredient_name, weight, protein, fat, fiber, lysine) " +
+                "VALUES (1, 'Corn', 80, 8.5, 3.8, 2.2, 0.26)");
+            stmt.executeUpdate("DELETE FROM saved_mixes WHERE id = 1");
+            assertEquals("0", queryString(stmt, "SELECT COUNT(*) FROM saved_mix_entries"));
+        }
+    }
+
+    @Test
+    void openReaderDoesNotBlockWriterWithWal() throws SQLException {
+        Path file = dir.resolve("pigfeed.db");
+        try (Connection setup = TestDatabases.openMigrated(file)) {
+            insertEntries(setup, 50);
+        }
+        try (Connection reader = TestDatabases.open(file);
+             Connection writer = TestDatabases.open(file);
+             Statement readStmt = reader.createStatement();
+             Statement writeStmt = writer.createStatement()) {
+            // Fail at once instead of waiting out busy_timeout
+            writeStmt.execute("PRAGMA busy_timeout = 0");
+            try (ResultSet rs = readStmt.executeQuery("SELECT id FROM cost_entries")) {
+                // The reader is in the middle of its scan while the writer commits
+                assertTrue(rs.next());
+                writeStmt.executeUpdate(insertSql("2026-02-01"));
+                int seen = 1;
+                while (rs.next()) seen++;
+                // ...and keeps reading its own snapshot
+                assertEquals(50, seen);
+            }
+            assertEquals("51", queryString(readStmt, "SELECT COUNT(*) FROM cost_entries"));
+        }
+    }
+
+    @Test
+    void openReaderBlocksWriterWithRollbackJournal() throws SQLException {
+        // What the app had before WAL: the writer can't commit while a read is open
+        Path file = dir.resolve("rollback.db");
+        try (Connection setup = TestDatabases.openMigrated(file);
+             Statement stmt = setup.createStatement()) {
+            stmt.executeQuery("PRAGMA journal_mode = DELETE").close();
+            insertEntries(setup, 50);
+        }
+        try (Connection reader = TestDatabases.open(file);
+             Connection writer = TestDatabases.open(file);
+             Statement readStmt = reader.createStatement();
+             Statement writeStmt = writer.createStatement()) {
+            writeStmt.execute("PRAGMA busy_timeout = 0");
+            try (ResultSet rs = readStmt.executeQuery("SELECT id FROM cost_entries")) {
+                assertTrue(rs.next());
+                assertThrows(SQLException.class, () -> writeStmt.executeUpdate(insertSql("2026-02-01")));
+            }
+        }
+    }
+
+    private static void insertEntries(Connection conn, int count) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (int i = 0; i < count; i++) {
+                stmt.executeUpdate(insertSql(String.format("2026-01-%02d", i % 28 + 1)));
+            }
+        }
+    }
+
+    private static String insertSql(String date) {
+        return "INSERT INTO cost_entries (date, description, category, ingredient, unitSize, cost, quantity, total) " +
+               "VALUES ('" + date + "', 'Corn', 'Feed', 'Corn', '50lbs', 12.5, 2, 25)";
+    }
+
+    private static String queryString(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+}
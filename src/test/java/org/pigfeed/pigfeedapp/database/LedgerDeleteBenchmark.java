@@ -0,0 +1,138 @@
+package org.pigfeed.pigfeedapp.database;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Latency of deleting one cost entry as the ledger grows: by primary key (what the cost
+ * tracker does) against the old ROWID subquery that matched the entry's fields. Each size
+ * gets a fresh migrated database, so the rollup triggers and indexes are the app's own.
+ *
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=org.pigfeed.pigfeedapp.database.LedgerDeleteBenchmark \
+ *       -Dexec.args="10000 100000 1000000"
+ *
+ * Arguments: ledger sizes (default 10,000, 100,000 and 1,000,000 rows).
+ */
+public class LedgerDeleteBenchmark {
+
+    private static final int DELETES = 2_000;
+
+    // The delete the cost tracker used before entries carried their id
+    private static final String DELETE_BY_FIELDS =
+        "DELETE FROM cost_entries WHERE ROWID = (SELECT ROWID FROM cost_entries WHERE date = ? AND description = ? " +
+        "AND category = ? AND cost = ? AND quantity = ? AND unitSize = ? LIMIT 1)";
+
+    private static final String[] CATEGORIES = { "Feed", "Vet", "Equipment", "Labor", "Utilities" };
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0
+            ? java.util.Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+            : new int[] { 10_000, 100_000, 1_000_000 };
+
+        System.out.printf("p50 / p99 per delete of an existing entry (%,d deletes per run)%n", DELETES);
+        System.out.printf("%12s  %22s  %22s%n", "rows", "by id", "by field match");
+        for (int rows : sizes) {
+            Path dir = Files.createTempDirectory("pigfeed-bench");
+            try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"))) {
+                fillLedger(conn, rows);
+                List<Object[]> byId = pickEntries(conn, rows, 1);
+                List<Object[]> byFields = pickEntries(conn, rows, 2);
+                String id = time(conn, CostEntryQueries.DELETE_ENTRY_BY_ID, byId, true);
+                String fields = time(conn, DELETE_BY_FIELDS, byFields, false);
+                System.out.printf("%,12d  %22s  %22s%n", rows, id, fields);
+            } finally {
+                ConcurrentReadWriteBenchmark.deleteScratch(dir);
+            }
+        }
+    }
+
+    // Deletes each picked entry with the statement and returns "p50 / p99" in microseconds
+    private static String time(Connection conn, String sql, List<Object[]> entries, boolean byId) throws SQLException {
+        List<Long> nanos = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (Object[] entry : entries) {
+                if (byId) {
+                    ps.setLong(1, (Long) entry[0]);
+                } else {
+                    ps.setString(1, (String) entry[1]);
+                    ps.setString(2, (String) entry[2]);
+                    ps.setString(3, (String) entry[3]);
+                    ps.setDouble(4, (Double) entry[4]);
+                    ps.setDouble(5, (Double) entry[5]);
+                    ps.setString(6, (String) entry[6]);
+                }
+                long start = System.nanoTime();
+                if (ps.executeUpdate() != 1) {
+                    throw new IllegalStateException("Entry was not deleted");
+                }
+                nanos.add(System.nanoTime() - start);
+            }
+        }
+        return String.format("%8.1f / %8.1f us", ConcurrentReadWriteBenchmark.percentileMillis(nanos, 50) * 1000.0,
+            ConcurrentReadWriteBenchmark.percentileMillis(nanos, 99) * 1000.0);
+    }
+
+    // Random existing entries (disjoint between the two runs: ids with the given remainder mod 2)
+    private static List<Object[]> pickEntries(Connection conn, int rows, int remainder) throws SQLException {
+        SplittableRandom random = new SplittableRandom(remainder);
+        java.util.Set<Long> ids = new java.util.LinkedHashSet<>();
+        while (ids.size() < Math.min(DELETES, rows / 2)) {
+            long id = 1 + random.nextInt(rows);
+            if (id % 2 == remainder % 2) ids.add(id);
+        }
+        List<Object[]> entries = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT id, date, description, category, cost, quantity, unitSize FROM cost_entries WHERE id = ?")) {
+            for (long id : ids) {
+                ps.setLong(1, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        entries.add(new Object[] { rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                            rs.getDouble(5), rs.getDouble(6), rs.getString(7) });
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static void fillLedger(Connection conn, int rows) throws SQLException {
+        SplittableRandom random = new SplittableRandom(42);
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(CostEntryQueries.INSERT_ENTRY)) {
+            for (int i = 0; i < rows; i++) {
+                String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+                double cost = Math.round((5 + random.nextDouble() * 50) * 100) / 100.0;
+                double quantity = 1 + random.nextInt(20);
+                ps.setString(1, String.format("%d-%02d-%02d", 2018 + random.nextInt(8), 1 + random.nextInt(12),
+                    1 + random.nextInt(28)));
+                ps.setString(2, category + " purchase");
+                ps.setString(3, category);
+                ps.setString(4, "Feed".equals(category) ? "Corn" : null);
+                ps.setString(5, "50lbs");
+                ps.setDouble(6, cost);
+                ps.setDouble(7, quantity);
+                ps.setDouble(8, cost * quantity);
+                ps.addBatch();
+                if (i % 10_000 == 9_999) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE");
+        }
+    }
+}
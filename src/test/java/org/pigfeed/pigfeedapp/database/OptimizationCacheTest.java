@@ -0,0 +1,220 @@
+package org.pigfeed.pigfeedapp.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pigfeed.pigfeedapp.formulation.FormulationEngine;
+import org.pigfeed.pigfeedapp.formulation.FormulationProblem;
+import org.pigfeed.pigfeedapp.formulation.FormulationResult;
+import org.pigfeed.pigfeedapp.formulation.TargetProfile;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class OptimizationCacheTest {
+
+    private static final String[] NAMES = { "Corn", "Soybean Meal", "Barley" };
+    private static final double[] NUTRIENTS = {
+        8.5, 3.8, 2.2, 0.26,
+        44.0, 1.5, 3.5, 2.85,
+        11.5, 2.0, 5.0, 0.40,
+    };
+    private static final double[] PRICES = { 0.12, 0.25, 0.11 };
+    private static final double[] MIX = { 0.7, 0.2, 0.1 };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void storedResultReadsBackExactly() throws SQLException {
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"))) {
+            FormulationProblem problem = problem(NAMES, NUTRIENTS, PRICES);
+            String key = OptimizationCache.key(problem, "balanced");
+            assertNull(OptimizationCache.findResult(conn, key, problem));
+
+            OptimizationCache.storeResult(conn, key, problem, result(problem));
+            FormulationResult found = OptimizationCache.findResult(conn, key, problem);
+            assertNotNull(found);
+            assertArrayEquals(MIX, found.getProportions());
+            assertEquals(FormulationResult.Method.BALANCED, found.getMethod());
+        }
+    }
+
+    @Test
+    void keyChangesWithEveryInput() {
+        Map<String, String> keys = new LinkedHashMap<>();
+        keys.put("base", OptimizationCache.key(problem(NAMES, NUTRIENTS, PRICES), "balanced", 50.0));
+
+        String[] names = NAMES.clone();
+        names[2] = "Oats";
+        keys.put("name", OptimizationCache.key(problem(names, NUTRIENTS, PRICES), "balanced", 50.0));
+        for (int k = 0; k < FormulationProblem.NUTRIENT_COUNT; k++) {
+            double[] nutrients = NUTRIENTS.clone();
+            nutrients[FormulationProblem.NUTRIENT_COUNT + k] += 0.01;
+            keys.put("nutrient " + k, OptimizationCache.key(problem(NAMES, nutrients, PRICES), "balanced", 50.0));
+        }
+        double[] prices = PRICES.clone();
+        prices[1] += 0.001;
+        keys.put("price", OptimizationCache.key(problem(NAMES, NUTRIENTS, prices), "balanced", 50.0));
+
+        FormulationProblem minInclusion = problem(NAMES, NUTRIENTS, PRICES);
+        minInclusion.setInclusionBounds(0, 0.05, minInclusion.getMaxInclusion(0));
+        keys.put("min inclusion", OptimizationCache.key(minInclusion, "balanced", 50.0));
+        FormulationProblem maxInclusion = problem(NAMES, NUTRIENTS, PRICES);
+        maxInclusion.setInclusionBounds(0, maxInclusion.getMinInclusion(0), 0.8);
+        keys.put("max inclusion", OptimizationCache.key(maxInclusion, "balanced", 50.0));
+
+        FormulationProblem minLevel = problem(NAMES, NUTRIENTS, PRICES);
+        minLevel.setRange(FormulationProblem.FAT, minLevel.getMinLevel(FormulationProblem.FAT) + 0.1,
+            minLevel.getMaxLevel(FormulationProblem.FAT));
+        keys.put("range min", OptimizationCache.key(minLevel, "balanced", 50.0));
+        FormulationProblem maxLevel = problem(NAMES, NUTRIENTS, PRICES);
+        maxLevel.setRange(FormulationProblem.FAT, maxLevel.getMinLevel(FormulationProblem.FAT),
+            maxLevel.getMaxLevel(FormulationProblem.FAT) + 0.1);
+        keys.put("range max", OptimizationCache.key(maxLevel, "balanced", 50.0));
+
+        FormulationProblem ratio = problem(NAMES, NUTRIENTS, PRICES);
+        ratio.addRatioLimit(new FormulationProblem.RatioLimit(FormulationProblem.LYSINE, FormulationProblem.PROTEIN,
+            0.05, Double.POSITIVE_INFINITY));
+        keys.put("ratio limit", OptimizationCache.key(ratio, "balanced", 50.0));
+
+        keys.put("mode", OptimizationCache.key(problem(NAMES, NUTRIENTS, PRICES), "least-cost", 50.0));
+        keys.put("setting", OptimizationCache.key(problem(NAMES, NUTRIENTS, PRICES), "balanced", 25.0));
+        keys.put("settings", OptimizationCache.key(problem(NAMES, NUTRIENTS, PRICES), "balanced", 50.0, 0.0));
+
+        Set<String> distinct = new HashSet<>(keys.values());
+        assertEquals(keys.size(), distinct.size(), () -> "Keys collide: " + keys);
+
+        // And nothing else goes into it: the same problem built again has the same key
+        assertEquals(keys.get("base"), OptimizationCache.key(problem(NAMES, NUTRIENTS, PRICES), "balanced", 50.0));
+    }
+
+    @Test
+    void feedEntryForAnIngredientDropsResultsThatUseIt() throws SQLException {
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"))) {
+            FormulationProblem problem = problem(NAMES, NUTRIENTS, PRICES);
+            String key = OptimizationCache.key(problem, "balanced");
+            FormulationProblem other = problem(new String[] { "Wheat", "Oats", "Fish Meal" }, NUTRIENTS, PRICES);
+            String otherKey = OptimizationCache.key(other, "balanced");
+            OptimizationCache.storeResult(conn, key, problem, result(problem));
+            OptimizationCache.storeResult(conn, otherKey, other, result(other));
+
+            // Only Feed entries carry prices
+            long vet = insertEntry(conn, "Vet", "Corn");
+            assertNotNull(OptimizationCache.findResult(conn, key, problem));
+
+            long feed = insertEntry(conn, "Feed", "Soybean Meal");
+            assertNull(OptimizationCache.findResult(conn, key, problem));
+            assertNotNull(OptimizationCache.findResult(conn, otherKey, other));
+            assertEquals(0, countRows(conn, "optimization_cache_ingredients WHERE cache_key = '" + key + "'"));
+
+            // Editing or deleting a Feed entry drops them again
+            OptimizationCache.storeResult(conn, key, problem, result(problem));
+            execute(conn, "UPDATE cost_entries SET cost = 13.0 WHERE id = " + feed);
+            assertNull(OptimizationCache.findResult(conn, key, problem));
+
+            OptimizationCache.storeResult(conn, key, problem, result(problem));
+            execute(conn, "UPDATE cost_entries SET category = 'Feed' WHERE id = " + vet);
+            assertNull(OptimizationCache.findResult(conn, key, problem));
+
+            OptimizationCache.storeResult(conn, key, problem, result(problem));
+            execute(conn, "DELETE FROM cost_entries WHERE id = " + feed);
+            assertNull(OptimizationCache.findResult(conn, key, problem));
+            assertNotNull(OptimizationCache.findResult(conn, otherKey, other));
+        }
+    }
+
+    @Test
+    void ingredientChangesDropResultsThatUseIt() throws SQLException {
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"))) {
+            FormulationProblem problem = problem(NAMES, NUTRIENTS, PRICES);
+            String key = OptimizationCache.key(problem, "balanced");
+            OptimizationCache.storeResult(conn, key, problem, result(problem));
+
+            execute(conn, "INSERT INTO ingredients (name, crudeProtein) VALUES ('Oats', 11.0)");
+            assertNotNull(OptimizationCache.findResult(conn, key, problem));
+            execute(conn, "INSERT INTO ingredients (name, crudeProtein) VALUES ('Corn', 8.5)");
+            assertNull(OptimizationCache.findResult(conn, key, problem));
+
+            OptimizationCache.storeResult(conn, key, problem, result(problem));
+            execute(conn, "UPDATE ingredients SET crudeProtein = 8.7 WHERE name = 'Corn'");
+            assertNull(OptimizationCache.findResult(conn, key, problem));
+
+            OptimizationCache.storeResult(conn, key, problem, result(problem));
+            execute(conn, "UPDATE ingredients SET crudeProtein = 11.5 WHERE name = 'Oats'");
+            assertNotNull(OptimizationCache.findResult(conn, key, problem));
+            execute(conn, "DELETE FROM ingredients WHERE name = 'Corn'");
+            assertNull(OptimizationCache.findResult(conn, key, problem));
+        }
+    }
+
+    @Test
+    void keepsOnlyTheNewestEntries() throws SQLException {
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"))) {
+            FormulationProblem problem = problem(NAMES, NUTRIENTS, PRICES);
+            String last = null;
+            for (int i = 0; i < OptimizationCache.MAX_ENTRIES + 25; i++) {
+                last = OptimizationCache.key(problem, "balanced", i);
+                OptimizationCache.storeResult(conn, last, problem, result(problem));
+            }
+            assertEquals(OptimizationCache.MAX_ENTRIES, countRows(conn, "optimization_cache"));
+            assertEquals(OptimizationCache.MAX_ENTRIES * NAMES.length, countRows(conn, "optimization_cache_ingredients"));
+            assertNotNull(OptimizationCache.findResult(conn, last, problem));
+            assertNull(OptimizationCache.findResult(conn, OptimizationCache.key(problem, "balanced", 0), problem));
+        }
+    }
+
+    // Grower targets on the given ingredients
+    private static FormulationProblem problem(String[] names, double[] nutrients, double[] prices) {
+        return new FormulationProblem(names, nutrients, prices)
+            .withTargets(TargetProfile.forStage("Grower", 1));
+    }
+
+    private static FormulationResult result(FormulationProblem problem) {
+        return FormulationEngine.evaluate(problem, FormulationResult.Method.BALANCED, MIX, 42L);
+    }
+
+    private static long insertEntry(Connection conn, String category, String ingredient) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(CostEntryQueries.INSERT_ENTRY, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, "2026-03-01");
+            ps.setString(2, ingredient);
+            ps.setString(3, category);
+            ps.setString(4, ingredient);
+            ps.setString(5, "50lbs");
+            ps.setDouble(6, 12.5);
+            ps.setDouble(7, 2);
+            ps.setDouble(8, 25.0);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private static int countRows(Connection conn, String from) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + from)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.pigfeed.pigfeedapp.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pigfeed.pigfeedapp.model.FeedMixEntry;
+import org.pigfeed.pigfeedapp.model.SavedMix;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SavedMixesTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void savedMixReadsBackInOrder() throws SQLException {
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"))) {
+            assertFalse(SavedMixes.exists(conn, "Grower"));
+            List<FeedMixEntry> entries = mix("Corn", 700, "Soybean Meal", 250, "Oats", 50);
+            SavedMixes.save(conn, new SavedMix("Grower", entries), entries);
+            assertTrue(SavedMixes.exists(conn, "Grower"));
+
+            List<SavedMix> mixes = SavedMixes.list(conn);
+            assertEquals(1, mixes.size());
+            SavedMix saved = mixes.get(0);
+            assertEquals("Grower", saved.getName());
+            assertEquals(1000.0, saved.getTotalWeight(), 1e-12);
+            assertEntries(entries, SavedMixes.findEntries(conn, saved.getId()));
+        }
+    }
+
+    @Test
+    void savingUnderAnExistingNameReplacesTheMix() throws SQLException {
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"))) {
+            List<FeedMixEntry> first = mix("Corn", 700, "Soybean Meal", 300);
+            SavedMixes.save(conn, new SavedMix("Grower", first), first);
+            List<FeedMixEntry> second = mix("Barley", 600, "Fish Meal", 100);
+            SavedMixes.save(conn, new SavedMix("Grower", second), second);
+
+            List<SavedMix> mixes = SavedMixes.list(conn);
+            assertEquals(1, mixes.size());
+            assertEntries(second, SavedMixes.findEntries(conn, mixes.get(0).getId()));
+            // The old entries went with the old mix
+            assertEquals(2, countRows(conn, "saved_mix_entries"));
+        }
+    }
+
+    @Test
+    void mixesUsingAnIngredientComeWithAllTheirEntries() throws SQLException {
+        try (Connection conn = TestDatabases.openMigrated(dir.resolve("pigfeed.db"))) {
+            List<FeedMixEntry> grower = mix("Corn", 700, "Soybean Meal", 300);
+            List<FeedMixEntry> finisher = mix("Barley", 800, "Soybean Meal", 200);
+            List<FeedMixEntry> oats = mix("Oats", 500, "Wheat Midds", 500);
+            SavedMixes.save(conn, new SavedMix("Grower", grower), grower);
+            SavedMixes.save(conn, new SavedMix("Finisher", finisher), finisher);
+            SavedMixes.save(conn, new SavedMix("Oats", oats), oats);
+
+            Map<String, List<FeedMixEntry>> using = SavedMixes.findEntriesUsing(conn, Set.of("Soybean Meal"));
+            assertEquals(List.of("Finisher", "Grower"), new ArrayList<>(using.keySet()));
+            assertEntries(finisher, using.get("Finisher"));
+            assertEntries(grower, using.get("Grower"));
+
+            assertEquals(List.of("Grower", "Oats"),
+                new ArrayList<>(SavedMixes.findEntriesUsing(conn, Set.of("Corn", "Wheat Midds")).keySet()));
+            assertTrue(SavedMixes.findEntriesUsing(conn, Set.of("Fish Meal")).isEmpty());
+            assertTrue(SavedMixes.findEntriesUsing(conn, Set.of()).isEmpty());
+
+            Map<String, List<FeedMixEntry>> all = SavedMixes.findAllEntries(conn);
+            assertEquals(List.of("Finisher", "Grower", "Oats"), new ArrayList<>(all.keySet()));
+            assertEntries(oats, all.get("Oats"));
+        }
+    }
+
+    // Alternating names and weights; nutrients derived from the weight so every column differs
+    private static List<FeedMixEntry> mix(Object... namesAndWeights) {
+        List<FeedMixEntry> entries = new ArrayList<>();
+        for (int i = 0; i < namesAndWeights.length; i += 2) {
+            double weight = ((Number) namesAndWeights[i + 1]).doubleValue();
+            FeedMixEntry entry = new FeedMixEntry();
+            entry.setIngredient((String) namesAndWeights[i]);
+            entry.setWeight(weight);
+            entry.setProtein(weight / 50.0);
+            entry.setFat(weight / 200.0);
+            entry.setFiber(weight / 100.0);
+            entry.setLysine(weight / 1000.0);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static void assertEntries(List<FeedMixEntry> expected, List<FeedMixEntry> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            FeedMixEntry e = expected.get(i);
+            FeedMixEntry a = actual.get(i);
+            String context = "entry " + i;
+            assertEquals(e.getIngredient(), a.getIngredient(), context);
+            assertEquals(e.getWeight(), a.getWeight(), context);
+            assertEquals(e.getProtein(), a.getProtein(), context);
+            assertEquals(e.getFat(), a.getFat(), context);
+            assertEquals(e.getFiber(), a.getFiber(), context);
+            assertEquals(e.getLysine(), a.getLysine(), context);
+        }
+    }
+
+    private static int countRows(Connection conn, String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
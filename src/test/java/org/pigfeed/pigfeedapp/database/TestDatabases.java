@@ -0,0 +1,33 @@
+package org.pigfeed.pigfeedapp.database;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Scratch databases for tests and benchmarks, set up like pigfeed.db (same per-connection
+ * pragmas, WAL and every migration) but in a file of their own.
+ */
+final class TestDatabases {
+
+    private TestDatabases() {}
+
+    /**
+     * Opens a connection to the file with the pool's pragmas, without touching the schema.
+     */
+    static Connection open(Path file) throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file.toAbsolutePath());
+        DatabaseHelper.applyConnectionPragmas(conn);
+        return conn;
+    }
+
+    /**
+     * Creates (or upgrades) the file to the current schema and returns a connection to it.
+     */
+    static Connection openMigrated(Path file) throws SQLException {
+        Connection conn = open(file);
+        DatabaseHelper.initializeSchema(conn);
+        return conn;
+    }
+}
@@ -0,0 +1,139 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InfeasibilityTest {
+
+    private static final String[] CANDIDATE_NAMES = { "Corn", "Soybean Meal", "Fish Meal", "Oats" };
+    private static final double[] CANDIDATE_NUTRIENTS = {
+        8.5, 3.8, 2.2, 0.26,
+        44.0, 1.5, 3.5, 2.85,
+        60.0, 9.0, 1.0, 4.50,
+        11.0, 4.5, 10.5, 0.40,
+    };
+    // Oats is the cheapest candidate but never a fix, so it must not be suggested
+    private static final double[] CANDIDATE_PRICES = { 0.12, 0.25, 0.60, 0.11 };
+
+    @Test
+    void lysineFloorNothingReaches() {
+        // Corn and barley top out at 0.40% lysine, 0.35% with barley held to 65%
+        FormulationProblem problem = lysineProblem("Corn", "Barley");
+        assertNull(FormulationEngine.solveLeastCost(problem));
+
+        Infeasibility diagnosis = FormulationEngine.diagnose(problem, candidates());
+        assertNotNull(diagnosis);
+        assertEquals(Infeasibility.Kind.NUTRIENT_TOO_LOW, diagnosis.getKind());
+        assertEquals(FormulationProblem.LYSINE, diagnosis.getNutrient());
+        assertEquals(0.95, diagnosis.getRequired(), 1e-12);
+        assertEquals(0.65 * 0.40 + 0.35 * 0.26, diagnosis.getReachable(), 1e-12);
+        assertEquals(List.of("Lysine ≥ 0.95%"), diagnosis.getRequirements());
+        assertEquals(List.of(), diagnosis.getLimitingIngredients());
+        assertEquals(List.of("Soybean Meal", "Fish Meal"), diagnosis.getFixes());
+
+        // Each suggestion really fixes it; the one left out doesn't
+        for (String fix : diagnosis.getFixes()) {
+            FormulationResult result = FormulationEngine.solveLeastCost(lysineProblem("Corn", "Barley", fix));
+            assertNotNull(result, fix);
+            assertTrue(result.isTargetsMet(), fix);
+        }
+        assertNull(FormulationEngine.solveLeastCost(lysineProblem("Corn", "Barley", "Oats")));
+    }
+
+    @Test
+    void conflictingPairIsNarrowedDownToExactlyThoseTwo() {
+        FormulationProblem problem = proteinFiberProblem("Corn", "Wheat Midds");
+        assertNull(FormulationEngine.solveLeastCost(problem));
+
+        Infeasibility diagnosis = FormulationEngine.diagnose(problem, candidates());
+        assertNotNull(diagnosis);
+        assertEquals(Infeasibility.Kind.COMBINATION, diagnosis.getKind());
+        assertEquals(List.of("Protein ≥ 14.00%", "Fiber ≤ 5.00%"), diagnosis.getRequirements());
+        assertEquals(List.of(), diagnosis.getLimitingIngredients());
+
+        // Minimal: dropping either requirement leaves a mix that meets the rest
+        FormulationProblem noProteinFloor = proteinFiberProblem("Corn", "Wheat Midds");
+        noProteinFloor.setRange(FormulationProblem.PROTEIN, 0.0, 20.0);
+        assertNotNull(FormulationEngine.solveLeastCost(noProteinFloor));
+        FormulationProblem noFiberCap = proteinFiberProblem("Corn", "Wheat Midds");
+        noFiberCap.setRange(FormulationProblem.FIBER, 1.0, Double.POSITIVE_INFINITY);
+        assertNotNull(FormulationEngine.solveLeastCost(noFiberCap));
+
+        assertEquals(List.of("Soybean Meal", "Fish Meal"), diagnosis.getFixes());
+        for (String fix : diagnosis.getFixes()) {
+            FormulationResult result = FormulationEngine.solveLeastCost(proteinFiberProblem("Corn", "Wheat Midds", fix));
+            assertNotNull(result, fix);
+            assertTrue(result.isTargetsMet(), fix);
+        }
+        assertNull(FormulationEngine.solveLeastCost(proteinFiberProblem("Corn", "Wheat Midds", "Oats")));
+    }
+
+    @Test
+    void feasibleProblemHasNoDiagnosis() {
+        assertNull(FormulationEngine.diagnose(lysineProblem("Corn", "Barley", "Soybean Meal"), candidates()));
+    }
+
+    // Wide protein, fat and fiber ranges around a grower lysine range, default inclusion limits
+    private static FormulationProblem lysineProblem(String... names) {
+        FormulationProblem problem = mix(names);
+        problem.setRange(FormulationProblem.PROTEIN, 9.0, 20.0);
+        problem.setRange(FormulationProblem.FAT, 1.5, 5.0);
+        problem.setRange(FormulationProblem.FIBER, 2.0, 6.0);
+        problem.setRange(FormulationProblem.LYSINE, 0.95, 1.15);
+        return problem;
+    }
+
+    // Corn and midds can meet the protein floor or the fiber cap, not both; fat and lysine
+    // stay in range whatever the mix. Corn and midds may make up the whole mix.
+    private static FormulationProblem proteinFiberProblem(String... names) {
+        FormulationProblem problem = mix(names);
+        problem.setRange(FormulationProblem.PROTEIN, 14.0, 20.0);
+        problem.setRange(FormulationProblem.FAT, 2.0, 5.0);
+        problem.setRange(FormulationProblem.FIBER, 1.0, 5.0);
+        problem.setRange(FormulationProblem.LYSINE, 0.2, 1.0);
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals("Corn") || names[i].equals("Wheat Midds")) {
+                problem.setInclusionBounds(i, 0.0, 1.0);
+            }
+        }
+        return problem;
+    }
+
+    private static FormulationProblem mix(String... names) {
+        double[] nutrients = new double[names.length * FormulationProblem.NUTRIENT_COUNT];
+        double[] prices = new double[names.length];
+        for (int i = 0; i < names.length; i++) {
+            double[] values = nutrientsOf(names[i]);
+            System.arraycopy(values, 0, nutrients, i * FormulationProblem.NUTRIENT_COUNT, values.length);
+            prices[i] = 0.12;
+        }
+        return new FormulationProblem(names, nutrients, prices);
+    }
+
+    private static double[] nutrientsOf(String name) {
+        switch (name) {
+            case "Barley": return new double[] { 11.5, 2.0, 5.0, 0.40 };
+            case "Wheat Midds": return new double[] { 16.0, 4.0, 7.5, 0.60 };
+            default:
+                for (int c = 0; c < CANDIDATE_NAMES.length; c++) {
+                    if (CANDIDATE_NAMES[c].equals(name)) {
+                        double[] values = new double[FormulationProblem.NUTRIENT_COUNT];
+                        System.arraycopy(CANDIDATE_NUTRIENTS, c * FormulationProblem.NUTRIENT_COUNT, values, 0,
+                            FormulationProblem.NUTRIENT_COUNT);
+                        return values;
+                    }
+                }
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    private static FormulationProblem candidates() {
+        return new FormulationProblem(CANDIDATE_NAMES, CANDIDATE_NUTRIENTS, CANDIDATE_PRICES);
+    }
+}
@@ -0,0 +1,234 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LinearProgramTest {
+
+    private static final double EPS = 1e-9;
+
+    @Test
+    void smallDietHasKnownLeastCostMix() {
+        // Corn (8.5% protein, $0.12/lb) and soybean meal (44%, $0.25/lb) to 16% protein:
+        // the protein row binds, so corn = (44 - 16) / (44 - 8.5)
+        LpSpec spec = new LpSpec(0.12, 0.25)
+            .row(1, 1, 1, 1)
+            .row(16, Double.POSITIVE_INFINITY, 8.5, 44);
+        LinearProgram.Solution solution = spec.build().solve();
+
+        double corn = 28.0 / 35.5;
+        assertArrayEquals(new double[] { corn, 1 - corn }, solution.getValues(), EPS);
+        assertEquals(0.12 * corn + 0.25 * (1 - corn), solution.getObjectiveValue(), EPS);
+        // One more point of protein costs (0.25 - 0.12) / 35.5 per lb
+        assertEquals(0.13 / 35.5, solution.getDual(1), EPS);
+        spec.assertOptimal(solution);
+    }
+
+    @Test
+    void textbookProgramHasKnownOptimumAndShadowPrices() {
+        // Hillier & Lieberman's Wyndor Glass: max 3x1 + 5x2, written as a minimization
+        LpSpec spec = new LpSpec(-3, -5)
+            .row(Double.NEGATIVE_INFINITY, 4, 1, 0)
+            .row(Double.NEGATIVE_INFINITY, 12, 0, 2)
+            .row(Double.NEGATIVE_INFINITY, 18, 3, 2);
+        LinearProgram.Solution solution = spec.build().solve();
+
+        assertArrayEquals(new double[] { 2, 6 }, solution.getValues(), EPS);
+        assertEquals(-36, solution.getObjectiveValue(), EPS);
+        // Shadow prices 0, 1.5 and 1 of the maximization, negated
+        assertEquals(0.0, solution.getDual(0), EPS);
+        assertEquals(-1.5, solution.getDual(1), EPS);
+        assertEquals(-1.0, solution.getDual(2), EPS);
+        spec.assertOptimal(solution);
+    }
+
+    @Test
+    void contradictoryRowsAreInfeasible() {
+        LinearProgram lp = new LpSpec(1, 1)
+            .row(1, 1, 1, 1)
+            .row(2, Double.POSITIVE_INFINITY, 1, 1)
+            .build();
+        LinearProgram.Solution solution = lp.solve();
+        assertEquals(LinearProgram.Status.INFEASIBLE, solution.getStatus());
+        assertTrue(Double.isNaN(solution.getDual(0)));
+    }
+
+    @Test
+    void rowsOutOfReachOfTheBoundsAreInfeasible() {
+        // 30% protein can't be reached when soybean meal is capped at 40% of the mix
+        LinearProgram lp = new LpSpec(0.12, 0.25)
+            .bounds(1, 0, 0.4)
+            .row(1, 1, 1, 1)
+            .row(30, Double.POSITIVE_INFINITY, 8.5, 44)
+            .build();
+        assertEquals(LinearProgram.Status.INFEASIBLE, lp.solve().getStatus());
+    }
+
+    @Test
+    void unboundedDirectionIsReported() {
+        LinearProgram lp = new LpSpec(-1, 0)
+            .row(Double.NEGATIVE_INFINITY, 4, -1, 1)
+            .build();
+        assertEquals(LinearProgram.Status.UNBOUNDED, lp.solve().getStatus());
+    }
+
+    @Test
+    void variableBoundsAreHonouredWithoutRows() {
+        // Each variable goes to whichever bound its cost prefers; a free one with zero cost stays put
+        LpSpec spec = new LpSpec(-1, 2, -3, 0.5, 0)
+            .bounds(0, 0, 3)
+            .bounds(1, -2, 1)
+            .bounds(2, 1.5, 1.5)
+            .bounds(3, -4, Double.POSITIVE_INFINITY)
+            .bounds(4, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        LinearProgram.Solution solution = spec.build().solve();
+        assertArrayEquals(new double[] { 3, -2, 1.5, -4, 0 }, solution.getValues(), EPS);
+        spec.assertOptimal(solution);
+    }
+
+    @Test
+    void upperBoundsBindInsideRows() {
+        // Maximum inclusion: the cheap ingredient is capped, the rest comes from the next cheapest
+        LpSpec spec = new LpSpec(0.10, 0.12, 0.25)
+            .bounds(0, 0, 0.3)
+            .bounds(1, 0.1, 1)
+            .row(1, 1, 1, 1, 1)
+            .row(16, 18, 16, 8.5, 44);
+        LinearProgram.Solution solution = spec.build().solve();
+        assertEquals(0.3, solution.getValue(0), EPS);
+        assertEquals(16, spec.activity(1, solution.getValues()), EPS);
+        spec.assertOptimal(solution);
+    }
+
+    @Test
+    void rangeRowBindsOnWhicheverSideTheCostPushes() {
+        for (double direction : new double[] { 1, -1 }) {
+            LpSpec spec = new LpSpec(direction, direction)
+                .bounds(0, 0, 10)
+                .bounds(1, 0, 10)
+                .row(3, 5, 1, 1);
+            LinearProgram.Solution solution = spec.build().solve();
+            assertEquals(direction > 0 ? 3 : 5, spec.activity(0, solution.getValues()), EPS);
+            // Positive dual on the lower bound, negative on the upper
+            assertEquals(direction, solution.getDual(0), EPS);
+            spec.assertOptimal(solution);
+        }
+    }
+
+    @Test
+    void invertedBoundsAreRejected() {
+        LinearProgram lp = new LinearProgram(2);
+        assertThrows(IllegalArgumentException.class, () -> lp.setBounds(0, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> lp.addConstraint(new double[] { 1, 1 }, 2, 1));
+        assertThrows(IllegalArgumentException.class, () -> lp.addConstraint(new double[] { 1 }, 0, 1));
+    }
+
+    @Test
+    void classicCyclingExampleTerminatesAtOptimum() {
+        // Chvátal's example that cycles under the largest-coefficient rule without anti-cycling
+        LpSpec spec = new LpSpec(-10, 57, 9, 24)
+            .row(Double.NEGATIVE_INFINITY, 0, 0.5, -5.5, -2.5, 9)
+            .row(Double.NEGATIVE_INFINITY, 0, 0.5, -1.5, -0.5, 1)
+            .row(Double.NEGATIVE_INFINITY, 1, 1, 0, 0, 0);
+        LinearProgram.Solution solution = spec.build().solve();
+        assertArrayEquals(new double[] { 1, 0, 1, 0 }, solution.getValues(), EPS);
+        assertEquals(-1, solution.getObjectiveValue(), EPS);
+        spec.assertOptimal(solution);
+    }
+
+    @Test
+    void longDegenerateRunsSwitchToBlandAndStillReachOptimum() {
+        // Sixty cuts through the origin of a 20-variable box: the origin is a vertex shared by
+        // a huge number of bases, so the solve makes long runs of zero-length steps
+        for (long seed = 1; seed <= 5; seed++) {
+            SplittableRandom random = new SplittableRandom(seed);
+            int n = 20;
+            double[] cost = new double[n];
+            double[] direction = new double[n];
+            double norm = 0.0;
+            for (int j = 0; j < n; j++) {
+                cost[j] = -random.nextDouble();
+                direction[j] = random.nextDouble();
+                norm += direction[j] * direction[j];
+            }
+            LpSpec spec = new LpSpec(cost);
+            for (int j = 0; j < n; j++) {
+                spec.bounds(j, 0, 1);
+            }
+            for (int i = 0; i < 60; i++) {
+                double[] row = new double[n];
+                double along = 0.0;
+                for (int j = 0; j < n; j++) {
+                    row[j] = random.nextDouble() * 2 - 1;
+                    along += row[j] * direction[j];
+                }
+                // Tilt the cut so the direction stays feasible and the optimum isn't the origin
+                double shift = (along + 0.05) / norm;
+                if (shift > 0) {
+                    for (int j = 0; j < n; j++) {
+                        row[j] -= shift * direction[j];
+                    }
+                }
+                spec.row(Double.NEGATIVE_INFINITY, 0, row);
+            }
+
+            // A degenerate step leaves both the objective and the infeasibility unchanged
+            int[] run = { 0, 0 };
+            double[] last = { Double.NaN, Double.NaN };
+            LinearProgram.Solution solution = spec.build().solve((iteration, objective, infeasibility) -> {
+                run[0] = objective == last[0] && infeasibility == last[1] ? run[0] + 1 : 0;
+                run[1] = Math.max(run[1], run[0]);
+                last[0] = objective;
+                last[1] = infeasibility;
+                return true;
+            });
+
+            assertTrue(run[1] > 25, "expected a run long enough to switch to Bland's rule, longest was " + run[1]);
+            assertTrue(solution.getObjectiveValue() < -1.0);
+            spec.assertOptimal(solution);
+        }
+    }
+
+    @Test
+    void randomProgramsSatisfyOptimalityCertificate() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int trial = 0; trial < 500; trial++) {
+            int n = 2 + random.nextInt(8);
+            int m = 1 + random.nextInt(n);
+            LpSpec spec = LpSpec.randomFeasible(random, n, m);
+            spec.assertOptimal(spec.build().solve());
+        }
+    }
+
+    @Test
+    void randomSearchNeverBeatsTheOptimum() {
+        // Independent of the certificate: no feasible point found by sampling is cheaper
+        SplittableRandom random = new SplittableRandom(5);
+        for (int trial = 0; trial < 50; trial++) {
+            LpSpec spec = LpSpec.randomFeasible(random, 3, 2);
+            // Equality rows make random points infeasible; keep the inequality programs
+            if (spec.rowBounds.stream().anyMatch(bounds -> bounds[0] == bounds[1])) continue;
+            double optimum = spec.build().solve().getObjectiveValue();
+            for (int sample = 0; sample < 20_000; sample++) {
+                double[] x = new double[3];
+                for (int j = 0; j < 3; j++) {
+                    x[j] = spec.lower[j] + random.nextDouble() * (spec.upper[j] - spec.lower[j]);
+                }
+                boolean feasible = true;
+                for (int i = 0; i < spec.rows.size() && feasible; i++) {
+                    double a = spec.activity(i, x);
+                    feasible = a >= spec.rowBounds.get(i)[0] && a <= spec.rowBounds.get(i)[1];
+                }
+                if (feasible) {
+                    assertTrue(spec.objective(x) >= optimum - LpSpec.TOLERANCE);
+                }
+            }
+        }
+    }
+}
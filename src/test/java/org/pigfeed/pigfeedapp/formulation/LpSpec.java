@@ -0,0 +1,201 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A linear program kept as plain data next to the LinearProgram built from it, so tests can
+ * check a solution independently of the solver: primal feasibility plus the optimality
+ * certificate (reduced costs and duals with the signs their active bounds allow).
+ */
+final class LpSpec {
+
+    static final double TOLERANCE = 1e-6;
+
+    final double[] cost;
+    final double[] lower;
+    final double[] upper;
+    final List<double[]> rows = new ArrayList<>();
+    final List<double[]> rowBounds = new ArrayList<>();
+
+    LpSpec(double... cost) {
+        this.cost = cost.clone();
+        this.lower = new double[cost.length];
+        this.upper = new double[cost.length];
+        Arrays.fill(upper, Double.POSITIVE_INFINITY);
+    }
+
+    LpSpec bounds(int variable, double lo, double hi) {
+        lower[variable] = lo;
+        upper[variable] = hi;
+        return this;
+    }
+
+    LpSpec row(double lo, double hi, double... coefficients) {
+        rows.add(coefficients.clone());
+        rowBounds.add(new double[] { lo, hi });
+        return this;
+    }
+
+    // Independent copy whose costs and bounds can be perturbed without touching this one
+    LpSpec copy() {
+        LpSpec copy = new LpSpec(cost);
+        System.arraycopy(lower, 0, copy.lower, 0, lower.length);
+        System.arraycopy(upper, 0, copy.upper, 0, upper.length);
+        for (int i = 0; i < rows.size(); i++) {
+            copy.row(rowBounds.get(i)[0], rowBounds.get(i)[1], rows.get(i));
+        }
+        return copy;
+    }
+
+    LinearProgram build() {
+        LinearProgram lp = new LinearProgram(cost.length);
+        lp.setObjective(cost);
+        for (int j = 0; j < cost.length; j++) {
+            lp.setBounds(j, lower[j], upper[j]);
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            lp.addConstraint(rows.get(i), rowBounds.get(i)[0], rowBounds.get(i)[1]);
+        }
+        return lp;
+    }
+
+    double objective(double[] x) {
+        double total = 0.0;
+        for (int j = 0; j < x.length; j++) {
+            total += cost[j] * x[j];
+        }
+        return total;
+    }
+
+    double activity(int row, double[] x) {
+        double total = 0.0;
+        for (int j = 0; j < x.length; j++) {
+            total += rows.get(row)[j] * x[j];
+        }
+        return total;
+    }
+
+    /**
+     * Asserts the solution is optimal: x within its bounds and rows, the reported objective
+     * is c·x, and with y the reported duals every reduced cost c_j - y·A_j and every y_i has
+     * the sign the bound it sits on allows (zero when it sits on neither).
+     */
+    void assertOptimal(LinearProgram.Solution solution) {
+        assertEquals(LinearProgram.Status.OPTIMAL, solution.getStatus());
+        double[] x = solution.getValues();
+        assertEquals(objective(x), solution.getObjectiveValue(), TOLERANCE, "objective is c·x");
+
+        for (int j = 0; j < x.length; j++) {
+            assertTrue(x[j] >= lower[j] - TOLERANCE && x[j] <= upper[j] + TOLERANCE,
+                "x" + j + " = " + x[j] + " outside [" + lower[j] + ", " + upper[j] + "]");
+        }
+        double[] y = new double[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            double a = activity(i, x);
+            double lo = rowBounds.get(i)[0];
+            double hi = rowBounds.get(i)[1];
+            assertTrue(a >= lo - TOLERANCE && a <= hi + TOLERANCE, "row " + i + " = " + a + " outside [" + lo + ", " + hi + "]");
+            y[i] = solution.getDual(i);
+            assertSign(y[i], Math.abs(a - lo) <= TOLERANCE, Math.abs(a - hi) <= TOLERANCE, "dual of row " + i);
+        }
+        for (int j = 0; j < x.length; j++) {
+            double reduced = cost[j];
+            for (int i = 0; i < rows.size(); i++) {
+                reduced -= y[i] * rows.get(i)[j];
+            }
+            assertSign(reduced, Math.abs(x[j] - lower[j]) <= TOLERANCE, Math.abs(x[j] - upper[j]) <= TOLERANCE,
+                "reduced cost of x" + j);
+        }
+    }
+
+    // At the lower bound the value may be >= 0, at the upper <= 0, strictly between only 0
+    private static void assertSign(double value, boolean atLower, boolean atUpper, String what) {
+        double scaled = TOLERANCE * Math.max(1.0, Math.abs(value));
+        if (atLower && atUpper) {
+            return;
+        }
+        if (atLower) {
+            assertTrue(value >= -scaled, what + " = " + value + " should be >= 0");
+        } else if (atUpper) {
+            assertTrue(value <= scaled, what + " = " + value + " should be <= 0");
+        } else {
+            assertEquals(0.0, value, scaled, what + " should be 0 off its bounds");
+        }
+    }
+
+    /**
+     * A random feasible program: n boxed variables, m range rows built around a random point
+     * inside the box, so the point satisfies every row.
+     */
+    static LpSpec randomFeasible(SplittableRandom random, int n, int m) {
+        double[] cost = new double[n];
+        for (int j = 0; j < n; j++) {
+            cost[j] = random.nextDouble() * 2 - 1;
+        }
+        LpSpec spec = new LpSpec(cost);
+        double[] point = new double[n];
+        for (int j = 0; j < n; j++) {
+            double lo = random.nextDouble() * 2 - 1;
+            double hi = lo + random.nextDouble() * 2;
+            spec.bounds(j, lo, hi);
+            point[j] = lo + random.nextDouble() * (hi - lo);
+        }
+        for (int i = 0; i < m; i++) {
+            double[] row = new double[n];
+            double activity = 0.0;
+            for (int j = 0; j < n; j++) {
+                row[j] = random.nextInt(4) == 0 ? 0.0 : random.nextDouble() * 2 - 1;
+                activity += row[j] * point[j];
+            }
+            // One-sided, two-sided or equality rows, all holding at the point
+            switch (random.nextInt(4)) {
+                case 0 -> spec.row(activity - random.nextDouble(), Double.POSITIVE_INFINITY, row);
+                case 1 -> spec.row(Double.NEGATIVE_INFINITY, activity + random.nextDouble(), row);
+                case 2 -> spec.row(activity - random.nextDouble(), activity + random.nextDouble(), row);
+                default -> spec.row(activity, activity, row);
+            }
+        }
+        return spec;
+    }
+
+    /**
+     * A random feed formulation shaped like FormulationEngine's: n ingredients with prices
+     * and inclusion limits, the proportions adding up to 1, and a min/max range for each
+     * nutrient, all met by a random mix so the program is feasible.
+     */
+    static LpSpec randomDiet(SplittableRandom random, int n, int nutrients) {
+        double[] price = new double[n];
+        double[] mix = new double[n];
+        double total = 0.0;
+        for (int j = 0; j < n; j++) {
+            price[j] = 0.05 + random.nextDouble() * 0.45;
+            mix[j] = random.nextDouble();
+            total += mix[j];
+        }
+        LpSpec spec = new LpSpec(price);
+        double[] ones = new double[n];
+        for (int j = 0; j < n; j++) {
+            mix[j] /= total;
+            ones[j] = 1.0;
+            spec.bounds(j, 0.0, Math.min(1.0, mix[j] + random.nextDouble() * 0.5));
+        }
+        spec.row(1.0, 1.0, ones);
+        for (int k = 0; k < nutrients; k++) {
+            double[] content = new double[n];
+            double level = 0.0;
+            for (int j = 0; j < n; j++) {
+                content[j] = random.nextDouble() * 50.0;
+                level += content[j] * mix[j];
+            }
+            double max = random.nextInt(3) == 0 ? Double.POSITIVE_INFINITY : level + random.nextDouble() * 2.0;
+            spec.row(level - random.nextDouble() * 2.0, max, content);
+        }
+        return spec;
+    }
+}
@@ -0,0 +1,73 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * How multi-start balancing scales with cores: the same seeds solved on pools of 1, 2, 4...
+ * threads up to the machine's core count, with the speedup over one thread. Every pool
+ * returns the same mix for a seed (see MultiStartTest), so only the time differs.
+ *
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=org.pigfeed.pigfeedapp.formulation.MultiStartBenchmark \
+ *       -Dexec.args="200 64"
+ *
+ * Arguments: timed runs per pool (default 200, after as many warm-up runs) and starts per
+ * run (default FormulationEngine.DEFAULT_STARTS).
+ */
+public class MultiStartBenchmark {
+
+    public static void main(String[] args) {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int starts = args.length > 1 ? Integer.parseInt(args[1]) : FormulationEngine.DEFAULT_STARTS;
+        int cores = Runtime.getRuntime().availableProcessors();
+        FormulationProblem problem = MultiStartTest.growerProblem();
+
+        System.out.printf("%,d timed runs of %d starts per row, %d cores%n", runs, starts, cores);
+        System.out.printf("%-10s %12s %12s %10s%n", "threads", "p50", "p90", "speedup");
+        List<Integer> poolSizes = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            poolSizes.add(threads);
+        }
+        poolSizes.add(cores);
+
+        double serial = 0.0;
+        for (int threads : poolSizes) {
+            long[] nanos = run(problem, threads, starts, runs);
+            double p50 = percentile(nanos, 0.5);
+            if (threads == 1) {
+                serial = p50;
+            }
+            System.out.printf("%-10d %9.2f ms %9.2f ms %9.2fx%n",
+                threads, p50 / 1e6, percentile(nanos, 0.9) / 1e6, serial / p50);
+        }
+    }
+
+    // Seeds 0, 1, 2... for the warm-up runs and again for the timed ones
+    private static long[] run(FormulationProblem problem, int threads, int starts, int runs) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long[] nanos = new long[runs];
+            for (int r = -runs; r < runs; r++) {
+                long seed = r < 0 ? r + runs : r;
+                long start = System.nanoTime();
+                FormulationEngine.balanceMultiStart(problem, true, seed, starts, pool);
+                long time = System.nanoTime() - start;
+                if (r >= 0) {
+                    nanos[r] = time;
+                }
+            }
+            return nanos;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static double percentile(long[] nanos, double share) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, sorted.length * share)];
+    }
+}
@@ -0,0 +1,83 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiStartTest {
+
+    private static final int STARTS = 64;
+
+    @Test
+    void sameSeedGivesTheSameMixOnAnyPool() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            for (long seed = 1; seed <= 20; seed++) {
+                for (boolean priceBias : new boolean[] { false, true }) {
+                    FormulationProblem problem = growerProblem();
+                    FormulationResult serial = FormulationEngine.balanceMultiStart(problem, priceBias, seed, STARTS, single);
+                    FormulationResult parallel = FormulationEngine.balanceMultiStart(problem, priceBias, seed, STARTS, four);
+                    FormulationResult again = FormulationEngine.balanceMultiStart(problem, priceBias, seed, STARTS, four);
+
+                    String context = "seed " + seed + (priceBias ? " with price bias" : "");
+                    assertArrayEquals(serial.getProportions(), parallel.getProportions(), context);
+                    assertArrayEquals(serial.getProportions(), again.getProportions(), context);
+                    assertEquals(seed, parallel.getSeed(), context);
+                }
+            }
+        } finally {
+            single.shutdown();
+            four.shutdown();
+        }
+    }
+
+    @Test
+    void otherSeedsGiveValidMixesThatMeetTheTargets() {
+        // Balancing has no guarantee of reaching a range; with these ingredients it always
+        // reaches the weaner and finisher ones, but misses the narrow grower lysine band now
+        // and then, so that stage is left to the reproducibility test above
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (String stage : new String[] { "Weaner", "Finisher" }) {
+                FormulationProblem problem = growerProblem().withTargets(TargetProfile.forStage(stage, 1));
+                for (long seed = 100; seed < 120; seed++) {
+                    String context = stage + " seed " + seed;
+                    FormulationResult result = FormulationEngine.balanceMultiStart(problem, true, seed, STARTS, pool);
+                    double[] proportions = result.getProportions();
+                    double total = 0.0;
+                    for (int i = 0; i < proportions.length; i++) {
+                        assertTrue(proportions[i] >= problem.getMinInclusion(i) - 1e-9
+                            && proportions[i] <= problem.getMaxInclusion(i) + 1e-9, context + " ingredient " + i);
+                        total += proportions[i];
+                    }
+                    assertEquals(1.0, total, 1e-9, context);
+                    assertEquals(seed, result.getSeed(), context);
+                    assertTrue(result.isTargetsMet(), context);
+                    assertTrue(problem.meetsTargets(problem.nutrientLevels(proportions)), context);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Grower ration of common ingredients at their default inclusion limits
+    static FormulationProblem growerProblem() {
+        String[] names = { "Corn", "Soybean Meal", "Wheat Midds", "Barley", "Fish Meal", "Oats" };
+        double[] nutrients = {
+            8.5, 3.8, 2.2, 0.26,
+            44.0, 1.5, 3.5, 2.85,
+            16.0, 4.0, 7.5, 0.60,
+            11.5, 2.0, 5.0, 0.40,
+            60.0, 9.0, 1.0, 4.50,
+            11.0, 4.5, 10.5, 0.40,
+        };
+        double[] prices = { 0.12, 0.25, 0.10, 0.11, 0.60, 0.13 };
+        return new FormulationProblem(names, nutrients, prices).withTargets(TargetProfile.forStage("Grower", 1));
+    }
+}
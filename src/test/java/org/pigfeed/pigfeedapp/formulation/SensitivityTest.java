@@ -0,0 +1,158 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SensitivityTest {
+
+    private static final int TRIALS = 300;
+    private static final double SLOPE_TOLERANCE = 1e-5;
+
+    @Test
+    void dualIsTheSlopeOfTheCostOnTheBindingSide() {
+        SplittableRandom random = new SplittableRandom(22);
+        int matched = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            LpSpec spec = LpSpec.randomDiet(random, 3 + random.nextInt(20), FormulationProblem.NUTRIENT_COUNT);
+            LinearProgram.Solution solution = spec.build().solve();
+            spec.assertOptimal(solution);
+
+            for (int row = 0; row < spec.rows.size(); row++) {
+                double dual = solution.getDual(row);
+                double[] bounds = spec.rowBounds.get(row);
+                // The side the dual's sign says binds; an equality row moves as a whole
+                int side = dual >= 0 ? 0 : 1;
+                if (Double.isInfinite(bounds[side])) {
+                    assertEquals(0.0, dual, 1e-9, "trial " + trial + " row " + row);
+                    continue;
+                }
+                double step = 1e-4 * Math.max(1.0, Math.abs(bounds[side]));
+                double up = (movedCost(spec, row, side, step) - solution.getObjectiveValue()) / step;
+                double down = (solution.getObjectiveValue() - movedCost(spec, row, side, -step)) / step;
+
+                // The optimal cost is convex in a row bound, so the dual lies between the
+                // slopes on either side; where the two agree (no breakpoint) it equals them
+                String context = "trial " + trial + " row " + row + ": dual " + dual + ", slopes " + down + ", " + up;
+                assertTrue(down <= dual + SLOPE_TOLERANCE && dual <= up + SLOPE_TOLERANCE, context);
+                if (Math.abs(up - down) <= SLOPE_TOLERANCE && Math.abs(dual) > 1e-9) {
+                    assertEquals(up, dual, SLOPE_TOLERANCE, context);
+                    matched++;
+                }
+            }
+        }
+        // Most binding rows are not degenerate, so the exact comparison must have run often
+        assertTrue(matched >= TRIALS, "only " + matched + " binding rows had a single slope");
+    }
+
+    @Test
+    void solutionStaysOptimalWhileCostsStayInRange() {
+        SplittableRandom random = new SplittableRandom(23);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            LpSpec spec = LpSpec.randomDiet(random, 3 + random.nextInt(20), FormulationProblem.NUTRIENT_COUNT);
+            LinearProgram.Solution solution = spec.build().solve();
+            spec.assertOptimal(solution);
+
+            for (int j = 0; j < spec.cost.length; j++) {
+                double low = solution.getCostRangeLow(j);
+                double high = solution.getCostRangeHigh(j);
+                String context = "trial " + trial + " variable " + j;
+                assertTrue(low <= spec.cost[j] + 1e-12 && spec.cost[j] <= high + 1e-12, context);
+
+                // Anywhere in the range (an infinite end taken a unit out) keeps the same values optimal
+                double from = Double.isInfinite(low) ? spec.cost[j] - 1.0 : low;
+                double to = Double.isInfinite(high) ? spec.cost[j] + 1.0 : high;
+                LpSpec moved = spec.copy();
+                moved.cost[j] = from + (to - from) * random.nextDouble();
+                LinearProgram.Solution resolved = moved.build().solve();
+                assertTrue(resolved.isOptimal(), context);
+                assertEquals(moved.objective(solution.getValues()), resolved.getObjectiveValue(), 1e-9, context);
+            }
+        }
+    }
+
+    @Test
+    void nutrientCostPerTonMatchesReoptimizing() {
+        SplittableRandom random = new SplittableRandom(24);
+        int binding = 0;
+        for (int trial = 0; trial < 50; trial++) {
+            long seed = random.nextLong();
+            FormulationResult result = FormulationEngine.solveLeastCost(growerProblem(new SplittableRandom(seed)));
+            if (result == null) {
+                continue;
+            }
+            Sensitivity sensitivity = result.getSensitivity();
+            assertNotNull(sensitivity);
+            for (int k = 0; k < FormulationProblem.NUTRIENT_COUNT; k++) {
+                if (!sensitivity.isBinding(k)) {
+                    continue;
+                }
+                // Move the binding end of the range up 0.01 percentage point and solve again
+                FormulationProblem moved = growerProblem(new SplittableRandom(seed));
+                double step = 0.01;
+                if (sensitivity.getNutrientCostPerTon(k) > 0) {
+                    moved.setRange(k, moved.getMinLevel(k) + step, moved.getMaxLevel(k));
+                } else {
+                    moved.setRange(k, moved.getMinLevel(k), moved.getMaxLevel(k) + step);
+                }
+                FormulationResult resolved = FormulationEngine.solveLeastCost(moved);
+                if (resolved == null) {
+                    continue;
+                }
+                double perTon = (resolved.getCostPerLb() - result.getCostPerLb()) / step * FormulationProblem.LB_PER_TON;
+                // Another limit that starts to bind within the step makes the move dearer than quoted, never cheaper
+                String context = "trial " + trial + " " + FormulationProblem.getNutrientName(k);
+                assertTrue(perTon >= sensitivity.getNutrientCostPerTon(k) - 1e-6, context);
+                if (Math.abs(perTon - sensitivity.getNutrientCostPerTon(k)) < 1e-3) {
+                    binding++;
+                }
+            }
+        }
+        assertTrue(binding >= 20, "only " + binding + " binding limits matched re-optimizing");
+    }
+
+    // Optimal cost with one row bound (both ends of an equality row) moved by delta; +inf if infeasible
+    private static double movedCost(LpSpec spec, int row, int side, double delta) {
+        LpSpec moved = spec.copy();
+        double[] bounds = moved.rowBounds.get(row);
+        if (bounds[0] == bounds[1]) {
+            bounds[0] += delta;
+            bounds[1] += delta;
+        } else {
+            bounds[side] += delta;
+            if (bounds[0] > bounds[1]) {
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+        LinearProgram.Solution solution = moved.build().solve();
+        return solution.isOptimal() ? solution.getObjectiveValue() : Double.POSITIVE_INFINITY;
+    }
+
+    // A grower ration with prices scattered by up to 30% and the ranges by up to 10%
+    private static FormulationProblem growerProblem(SplittableRandom random) {
+        String[] names = { "Corn", "Soybean Meal", "Wheat Midds", "Barley", "Fish Meal", "Oats" };
+        double[] nutrients = {
+            8.5, 3.8, 2.2, 0.26,
+            44.0, 1.5, 3.5, 2.85,
+            16.0, 4.0, 7.5, 0.60,
+            11.5, 2.0, 5.0, 0.40,
+            60.0, 9.0, 1.0, 4.50,
+            11.0, 4.5, 10.5, 0.40,
+        };
+        double[] prices = { 0.12, 0.25, 0.10, 0.11, 0.60, 0.13 };
+        for (int j = 0; j < prices.length; j++) {
+            prices[j] *= 0.7 + random.nextDouble() * 0.6;
+        }
+        FormulationProblem problem = new FormulationProblem(names, nutrients, prices)
+            .withTargets(TargetProfile.forStage("Grower", 1));
+        for (int k = 0; k < FormulationProblem.NUTRIENT_COUNT; k++) {
+            double shift = 0.1 * (random.nextDouble() * 2 - 1) * problem.getMinLevel(k);
+            problem.setRange(k, problem.getMinLevel(k) + shift, problem.getMaxLevel(k) + shift);
+        }
+        return problem;
+    }
+}
@@ -0,0 +1,84 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Cold vs warm-started least-cost solves after the changes the app re-optimizes for: new
+ * prices (a purchase) and moved nutrient targets. Each program is solved once, perturbed,
+ * and then re-solved from scratch and from the first solve's basis; both times include
+ * building the program, as FormulationEngine.solveLeastCost does on every call.
+ *
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=org.pigfeed.pigfeedapp.formulation.WarmStartBenchmark \
+ *       -Dexec.args="3000"
+ *
+ * Argument: timed solves per size and change (default 3000, after as many warm-up solves).
+ */
+public class WarmStartBenchmark {
+
+    private static final int[] SIZES = { 20, 50, 200, 500 };
+
+    public static void main(String[] args) {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        System.out.printf("%,d timed solves per row, p50 including building the program%n", runs);
+        System.out.printf("%-12s %-16s %12s %12s %14s %14s%n",
+            "ingredients", "change", "cold p50", "warm p50", "cold pivots", "warm pivots");
+        for (int size : SIZES) {
+            for (String change : new String[] { "price +/-10%", "targets +/-1%" }) {
+                run(size, change, runs);
+            }
+        }
+    }
+
+    private static void run(int size, String change, int runs) {
+        // Warm-up and timed runs draw from the same fixed sequence of programs
+        SplittableRandom random = new SplittableRandom(size);
+        long[] coldNanos = new long[runs];
+        long[] warmNanos = new long[runs];
+        long coldPivots = 0;
+        long warmPivots = 0;
+        int warmStarted = 0;
+        for (int r = -runs; r < runs; r++) {
+            LpSpec spec = LpSpec.randomDiet(random, size, FormulationProblem.NUTRIENT_COUNT);
+            LinearProgram.Basis basis = spec.build().solve().getBasis();
+            LpSpec moved = spec.copy();
+            if (change.startsWith("price")) {
+                for (int j = 0; j < moved.cost.length; j++) {
+                    moved.cost[j] *= 0.9 + random.nextDouble() * 0.2;
+                }
+            } else {
+                for (int i = 1; i < moved.rows.size(); i++) {
+                    double[] bounds = moved.rowBounds.get(i);
+                    double shift = (random.nextDouble() * 0.02 - 0.01) * bounds[0];
+                    bounds[0] += shift;
+                    bounds[1] += shift;
+                }
+            }
+
+            long start = System.nanoTime();
+            LinearProgram.Solution cold = moved.build().solve();
+            long coldTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            LinearProgram.Solution warm = moved.build().solve(null, basis);
+            long warmTime = System.nanoTime() - start;
+
+            if (r >= 0) {
+                coldNanos[r] = coldTime;
+                warmNanos[r] = warmTime;
+                coldPivots += cold.getIterations();
+                warmPivots += warm.getIterations();
+                warmStarted += warm.isWarmStarted() ? 1 : 0;
+            }
+        }
+        System.out.printf("%-12d %-16s %9.1f us %9.1f us %14.1f %14.1f   (%d%% warm-started)%n",
+            size, change, median(coldNanos) / 1000.0, median(warmNanos) / 1000.0,
+            (double) coldPivots / runs, (double) warmPivots / runs, warmStarted * 100 / runs);
+    }
+
+    private static double median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
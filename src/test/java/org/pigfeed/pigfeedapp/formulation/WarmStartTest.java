@@ -0,0 +1,173 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WarmStartTest {
+
+    private static final int TRIALS = 400;
+
+    @Test
+    void priceChangesKeepTheBasisAndMatchColdSolve() {
+        SplittableRandom random = new SplittableRandom(16);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            LpSpec spec = LpSpec.randomDiet(random, 5 + random.nextInt(40), FormulationProblem.NUTRIENT_COUNT);
+            LpSpec moved = spec.copy();
+            movePrices(random, moved);
+
+            LinearProgram.Solution warm = compareWarmAndCold(spec, moved);
+            // The old basis is still primal feasible, so it is never thrown away
+            assertTrue(warm.isWarmStarted(), "trial " + trial);
+        }
+    }
+
+    @Test
+    void targetChangesMatchColdSolve() {
+        SplittableRandom random = new SplittableRandom(17);
+        int warmStarted = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            LpSpec spec = LpSpec.randomDiet(random, 5 + random.nextInt(40), FormulationProblem.NUTRIENT_COUNT);
+            LpSpec moved = spec.copy();
+            moveTargets(random, moved);
+
+            LinearProgram.Solution warm = compareWarmAndCold(spec, moved);
+            if (warm.isWarmStarted()) {
+                warmStarted++;
+            }
+        }
+        // Dual simplex repairs the old basis; only the odd infeasible target goes back to a cold solve
+        assertTrue(warmStarted >= TRIALS * 9 / 10, "warm-started " + warmStarted + " of " + TRIALS);
+    }
+
+    @Test
+    void priceAndTargetChangesTogetherMatchColdSolve() {
+        SplittableRandom random = new SplittableRandom(18);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            LpSpec spec = LpSpec.randomDiet(random, 5 + random.nextInt(40), FormulationProblem.NUTRIENT_COUNT);
+            LpSpec moved = spec.copy();
+            movePrices(random, moved);
+            moveTargets(random, moved);
+            compareWarmAndCold(spec, moved);
+        }
+    }
+
+    @Test
+    void basisOfAnotherShapeFallsBackToColdSolve() {
+        SplittableRandom random = new SplittableRandom(19);
+        LinearProgram.Solution other = LpSpec.randomDiet(random, 8, 3).build().solve();
+        LpSpec spec = LpSpec.randomDiet(random, 12, 4);
+
+        LinearProgram.Solution solution = spec.build().solve(null, other.getBasis());
+        assertFalse(solution.isWarmStarted());
+        spec.assertOptimal(solution);
+    }
+
+    @Test
+    void engineReoptimizesToTheColdOptimumAfterNewPricesAndRanges() {
+        SplittableRandom random = new SplittableRandom(20);
+        for (int trial = 0; trial < 100; trial++) {
+            // First solve leaves its basis in the store for this mix
+            WarmStarts warmStarts = new WarmStarts();
+            FormulationProblem first = growerProblem(random, 0.0);
+            assertNotNull(FormulationEngine.solveLeastCost(first, FormulationMonitor.NONE, warmStarts));
+            assertNotNull(warmStarts.get(first));
+
+            long seed = random.nextLong();
+            FormulationResult warm = FormulationEngine.solveLeastCost(growerProblem(new SplittableRandom(seed), 0.3),
+                FormulationMonitor.NONE, warmStarts);
+            FormulationResult cold = FormulationEngine.solveLeastCost(growerProblem(new SplittableRandom(seed), 0.3));
+
+            if (cold == null) {
+                assertNull(warm, "trial " + trial);
+            } else {
+                assertNotNull(warm, "trial " + trial);
+                assertEquals(cold.getCostPerLb(), warm.getCostPerLb(), 1e-9, "trial " + trial);
+            }
+        }
+    }
+
+    @Test
+    void solvesWithoutAStoreLeaveEveryStoreAlone() {
+        SplittableRandom random = new SplittableRandom(21);
+        FormulationProblem problem = growerProblem(random, 0.0);
+        WarmStarts mine = new WarmStarts();
+        assertNotNull(FormulationEngine.solveLeastCost(problem, FormulationMonitor.NONE, mine));
+        LinearProgram.Basis basis = mine.get(problem);
+        assertNotNull(basis);
+
+        // Cold solves and solves into someone else's store of the same mix don't touch it
+        WarmStarts theirs = new WarmStarts();
+        assertNull(theirs.get(problem));
+        for (int trial = 0; trial < 20; trial++) {
+            FormulationEngine.solveLeastCost(growerProblem(random, 0.3));
+            FormulationEngine.solveLeastCost(growerProblem(random, 0.3), FormulationMonitor.NONE, theirs);
+        }
+        assertNotNull(theirs.get(problem));
+        assertSame(basis, mine.get(problem));
+    }
+
+    // Solves the moved program from the original's basis and from scratch; both must agree
+    private static LinearProgram.Solution compareWarmAndCold(LpSpec spec, LpSpec moved) {
+        LinearProgram.Solution first = spec.build().solve();
+        spec.assertOptimal(first);
+
+        LinearProgram.Solution warm = moved.build().solve(null, first.getBasis());
+        LinearProgram.Solution cold = moved.build().solve();
+        assertEquals(cold.getStatus(), warm.getStatus());
+        if (cold.isOptimal()) {
+            assertEquals(cold.getObjectiveValue(), warm.getObjectiveValue(),
+                1e-9 * Math.max(1.0, Math.abs(cold.getObjectiveValue())));
+            moved.assertOptimal(warm);
+        }
+        return warm;
+    }
+
+    // Each price up or down by as much as half
+    private static void movePrices(SplittableRandom random, LpSpec spec) {
+        for (int j = 0; j < spec.cost.length; j++) {
+            spec.cost[j] *= 0.5 + random.nextDouble();
+        }
+    }
+
+    // Each nutrient range (every row after the sum row) shifted by up to 10% of its level
+    private static void moveTargets(SplittableRandom random, LpSpec spec) {
+        for (int i = 1; i < spec.rows.size(); i++) {
+            double[] bounds = spec.rowBounds.get(i);
+            double shift = (random.nextDouble() * 0.2 - 0.1) * Math.abs(bounds[0]);
+            bounds[0] += shift;
+            bounds[1] += shift;
+        }
+    }
+
+    // A grower ration of common ingredients; spread > 0 scatters the prices and ranges around the base
+    private static FormulationProblem growerProblem(SplittableRandom random, double spread) {
+        String[] names = { "Corn", "Soybean Meal", "Wheat Midds", "Barley", "Fish Meal", "Oats" };
+        double[] nutrients = {
+            8.5, 3.8, 2.2, 0.26,
+            44.0, 1.5, 3.5, 2.85,
+            16.0, 4.0, 7.5, 0.60,
+            11.5, 2.0, 5.0, 0.40,
+            60.0, 9.0, 1.0, 4.50,
+            11.0, 4.5, 10.5, 0.40,
+        };
+        double[] prices = { 0.12, 0.25, 0.10, 0.11, 0.60, 0.13 };
+        for (int j = 0; j < prices.length; j++) {
+            prices[j] *= 1.0 + spread * (random.nextDouble() * 2 - 1);
+        }
+        FormulationProblem problem = new FormulationProblem(names, nutrients, prices)
+            .withTargets(TargetProfile.forStage("Grower", 1));
+        for (int k = 0; k < FormulationProblem.NUTRIENT_COUNT; k++) {
+            double shift = spread / 3 * (random.nextDouble() * 2 - 1) * problem.getMinLevel(k);
+            problem.setRange(k, problem.getMinLevel(k) + shift, problem.getMaxLevel(k) + shift);
+        }
+        return problem;
+    }
+}
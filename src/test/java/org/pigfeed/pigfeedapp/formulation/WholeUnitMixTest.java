@@ -0,0 +1,136 @@
+package org.pigfeed.pigfeedapp.formulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WholeUnitMixTest {
+
+    private static final String[] NAMES = { "Corn", "Soybean Meal", "Wheat Midds", "Barley", "Fish Meal", "Oats" };
+    private static final double[] NUTRIENTS = {
+        8.5, 3.8, 2.2, 0.26,
+        44.0, 1.5, 3.5, 2.85,
+        16.0, 4.0, 7.5, 0.60,
+        11.5, 2.0, 5.0, 0.40,
+        60.0, 9.0, 1.0, 4.50,
+        11.0, 4.5, 10.5, 0.40,
+    };
+    private static final double[] PRICES = { 0.12, 0.25, 0.10, 0.11, 0.60, 0.13 };
+    private static final double[] UNIT_LBS = { 50, 50, 25, 50, 10, 25 };
+
+    @Test
+    void branchAndBoundFindsTheBruteForceOptimum() {
+        SplittableRandom random = new SplittableRandom(21);
+        int feasible = 0;
+        for (int trial = 0; trial < 60; trial++) {
+            FormulationProblem problem = randomProblem(random);
+            double minWeight = 100 + 50 * random.nextInt(3);
+            double maxWeight = minWeight + 50;
+
+            WholeUnitMix mix = FormulationEngine.formulateWholeUnits(problem, UNIT_LBS, minWeight, maxWeight,
+                60_000, FormulationMonitor.NONE);
+            double cheapest = bruteForceCost(problem, minWeight, maxWeight);
+
+            String context = "trial " + trial;
+            if (Double.isNaN(cheapest)) {
+                assertEquals(WholeUnitMix.Status.INFEASIBLE, mix.getStatus(), context);
+                assertFalse(mix.hasMix(), context);
+                continue;
+            }
+            feasible++;
+            assertEquals(WholeUnitMix.Status.OPTIMAL, mix.getStatus(), context);
+            assertEquals(cheapest, mix.getTotalCost(), 1e-6, context);
+            assertEquals(0.0, mix.getGap(), context);
+            double weight = 0.0;
+            for (int i = 0; i < NAMES.length; i++) {
+                weight += mix.getWeight(i);
+            }
+            assertEquals(weight, mix.getTotalWeight(), 1e-9, context);
+            assertTrue(weight >= minWeight - 1e-9 && weight <= maxWeight + 1e-9, context);
+        }
+        // Otherwise the comparison above proved little
+        assertTrue(feasible >= 20, "only " + feasible + " trials had a whole-unit mix");
+    }
+
+    @Test
+    void infeasibleTargetsFindNoMix() {
+        FormulationProblem problem = new FormulationProblem(NAMES, NUTRIENTS, PRICES)
+            .withTargets(TargetProfile.forStage("Grower", 1));
+        // More protein than fish meal alone has
+        problem.setRange(0, 70.0, 75.0);
+
+        WholeUnitMix mix = FormulationEngine.formulateWholeUnits(problem, UNIT_LBS, 100, 150,
+            60_000, FormulationMonitor.NONE);
+        assertEquals(WholeUnitMix.Status.INFEASIBLE, mix.getStatus());
+        assertFalse(mix.hasMix());
+    }
+
+    // Grower targets, prices scattered by up to 30%, now and then an inclusion cap
+    private static FormulationProblem randomProblem(SplittableRandom random) {
+        double[] prices = PRICES.clone();
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] *= 0.7 + random.nextDouble() * 0.6;
+        }
+        FormulationProblem problem = new FormulationProblem(NAMES, NUTRIENTS, prices)
+            .withTargets(TargetProfile.forStage("Grower", 1));
+        if (random.nextBoolean()) {
+            int capped = random.nextInt(NAMES.length);
+            problem.setInclusionBounds(capped, 0.0, 0.2 + random.nextDouble() * 0.3);
+        }
+        return problem;
+    }
+
+    // Cheapest total cost over every whole-unit mix in the weight range, NaN if none fits
+    private static double bruteForceCost(FormulationProblem problem, double minWeight, double maxWeight) {
+        int n = NAMES.length;
+        int[] hi = new int[n];
+        for (int i = 0; i < n; i++) {
+            hi[i] = (int) Math.floor(maxWeight / UNIT_LBS[i] + 1e-9);
+        }
+        int[] units = new int[n];
+        double cheapest = Double.NaN;
+        while (true) {
+            double total = 0.0;
+            double cost = 0.0;
+            for (int i = 0; i < n; i++) {
+                total += units[i] * UNIT_LBS[i];
+                cost += units[i] * UNIT_LBS[i] * problem.getPrice(i);
+            }
+            if (total >= minWeight && total <= maxWeight && fits(problem, units, total)
+                    && !(cost >= cheapest)) {
+                cheapest = cost;
+            }
+
+            // Next combination of unit counts, odometer style
+            int i = 0;
+            while (i < n && units[i] == hi[i]) {
+                units[i++] = 0;
+            }
+            if (i == n) {
+                return cheapest;
+            }
+            units[i]++;
+        }
+    }
+
+    private static boolean fits(FormulationProblem problem, int[] units, double total) {
+        double[] proportions = new double[units.length];
+        for (int i = 0; i < units.length; i++) {
+            proportions[i] = units[i] * UNIT_LBS[i] / total;
+            if (proportions[i] < problem.getMinInclusion(i) - 1e-7 || proportions[i] > problem.getMaxInclusion(i) + 1e-7) {
+                return false;
+            }
+        }
+        double[] levels = problem.nutrientLevels(proportions);
+        for (int k = 0; k < FormulationProblem.NUTRIENT_COUNT; k++) {
+            if (problem.distanceOutside(k, levels[k]) > 1e-7) {
+                return false;
+            }
+        }
+        return true;
+    }
+}